@@ -0,0 +1,79 @@
+package com.psas.cbws.scan;
+
+import java.util.Random;
+
+/**
+ * Compares the scalar & vectorized boundary scanners on a large synthetic corpus & verifies that they produce
+ * identical results. Run with:
+ * <pre>java --add-modules jdk.incubator.vector -cp target/classes com.psas.cbws.scan.BoundaryScanBenchmark [megabytes]</pre>
+ */
+public final class BoundaryScanBenchmark {
+    /** Timed iterations per scanner after warm up. */
+    private static final int WARM_UP_ITERATIONS = 5, ITERATIONS = 10;
+
+    private BoundaryScanBenchmark() {}
+
+    public static void main(final String[] args) {
+        final int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        final byte[] corpus = generateCorpus(megabytes * 1024 * 1024, new Random(42));
+        final BoundaryScanner vector = new VectorBoundaryScanner();
+
+        final BoundaryCandidates expected = ScalarBoundaryScanner.INSTANCE.scan(corpus);
+        final BoundaryCandidates actual = vector.scan(corpus);
+        if (!expected.equals(actual)) throw new IllegalStateException("Scanner results differ.");
+        System.out.printf("Corpus: %d MB, %s, vector length %d bytes%n", megabytes, expected, VectorBoundaryScanner.getVectorLength());
+
+        report("Scalar", ScalarBoundaryScanner.INSTANCE, corpus);
+        report("Vector", vector, corpus);
+    }
+
+    /**
+     * Times a scanner & prints its throughput.
+     *
+     * @param name    Scanner name to print.
+     * @param scanner The scanner.
+     * @param corpus  Bytes to scan.
+     */
+    private static void report(final String name, final BoundaryScanner scanner, final byte[] corpus) {
+        long markers = 0;
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) markers += scanner.scan(corpus).getMarkerCount();
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) markers += scanner.scan(corpus).getMarkerCount();
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        final double megabytesPerSecond = (double) corpus.length * ITERATIONS / (1024 * 1024) / seconds;
+        System.out.printf("%s: %.1f MB/s (%d markers)%n", name, megabytesPerSecond, markers);
+    }
+
+    /**
+     * Generates bytes shaped like concatenated CBWS functions: short random bodies containing scattered null bytes,
+     * separated by 12, 15 or 16 byte null runs & function start markers.
+     *
+     * @param size   Corpus size in bytes.
+     * @param random Random source.
+     *
+     * @return The corpus.
+     */
+    private static byte[] generateCorpus(final int size, final Random random) {
+        final byte[] corpus = new byte[size];
+        int offset = 0;
+        while (offset < size - 256) {
+            // Function start marker.
+            corpus[offset + 3] = BoundaryScanner.MARKER_BYTE;
+            offset += BoundaryScanner.MARKER_LENGTH;
+
+            // Function body. Roughly a quarter of the bytes are null, as in real attribute data.
+            final int bodyLength = 24 + random.nextInt(160);
+            for (int i = 0; i < bodyLength; i++)
+                corpus[offset + i] = random.nextInt(4) == 0 ? 0 : (byte) (1 + random.nextInt(255));
+            offset += bodyLength;
+
+            // Terminator. The array is already zeroed, so only the frame byte needs writing.
+            final int terminator = new int[]{12, 15, 16}[random.nextInt(3)];
+            offset += terminator;
+            if (terminator == 15) corpus[offset++] = (byte) (1 + random.nextInt(60));
+        }
+        return corpus;
+    }
+}
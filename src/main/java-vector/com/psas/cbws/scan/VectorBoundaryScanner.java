@@ -0,0 +1,111 @@
+package com.psas.cbws.scan;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Boundary scanner built on the JDK Vector API. Each step compares a whole vector of bytes (16, 32 or 64 depending on
+ * the CPU) against zero & the marker byte, producing one bit per lane. Null runs are then found with bit arithmetic on
+ * those masks rather than by visiting lanes: the leading & trailing null lanes of a vector end & start runs that cross
+ * vector boundaries, and runs inside a vector are only examined when some lane begins 12 consecutive null lanes.
+ *
+ * <p>Only compiled by the {@code vector} build profile & only used when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}. Results are identical to {@link ScalarBoundaryScanner}.</p>
+ */
+public final class VectorBoundaryScanner implements BoundaryScanner {
+    /**
+     * Widest vector shape supported by the CPU, capped at 256 bits. Mask to bit conversions of 512-bit vectors are
+     * not intrinsified on JDK 17 & are several times slower than scanning 256 bits at a time.
+     */
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.vectorBitSize() > 256
+            ? ByteVector.SPECIES_256
+            : ByteVector.SPECIES_PREFERRED;
+
+    /** Number of bytes compared per step. */
+    private static final int LANES = SPECIES.length();
+
+    /** Mask with one bit set per lane. */
+    private static final long ALL_LANES = LANES == Long.SIZE ? -1L : (1L << LANES) - 1;
+
+    /** Mask of the lanes whose marker check needs bytes from the previous vector. */
+    private static final long FIRST_MARKER_LANES = (1L << (MARKER_LENGTH - 1)) - 1;
+
+    /** Public constructor for reflective loading by {@link BoundaryScanners}. */
+    public VectorBoundaryScanner() {}
+
+    @Override
+    public BoundaryCandidates scan(final byte[] bytes, final int from, final int to) {
+        final BoundaryCandidates candidates = new BoundaryCandidates();
+        final int upperBound = from + SPECIES.loopBound(to - from);
+
+        int runStart = -1;
+        for (int i = from; i < upperBound; i += LANES) {
+            final ByteVector vector = ByteVector.fromArray(SPECIES, bytes, i);
+            final long zeros = vector.eq((byte) 0).toLong();
+
+            // A vector of null bytes either extends the current run or starts a new one.
+            if (zeros == ALL_LANES) {
+                if (runStart < 0) runStart = i;
+                continue;
+            }
+
+            // Leading null lanes end the run in progress, or form a complete run of their own.
+            final int leading = Long.numberOfTrailingZeros(~zeros);
+            if (runStart < 0 && leading > 0) runStart = i;
+            ScalarBoundaryScanner.endRun(runStart, i + leading, candidates);
+
+            // Look for runs contained entirely within the vector.
+            final int trailing = Long.numberOfLeadingZeros(~zeros << (Long.SIZE - LANES));
+            final long inner = (zeros >>> leading << leading) & (ALL_LANES >>> trailing);
+            if (inner != 0) findInnerRuns(inner, i, candidates);
+
+            // Trailing null lanes start a run that may continue into the next vector.
+            runStart = trailing > 0 ? i + LANES - trailing : -1;
+
+            // A marker is a marker byte preceded by three null bytes.
+            final VectorMask<Byte> markerMask = vector.eq(MARKER_BYTE);
+            if (!markerMask.anyTrue()) continue;
+            final long markerBytes = markerMask.toLong();
+            for (long lanes = markerBytes & FIRST_MARKER_LANES; lanes != 0; lanes &= lanes - 1)
+                ScalarBoundaryScanner.checkMarker(bytes, from, i + Long.numberOfTrailingZeros(lanes), candidates);
+            long markers = markerBytes & (zeros << 1) & (zeros << 2) & (zeros << 3) & ~FIRST_MARKER_LANES;
+            for (; markers != 0; markers &= markers - 1)
+                candidates.addMarker(i + Long.numberOfTrailingZeros(markers) - (MARKER_LENGTH - 1));
+        }
+
+        // Scan the remaining bytes that do not fill a vector.
+        runStart = ScalarBoundaryScanner.scanRange(bytes, from, upperBound, to, runStart, candidates);
+        ScalarBoundaryScanner.endRun(runStart, to, candidates);
+        return candidates;
+    }
+
+    /**
+     * Records null runs that start & end within a single vector.
+     *
+     * @param inner      Null lane mask with the leading & trailing null lanes cleared.
+     * @param offset     Offset of the vector's first lane.
+     * @param candidates Candidates to add to.
+     */
+    private static void findInnerRuns(final long inner, final int offset, final BoundaryCandidates candidates) {
+        // Keep only lanes that begin at least MIN_NULL_RUN consecutive null lanes.
+        long longRuns = inner;
+        for (int shift = 1; shift < MIN_NULL_RUN && longRuns != 0; shift++) longRuns &= inner >>> shift;
+        if (longRuns == 0) return;
+
+        // Of those, the lanes not preceded by a null lane are run starts.
+        for (long starts = longRuns & ~(inner << 1); starts != 0; starts &= starts - 1) {
+            final int lane = Long.numberOfTrailingZeros(starts);
+            candidates.addNullRun(offset + lane, Long.numberOfTrailingZeros(~(inner >>> lane)));
+        }
+    }
+
+    /**
+     * Returns the number of bytes compared per step.
+     *
+     * @return The vector length in bytes.
+     */
+    public static int getVectorLength() {
+        return LANES;
+    }
+}
@@ -1,9 +1,16 @@
 package com.psas;
 
+import com.psas.cbws.ParseLimits;
+import com.psas.cbws.WorkspaceSession;
+import com.psas.geometry.Region;
+import com.psas.report.CrossReferences;
+import com.psas.search.NameHash;
+
 import net.sourceforge.argparse4j.ArgumentParsers;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.MutuallyExclusiveGroup;
 import net.sourceforge.argparse4j.inf.Namespace;
 
 public class Args {
@@ -17,11 +24,175 @@ public class Args {
     private static volatile Namespace arguments;
 
     static {
-        parser.addArgument("--file", "-f")
+        // Exactly one mode must be selected: translate a single file or run one of the batch commands.
+        final MutuallyExclusiveGroup mode = parser.addMutuallyExclusiveGroup("mode").required(true);
+        mode.addArgument("--file", "-f")
                 .action(Arguments.store())
                 .help("Path to file to translate.")
                 .metavar("path/to/file.cbws")
-                .required(true)
+                .type(String.class);
+        mode.addArgument("--workspace", "-w")
+                .action(Arguments.store())
+                .help("Edit every script in a directory, switching between them without losing unwritten edits.")
+                .metavar("path/to/workspace")
+                .type(String.class);
+        mode.addArgument("--package")
+                .action(Arguments.store())
+                .help("Package modified scripts in a workspace directory into a ZIP archive.")
+                .metavar("path/to/workspace")
+                .type(String.class);
+        mode.addArgument("--frame-data")
+                .action(Arguments.store())
+                .help("Write a frame data table for every move script in a directory or corpus pack.")
+                .metavar("path/to/scripts")
+                .type(String.class);
+        mode.addArgument("--stats")
+                .action(Arguments.store())
+                .help("Write label & attribute statistics for every script in a directory or corpus pack.")
+                .metavar("path/to/scripts")
+                .type(String.class);
+        mode.addArgument("--xref")
+                .action(Arguments.store())
+                .help("Index the asset names referenced by string attributes of every script in a directory or corpus "
+                        + "pack. An existing index at the output path is updated incrementally.")
+                .metavar("path/to/scripts")
+                .type(String.class);
+        mode.addArgument("--refs")
+                .action(Arguments.store())
+                .help("List the assets a script references, or the scripts referencing an asset, using the index "
+                        + "written by --xref.")
+                .metavar("name")
+                .type(String.class);
+        mode.addArgument("--hitboxes")
+                .action(Arguments.store())
+                .help("Index the hit boxes of every move script in a directory or corpus pack & compare the reach of "
+                        + "each character, or with --region, list the moves whose hit boxes reach a region.")
+                .metavar("path/to/scripts")
+                .type(String.class);
+        mode.addArgument("--pack")
+                .action(Arguments.store())
+                .help("Pack every script in a directory into a single corpus pack file. An existing pack at the output "
+                        + "path is updated incrementally.")
+                .metavar("path/to/scripts")
+                .type(String.class);
+
+        mode.addArgument("--translate")
+                .action(Arguments.store())
+                .help("Write the translated file info of every script in a directory or corpus pack to one text file.")
+                .metavar("path/to/scripts")
+                .type(String.class);
+        mode.addArgument("--search")
+                .action(Arguments.store())
+                .help("Search every script in a directory or corpus pack for the byte patterns given by --pattern & "
+                        + "list each match with the function containing it.")
+                .metavar("path/to/scripts")
+                .type(String.class);
+        mode.addArgument("--signatures")
+                .action(Arguments.store())
+                .help("Propose function schema signatures for the numeric attributes of every script in a directory "
+                        + "or corpus pack that decode as Unknown.")
+                .metavar("path/to/scripts")
+                .type(String.class);
+        mode.addArgument("--name-ids")
+                .action(Arguments.store())
+                .help("Name the unknown 4-byte IDs of every script in a directory or corpus pack by hashing its labels "
+                        + "& strings & the words given by --words.")
+                .metavar("path/to/scripts")
+                .type(String.class);
+        mode.addArgument("--disassemble")
+                .action(Arguments.store())
+                .help("Write every script in a directory or corpus pack as editable assembly source that --assemble "
+                        + "compiles back to the same bytes.")
+                .metavar("path/to/scripts")
+                .type(String.class);
+        mode.addArgument("--assemble")
+                .action(Arguments.store())
+                .help("Compile every assembly source in a directory into scripts. Sources unchanged since the last "
+                        + "run into the same output directory are skipped.")
+                .metavar("path/to/sources")
+                .type(String.class);
+
+        parser.addArgument("--baseline")
+                .action(Arguments.store())
+                .help("Unmodified copy of the scripts, as a directory or corpus pack. Used by --package to select "
+                        + "scripts by content hash instead of modification logs.")
+                .metavar("path/to/baseline")
+                .type(String.class);
+        parser.addArgument("--reset-log")
+                .action(Arguments.storeTrue())
+                .help("After --package succeeds, delete the modification logs in the workspace so the next package "
+                        + "only includes scripts written after this one.");
+        parser.addArgument("--ids")
+                .action(Arguments.store())
+                .help("Data file of additional 4-byte IDs (hit reactions, flags) to recognise.")
+                .metavar("path/to/ids.txt")
+                .type(String.class);
+        parser.addArgument("--schema")
+                .action(Arguments.store())
+                .help("Function schema to use instead of the bundled one.")
+                .metavar("path/to/function-schema.txt")
+                .type(String.class);
+        parser.addArgument("--index")
+                .action(Arguments.store())
+                .help("Reference index read by --refs.")
+                .metavar("path/to/index")
+                .setDefault(CrossReferences.DEFAULT_INDEX)
+                .type(String.class);
+        parser.addArgument("--region")
+                .action(Arguments.store())
+                .help("Region queried by --hitboxes, in the character's local space facing +X.")
+                .metavar("minX,minY,maxX,maxY")
+                .type((parser, argument, value) -> {
+                    // Reject malformed regions as usage errors rather than failing once the reports are built.
+                    try { return Region.parse(value); }
+                    catch (final IllegalArgumentException e) { throw new ArgumentParserException(e.getMessage(), parser, argument); }
+                });
+        parser.addArgument("--frame")
+                .action(Arguments.store())
+                .help("Absolute frame on which hit boxes queried by --region must be active. Any frame if omitted.")
+                .metavar("frame")
+                .setDefault(-1)
+                .type(Integer.class);
+        parser.addArgument("--pattern")
+                .action(Arguments.append())
+                .help("Byte pattern searched for by --search, as hex & function schema names joined by '+'. '??' "
+                        + "matches any byte. Repeat to search for several patterns at once.")
+                .metavar("hex")
+                .type(String.class);
+        parser.addArgument("--words")
+                .action(Arguments.append())
+                .help("Word list of candidate names hashed by --name-ids, one per line. Repeat to use several lists.")
+                .metavar("path/to/words.txt")
+                .type(String.class);
+        parser.addArgument("--hash")
+                .action(Arguments.append())
+                .help("Hash function tried by --name-ids. Repeat to try several. Every function if omitted.")
+                .metavar("function")
+                .type(Arguments.enumType(NameHash.class));
+        parser.addArgument("--max-bytes")
+                .action(Arguments.store())
+                .help("Largest script, in bytes, that batch commands parse. Larger scripts are skipped & reported.")
+                .metavar("bytes")
+                .setDefault(ParseLimits.DEFAULT_MAX_BYTES)
+                .type(Long.class);
+        parser.addArgument("--time-limit")
+                .action(Arguments.store())
+                .help("Longest time, in milliseconds, that batch commands spend parsing one script. Slower scripts are "
+                        + "skipped & reported.")
+                .metavar("ms")
+                .setDefault(ParseLimits.DEFAULT_TIMEOUT.toMillis())
+                .type(Long.class);
+        parser.addArgument("--cache-size")
+                .action(Arguments.store())
+                .help("Approximate memory, in MiB, used by --workspace to keep parsed scripts. Scripts with unwritten "
+                        + "edits are always kept.")
+                .metavar("MiB")
+                .setDefault(WorkspaceSession.DEFAULT_CACHE_BYTES >> 20)
+                .type(Long.class);
+        parser.addArgument("--output", "-o")
+                .action(Arguments.store())
+                .help("Output path for batch commands.")
+                .metavar("path/to/output")
                 .type(String.class);
     }
 
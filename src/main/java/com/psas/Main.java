@@ -1,10 +1,36 @@
 package com.psas;
 
+import com.psas.asm.AssemblyCompiler;
 import com.psas.cbws.CBWS;
+import com.psas.cbws.EditJournal;
+import com.psas.cbws.HexViewer;
+import com.psas.cbws.ParseLimits;
+import com.psas.cbws.ScriptRenderer;
+import com.psas.cbws.Section;
+import com.psas.cbws.WorkspaceSession;
+import com.psas.corpus.CorpusPack;
 import com.psas.function.Function;
+import com.psas.function.FunctionSchema;
+import com.psas.function.IdDictionary;
+import com.psas.geometry.Region;
+import com.psas.mod.ModPackager;
+import com.psas.mod.ModificationLog;
+import com.psas.report.CorpusStats;
+import com.psas.report.CrossReferences;
+import com.psas.report.FrameDataTable;
+import com.psas.report.HitBoxReport;
+import com.psas.report.IdNameSearch;
+import com.psas.report.SignatureDiscovery;
+import com.psas.report.SignatureSearch;
+import com.psas.report.TranslationDump;
+import com.psas.search.NameHash;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.InputMismatchException;
+import java.util.List;
 import java.util.Scanner;
 
 import static com.psas.Args.getArguments;
@@ -13,24 +39,168 @@ import static com.psas.Args.setArguments;
 public class Main {
     private static final Scanner SCANNER = new Scanner(System.in);
 
-    public static void main(final String[] args) throws FileNotFoundException {
+    /** Number of lines shown on each page of the hex viewer. */
+    private static final int HEX_VIEWER_LINES = 16;
+
+    /** Workspace being edited, or null when a single file is edited. */
+    private static WorkspaceSession session;
+
+    public static void main(final String[] args) throws IOException {
         // Parse command line args.
         setArguments(args);
 
+        // Load additional IDs before anything is parsed.
+        final String ids = getArguments().getString("ids");
+        if (ids != null) IdDictionary.extend(Path.of(ids));
+        final String schema = getArguments().getString("schema");
+        if (schema != null) FunctionSchema.load(Path.of(schema));
+
+        // Run batch commands if requested. Each script is parsed within the budgets so one bad script cannot stall a batch.
+        final ParseLimits limits = new ParseLimits(
+                getArguments().getLong("max_bytes"), Duration.ofMillis(getArguments().getLong("time_limit"))
+        );
+        final String workspace = getArguments().getString("package");
+        if (workspace != null) {
+            final String baseline = getArguments().getString("baseline");
+            final String output = getArguments().getString("output");
+            new ModPackager(
+                    Path.of(workspace),
+                    baseline == null ? null : Path.of(baseline),
+                    Path.of(output == null ? "mod-package.zip" : output)
+            ).run();
+            if (getArguments().getBoolean("reset_log"))
+                System.out.printf("Cleared %d modification logs%n", ModificationLog.clear(Path.of(workspace)));
+            return;
+        }
+        final String frameDataDirectory = getArguments().getString("frame_data");
+        if (frameDataDirectory != null) {
+            final String output = getArguments().getString("output");
+            new FrameDataTable(Path.of(frameDataDirectory), Path.of(output == null ? "frame-data.tsv" : output), limits).run();
+            return;
+        }
+        final String statsDirectory = getArguments().getString("stats");
+        if (statsDirectory != null) {
+            final String output = getArguments().getString("output");
+            new CorpusStats(Path.of(statsDirectory), Path.of(output == null ? "corpus-stats.txt" : output), limits).run();
+            return;
+        }
+        final String xrefDirectory = getArguments().getString("xref");
+        if (xrefDirectory != null) {
+            final String output = getArguments().getString("output");
+            new CrossReferences(Path.of(xrefDirectory), Path.of(output == null ? CrossReferences.DEFAULT_INDEX : output), limits).run();
+            return;
+        }
+        final String reference = getArguments().getString("refs");
+        if (reference != null) {
+            CrossReferences.query(Path.of(getArguments().getString("index")), reference);
+            return;
+        }
+        final String hitBoxDirectory = getArguments().getString("hitboxes");
+        if (hitBoxDirectory != null) {
+            final String output = getArguments().getString("output");
+            final HitBoxReport report = new HitBoxReport(Path.of(hitBoxDirectory), Path.of(output == null ? "hitbox-reach.tsv" : output), limits);
+            final Region region = getArguments().get("region");
+            if (region == null) report.run();
+            else report.query(region, getArguments().getInt("frame"));
+            return;
+        }
+        final String packDirectory = getArguments().getString("pack");
+        if (packDirectory != null) {
+            final String output = getArguments().getString("output");
+            CorpusPack.build(Path.of(packDirectory), Path.of(output == null ? "corpus" + CorpusPack.PACK_EXTENSION : output));
+            return;
+        }
+        final String translateDirectory = getArguments().getString("translate");
+        if (translateDirectory != null) {
+            final String output = getArguments().getString("output");
+            new TranslationDump(Path.of(translateDirectory), Path.of(output == null ? "translated.txt" : output), limits).run();
+            return;
+        }
+        final String searchDirectory = getArguments().getString("search");
+        if (searchDirectory != null) {
+            final List<String> patterns = getArguments().getList("pattern");
+            if (patterns == null) {
+                System.out.println("--search requires at least one --pattern.");
+                return;
+            }
+            final String output = getArguments().getString("output");
+            final SignatureSearch search;
+            try { search = new SignatureSearch(Path.of(searchDirectory), patterns, output == null ? null : Path.of(output), limits); }
+            catch (final IllegalArgumentException e) {
+                System.out.printf("Invalid --pattern: %s%n", e.getMessage());
+                return;
+            }
+            search.run();
+            return;
+        }
+        final String signatureDirectory = getArguments().getString("signatures");
+        if (signatureDirectory != null) {
+            final String output = getArguments().getString("output");
+            new SignatureDiscovery(Path.of(signatureDirectory), Path.of(output == null ? "signature-candidates.txt" : output), limits).run();
+            return;
+        }
+        final String nameDirectory = getArguments().getString("name_ids");
+        if (nameDirectory != null) {
+            final List<String> words = getArguments().getList("words");
+            final List<NameHash> hashes = getArguments().getList("hash");
+            final String output = getArguments().getString("output");
+            new IdNameSearch(Path.of(nameDirectory),
+                    words == null ? List.of() : words.stream().map(Path::of).toList(),
+                    hashes == null ? List.of(NameHash.values()) : hashes.stream().distinct().toList(),
+                    Path.of(output == null ? "id-names.txt" : output), limits).run();
+            return;
+        }
+        final String disassembleDirectory = getArguments().getString("disassemble");
+        if (disassembleDirectory != null) {
+            final String output = getArguments().getString("output");
+            new AssemblyCompiler(Path.of(disassembleDirectory), Path.of(output == null ? "disassembly" : output), limits).disassemble();
+            return;
+        }
+        final String assembleDirectory = getArguments().getString("assemble");
+        if (assembleDirectory != null) {
+            final String output = getArguments().getString("output");
+            new AssemblyCompiler(Path.of(assembleDirectory), Path.of(output == null ? "assembled" : output), limits).assemble();
+            return;
+        }
+
+        // Edit a whole workspace, starting with its first script.
+        final String workspaceDirectory = getArguments().getString("workspace");
+        if (workspaceDirectory != null) {
+            session = new WorkspaceSession(Path.of(workspaceDirectory), getArguments().getLong("cache_size") << 20);
+            if (session.size() == 0) {
+                System.out.printf("No CBWS scripts found in \"%s\".%n", workspaceDirectory);
+                return;
+            }
+            CBWS cbws = session.open(0);
+            while (true) cbws = promptGlobalOptions(cbws);
+        }
+
         // Get file path from args.
         final String path = getArguments().getString("file");
 
         // Initialize parsed CBWS.
-        final CBWS cbws = new CBWS(path);
+        CBWS cbws = new CBWS(path);
 
-        while (true) promptGlobalOptions(cbws);
+        while (true) cbws = promptGlobalOptions(cbws);
     }
 
-    private static void promptGlobalOptions(final CBWS cbws) {
+    /**
+     * Prompts the user for an action on the current file.
+     *
+     * @param cbws Reference to the current CBWS object.
+     *
+     * @return The CBWS object to continue with, which differs from the current one after switching scripts in a
+     *         workspace.
+     */
+    private static CBWS promptGlobalOptions(final CBWS cbws) {
         System.out.println();
+        if (session != null) {
+            System.out.printf("Script %d of %d: %s%s%n", session.getCurrentIndex() + 1, session.size(),
+                    session.getName(session.getCurrentIndex()), cbws.isModified() ? " (modified)" : "");
+        }
         System.out.println("""
                 Options:
-                     1: Display file hex.
+                     1: View file hex.
                      2: Display translated file info.
                      3: Display file header.
                      4: Display frame one functions.
@@ -41,12 +211,27 @@ public class Main {
                      9: Modify an intermediate function.
                     10: Modify a final frame function.
                     11: Modify an impact frame function.
-                    12: Add a frame one function (not implemented).
-                    13: Add an intermediate function (not implemented).
-                    14: Add a final frame function (not implemented).
-                    15: Add an impact frame function (not implemented).
+                    12: Add a frame one function.
+                    13: Add an intermediate function.
+                    14: Add a final frame function.
+                    15: Add an impact frame function.
                     16: Modify frame delay.
-                    
+                    17: Display active frame windows.
+                    18: Undo last edit.
+                    19: Redo last undone edit.
+                    20: Save edit log.
+                    21: Replay edit log.
+                """
+        );
+        if (session != null) {
+            System.out.println("""
+                        22: Open another script in the workspace.
+                        23: Open the next script.
+                        24: Open the previous script.
+                    """
+            );
+        }
+        System.out.println("""
                     98: Write changes to file.
                     99: Exit the program.
                 """
@@ -67,7 +252,7 @@ public class Main {
         }
 
         switch (selection) {
-            case 1 -> System.out.println(cbws.getHex());
+            case 1 -> viewFileHex(cbws);
             case 2 -> cbws.printFileInfo();
             case 3 -> cbws.printFileHeader();
             case 4 -> cbws.printFirstFrameFunctions();
@@ -78,15 +263,166 @@ public class Main {
             case 9 -> modifyIntermediateFunction(cbws);
             case 10 -> modifyFinalFrameFunction(cbws);
             case 11 -> modifyImpactFrameFunction(cbws);
+            case 12 -> addFunction(cbws, Section.FIRST_FRAME);
+            case 13 -> addFunction(cbws, Section.INTERMEDIATE);
+            case 14 -> addFunction(cbws, Section.FINAL_FRAME);
+            case 15 -> addFunction(cbws, Section.IMPACT_FRAME);
 
             case 16 -> {
                 final int frameDelay = promptIntegerResponse("Enter new frame delay: ");
                 cbws.setFrameDelay(frameDelay);
             }
+            case 17 -> cbws.printActiveFrameWindows();
+            case 18 -> System.out.println(cbws.undo() ? "Edit undone." : "Nothing to undo.");
+            case 19 -> System.out.println(cbws.redo() ? "Edit redone." : "Nothing to redo.");
+            case 20 -> {
+                final String path = promptStringResponse("Enter edit log path: ");
+                try {
+                    cbws.getJournal().save(Path.of(path));
+                    System.out.printf("Saved %d edits.%n", cbws.getJournal().getUndoCount());
+                }
+                catch (final IOException e) { System.out.printf("Unable to save edit log: %s%n", e.getMessage()); }
+            }
+            case 21 -> {
+                final String path = promptStringResponse("Enter edit log path: ");
+                try { System.out.printf("Replayed %d edits.%n", EditJournal.replay(Path.of(path), cbws)); }
+                catch (final IOException | IllegalArgumentException e) {
+                    System.out.printf("Unable to replay edit log: %s%n", e.getMessage());
+                }
+            }
+            case 22 -> { if (session != null) return openScript(cbws); }
+            case 23 -> { if (session != null) return switchScript(cbws, session.getCurrentIndex() + 1); }
+            case 24 -> { if (session != null) return switchScript(cbws, session.getCurrentIndex() - 1); }
 
-            case 98 -> cbws.write();
-            case 99 -> System.exit(0);
+            case 98 -> {
+                try { cbws.write(); }
+                catch (final IOException | IllegalArgumentException e) {
+                    System.out.printf("Unable to write \"%s\": %s%n", cbws.getFile(), e.getMessage());
+                }
+            }
+            case 99 -> {
+                if (session != null) {
+                    final List<String> modified = session.getModifiedNames();
+                    if (!modified.isEmpty()) {
+                        System.out.printf("Unwritten changes in %d scripts:%n", modified.size());
+                        for (final String name : modified) System.out.printf("    %s%n", name);
+                        if (!promptYesNoResponse("Exit without writing them?")) return cbws;
+                    }
+                }
+                System.exit(0);
+            }
         }
+        return cbws;
+    }
+
+    /**
+     * Prompts the user for a script in the workspace by number or by part of its name & opens it.
+     *
+     * @param cbws Reference to the current CBWS object.
+     *
+     * @return The opened script, or the current one if nothing was opened.
+     */
+    private static CBWS openScript(final CBWS cbws) {
+        final String query = promptStringResponse("Enter script number or part of its name: ").trim();
+        try { return switchScript(cbws, Integer.parseInt(query) - 1); }
+        catch (final NumberFormatException ignored) {}
+
+        final List<String> names = session.getNames();
+        int match = -1, matches = 0;
+        for (int i = 0; i < names.size(); i++) {
+            if (!names.get(i).contains(query)) continue;
+            if (matches++ < 20) System.out.printf("%5d: %s%n", i + 1, names.get(i));
+            match = i;
+        }
+        if (matches == 0) System.out.printf("No script matches \"%s\".%n", query);
+        else if (matches > 20) System.out.printf("... %d more.%n", matches - 20);
+        if (matches != 1) return cbws;
+        return switchScript(cbws, match);
+    }
+
+    /**
+     * Opens a script in the workspace. Edits to the current script are kept & remain there when switching back.
+     *
+     * @param cbws  Reference to the current CBWS object.
+     * @param index Index of the script to open.
+     *
+     * @return The opened script, or the current one if it could not be opened.
+     */
+    private static CBWS switchScript(final CBWS cbws, final int index) {
+        if (index < 0 || index >= session.size()) {
+            System.out.println("No script there.");
+            return cbws;
+        }
+        try { return session.open(index); }
+        catch (final IOException | IllegalArgumentException e) {
+            System.out.printf("Unable to open \"%s\": %s%n", session.getName(index), e.getMessage());
+            return cbws;
+        }
+    }
+
+    /**
+     * Pages through the file hex, starting at the first byte.
+     *
+     * @param cbws Reference to the CBWS object.
+     */
+    private static void viewFileHex(final CBWS cbws) {
+        final HexViewer viewer = new HexViewer(cbws.snapshot());
+        final int pageSize = HEX_VIEWER_LINES * HexViewer.BYTES_PER_LINE;
+        int offset = 0;
+
+        while (true) {
+            System.out.print(viewer.render(offset, HEX_VIEWER_LINES));
+            System.out.println();
+            System.out.println("""
+                    Hex Viewer (sections: 1 first frame, 2 intermediate, 3 final frame, 4 impact frame)
+                        n: Next page.
+                        p: Previous page.
+                        o <hex offset>: Go to offset.
+                        f <section> <function>: Go to function.
+                        a <section> <function> <attribute>: Go to attribute.
+                        q: Return to options.
+                    """
+            );
+            final String[] command = promptStringResponse("Enter a command: ").split("\\s+");
+
+            // Resolve the requested offset. Invalid requests leave the window where it is.
+            int target = offset;
+            try {
+                switch (command[0].toLowerCase()) {
+                    case "n" -> target = offset + pageSize;
+                    case "p" -> target = offset - pageSize;
+                    case "o" -> target = Integer.parseInt(command[1], 16);
+                    case "f" -> target = viewer.getFunctionOffset(getSection(command[1]), Integer.parseInt(command[2]));
+                    case "a" -> target = viewer.getAttributeOffset(
+                            getSection(command[1]), Integer.parseInt(command[2]), Integer.parseInt(command[3])
+                    );
+                    case "q" -> { return; }
+                    default -> System.out.printf("Unknown command: %s%n", command[0]);
+                }
+            }
+            catch (final IndexOutOfBoundsException | IllegalArgumentException e) {
+                System.out.println("Invalid command.");
+            }
+
+            if (target < 0) System.out.println("No such function or attribute.");
+            else offset = Math.min(target, Math.max(0, viewer.size() - 1)) / HexViewer.BYTES_PER_LINE * HexViewer.BYTES_PER_LINE;
+        }
+    }
+
+    /**
+     * Returns the section selected by its number in the hex viewer.
+     *
+     * @param number The section number, starting from 1.
+     *
+     * @return The section.
+     *
+     * @throws IllegalArgumentException Indicates the number does not select a section.
+     */
+    private static Section getSection(final String number) {
+        final int index = Integer.parseInt(number) - 1;
+        if (index < 0 || index >= Section.values().length)
+            throw new IllegalArgumentException(String.format("No section %s.", number));
+        return Section.values()[index];
     }
 
     public static int promptIntegerResponse(final String message) {
@@ -123,6 +459,17 @@ public class Main {
         return input;
     }
 
+    public static String promptStringResponse(final String message) {
+        System.out.print(message);
+        while (true) {
+            // Skip the remainder of the line left behind by previous numeric prompts.
+            final String input = SCANNER.nextLine().strip();
+            if (input.isEmpty()) continue;
+            System.out.println();
+            return input;
+        }
+    }
+
     public static boolean promptYesNoResponse(final String message) {
         while (true) {
             System.out.printf("%s (y/n): ", message);
@@ -140,12 +487,12 @@ public class Main {
      */
     private static void modifyFirstFrameFunction(final CBWS cbws) {
         cbws.printFirstFrameFunctions();
-        int index = promptIntegerResponse("Enter function index: ");
+        final int index = promptIntegerResponse("Enter function index: ");
 
-        final Function function = cbws.getFirstFrameFunction(index);
-        System.out.println(function);
-        index = promptIntegerResponse("Enter attribute index: ");
-        function.modifyAttribute(index);
+        cbws.editFunction(Section.FIRST_FRAME, index, function -> {
+            System.out.println(function);
+            function.modifyAttribute(promptIntegerResponse("Enter attribute index: "));
+        });
     }
 
     /**
@@ -156,8 +503,7 @@ public class Main {
     private static void modifyIntermediateFunction(final CBWS cbws) {
         cbws.printIntermediateFunctions();
         final int functionIndex = promptIntegerResponse("Enter function index: ");
-        final Function function = cbws.getIntermediateFunction(functionIndex);
-        System.out.println(function);
+        System.out.println(cbws.getIntermediateFunction(functionIndex));
 
         System.out.println("""
                 Options
@@ -173,9 +519,9 @@ public class Main {
         switch (selection) {
             case 1 -> {
                 final int attributeIndex = promptIntegerResponse("Enter attribute index: ");
-                function.modifyAttribute(attributeIndex);
+                cbws.editFunction(Section.INTERMEDIATE, functionIndex, function -> function.modifyAttribute(attributeIndex));
             }
-            case 2 -> {
+            case 2 -> cbws.editFunction(Section.INTERMEDIATE, functionIndex, function -> {
                 System.out.println("""
                             Note: If the new frame does not respect the frame of the previous & next function, the game \
                             will simply execute it on the previous function's frame."""
@@ -188,15 +534,83 @@ public class Main {
                     function.setFrame((byte) frame);
                     break;
                 }
-            }
+            });
             case 3 -> {
                 final int newIndex = promptIntegerResponse("Enter new function index: ");
                 cbws.changeIntermediateFunctionIndex(functionIndex, newIndex);
             }
-            case 4 -> cbws.removeIntermediateFunction(functionIndex);
+            case 4 -> {
+                try { cbws.removeIntermediateFunction(functionIndex); }
+                catch (final IndexOutOfBoundsException | IllegalArgumentException e) {
+                    System.out.printf("Unable to remove function: %s%n", e.getMessage());
+                }
+            }
         }
     }
 
+    /**
+     * Prompts the user for a function to insert into a section: a copy of a function in this file or another file, or
+     * function hex.
+     *
+     * @param cbws    Reference to the CBWS object.
+     * @param section The section to insert into.
+     */
+    private static void addFunction(final CBWS cbws, final Section section) {
+        System.out.println("""
+                    Insert:
+                        1: A copy of a function in this file.
+                        2: A copy of a function in another file.
+                        3: A function from hex.
+                        4: Cancel.
+                """
+        );
+        final Function function;
+        try {
+            switch (promptIntegerResponse("Enter a selection: ")) {
+                case 1 -> function = promptSourceFunction(cbws);
+                case 2 -> {
+                    final Path path = Path.of(promptStringResponse("Enter file path: "));
+                    function = promptSourceFunction(new CBWS(path.toFile(), Files.readAllBytes(path)));
+                }
+                case 3 -> function = new Function(promptStringResponse("Enter function hex: ").toUpperCase());
+                default -> { return; }
+            }
+        }
+        catch (final IOException | RuntimeException e) {
+            System.out.printf("Unable to read function: %s%n", e.getMessage());
+            return;
+        }
+        if (function == null) return;
+
+        final int size = cbws.getFunctions(section).size();
+        final int index = promptIntegerResponse(String.format("Enter index to insert at (0-%d): ", size));
+        try {
+            cbws.addFunction(section, index, function);
+            System.out.printf("Inserted %s at %s function %d.%n", function.getLabel(), section, index);
+        }
+        catch (final IndexOutOfBoundsException | IllegalArgumentException e) {
+            System.out.printf("Unable to insert function: %s%n", e.getMessage());
+        }
+    }
+
+    /**
+     * Prompts the user to pick a function from a file.
+     *
+     * @param source The file to pick from.
+     *
+     * @return The picked function, or null if the index was out of bounds.
+     *
+     * @throws IllegalArgumentException Indicates the section number does not select a section.
+     */
+    private static Function promptSourceFunction(final CBWS source) {
+        final Section section = getSection(promptStringResponse("Enter section (1 first frame, 2 intermediate, 3 final frame, 4 impact frame): "));
+        final List<Function> functions = source.getFunctions(section);
+        ScriptRenderer.print(renderer -> renderer.renderFunctions(functions));
+        final int index = promptIntegerResponse("Enter function index: ");
+        if (index < 0 || index >= functions.size()) return null;
+        return functions.get(index);
+    }
+
     /**
      * Prompts the user to modify a final frame function.
      *
@@ -204,12 +618,12 @@ public class Main {
      */
     private static void modifyFinalFrameFunction(final CBWS cbws) {
         cbws.printFinalFrameFunctions();
-        int index = promptIntegerResponse("Enter function index: ");
+        final int index = promptIntegerResponse("Enter function index: ");
 
-        final Function function = cbws.getFinalFrameFunction(index);
-        System.out.println(function);
-        index = promptIntegerResponse("Enter attribute index: ");
-        function.modifyAttribute(index);
+        cbws.editFunction(Section.FINAL_FRAME, index, function -> {
+            System.out.println(function);
+            function.modifyAttribute(promptIntegerResponse("Enter attribute index: "));
+        });
     }
 
     /**
@@ -219,11 +633,11 @@ public class Main {
      */
     private static void modifyImpactFrameFunction(final CBWS cbws) {
         cbws.printImpactFrameFunctions();
-        int index = promptIntegerResponse("Enter function index: ");
+        final int index = promptIntegerResponse("Enter function index: ");
 
-        final Function function = cbws.getImpactFrameFunction(index);
-        System.out.println(function);
-        index = promptIntegerResponse("Enter attribute index: ");
-        function.modifyAttribute(index);
+        cbws.editFunction(Section.IMPACT_FRAME, index, function -> {
+            System.out.println(function);
+            function.modifyAttribute(promptIntegerResponse("Enter attribute index: "));
+        });
     }
 }
\ No newline at end of file
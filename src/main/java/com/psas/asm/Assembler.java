@@ -0,0 +1,414 @@
+package com.psas.asm;
+
+import com.psas.cbws.Section;
+import com.psas.cbws.stream.CBWSVisitor;
+import com.psas.cbws.stream.StreamingParser;
+import com.psas.function.IdCategory;
+import com.psas.function.IdDictionary;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compiles assembly text written by {@link Disassembler} back into CBWS bytes.
+ * <p>
+ * The text is line based. It starts with {@code cbws-asm 1} & a {@code header} line, followed by {@code function}
+ * blocks in file order & an optional {@code trailer} block. Each block holds {@code bytes} lines of opaque hex & typed
+ * lines ({@code float}, {@code string}, {@code id} & {@code frame}) that are written in their place. A {@code #}
+ * outside a quoted string starts a comment. Once assembled, the bytes are parsed again to check every function is read
+ * back in the section it was declared in.
+ */
+public final class Assembler {
+    /** First token of an assembly file. */
+    public static final String MAGIC = "cbws-asm";
+
+    /** Version of the assembly format. */
+    public static final int VERSION = 1;
+
+    /** Length of the file header, in bytes. */
+    static final int HEADER_LENGTH = 16;
+
+    /** Value of the header function count that is computed from the functions. */
+    private static final String AUTO = "auto";
+
+    /** Name of the source, used in error messages. */
+    private final String sourceName;
+
+    /** The assembled bytes. */
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    /** Declared section of each function, in file order. */
+    private final ArrayList<Section> sections = new ArrayList<>();
+
+    /** Length of each function, in file order. */
+    private final ArrayList<Integer> lengths = new ArrayList<>();
+
+    /** Number of the line being assembled, starting at 1. */
+    private int lineNumber;
+
+    /**
+     * Constructs an assembler for one source.
+     *
+     * @param sourceName Name of the source, used in error messages.
+     */
+    private Assembler(final String sourceName) {
+        this.sourceName = sourceName;
+    }
+
+    /**
+     * Assembles a source.
+     *
+     * @param text       The assembly text.
+     * @param sourceName Name of the source, used in error messages.
+     *
+     * @return The CBWS bytes.
+     *
+     * @throws IllegalArgumentException Indicates the text is not valid assembly. The message starts with the source
+     *                                  name & line number.
+     */
+    public static byte[] assemble(final String text, final String sourceName) {
+        return new Assembler(sourceName).run(text);
+    }
+
+    /**
+     * Quotes text so {@link #tokenize} reads it back as a single token.
+     *
+     * @param text The text.
+     *
+     * @return The quoted text.
+     */
+    static String quote(final String text) {
+        return '"' + text.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * Assembles the text.
+     *
+     * @param text The assembly text.
+     *
+     * @return The CBWS bytes.
+     */
+    private byte[] run(final String text) {
+        final String[] lines = text.split("\r?\n", -1);
+        String functionCount = null;
+        ByteArrayOutputStream block = null;
+        Section section = null;
+        boolean magicRead = false, headerRead = false, trailerRead = false;
+
+        for (lineNumber = 1; lineNumber <= lines.length; lineNumber++) {
+            final List<String> tokens = tokenize(lines[lineNumber - 1]);
+            if (tokens.isEmpty()) continue;
+            final String keyword = tokens.get(0);
+
+            if (!magicRead) {
+                if (!keyword.equals(MAGIC) || tokens.size() != 2 || !tokens.get(1).equals(String.valueOf(VERSION)))
+                    throw error("Expected \"%s %d\".", MAGIC, VERSION);
+                magicRead = true;
+                continue;
+            }
+
+            if (block != null) {
+                // Inside a function or the trailer.
+                switch (keyword) {
+                    case "end" -> {
+                        expect(tokens, 1);
+                        if (section != null) {
+                            sections.add(section);
+                            lengths.add(block.size());
+                        }
+                        output.writeBytes(block.toByteArray());
+                        block = null;
+                        section = null;
+                    }
+                    case "bytes" -> {
+                        expect(tokens, 2);
+                        block.writeBytes(parseHex(tokens.get(1)));
+                    }
+                    case "float" -> {
+                        expect(tokens, 3);
+                        final String value = tokens.get(2);
+                        final int bits = value.startsWith("0x") ? parseBits(value) : Float.floatToRawIntBits(parseFloat(value));
+                        block.writeBytes(ByteBuffer.allocate(4).putInt(bits).array());
+                    }
+                    case "string" -> {
+                        expect(tokens, 3);
+                        final String value = tokens.get(2);
+                        for (int i = 0; i < value.length(); i++)
+                            if (value.charAt(i) > 0xFF) throw error("\"%s\" is not a single byte character.", value.charAt(i));
+                        block.writeBytes(value.getBytes(StandardCharsets.ISO_8859_1));
+                    }
+                    case "id" -> {
+                        expect(tokens, 4);
+                        block.writeBytes(ByteBuffer.allocate(4).putInt(parseId(tokens.get(1), tokens.get(3))).array());
+                    }
+                    case "frame" -> {
+                        expect(tokens, 2);
+                        final int frame = parseInt(tokens.get(1));
+                        if (frame < 0 || frame > 0xFF) throw error("Frame %d is not between 0 & 255.", frame);
+                        block.write(frame);
+                    }
+                    default -> throw error("Unknown statement \"%s\" inside a block.", keyword);
+                }
+                continue;
+            }
+
+            switch (keyword) {
+                case "header" -> {
+                    if (headerRead) throw error("The header is declared twice.");
+                    functionCount = writeHeader(tokens);
+                    headerRead = true;
+                }
+                case "function" -> {
+                    if (!headerRead) throw error("Functions must follow the header.");
+                    if (trailerRead) throw error("Functions must precede the trailer.");
+                    if (tokens.size() < 2 || tokens.size() > 3) throw error("Expected a section & a quoted label.");
+                    try { section = Section.valueOf(tokens.get(1)); }
+                    catch (final IllegalArgumentException e) { throw error("Unknown section \"%s\".", tokens.get(1)); }
+                    block = new ByteArrayOutputStream();
+                }
+                case "trailer" -> {
+                    if (!headerRead) throw error("The trailer must follow the header.");
+                    if (trailerRead) throw error("The trailer is declared twice.");
+                    expect(tokens, 1);
+                    trailerRead = true;
+                    block = new ByteArrayOutputStream();
+                }
+                default -> throw error("Unknown statement \"%s\".", keyword);
+            }
+        }
+        lineNumber = lines.length;
+        if (block != null) throw error("The last block has no \"end\".");
+        if (!headerRead) throw error("The header is missing.");
+
+        final byte[] bytes = output.toByteArray();
+        if (functionCount.equals(AUTO)) ByteBuffer.wrap(bytes).putInt(8, countHeaderFunctions());
+        verify(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes the file header.
+     *
+     * @param tokens Tokens of the header line.
+     *
+     * @return The declared function count, which may be {@link #AUTO}.
+     */
+    private String writeHeader(final List<String> tokens) {
+        final HashMap<String, String> values = new HashMap<>();
+        for (final String token : tokens.subList(1, tokens.size())) {
+            final int separator = token.indexOf('=');
+            if (separator < 0) throw error("Expected key=value but found \"%s\".", token);
+            values.put(token.substring(0, separator), token.substring(separator + 1));
+        }
+        for (final String key : List.of("type", "unknown", "functions", "delay"))
+            if (!values.containsKey(key)) throw error("The header has no %s.", key);
+
+        final String type = values.get("type");
+        final byte[] typeBytes;
+        if (type.startsWith("0x")) typeBytes = ByteBuffer.allocate(4).putInt(parseBits(type)).array();
+        else if (type.length() == 4) typeBytes = type.getBytes(StandardCharsets.ISO_8859_1);
+        else throw error("File type \"%s\" is not 4 characters.", type);
+
+        final String functions = values.get("functions");
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH)
+                .put(typeBytes)
+                .putInt(parseInt(values.get("unknown")))
+                .putInt(functions.equals(AUTO) ? 0 : parseInt(functions))
+                .putInt(parseInt(values.get("delay")));
+        output.writeBytes(header.array());
+        return functions;
+    }
+
+    /**
+     * Returns the header function count of the declared functions: every intermediate & impact frame function, plus 1
+     * if there are any first or final frame functions.
+     *
+     * @return The function count.
+     */
+    private int countHeaderFunctions() {
+        int count = 0;
+        boolean frameFunctions = false;
+        for (final Section section : sections) {
+            if (section == Section.INTERMEDIATE || section == Section.IMPACT_FRAME) count++;
+            else frameFunctions = true;
+        }
+        return count + (frameFunctions ? 1 : 0);
+    }
+
+    /**
+     * Checks that parsing the bytes reads back the declared functions.
+     *
+     * @param bytes The assembled bytes.
+     *
+     * @throws IllegalArgumentException Indicates a function would be read back differently.
+     */
+    private void verify(final byte[] bytes) {
+        final EnumMap<Section, Integer> counts = new EnumMap<>(Section.class);
+        final ArrayList<Section> parsedSections = new ArrayList<>();
+        final ArrayList<Integer> parsedLengths = new ArrayList<>();
+        final StreamingParser parser = new StreamingParser(new CBWSVisitor() {
+            @Override
+            public void visitFunctionEnd(final Section section, final int index, final long offset, final int length) {
+                parsedSections.add(section);
+                parsedLengths.add(length);
+            }
+        });
+        parser.feed(bytes, 0, bytes.length);
+        parser.finish();
+
+        for (int i = 0; i < sections.size(); i++) {
+            counts.merge(sections.get(i), 1, Integer::sum);
+            if (i < parsedSections.size() && sections.get(i) == parsedSections.get(i) && lengths.get(i).equals(parsedLengths.get(i)))
+                continue;
+            throw new IllegalArgumentException(String.format(
+                    "%s: %s function %d would not be read back as written; check the bytes that start & end it.",
+                    sourceName, sections.get(i).toString().toLowerCase(), counts.get(sections.get(i)) - 1));
+        }
+        if (parsedSections.size() > sections.size()) {
+            throw new IllegalArgumentException(String.format(
+                    "%s: the trailer would be read back as %d more functions.", sourceName, parsedSections.size() - sections.size()));
+        }
+    }
+
+    /**
+     * Splits a line into tokens. Quoted tokens may contain spaces, {@code \"} & {@code \\}. A {@code #} outside quotes
+     * ends the line.
+     *
+     * @param line The line.
+     *
+     * @return The tokens, with quotes & escapes removed.
+     */
+    private List<String> tokenize(final String line) {
+        final ArrayList<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < line.length()) {
+            final char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            }
+            else if (c == '#') {
+                break;
+            }
+            else if (c == '"') {
+                final StringBuilder token = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= line.length()) throw error("Unterminated string.");
+                    final char next = line.charAt(i++);
+                    if (next == '"') break;
+                    if (next == '\\') {
+                        if (i >= line.length()) throw error("Unterminated string.");
+                        token.append(line.charAt(i++));
+                    }
+                    else token.append(next);
+                }
+                tokens.add(token.toString());
+            }
+            else {
+                final int start = i;
+                while (i < line.length() && !Character.isWhitespace(line.charAt(i)) && line.charAt(i) != '#') i++;
+                tokens.add(line.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Checks the number of tokens of a statement.
+     *
+     * @param tokens The tokens.
+     * @param count  The expected number of tokens.
+     */
+    private void expect(final List<String> tokens, final int count) {
+        if (tokens.size() != count) throw error("\"%s\" takes %d values but has %d.", tokens.get(0), count - 1, tokens.size() - 1);
+    }
+
+    /**
+     * Parses hex bytes.
+     *
+     * @param hex The hex.
+     *
+     * @return The bytes.
+     */
+    private byte[] parseHex(final String hex) {
+        if (hex.length() % 2 != 0) throw error("\"%s\" has an odd number of hex digits.", hex);
+        final byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            final int high = Character.digit(hex.charAt(i * 2), 16), low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) throw error("\"%s\" is not hex.", hex);
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    /**
+     * Parses 32 bits written as {@code 0x} & 8 hex digits.
+     *
+     * @param text The text.
+     *
+     * @return The bits.
+     */
+    private int parseBits(final String text) {
+        if (text.length() != 10) throw error("\"%s\" is not 0x followed by 8 hex digits.", text);
+        return ByteBuffer.wrap(parseHex(text.substring(2))).getInt();
+    }
+
+    /**
+     * Parses a decimal integer.
+     *
+     * @param text The text.
+     *
+     * @return The integer.
+     */
+    private int parseInt(final String text) {
+        try { return Integer.parseInt(text); }
+        catch (final NumberFormatException e) { throw error("\"%s\" is not an integer.", text); }
+    }
+
+    /**
+     * Parses a float.
+     *
+     * @param text The text.
+     *
+     * @return The float.
+     */
+    private float parseFloat(final String text) {
+        try { return Float.parseFloat(text); }
+        catch (final NumberFormatException e) { throw error("\"%s\" is not a float.", text); }
+    }
+
+    /**
+     * Parses a 4-byte ID written as a dictionary name or as {@code 0x} & 8 hex digits.
+     *
+     * @param categoryName Name of the ID category.
+     * @param text         The ID text.
+     *
+     * @return The ID.
+     */
+    private int parseId(final String categoryName, final String text) {
+        final IdCategory category;
+        try { category = IdCategory.valueOf(categoryName); }
+        catch (final IllegalArgumentException e) { throw error("Unknown ID category \"%s\".", categoryName); }
+        if (text.startsWith("0x") && text.length() == 10) return parseBits(text);
+        final int id = IdDictionary.get().getId(category, text);
+        if (id == IdDictionary.NOT_FOUND) throw error("Unknown %s \"%s\".", category.toString().toLowerCase(), text);
+        return id;
+    }
+
+    /**
+     * Creates an error for the current line.
+     *
+     * @param format    The message format.
+     * @param arguments The message arguments.
+     *
+     * @return The exception to throw.
+     */
+    private IllegalArgumentException error(final String format, final Object... arguments) {
+        return new IllegalArgumentException(String.format("%s:%d: %s", sourceName, lineNumber, String.format(format, arguments)));
+    }
+}
@@ -0,0 +1,231 @@
+package com.psas.asm;
+
+import com.psas.cbws.CBWSParseException;
+import com.psas.cbws.ParseLimits;
+import com.psas.corpus.Corpus;
+import com.psas.corpus.ScriptSource;
+import com.psas.mod.ModificationLog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Converts whole directories between CBWS scripts & assembly sources, one file per script, in parallel.
+ * <p>
+ * Assembling is incremental: the output directory keeps a cache of the source & output hash of every script, & a
+ * source whose hash is unchanged is skipped as long as its output still has the recorded hash. Outputs are only
+ * rewritten when their bytes change, & every rewritten script is recorded in its {@link ModificationLog} so it is
+ * picked up by {@code --package}.
+ */
+public final class AssemblyCompiler {
+    /** Extension of assembly sources. */
+    public static final String ASSEMBLY_EXTENSION = ".cbwsasm";
+
+    /** Name of the cache kept in the output directory of {@link #assemble()}. */
+    public static final String CACHE_FILE_NAME = ".cbwsasm-cache";
+
+    /** Outcome of assembling one source. */
+    private enum Outcome { COMPILED, WRITTEN, UNCHANGED, FAILED }
+
+    /**
+     * Cache entry of a source that was assembled.
+     *
+     * @param sourceHash Content hash of the source.
+     * @param outputHash Content hash of the assembled script.
+     */
+    private record Entry(String sourceHash, String outputHash) {}
+
+    /** Directory or corpus pack to read from. */
+    private final Path input;
+
+    /** Directory to write to. */
+    private final Path output;
+
+    /** Budgets applied to each script that is disassembled. */
+    private final ParseLimits limits;
+
+    /**
+     * Constructs a compiler.
+     *
+     * @param input  Directory or corpus pack of scripts to disassemble, or directory of sources to assemble.
+     * @param output Directory to write to. It is created if needed.
+     * @param limits Budgets applied to each script that is disassembled. Larger scripts are skipped & reported.
+     */
+    public AssemblyCompiler(final Path input, final Path output, final ParseLimits limits) {
+        this.input = input;
+        this.output = output;
+        this.limits = limits;
+    }
+
+    /**
+     * Disassembles every script, writing each source to the script's relative path with {@link #ASSEMBLY_EXTENSION}.
+     *
+     * @throws IOException Indicates the scripts could not be read or a source could not be written.
+     */
+    public void disassemble() throws IOException {
+        final AtomicInteger written = new AtomicInteger(), failed = new AtomicInteger();
+        try (final ScriptSource scripts = ScriptSource.open(input)) {
+            IntStream.range(0, scripts.size()).parallel().forEach(index -> {
+                final String name = scripts.name(index);
+                try {
+                    limits.checkSize(scripts.length(index));
+                    final String text = Disassembler.disassemble(scripts.bytes(index));
+                    final Path source = output.resolve(withExtension(name, Corpus.SCRIPT_EXTENSION, ASSEMBLY_EXTENSION));
+                    Files.createDirectories(source.getParent());
+                    Files.writeString(source, text, StandardCharsets.UTF_8);
+                    written.incrementAndGet();
+                }
+                catch (final IOException e) { throw new UncheckedIOException(e); }
+                catch (final RuntimeException e) {
+                    System.out.println(CBWSParseException.describe(name, e));
+                    failed.incrementAndGet();
+                }
+            });
+        }
+        catch (final UncheckedIOException e) { throw e.getCause(); }
+        System.out.printf("Disassembled %d scripts to %s (%d failed)%n", written.get(), output, failed.get());
+    }
+
+    /**
+     * Assembles every source below the input directory, writing each script to the source's relative path with
+     * {@link Corpus#SCRIPT_EXTENSION}. Sources that fail to assemble are reported & their scripts left as they are.
+     *
+     * @throws IOException Indicates the sources could not be read or a script could not be written.
+     */
+    public void assemble() throws IOException {
+        final List<Path> sources;
+        try (final Stream<Path> paths = Files.walk(input)) {
+            sources = paths
+                    .filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase().endsWith(ASSEMBLY_EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+        Files.createDirectories(output);
+        final Path cachePath = output.resolve(CACHE_FILE_NAME);
+        final Map<String, Entry> previous = readCache(cachePath);
+
+        final long start = System.nanoTime();
+        final String[] names = new String[sources.size()];
+        final Entry[] entries = new Entry[sources.size()];
+        final List<Outcome> outcomes;
+        try {
+            outcomes = IntStream.range(0, sources.size()).parallel().mapToObj(i -> {
+                names[i] = Corpus.relativeName(input, sources.get(i));
+                try { return assemble(sources.get(i), names[i], previous.get(names[i]), entries, i); }
+                catch (final IOException e) { throw new UncheckedIOException(e); }
+            }).toList();
+        }
+        catch (final UncheckedIOException e) { throw e.getCause(); }
+
+        try (final BufferedWriter writer = Files.newBufferedWriter(cachePath, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < names.length; i++) {
+                if (entries[i] == null) continue;
+                writer.write(String.join("\t", names[i], entries[i].sourceHash(), entries[i].outputHash()));
+                writer.newLine();
+            }
+        }
+
+        final int[] counts = new int[Outcome.values().length];
+        for (final Outcome outcome : outcomes) counts[outcome.ordinal()]++;
+        System.out.printf("Assembled %d sources to %s in %d ms (%d compiled, %d written, %d unchanged, %d failed)%n",
+                sources.size(), output, (System.nanoTime() - start) / 1_000_000,
+                counts[Outcome.COMPILED.ordinal()] + counts[Outcome.WRITTEN.ordinal()], counts[Outcome.WRITTEN.ordinal()],
+                counts[Outcome.UNCHANGED.ordinal()], counts[Outcome.FAILED.ordinal()]);
+    }
+
+    /**
+     * Assembles one source unless its cache entry shows it is unchanged.
+     *
+     * @param source   Path of the source.
+     * @param name     Name of the source relative to the input directory.
+     * @param previous Cache entry of the source from the previous run, or null.
+     * @param entries  Cache entries of this run, by source index.
+     * @param index    Index of the source.
+     *
+     * @return What was done with the source.
+     *
+     * @throws IOException Indicates the source could not be read or the script could not be written.
+     */
+    private Outcome assemble(final Path source, final String name, final Entry previous, final Entry[] entries,
+                             final int index) throws IOException {
+        final byte[] sourceBytes = Files.readAllBytes(source);
+        final String sourceHash = Corpus.contentHash(sourceBytes);
+        final Path script = output.resolve(withExtension(name, ASSEMBLY_EXTENSION, Corpus.SCRIPT_EXTENSION));
+        final byte[] existing = Files.isRegularFile(script) ? Files.readAllBytes(script) : null;
+
+        if (previous != null && existing != null && previous.sourceHash().equals(sourceHash)
+                && previous.outputHash().equals(Corpus.contentHash(existing))) {
+            entries[index] = previous;
+            return Outcome.UNCHANGED;
+        }
+
+        final byte[] bytes;
+        try { bytes = Assembler.assemble(new String(sourceBytes, StandardCharsets.UTF_8), name); }
+        catch (final CBWSParseException e) {
+            System.out.println(CBWSParseException.describe(name, e));
+            return Outcome.FAILED;
+        }
+        catch (final IllegalArgumentException e) {
+            // Assembly errors already start with the source name & line.
+            System.out.println("Skipping " + e.getMessage());
+            return Outcome.FAILED;
+        }
+        entries[index] = new Entry(sourceHash, Corpus.contentHash(bytes));
+        if (existing != null && Arrays.equals(existing, bytes)) return Outcome.COMPILED;
+
+        Files.createDirectories(script.getParent());
+        Files.write(script, bytes);
+        ModificationLog.record(script);
+        return Outcome.WRITTEN;
+    }
+
+    /**
+     * Reads the cache of the previous run.
+     *
+     * @param path Path of the cache.
+     *
+     * @return Cache entries by source name, empty if there is no readable cache.
+     */
+    private static Map<String, Entry> readCache(final Path path) {
+        final HashMap<String, Entry> entries = new HashMap<>();
+        if (!Files.isRegularFile(path)) return entries;
+        try {
+            for (final String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                final String[] fields = line.split("\t");
+                if (fields.length == 3) entries.put(fields[0], new Entry(fields[1], fields[2]));
+            }
+        }
+        catch (final IOException e) {
+            // An unreadable cache only means every source is assembled again.
+            System.out.printf("Ignoring previous cache \"%s\": %s%n", path, e.getMessage());
+            entries.clear();
+        }
+        return entries;
+    }
+
+    /**
+     * Replaces the extension of a name.
+     *
+     * @param name      The name.
+     * @param extension The extension to replace, matched without regard to case.
+     * @param added     The extension to add.
+     *
+     * @return The name with the new extension.
+     */
+    private static String withExtension(final String name, final String extension, final String added) {
+        final boolean matches = name.toLowerCase().endsWith(extension);
+        return (matches ? name.substring(0, name.length() - extension.length()) : name) + added;
+    }
+}
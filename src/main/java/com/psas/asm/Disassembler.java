@@ -0,0 +1,210 @@
+package com.psas.asm;
+
+import com.psas.cbws.Section;
+import com.psas.cbws.stream.CBWSVisitor;
+import com.psas.cbws.stream.StreamingParser;
+import com.psas.function.Attribute;
+import com.psas.function.Function;
+import com.psas.function.IdDictionary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+
+import static org.apache.commons.codec.binary.Hex.encodeHexString;
+
+/**
+ * Translates CBWS bytes into assembly text that {@link Assembler} compiles back to the same bytes.
+ * <p>
+ * Functions are written in file order, each tagged with its section. A function's bytes are split into opaque
+ * {@code bytes} lines & typed lines for the values the translator understands: floats, strings, 4-byte IDs & the
+ * frame byte. Editing a typed line changes only the bytes it covers. Attributes whose bytes cannot be located exactly,
+ * such as flags, are written as comments. Bytes after the last function are kept in a {@code trailer} block.
+ */
+public final class Disassembler {
+    /** Number of bytes written on each {@code bytes} line. */
+    private static final int BYTES_PER_LINE = 32;
+
+    /** Indentation of the lines inside a block. */
+    private static final String INDENT = "    ";
+
+    private Disassembler() {}
+
+    /**
+     * A typed value covering a span of a function's bytes.
+     *
+     * @param start  Offset of the first byte within the function.
+     * @param length Number of bytes covered.
+     * @param line   The assembly line, without indentation.
+     */
+    private record Span(int start, int length, String line) {}
+
+    /**
+     * Disassembles a file.
+     *
+     * @param bytes The file contents.
+     *
+     * @return The assembly text.
+     *
+     * @throws com.psas.cbws.CBWSParseException Indicates the contents are shorter than the file header or a function
+     *                                          could not be decoded.
+     */
+    public static String disassemble(final byte[] bytes) {
+        final String hex = encodeHexString(bytes, false);
+        final StringBuilder text = new StringBuilder();
+        text.append(Assembler.MAGIC).append(' ').append(Assembler.VERSION).append('\n');
+
+        // Functions are contiguous from the end of the header, so anything after the last one is a trailer.
+        final int[] end = {Assembler.HEADER_LENGTH};
+        final StreamingParser parser = new StreamingParser(new CBWSVisitor() {
+            @Override
+            public void visitHeader(final CharSequence fileType, final int unknownHeaderValue1, final int functionCount, final int frameDelay) {
+                text.append(String.format("header type=%s unknown=%d functions=%d delay=%d%n",
+                        formatType(bytes), unknownHeaderValue1, functionCount, frameDelay));
+            }
+
+            @Override
+            public void visitFunctionEnd(final Section section, final int index, final long offset, final int length) {
+                final Function function = new Function(hex.substring((int) offset * 2, (int) (offset + length) * 2));
+                appendFunction(text, section, function, bytes, (int) offset);
+                end[0] = (int) (offset + length);
+            }
+        });
+        parser.feed(bytes, 0, bytes.length);
+        parser.finish();
+
+        if (end[0] < bytes.length) {
+            text.append("\ntrailer\n");
+            appendBytes(text, bytes, end[0], bytes.length);
+            text.append("end\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Formats the file type: its text if it is 4 plain ASCII characters, otherwise its hex.
+     *
+     * @param bytes The file contents.
+     *
+     * @return The file type token.
+     */
+    private static String formatType(final byte[] bytes) {
+        for (int i = 0; i < 4; i++)
+            if (bytes[i] <= ' ' || bytes[i] >= 0x7F || bytes[i] == '"') return "0x" + encodeHexString(bytes, false).substring(0, 8);
+        return new String(bytes, 0, 4, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Appends a function block.
+     *
+     * @param text     The text to append to.
+     * @param section  The section containing the function.
+     * @param function The decoded function.
+     * @param bytes    The file contents.
+     * @param offset   Offset of the function in the file.
+     */
+    private static void appendFunction(final StringBuilder text, final Section section, final Function function,
+                                       final byte[] bytes, final int offset) {
+        final int length = function.getHex().length() / 2;
+        text.append(String.format("%nfunction %s %s%n", section.name(), Assembler.quote(function.getLabel())));
+
+        // Locate the bytes of each typed attribute. Spans are kept in order & must not overlap.
+        final ArrayList<Span> spans = new ArrayList<>();
+        final ArrayList<String> comments = new ArrayList<>();
+        for (final Attribute attribute : function.getAttributes()) {
+            final Span span = locate(attribute, bytes, offset, length);
+            if (span == null) comments.add(String.format("# %s: %s", attribute.name(), attribute.value()));
+            else spans.add(span);
+        }
+        if (length > 0) spans.add(new Span(length - 1, 1, String.format("frame %d", bytes[offset + length - 1] & 0xFF)));
+        spans.sort(Comparator.comparingInt(Span::start));
+
+        for (final String comment : comments) text.append(INDENT).append(comment).append('\n');
+        int position = 0;
+        for (final Span span : spans) {
+            if (span.start() < position) continue;
+            appendBytes(text, bytes, offset + position, offset + span.start());
+            text.append(INDENT).append(span.line()).append('\n');
+            position = span.start() + span.length();
+        }
+        appendBytes(text, bytes, offset + position, offset + length);
+        text.append("end\n");
+    }
+
+    /**
+     * Finds the bytes holding an attribute's value.
+     *
+     * @param attribute The attribute.
+     * @param bytes     The file contents.
+     * @param offset    Offset of the function in the file.
+     * @param length    Length of the function.
+     *
+     * @return The span of the value within the function, or null if the attribute has no exactly located value.
+     */
+    private static Span locate(final Attribute attribute, final byte[] bytes, final int offset, final int length) {
+        final String name = Assembler.quote(attribute.name());
+        if (attribute instanceof Attribute.StringValue value) {
+            final byte[] text = value.text().getBytes(StandardCharsets.ISO_8859_1);
+            if (value.offset() + text.length > length) return null;
+            for (int i = 0; i < text.length; i++) if (bytes[offset + value.offset() + i] != text[i]) return null;
+            return new Span(value.offset(), text.length, String.format("string %s %s", name, Assembler.quote(value.text())));
+        }
+        if (attribute instanceof Attribute.FloatValue value) {
+            // Offsets point at the marker preceding the value, so find the value itself after it.
+            final int start = find(bytes, offset, length, value.offset(), value.bits());
+            if (start < 0) return null;
+            final float number = value.floatValue();
+            final String token = Float.isNaN(number) ? String.format("0x%08X", value.bits()) : Float.toString(number);
+            return new Span(start, 4, String.format("float %s %s", name, token));
+        }
+        if (attribute instanceof Attribute.IdValue value) {
+            final int start = find(bytes, offset, length, value.offset(), value.id());
+            if (start < 0) return null;
+            final IdDictionary dictionary = IdDictionary.get();
+            final String idName = dictionary.getName(value.category(), value.id());
+            final String token = idName != null && dictionary.getId(value.category(), idName) == value.id()
+                    ? Assembler.quote(idName)
+                    : String.format("0x%08X", value.id());
+            return new Span(start, 4, String.format("id %s %s %s", value.category().name(), name, token));
+        }
+        return null;
+    }
+
+    /**
+     * Finds a big-endian 32-bit value within a function.
+     *
+     * @param bytes  The file contents.
+     * @param offset Offset of the function in the file.
+     * @param length Length of the function.
+     * @param from   Offset within the function to search from.
+     * @param value  The value.
+     *
+     * @return Offset of the value within the function, or -1 if it is not found.
+     */
+    private static int find(final byte[] bytes, final int offset, final int length, final int from, final int value) {
+        for (int i = Math.max(0, from); i + 4 <= length; i++) {
+            final int at = offset + i;
+            if ((bytes[at] & 0xFF) << 24 == (value & 0xFF000000) && ((bytes[at + 1] & 0xFF) << 16 | (bytes[at + 2] & 0xFF) << 8 | bytes[at + 3] & 0xFF) == (value & 0xFFFFFF))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Appends opaque bytes as {@code bytes} lines.
+     *
+     * @param text  The text to append to.
+     * @param bytes The file contents.
+     * @param from  Offset of the first byte.
+     * @param to    Offset after the last byte.
+     */
+    private static void appendBytes(final StringBuilder text, final byte[] bytes, final int from, final int to) {
+        for (int start = from; start < to; start += BYTES_PER_LINE) {
+            final int end = Math.min(to, start + BYTES_PER_LINE);
+            text.append(INDENT).append("bytes ");
+            for (int i = start; i < end; i++) text.append(Character.toUpperCase(Character.forDigit((bytes[i] >> 4) & 0xF, 16)))
+                    .append(Character.toUpperCase(Character.forDigit(bytes[i] & 0xF, 16)));
+            text.append('\n');
+        }
+    }
+}
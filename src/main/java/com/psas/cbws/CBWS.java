@@ -1,13 +1,19 @@
 package com.psas.cbws;
 
+import com.psas.cbws.stream.CBWSVisitor;
+import com.psas.cbws.stream.ParallelParser;
 import com.psas.function.Function;
+import com.psas.mod.ModificationLog;
 import org.apache.commons.codec.DecoderException;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static org.apache.commons.codec.binary.Hex.decodeHex;
 import static org.apache.commons.codec.binary.Hex.encodeHexString;
@@ -16,10 +22,11 @@ public class CBWS {
     /** Generic strings for error handling. */
     private static final String UNKNOWN_FILE = "Unknown File Type";
 
-    /** Strings for common hex values. */
-    private static final String
-        FOUR_NULL_BYTES = "00000000",
-        FUNCTION_START_BYTES = "00000003";
+    /** Estimated heap used by a function besides its hex, in bytes. */
+    private static final int FUNCTION_OVERHEAD = 128;
+
+    /** Estimated heap used by a decoded attribute, in bytes. */
+    private static final int ATTRIBUTE_SIZE = 48;
 
     /**
      * Converts hex string to Float.
@@ -117,21 +124,210 @@ public class CBWS {
             finalFrameFunctions = new ArrayList<>(),
             impactFrameFunctions = new ArrayList<>();
 
+    /** Journal of edits made to this file, used for undo & redo. */
+    private final EditJournal journal = new EditJournal();
+
+    /** Cached timeline of the intermediate functions. Rebuilt lazily after frames, PlayRate, armor or effects change. */
+    private FrameTimeline timeline;
+
+    /** Cached snapshot of the current contents. Rebuilt lazily after any edit. */
+    private CBWSSnapshot snapshot;
+
+    /** Whether the contents have been edited since the file was last read or written. */
+    private boolean modified;
+
     /**
      * Constructs a new reference to a CBWS file.
      *
      * @param path The path to the CBWS script.
      *
      * @throws FileNotFoundException Indicates an invalid file path was provided.
+     * @throws IOException           Indicates the file could not be read.
      */
-    public CBWS(final String path) throws FileNotFoundException {
+    public CBWS(final String path) throws IOException {
         cbws = new File(path);
         if (!cbws.exists()) throw new FileNotFoundException(String.format("File \"%s\" not found!", path));
         read();
     }
 
+    /**
+     * Constructs a CBWS object from contents that have already been read, e.g. by a batch command. The file is only
+     * used as the target of {@link #write()}.
+     *
+     * @param file  The file the contents were read from.
+     * @param bytes The file contents.
+     */
+    public CBWS(final File file, final byte[] bytes) {
+        this(file, bytes, ParseLimits.UNLIMITED);
+    }
+
+    /**
+     * Constructs a CBWS object from contents that have already been read, stopping once a parse budget is exceeded.
+     * Batch commands use this so one malformed file is reported instead of stalling the batch.
+     *
+     * @param file   The file the contents were read from.
+     * @param bytes  The file contents.
+     * @param limits Budgets of the parse.
+     *
+     * @throws CBWSParseException Indicates the contents could not be parsed within the budgets.
+     */
+    public CBWS(final File file, final byte[] bytes, final ParseLimits limits) {
+        cbws = file;
+        parse(bytes, limits);
+    }
+
+    /**
+     * Returns the current contents as hex, including unwritten edits.
+     *
+     * @return The file hex.
+     */
     public final String getHex() {
-        return hex;
+        return snapshot().toHex();
+    }
+
+    /**
+     * Returns the file this object reads from & writes to.
+     *
+     * @return The CBWS file.
+     */
+    public final File getFile() {
+        return cbws;
+    }
+
+    /**
+     * Returns the number of frames to wait before beginning intermediate function execution.
+     *
+     * @return The frame delay.
+     */
+    public final int getFrameDelay() {
+        return frameDelay;
+    }
+
+    /**
+     * Returns the functions of a section in file order.
+     *
+     * @param section The section.
+     *
+     * @return Unmodifiable list of functions.
+     */
+    public final List<Function> getFunctions(final Section section) {
+        return Collections.unmodifiableList(getFunctionList(section));
+    }
+
+    /**
+     * Returns the mutable function list backing a section.
+     *
+     * @param section The section.
+     *
+     * @return The function list.
+     */
+    private ArrayList<Function> getFunctionList(final Section section) {
+        return switch (section) {
+            case FIRST_FRAME -> firstFrameFunctions;
+            case INTERMEDIATE -> intermediateFunctions;
+            case FINAL_FRAME -> finalFrameFunctions;
+            case IMPACT_FRAME -> impactFrameFunctions;
+        };
+    }
+
+    /**
+     * Returns the edit journal of this file.
+     *
+     * @return The edit journal.
+     */
+    public final EditJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Returns the timeline of the intermediate functions, building it if frames or PlayRate have changed since it was
+     * last built.
+     *
+     * @return The frame timeline.
+     */
+    public FrameTimeline getTimeline() {
+        if (timeline == null) timeline = new FrameTimeline(frameDelay, firstFrameFunctions, intermediateFunctions);
+        return timeline;
+    }
+
+    /**
+     * Returns an immutable snapshot of the current contents that can be shared between threads. Functions are frozen
+     * when first snapshotted; this object only ever replaces them with edited copies, so it keeps working as before.
+     *
+     * @return The snapshot.
+     */
+    public CBWSSnapshot snapshot() {
+        if (snapshot == null) {
+            final CBWSSnapshot.Header header = new CBWSSnapshot.Header(
+                    hex.substring(0, 16), fileType, unknownHeaderValue1, functionCount, frameDelay
+            );
+            snapshot = new CBWSSnapshot(
+                    cbws, header, firstFrameFunctions, intermediateFunctions, finalFrameFunctions, impactFrameFunctions
+            );
+        }
+        return snapshot;
+    }
+
+    /** Discards the cached timeline & snapshot. Called when the file is read. */
+    private void invalidateCaches() {
+        invalidateTimeline();
+        snapshot = null;
+    }
+
+    /**
+     * Discards the cached timeline. Called when the frame delay or the order of functions changes, or a function is
+     * replaced by one for which {@link #changesTimeline} holds.
+     */
+    private void invalidateTimeline() {
+        timeline = null;
+    }
+
+    /** Records that the contents differ from the file & discards the snapshot. */
+    private void markModified() {
+        snapshot = null;
+        modified = true;
+    }
+
+    /**
+     * Returns whether replacing a function can change the timeline. Only first frame PlayRate changes & the intermediate
+     * functions shape it; of those, only frames, labels & the attributes of functions whose label
+     * {@link FrameTimeline#dependsOnAttributes depends on attributes} matter.
+     *
+     * @param section  The section containing the function.
+     * @param original The replaced function.
+     * @param function The replacement.
+     *
+     * @return True if the timeline must be rebuilt.
+     */
+    private static boolean changesTimeline(final Section section, final Function original, final Function function) {
+        if (section != Section.FIRST_FRAME && section != Section.INTERMEDIATE) return false;
+        if (original.getFrame() != function.getFrame() || !original.getLabel().equals(function.getLabel())) return true;
+        return FrameTimeline.dependsOnAttributes(function.getLabel()) && !original.getHex().equals(function.getHex());
+    }
+
+    /**
+     * Returns whether the contents have been edited since the file was last read or written.
+     *
+     * @return True if there are unwritten changes.
+     */
+    public final boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Estimates the heap used by this object from its current contents: the file hex, the hex of each function & its
+     * decoded attributes. Used to bound caches of parsed files, so edits that grow or shrink functions are counted.
+     *
+     * @return The estimated size in bytes.
+     */
+    public final long estimateSize() {
+        // Hex is ASCII, which strings store one byte per character.
+        long size = hex.length();
+        for (final Section section : Section.values()) {
+            for (final Function function : getFunctionList(section))
+                size += FUNCTION_OVERHEAD + function.getHex().length() + (long) function.getAttributes().size() * ATTRIBUTE_SIZE;
+        }
+        return size;
     }
 
     /**
@@ -214,201 +410,96 @@ public class CBWS {
         return hex.substring(0, 32);
     }
 
-    private void parseFunctions() {
+    /**
+     * Splits the file into functions. Boundaries are found by the {@link com.psas.cbws.stream.StreamingParser} in a
+     * single linear pass; see its documentation for how function ends & sections are recognised. Files of at least
+     * {@link ParallelParser#DEFAULT_THRESHOLD} bytes are split into chunks whose functions are decoded in parallel.
+     *
+     * @param bytes  The file contents.
+     * @param limits Budgets of the parse.
+     *
+     * @throws CBWSParseException Indicates a budget was exceeded or a function could not be decoded.
+     */
+    private void parseFunctions(final byte[] bytes, final ParseLimits limits) {
         // Clear function list.
+        invalidateCaches();
+        modified = false;
         firstFrameFunctions.clear();
         intermediateFunctions.clear();
         finalFrameFunctions.clear();
         impactFrameFunctions.clear();
 
-        // Copy file hex contents.
-        String hex = new String(this.hex);
-
-        // Remove file header from hex.
-        hex = hex.substring(32);
-
-        /*
-        Regex pattern for identifying end of intermediate function.
-
-        An intermediate function ends with a string of 15 null bytes (0x00) followed by a non-null byte. This non-null
-        byte is an 8-bit integer representing the number of frames to wait before executing the next function in the file.
-
-        Intermediate functions are executed in top-to-bottom order as they appear in the file.
-         */
-        final Pattern intermediateFunctionEndPattern = Pattern.compile("0{30}([A-F|0-9][A-F|1-9]$|[A-F|1-9][A-F|0-9]$)");
-
-        /*
-        Regex pattern for identifying end of first/final frame function.
-
-        A first/final frame function ends with a string of 16 null bytes (0x00) in most cases. Exceptions are outlined below.
-
-        First frame functions are executed before intermediate functions & final frame functions are executed after.
-
-        First/final frame functions are all groups together at the end of the file. If reading top-to-bottom, a single final
-        frame action will appear first, often EnableBreakout which allows the animation to cancel early. This function will
-        have the typical end sequence of 15 null bytes followed by a non-null byte. In this case, the final byte does not
-        represent a frame count & instead represents the number of functions that will be executed on frame 1.
-
-        Following this function count, there will by 4 null bytes, then the sequence of frame-1 functions will begin.
-        Frame-1 functions will be separated by 16 null bytes. The final frame-1 function will have the typical end
-        sequence of 15 null bytes followed by a non-null byte. The final byte will represent the number of final-frame
-        functions.
-
-        Like before, 4 null bytes will follow the function count, then the sequence of final-frame functions will begin.
-        Final-frame functions will also be separated by 16 null bytes. The last final-frame function can simply end with
-        16 null bytes, leading to the EOF. It can also lead into another function chain for actions to take on successful
-        hit. If there are impact actions, the last final-frame function will end with 15 null bytes followed by a non-null
-        byte. Like before, he final byte will represent the number of impact functions to execute.
+        ParallelParser.parse(bytes, new CBWSVisitor() {
+            @Override
+            public boolean wantsAttributes() {
+                return true;
+            }
 
-        If there are impact functions, 4 null bytes will follow the function count, then the sequence of impact functions
-        will begin. Impact functions will be separated by 16 null bytes. The last impact function, however, will end with
-        12 null bytes.
-         */
-        final Pattern firstFinalFrameFunctionEndPattern = Pattern.compile("0{32}$");
-        final Pattern impactFrameFinalFunctionEndPattern = Pattern.compile("0{24}");
-
-        // Booleans to track function parsing progress.
-        boolean intermediate = true, firstFrame = false, finalFrame = false, impactFrame = false;
-
-        // Parse functions.
-        while (true) {
-            final StringBuilder builder = new StringBuilder();
-            int index = 0;
-            while (true) {
-                final String nextFourBytes;
-                try { nextFourBytes = hex.substring(index, index + 8); }
-                catch (final StringIndexOutOfBoundsException e) {
-                    // Exception occurs when there are less than 8 bytes left in the hex string. Add final function.
-                    builder.append(hex, index, hex.length());
-                    if (finalFrame) finalFrameFunctions.add(new Function(builder.toString(), this));
-                    else if (impactFrame) impactFrameFunctions.add(new Function(builder.toString(), this));
-                    return;
-                }
-
-                // Check if current string ends with 15 null bytes followed by a non-null byte.
-                final Matcher intermediateMatcher = intermediateFunctionEndPattern.matcher(builder.toString());
-                if (intermediateMatcher.find()) {
-                    if (intermediate) {
-                        // If 4 null bytes follow, this is the first final-frame function.
-                        if (nextFourBytes.equals(FOUR_NULL_BYTES)) {
-                            finalFrameFunctions.add(new Function(builder.toString(), this));
-                            intermediate = false;
-                            firstFrame = true;
-                            break;
-                        }
-                        else if (nextFourBytes.equals(FUNCTION_START_BYTES)) {
-                            intermediateFunctions.add(new Function(builder.toString(), this));
-                            break;
-                        }
-                    }
-                    else if (firstFrame) {
-                        if (nextFourBytes.equals(FOUR_NULL_BYTES)) {
-                            firstFrameFunctions.add(new Function(builder.toString(), this));
-                            firstFrame = false;
-                            finalFrame = true;
-                            break;
-                        }
-                    }
-                    else if (finalFrame) {
-                        if (nextFourBytes.equals(FOUR_NULL_BYTES)) {
-                            finalFrameFunctions.add(new Function(builder.toString(), this));
-                            finalFrame = false;
-                            impactFrame = true;
-                            break;
-                        }
-                    }
-                }
-
-                // Check if current string ends with 16 null bytes.
-                final Matcher firstFinalMatcher = firstFinalFrameFunctionEndPattern.matcher(builder.toString());
-                if (firstFinalMatcher.find()) {
-                    if (intermediate) {
-                        if (nextFourBytes.equals(FUNCTION_START_BYTES)) {
-                            intermediateFunctions.add(new Function(builder.toString(), this));
-                            break;
-                        }
-                    }
-                    else if (firstFrame) {
-                        if (nextFourBytes.equals(FUNCTION_START_BYTES)) {
-                            firstFrameFunctions.add(new Function(builder.toString(), this));
-                            break;
-                        }
-                    }
-                    else if (finalFrame) {
-                        if (nextFourBytes.equals(FUNCTION_START_BYTES)) {
-                            finalFrameFunctions.add(new Function(builder.toString(), this));
-                            break;
-                        }
-                    }
-                    else if (impactFrame) {
-                        if (nextFourBytes.equals(FUNCTION_START_BYTES)) {
-                            impactFrameFunctions.add(new Function(builder.toString(), this));
-                            break;
-                        }
-                    }
-                }
-
-                // Append current byte to function hex.
-                builder.append(hex, index, index + 2);
-                index += 2;
+            @Override
+            public void visitFunction(final Section section, final int index, final Function function) {
+                getFunctionList(section).add(function);
             }
-            hex = hex.substring(index);
-        }
+        }, limits);
     }
 
     /**
      * Reads the CBWS file contents and converts it to a hex string. The file contents are then parsed to get header
      * information as well as the functions contained in the CBWS file.
+     *
+     * @throws IOException Indicates the file could not be read.
      */
-    private void read() {
-        // Open file.
-        try (final FileInputStream stream = new FileInputStream(cbws)) {
-            // Get raw bytes from file & store as encoded hex string.
-            final byte[] bytes = new byte[(int) cbws.length()];
-            stream.read(bytes);
-            hex = encodeHexString(bytes).toUpperCase();
-
-            // Parse file contents.
-            parseFileHeader();
-            parseFunctions();
-        }
-        catch (final IOException e) {
-            e.printStackTrace();
-            System.exit(1);
-        }
+    private void read() throws IOException {
+        parse(Files.readAllBytes(cbws.toPath()), ParseLimits.UNLIMITED);
     }
 
     /**
-     * Overwrites the CBWS file with the contents of this object.
+     * Converts file contents to a hex string & parses header information as well as the functions they contain.
+     *
+     * @param bytes  The file contents.
+     * @param limits Budgets of the parse.
+     *
+     * @throws CBWSParseException Indicates the contents could not be parsed within the budgets.
      */
-    public void write() {
-        // Update hex string to reflect changes made to functions.
-        updateHex();
+    private void parse(final byte[] bytes, final ParseLimits limits) {
+        limits.checkSize(bytes.length);
+        if (bytes.length < 16)
+            throw new CBWSParseException(CBWSParseException.Reason.TRUNCATED_HEADER, 0, "File is shorter than its header.");
+        hex = encodeHexString(bytes).toUpperCase();
+        parseFileHeader();
+        parseFunctions(bytes, limits);
+    }
 
-        // Open file.
-        try (final FileOutputStream stream = new FileOutputStream(cbws, false)) {
-            // Convert hex string to raw bytes & write to file.
-            final byte[] bytes = decodeHex(hex);
-            stream.write(bytes);
+    /**
+     * Overwrites the CBWS file with the contents of this object.
+     *
+     * @throws IOException Indicates the file could not be written.
+     */
+    public void write() throws IOException {
+        // Stream the header & each function's bytes to the file.
+        try (final OutputStream stream = new BufferedOutputStream(new FileOutputStream(cbws, false))) {
+            layout().write(getFileHeader(), stream);
         }
-        catch (final IOException | DecoderException e) {
-            e.printStackTrace();
-            System.exit(1);
+
+        // Record the modification so the script can be picked up by the mod packager.
+        // A failure here does not affect the written file, so only warn.
+        try { ModificationLog.record(cbws.toPath()); }
+        catch (final IOException e) {
+            System.out.printf("Unable to record modification of \"%s\": %s%n", cbws, e.getMessage());
         }
 
         // After writing, read & parse file again.
         read();
     }
 
-    /** Updates function hex to reflect changes made to its functions. */
-    private void updateHex() {
-        final StringBuilder builder = new StringBuilder(getFileHeader());
-        for (final Function function : intermediateFunctions) builder.append(function.getHex());
-        if (!finalFrameFunctions.isEmpty()) builder.append(finalFrameFunctions.get(0).getHex());
-        for (final Function function : firstFrameFunctions) builder.append(function.getHex());
-        for (int i = 1; i < finalFrameFunctions.size(); i++) builder.append(finalFrameFunctions.get(i).getHex());
-        for (final Function function : impactFrameFunctions) builder.append(function.getHex());
-        hex = builder.toString();
+    /**
+     * Returns the current function lists arranged as they are written.
+     *
+     * @return A layout sharing this object's functions.
+     */
+    private SectionLayout layout() {
+        final EnumMap<Section, List<Function>> sections = new EnumMap<>(Section.class);
+        for (final Section section : Section.values()) sections.put(section, getFunctionList(section));
+        return new SectionLayout(sections);
     }
 
     /**
@@ -422,6 +513,7 @@ public class CBWS {
         final String newHeaderHex = oldHeaderHex.substring(0, 16) + newHex + oldHeaderHex.substring(24);
         hex = newHeaderHex + hex.substring(32);
         this.functionCount = functionCount;
+        markModified();
     }
 
     /** Increments the function count in the CBWS hex string and writes the new value to the file. */
@@ -435,96 +527,193 @@ public class CBWS {
     }
 
     public void setFrameDelay(final int frameDelay) {
+        journal.record(new EditJournal.SetFrameDelay(this.frameDelay, frameDelay));
+        replaceFrameDelay(frameDelay);
+    }
+
+    /**
+     * Replaces the frame delay in the CBWS hex string without journaling the change.
+     *
+     * @param frameDelay The new frame delay.
+     */
+    void replaceFrameDelay(final int frameDelay) {
         final String oldHeaderHex = hex.substring(0, 32);
         final String newHex = getIntHex(frameDelay);
         final String newHeaderHex = oldHeaderHex.substring(0, 24) + newHex;
         hex = newHeaderHex + hex.substring(32);
         this.frameDelay = frameDelay;
+        invalidateTimeline();
+        markModified();
     }
 
     public void changeIntermediateFunctionIndex(final int oldIndex, final int newIndex) {
-        final Function function = intermediateFunctions.remove(oldIndex);
-        intermediateFunctions.add(newIndex, function);
+        changeFunctionIndex(Section.INTERMEDIATE, oldIndex, newIndex);
     }
 
     public void removeIntermediateFunction(final int index) {
-        intermediateFunctions.remove(index);
-        decrementFunctionCount();
+        removeFunction(Section.INTERMEDIATE, index);
+    }
+
+    /**
+     * Edits a copy of a function & replaces the original with it if the edit changed the function. The original is
+     * kept by the edit journal so the edit can be undone.
+     *
+     * @param section The section containing the function.
+     * @param index   The function index. Out of bounds indices select the first function, as with the getters.
+     * @param edit    The edit to apply to the copy.
+     */
+    public void editFunction(final Section section, final int index, final Consumer<Function> edit) {
+        final ArrayList<Function> functions = getFunctionList(section);
+        final int resolvedIndex = index < 0 || index >= functions.size() ? 0 : index;
+        final Function original = functions.get(resolvedIndex);
+        final Function copy = original.copy();
+        edit.accept(copy);
+        if (copy.getHex().equals(original.getHex())) return;
+
+        setFunction(section, resolvedIndex, copy);
+        journal.record(new EditJournal.ReplaceFunction(section, resolvedIndex, original, copy));
+    }
+
+    /**
+     * Replaces a function with one parsed from hex.
+     *
+     * @param section The section containing the function.
+     * @param index   The function index.
+     * @param hex     The new function hex.
+     */
+    public void replaceFunction(final Section section, final int index, final String hex) {
+        final Function original = getFunctionList(section).get(index);
+        final Function replacement = new Function(hex);
+        setFunction(section, index, replacement);
+        journal.record(new EditJournal.ReplaceFunction(section, index, original, replacement));
+    }
+
+    /**
+     * Removes a function from a section. The bytes marking the start of the section & the end of the function written
+     * before it are adjusted to match, & the header function count is updated.
+     *
+     * @param section The section containing the function.
+     * @param index   The function index.
+     *
+     * @throws IndexOutOfBoundsException Indicates the index is outside the section.
+     * @throws IllegalArgumentException  Indicates the file would not be read back without the function.
+     */
+    public void removeFunction(final Section section, final int index) {
+        final SectionLayout before = layout(), after = layout();
+        after.remove(section, index);
+        after.verify(getFileHeader());
+        replaceSections(after);
+        journal.record(new EditJournal.RemoveFunction(section, index, before, after));
+    }
+
+    /**
+     * Inserts a function into a section. The bytes marking the start of the section & the end of the function written
+     * before it are adjusted to match its new position, & the header function count is updated.
+     *
+     * @param section  The section to insert into.
+     * @param index    Index of the new function within the section, up to the section size.
+     * @param function The function to insert, e.g. one copied from another file. It is not modified.
+     *
+     * @throws IndexOutOfBoundsException Indicates the index is outside the section.
+     * @throws IllegalArgumentException  Indicates the file would not be read back with the function at that index.
+     */
+    public void addFunction(final Section section, final int index, final Function function) {
+        final SectionLayout before = layout(), after = layout();
+        after.insert(section, index, function);
+        after.verify(getFileHeader());
+        replaceSections(after);
+        journal.record(new EditJournal.InsertFunction(section, index, function, before, after));
+    }
+
+    /**
+     * Moves a function to a new index within its section.
+     *
+     * @param section  The section containing the function.
+     * @param oldIndex The current function index.
+     * @param newIndex The new function index.
+     */
+    public void changeFunctionIndex(final Section section, final int oldIndex, final int newIndex) {
+        moveFunction(section, oldIndex, newIndex);
+        journal.record(new EditJournal.MoveFunction(section, oldIndex, newIndex));
+    }
+
+    /**
+     * Reverts the most recent edit.
+     *
+     * @return True if an edit was undone, false if there was nothing to undo.
+     */
+    public boolean undo() {
+        return journal.undo(this);
+    }
+
+    /**
+     * Reapplies the most recently undone edit.
+     *
+     * @return True if an edit was redone, false if there was nothing to redo.
+     */
+    public boolean redo() {
+        return journal.redo(this);
+    }
+
+    /** Replaces the functions of every section & updates the header function count without journaling the change. */
+    void replaceSections(final SectionLayout layout) {
+        final int countChange = layout.countHeaderFunctions() - layout().countHeaderFunctions();
+        for (final Section section : Section.values()) {
+            getFunctionList(section).clear();
+            getFunctionList(section).addAll(layout.get(section));
+        }
+        if (countChange != 0) setFunctionCount(functionCount + countChange);
+        invalidateTimeline();
+        markModified();
+    }
+
+    /** Sets a function in a section without journaling the change. The timeline is kept if the edit cannot change it. */
+    void setFunction(final Section section, final int index, final Function function) {
+        final Function original = getFunctionList(section).set(index, function);
+        if (changesTimeline(section, original, function)) invalidateTimeline();
+        markModified();
+    }
+
+    /** Moves a function within a section without journaling the change. */
+    void moveFunction(final Section section, final int oldIndex, final int newIndex) {
+        final ArrayList<Function> functions = getFunctionList(section);
+        functions.add(newIndex, functions.remove(oldIndex));
+        invalidateTimeline();
+        markModified();
     }
 
     /** Prints CBWS file info to terminal. */
     public final void printFileInfo() {
-        printFileHeader();
-        printFirstFrameFunctions();
-        printIntermediateFunctions();
-        printFinalFrameFunctions();
-        printImpactFrameFunctions();
+        ScriptRenderer.print(renderer -> renderer.renderFileInfo(snapshot()));
     }
 
     /** Prints file header to terminal. */
     public final void printFileHeader() {
-        System.out.printf("""
-                Header Info
-                    File Type: %s
-                    Unknown Header Value: %d
-                    Function Count: %d
-                    Frame Delay: %d%n""",
-                fileType, unknownHeaderValue1, functionCount, frameDelay
-        );
+        ScriptRenderer.print(renderer -> renderer.renderFileHeader(snapshot().getHeader()));
     }
 
     /** Prints first frame functions to terminal. */
     public final void printFirstFrameFunctions() {
-        System.out.println("First Frame Functions");
-        for (int i = 0; i < firstFrameFunctions.size(); i++)
-            System.out.printf("    %2d. %s", i, firstFrameFunctions.get(i));
+        ScriptRenderer.print(renderer -> renderer.renderSection(snapshot(), Section.FIRST_FRAME));
     }
 
     /** Prints intermediate functions to terminal. */
     public final void printIntermediateFunctions() {
-        System.out.println("Intermediate Functions");
-        if (intermediateFunctions.isEmpty()) return;
-
-        // Keep track of play rate to ensure accurate frame data.
-        float playRate = 1.0f;
-        for (final Function function : firstFrameFunctions)
-            if (function.getLabel().equals("PlayRate"))
-                playRate = Float.parseFloat(function.getAttributes().get(0).value());
-
-        // Track frame data.
-        int currentFrame = Math.round(intermediateFunctions.get(0).getFrame() / playRate);
-
-        for (int i = 0; i < intermediateFunctions.size(); i++) {
-            // Determine current frame.
-            final Function currentFunction = intermediateFunctions.get(i);
-            final Function previousFunction = i > 0 ? intermediateFunctions.get(i - 1) : null;
-
-            if (currentFunction.getLabel().equals("PlayRate"))
-                playRate = Float.parseFloat(currentFunction.getAttributes().get(0).value());
-
-            if (previousFunction != null) {
-                if (currentFunction.getFrame() != previousFunction.getFrame()) {
-                    final int frameDifference = currentFunction.getFrame() - previousFunction.getFrame();
-                    currentFrame += Math.round(frameDifference / playRate);
-                }
-            }
+        ScriptRenderer.print(renderer -> renderer.renderSection(snapshot(), Section.INTERMEDIATE));
+    }
 
-            // Print function info.
-            System.out.printf("    %2d. Frame %d:  %s", i, currentFrame, currentFunction);
-        }
+    /** Prints the frame windows during which hit volumes, armor & other effects are active to terminal. */
+    public final void printActiveFrameWindows() {
+        ScriptRenderer.print(renderer -> renderer.renderActiveFrameWindows(getTimeline()));
     }
 
     /**  Prints final frame functions to terminal. */
     public final void printFinalFrameFunctions() {
-        System.out.println("Final Frame Functions");
-        for (int i = 0; i < finalFrameFunctions.size(); i++)
-            System.out.printf("    %2d. %s", i, finalFrameFunctions.get(i));
+        ScriptRenderer.print(renderer -> renderer.renderSection(snapshot(), Section.FINAL_FRAME));
     }
 
     /** Prints impact frame functions to terminal. */
     public final void printImpactFrameFunctions() {
-        System.out.println("Impact Frame Functions");
-        for (int i = 0; i < impactFrameFunctions.size(); i++)
-            System.out.printf("    %2d. %s", i, impactFrameFunctions.get(i));
+        ScriptRenderer.print(renderer -> renderer.renderSection(snapshot(), Section.IMPACT_FRAME));
     }
 }
@@ -0,0 +1,88 @@
+package com.psas.cbws;
+
+/**
+ * Thrown when a file cannot be parsed. The reason & byte offset let batch commands report the failure & continue with
+ * the next file.
+ */
+public class CBWSParseException extends IllegalArgumentException {
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /** Why a file could not be parsed. */
+    public enum Reason {
+        /** The file is shorter than its 16-byte header. */
+        TRUNCATED_HEADER,
+
+        /** The file is larger than the byte budget. */
+        TOO_LARGE,
+
+        /** Parsing took longer than the time budget. */
+        TIMED_OUT,
+
+        /** A function's bytes could not be decoded. */
+        MALFORMED_FUNCTION
+    }
+
+    /** Why the file could not be parsed. */
+    private final Reason reason;
+
+    /** Byte offset at which the problem was found. */
+    private final long offset;
+
+    /**
+     * Constructs a parse exception.
+     *
+     * @param reason  Why the file could not be parsed.
+     * @param offset  Byte offset at which the problem was found.
+     * @param message Description of the problem.
+     */
+    public CBWSParseException(final Reason reason, final long offset, final String message) {
+        this(reason, offset, message, null);
+    }
+
+    /**
+     * Constructs a parse exception caused by another exception.
+     *
+     * @param reason  Why the file could not be parsed.
+     * @param offset  Byte offset at which the problem was found.
+     * @param message Description of the problem.
+     * @param cause   The exception that stopped the parse.
+     */
+    public CBWSParseException(final Reason reason, final long offset, final String message, final Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+        this.offset = offset;
+    }
+
+    /**
+     * Returns why the file could not be parsed.
+     *
+     * @return The reason.
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * Returns the byte offset at which the problem was found.
+     *
+     * @return The offset.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Describes a failure to parse a file on one line, for batch command output.
+     *
+     * @param name      Name of the file.
+     * @param exception The exception that stopped the parse.
+     *
+     * @return The description.
+     */
+    public static String describe(final String name, final RuntimeException exception) {
+        if (exception instanceof CBWSParseException parse)
+            return String.format("Skipping \"%s\": %s at offset %d: %s", name, parse.reason, parse.offset, parse.getMessage());
+        return String.format("Skipping \"%s\": %s", name, exception);
+    }
+}
@@ -0,0 +1,364 @@
+package com.psas.cbws;
+
+import com.psas.function.Function;
+import org.apache.commons.codec.DecoderException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.psas.cbws.CBWS.getIntHex;
+import static org.apache.commons.codec.binary.Hex.decodeHex;
+
+/**
+ * Immutable, read-only view of a parsed CBWS file. Snapshots never change after construction & their functions are
+ * frozen, so a snapshot can be queried from any number of threads without locking. Edits are made through a
+ * {@link Builder}, which produces a new snapshot & leaves the original untouched.
+ */
+public final class CBWSSnapshot {
+    /**
+     * Header values of a CBWS file.
+     *
+     * @param prefixHex           Hex of the file type & unknown header value, which edits never change.
+     * @param fileType            File type from the file header.
+     * @param unknownHeaderValue1 The 1st numerical value in the file header. Its purpose is unknown.
+     * @param functionCount       Number of functions in the file. First & final frame functions together count once.
+     * @param frameDelay          Number of frames to wait before beginning intermediate function execution.
+     */
+    public record Header(String prefixHex, String fileType, int unknownHeaderValue1, int functionCount, int frameDelay) {
+        /**
+         * Returns this header with a different function count & frame delay.
+         *
+         * @param functionCount The new function count.
+         * @param frameDelay    The new frame delay.
+         *
+         * @return The header.
+         */
+        Header with(final int functionCount, final int frameDelay) {
+            return new Header(prefixHex, fileType, unknownHeaderValue1, functionCount, frameDelay);
+        }
+
+        /**
+         * Returns the header as hex.
+         *
+         * @return The 16-byte header hex.
+         */
+        public String toHex() {
+            return prefixHex + getIntHex(functionCount) + getIntHex(frameDelay);
+        }
+    }
+
+    /**
+     * Parses file contents into a snapshot.
+     *
+     * @param file  The file the contents were read from.
+     * @param bytes The file contents.
+     *
+     * @return The snapshot.
+     */
+    public static CBWSSnapshot parse(final File file, final byte[] bytes) {
+        return new CBWS(file, bytes).snapshot();
+    }
+
+    /**
+     * Parses file contents into a snapshot, stopping once a parse budget is exceeded.
+     *
+     * @param file   The file the contents were read from.
+     * @param bytes  The file contents.
+     * @param limits Budgets of the parse.
+     *
+     * @return The snapshot.
+     *
+     * @throws CBWSParseException Indicates the contents could not be parsed within the budgets.
+     */
+    public static CBWSSnapshot parse(final File file, final byte[] bytes, final ParseLimits limits) {
+        return new CBWS(file, bytes, limits).snapshot();
+    }
+
+    /** The file the contents were read from. */
+    private final File file;
+
+    /** The file header. */
+    private final Header header;
+
+    /** Frozen functions of each section, in file order. */
+    private final List<Function>
+            firstFrameFunctions,
+            intermediateFunctions,
+            finalFrameFunctions,
+            impactFrameFunctions;
+
+    /** Timeline of the intermediate functions, built eagerly so readers never need to synchronize. */
+    private final FrameTimeline timeline;
+
+    /**
+     * Constructs a snapshot. The functions are frozen & the lists are copied.
+     *
+     * @param file                  The file the contents were read from.
+     * @param header                The file header.
+     * @param firstFrameFunctions   First frame functions.
+     * @param intermediateFunctions Intermediate functions.
+     * @param finalFrameFunctions   Final frame functions.
+     * @param impactFrameFunctions  Impact frame functions.
+     */
+    CBWSSnapshot(
+            final File file,
+            final Header header,
+            final List<Function> firstFrameFunctions,
+            final List<Function> intermediateFunctions,
+            final List<Function> finalFrameFunctions,
+            final List<Function> impactFrameFunctions
+    ) {
+        this.file = file;
+        this.header = header;
+        this.firstFrameFunctions = freeze(firstFrameFunctions);
+        this.intermediateFunctions = freeze(intermediateFunctions);
+        this.finalFrameFunctions = freeze(finalFrameFunctions);
+        this.impactFrameFunctions = freeze(impactFrameFunctions);
+        this.timeline = new FrameTimeline(header.frameDelay(), this.firstFrameFunctions, this.intermediateFunctions);
+    }
+
+    /**
+     * Freezes functions & copies them into an immutable list.
+     *
+     * @param functions The functions.
+     *
+     * @return Immutable list of the frozen functions.
+     */
+    private static List<Function> freeze(final List<Function> functions) {
+        for (final Function function : functions) function.freeze();
+        return List.copyOf(functions);
+    }
+
+    /**
+     * Returns the file the contents were read from.
+     *
+     * @return The CBWS file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the file header.
+     *
+     * @return The header.
+     */
+    public Header getHeader() {
+        return header;
+    }
+
+    /**
+     * Returns the number of frames to wait before beginning intermediate function execution.
+     *
+     * @return The frame delay.
+     */
+    public int getFrameDelay() {
+        return header.frameDelay();
+    }
+
+    /**
+     * Returns the functions of a section in file order.
+     *
+     * @param section The section.
+     *
+     * @return Immutable list of frozen functions.
+     */
+    public List<Function> getFunctions(final Section section) {
+        return switch (section) {
+            case FIRST_FRAME -> firstFrameFunctions;
+            case INTERMEDIATE -> intermediateFunctions;
+            case FINAL_FRAME -> finalFrameFunctions;
+            case IMPACT_FRAME -> impactFrameFunctions;
+        };
+    }
+
+    /**
+     * Returns the timeline of the intermediate functions.
+     *
+     * @return The frame timeline.
+     */
+    public FrameTimeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Returns the file contents as hex, in the order functions appear in the file.
+     *
+     * @return The file hex.
+     */
+    public String toHex() {
+        final StringBuilder builder = new StringBuilder(header.toHex());
+        for (final Function function : intermediateFunctions) builder.append(function.getHex());
+        if (!finalFrameFunctions.isEmpty()) builder.append(finalFrameFunctions.get(0).getHex());
+        for (final Function function : firstFrameFunctions) builder.append(function.getHex());
+        for (int i = 1; i < finalFrameFunctions.size(); i++) builder.append(finalFrameFunctions.get(i).getHex());
+        for (final Function function : impactFrameFunctions) builder.append(function.getHex());
+        return builder.toString();
+    }
+
+    /**
+     * Returns the file contents.
+     *
+     * @return The file bytes.
+     */
+    public byte[] toBytes() {
+        try { return decodeHex(toHex()); }
+        catch (final DecoderException e) { throw new IllegalStateException(e); }  // Function hex is always valid.
+    }
+
+    /**
+     * Returns a builder initialised with the contents of this snapshot.
+     *
+     * @return The builder.
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * Accumulates edits to a snapshot. Builders are not thread-safe, but the snapshots they build are. Functions in a
+     * builder are frozen; edits replace them with edited copies.
+     */
+    public static final class Builder {
+        /** The file the contents were read from. */
+        private final File file;
+
+        /** The file header. Its function count & frame delay follow edits. */
+        private Header header;
+
+        /** Functions of each section, in file order. */
+        private final ArrayList<Function>
+                firstFrameFunctions,
+                intermediateFunctions,
+                finalFrameFunctions,
+                impactFrameFunctions;
+
+        /**
+         * Constructs a builder from a snapshot.
+         *
+         * @param snapshot The snapshot to start from.
+         */
+        private Builder(final CBWSSnapshot snapshot) {
+            file = snapshot.file;
+            header = snapshot.header;
+            firstFrameFunctions = new ArrayList<>(snapshot.firstFrameFunctions);
+            intermediateFunctions = new ArrayList<>(snapshot.intermediateFunctions);
+            finalFrameFunctions = new ArrayList<>(snapshot.finalFrameFunctions);
+            impactFrameFunctions = new ArrayList<>(snapshot.impactFrameFunctions);
+        }
+
+        /**
+         * Returns the function list of a section.
+         *
+         * @param section The section.
+         *
+         * @return The function list.
+         */
+        private ArrayList<Function> getFunctionList(final Section section) {
+            return switch (section) {
+                case FIRST_FRAME -> firstFrameFunctions;
+                case INTERMEDIATE -> intermediateFunctions;
+                case FINAL_FRAME -> finalFrameFunctions;
+                case IMPACT_FRAME -> impactFrameFunctions;
+            };
+        }
+
+        /**
+         * Sets the number of frames to wait before beginning intermediate function execution.
+         *
+         * @param frameDelay The new frame delay.
+         *
+         * @return This builder.
+         */
+        public Builder setFrameDelay(final int frameDelay) {
+            header = header.with(header.functionCount(), frameDelay);
+            return this;
+        }
+
+        /**
+         * Edits a copy of a function & replaces the original with it.
+         *
+         * @param section The section containing the function.
+         * @param index   The function index.
+         * @param edit    The edit to apply to the copy.
+         *
+         * @return This builder.
+         */
+        public Builder editFunction(final Section section, final int index, final Consumer<Function> edit) {
+            final Function copy = getFunctionList(section).get(index).copy();
+            edit.accept(copy);
+            return setFunction(section, index, copy);
+        }
+
+        /**
+         * Replaces a function.
+         *
+         * @param section  The section containing the function.
+         * @param index    The function index.
+         * @param function The new function.
+         *
+         * @return This builder.
+         */
+        public Builder setFunction(final Section section, final int index, final Function function) {
+            getFunctionList(section).set(index, function);
+            return this;
+        }
+
+        /**
+         * Inserts a function & updates the header function count.
+         *
+         * @param section  The section to insert into.
+         * @param index    The index to insert at.
+         * @param function The function to insert.
+         *
+         * @return This builder.
+         */
+        public Builder insertFunction(final Section section, final int index, final Function function) {
+            getFunctionList(section).add(index, function);
+            if (section.isCountedInHeader()) header = header.with(header.functionCount() + 1, header.frameDelay());
+            return this;
+        }
+
+        /**
+         * Removes a function & updates the header function count.
+         *
+         * @param section The section containing the function.
+         * @param index   The function index.
+         *
+         * @return This builder.
+         */
+        public Builder removeFunction(final Section section, final int index) {
+            getFunctionList(section).remove(index);
+            if (section.isCountedInHeader()) header = header.with(header.functionCount() - 1, header.frameDelay());
+            return this;
+        }
+
+        /**
+         * Moves a function to a new index within its section.
+         *
+         * @param section  The section containing the function.
+         * @param oldIndex The current function index.
+         * @param newIndex The new function index.
+         *
+         * @return This builder.
+         */
+        public Builder moveFunction(final Section section, final int oldIndex, final int newIndex) {
+            final ArrayList<Function> functions = getFunctionList(section);
+            functions.add(newIndex, functions.remove(oldIndex));
+            return this;
+        }
+
+        /**
+         * Builds a snapshot of the current contents. The builder can keep being used afterwards.
+         *
+         * @return The snapshot.
+         */
+        public CBWSSnapshot build() {
+            return new CBWSSnapshot(
+                    file, header, firstFrameFunctions, intermediateFunctions, finalFrameFunctions, impactFrameFunctions
+            );
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.psas.cbws;
+
+import com.psas.function.Function;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo/redo journal of the edits made to a CBWS file. Functions are copied before they are edited, so each entry holds
+ * the unmodified & modified function objects & undoing or redoing an edit only swaps references. Unchanged functions
+ * are shared between every version of the file.
+ *
+ * <p>The applied edits can be saved as a text log & replayed onto a freshly loaded copy of the file.</p>
+ */
+public final class EditJournal {
+    /** Header line written at the top of every edit log. */
+    private static final String LOG_HEADER = "# CBWS edit log";
+
+    /** A reversible edit. */
+    sealed interface Edit {
+        /**
+         * Reverts the edit.
+         *
+         * @param cbws The file the edit was made to.
+         */
+        void undo(CBWS cbws);
+
+        /**
+         * Reapplies the edit.
+         *
+         * @param cbws The file the edit was made to.
+         */
+        void redo(CBWS cbws);
+
+        /**
+         * Returns the edit as a line of the replayable edit log.
+         *
+         * @return The log line.
+         */
+        String toLogLine();
+    }
+
+    /** Replaces a function with an edited copy. */
+    record ReplaceFunction(Section section, int index, Function before, Function after) implements Edit {
+        @Override
+        public void undo(final CBWS cbws) {
+            cbws.setFunction(section, index, before);
+        }
+
+        @Override
+        public void redo(final CBWS cbws) {
+            cbws.setFunction(section, index, after);
+        }
+
+        @Override
+        public String toLogLine() {
+            return String.format("REPLACE %s %d %s", section.name(), index, after.getHex());
+        }
+    }
+
+    /** Removes a function, which may also adjust the functions around it. */
+    record RemoveFunction(Section section, int index, SectionLayout before, SectionLayout after) implements Edit {
+        @Override
+        public void undo(final CBWS cbws) {
+            cbws.replaceSections(before);
+        }
+
+        @Override
+        public void redo(final CBWS cbws) {
+            cbws.replaceSections(after);
+        }
+
+        @Override
+        public String toLogLine() {
+            return String.format("REMOVE %s %d", section.name(), index);
+        }
+    }
+
+    /** Inserts a function, which may also adjust the functions around it. */
+    record InsertFunction(Section section, int index, Function function, SectionLayout before, SectionLayout after) implements Edit {
+        @Override
+        public void undo(final CBWS cbws) {
+            cbws.replaceSections(before);
+        }
+
+        @Override
+        public void redo(final CBWS cbws) {
+            cbws.replaceSections(after);
+        }
+
+        @Override
+        public String toLogLine() {
+            return String.format("INSERT %s %d %s", section.name(), index, function.getHex());
+        }
+    }
+
+    /** Moves a function to a new index within its section. */
+    record MoveFunction(Section section, int oldIndex, int newIndex) implements Edit {
+        @Override
+        public void undo(final CBWS cbws) {
+            cbws.moveFunction(section, newIndex, oldIndex);
+        }
+
+        @Override
+        public void redo(final CBWS cbws) {
+            cbws.moveFunction(section, oldIndex, newIndex);
+        }
+
+        @Override
+        public String toLogLine() {
+            return String.format("MOVE %s %d %d", section.name(), oldIndex, newIndex);
+        }
+    }
+
+    /** Changes the header frame delay. */
+    record SetFrameDelay(int before, int after) implements Edit {
+        @Override
+        public void undo(final CBWS cbws) {
+            cbws.replaceFrameDelay(before);
+        }
+
+        @Override
+        public void redo(final CBWS cbws) {
+            cbws.replaceFrameDelay(after);
+        }
+
+        @Override
+        public String toLogLine() {
+            return String.format("FRAME_DELAY %d", after);
+        }
+    }
+
+    /** Applied edits, most recent last. */
+    private final ArrayDeque<Edit> undoStack = new ArrayDeque<>();
+
+    /** Undone edits, most recently undone last. */
+    private final ArrayDeque<Edit> redoStack = new ArrayDeque<>();
+
+    /**
+     * Records an edit that has just been applied. Any undone edits can no longer be redone.
+     *
+     * @param edit The applied edit.
+     */
+    void record(final Edit edit) {
+        undoStack.addLast(edit);
+        redoStack.clear();
+    }
+
+    /**
+     * Reverts the most recent edit.
+     *
+     * @param cbws The file the edit was made to.
+     *
+     * @return True if an edit was undone, false if there was nothing to undo.
+     */
+    boolean undo(final CBWS cbws) {
+        final Edit edit = undoStack.pollLast();
+        if (edit == null) return false;
+        edit.undo(cbws);
+        redoStack.addLast(edit);
+        return true;
+    }
+
+    /**
+     * Reapplies the most recently undone edit.
+     *
+     * @param cbws The file the edit was made to.
+     *
+     * @return True if an edit was redone, false if there was nothing to redo.
+     */
+    boolean redo(final CBWS cbws) {
+        final Edit edit = redoStack.pollLast();
+        if (edit == null) return false;
+        edit.redo(cbws);
+        undoStack.addLast(edit);
+        return true;
+    }
+
+    /**
+     * Returns the number of edits that can be undone.
+     *
+     * @return The undo depth.
+     */
+    public int getUndoCount() {
+        return undoStack.size();
+    }
+
+    /**
+     * Returns the number of edits that can be redone.
+     *
+     * @return The redo depth.
+     */
+    public int getRedoCount() {
+        return redoStack.size();
+    }
+
+    /**
+     * Saves the applied edits, oldest first, as a replayable log.
+     *
+     * @param path Path of the log to write.
+     *
+     * @throws IOException Indicates the log could not be written.
+     */
+    public void save(final Path path) throws IOException {
+        final ArrayList<String> lines = new ArrayList<>(undoStack.size() + 1);
+        lines.add(LOG_HEADER);
+        for (final Edit edit : undoStack) lines.add(edit.toLogLine());
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replays an edit log onto a file. Replayed edits are journaled like any other edit, so they can be undone.
+     *
+     * @param path Path of the log to replay.
+     * @param cbws The file to apply the edits to.
+     *
+     * @return The number of edits replayed.
+     *
+     * @throws IOException              Indicates the log could not be read.
+     * @throws IllegalArgumentException Indicates the log is malformed.
+     */
+    public static int replay(final Path path, final CBWS cbws) throws IOException {
+        final List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        int count = 0;
+        for (final String line : lines) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            final String[] tokens = line.strip().split(" ");
+            try {
+                switch (tokens[0]) {
+                    case "REPLACE" -> cbws.replaceFunction(Section.valueOf(tokens[1]), Integer.parseInt(tokens[2]), tokens[3]);
+                    case "INSERT" -> cbws.addFunction(Section.valueOf(tokens[1]), Integer.parseInt(tokens[2]), new Function(tokens[3]));
+                    case "REMOVE" -> cbws.removeFunction(Section.valueOf(tokens[1]), Integer.parseInt(tokens[2]));
+                    case "MOVE" -> cbws.changeFunctionIndex(Section.valueOf(tokens[1]), Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]));
+                    case "FRAME_DELAY" -> cbws.setFrameDelay(Integer.parseInt(tokens[1]));
+                    default -> throw new IllegalArgumentException(String.format("Unknown edit: %s", tokens[0]));
+                }
+            }
+            catch (final IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException(String.format("Malformed edit log line: %s", line), e);
+            }
+            count++;
+        }
+        return count;
+    }
+}
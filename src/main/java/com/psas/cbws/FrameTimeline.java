@@ -0,0 +1,345 @@
+package com.psas.cbws;
+
+import com.psas.function.Attribute;
+import com.psas.function.Function;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable timeline of a CBWS file's intermediate functions. Absolute frames are computed once, taking the file's
+ * frame delay & PlayRate changes into account, and the frames during which effects such as hit volumes & super armor
+ * are active are indexed for fast lookup.
+ *
+ * <p>Effects are opened by functions labelled {@code Enable<Kind>} and closed by {@code Disable<Kind>} (or
+ * {@code DisableAll<Kind>s}). Super armor is opened by a {@code SetArmor} with a non-zero value and closed by one with
+ * a zero value. Effects that are never closed stay active through the final intermediate function's frame.</p>
+ */
+public final class FrameTimeline {
+    /** Effect kind for hit volumes. */
+    public static final String HIT_VOLUME = "HitVolume";
+
+    /** Effect kind for super armor. */
+    public static final String ARMOR = "Armor";
+
+    /** Function labels whose attributes affect the timeline. */
+    private static final String PLAY_RATE_LABEL = "PlayRate", ARMOR_LABEL = "SetArmor";
+
+    /** Label prefixes for functions that open & close effects. */
+    private static final String ENABLE_PREFIX = "Enable", DISABLE_PREFIX = "Disable", ALL_PREFIX = "All";
+
+    /**
+     * A span of frames during which an effect is active.
+     *
+     * @param kind          The effect kind, e.g. {@link #HIT_VOLUME}.
+     * @param name          The name of the effect instance, or an empty string if the function does not name it.
+     * @param start         The first absolute frame the effect is active on.
+     * @param end           The first absolute frame the effect is no longer active on.
+     * @param functionIndex Index of the intermediate function that opened the effect.
+     */
+    public record Interval(String kind, String name, int start, int end, int functionIndex) {}
+
+    /**
+     * Returns whether modifying the attributes of a function with the given label can change the timeline. PlayRate &
+     * armor values shape the timeline, & effects are paired up by the names their functions give them.
+     *
+     * @param label The function label.
+     *
+     * @return True if the timeline must be rebuilt after modifying such a function.
+     */
+    public static boolean dependsOnAttributes(final String label) {
+        return label.equals(PLAY_RATE_LABEL) || label.equals(ARMOR_LABEL)
+                || label.startsWith(ENABLE_PREFIX) || label.startsWith(DISABLE_PREFIX);
+    }
+
+    /** Frame delay from the file header. */
+    private final int frameDelay;
+
+    /** Frame of each intermediate function relative to the start of intermediate function execution. */
+    private final int[] scriptFrames;
+
+    /** All effect intervals ordered by start frame. */
+    private final List<Interval> intervals;
+
+    /** Start frame of each segment. Every frame within a segment has the same set of active intervals. */
+    private final int[] segmentStarts;
+
+    /** Indexes into {@link #intervals} of the intervals active during each segment. */
+    private final int[][] segmentIntervals;
+
+    /** First active frame of each effect kind. */
+    private final Map<String, Integer> firstActiveFrames;
+
+    /**
+     * Builds the timeline for a set of functions.
+     *
+     * @param frameDelay            Frame delay from the file header.
+     * @param firstFrameFunctions   The file's first frame functions.
+     * @param intermediateFunctions The file's intermediate functions.
+     */
+    FrameTimeline(final int frameDelay, final List<Function> firstFrameFunctions, final List<Function> intermediateFunctions) {
+        this.frameDelay = frameDelay;
+        this.scriptFrames = computeScriptFrames(firstFrameFunctions, intermediateFunctions);
+        this.intervals = Collections.unmodifiableList(computeIntervals(intermediateFunctions));
+
+        // Split the timeline into segments at every interval boundary.
+        final TreeSet<Integer> boundaries = new TreeSet<>();
+        for (final Interval interval : intervals) {
+            boundaries.add(interval.start());
+            boundaries.add(interval.end());
+        }
+        segmentStarts = boundaries.stream().mapToInt(Integer::intValue).toArray();
+        segmentIntervals = new int[segmentStarts.length][];
+        for (int i = 0; i < segmentStarts.length; i++) {
+            final int frame = segmentStarts[i];
+            segmentIntervals[i] = IntStream.range(0, intervals.size())
+                    .filter(j -> intervals.get(j).start() <= frame && frame < intervals.get(j).end())
+                    .toArray();
+        }
+
+        final HashMap<String, Integer> firstActiveFrames = new HashMap<>();
+        for (final Interval interval : intervals) firstActiveFrames.merge(interval.kind(), interval.start(), Math::min);
+        this.firstActiveFrames = Collections.unmodifiableMap(firstActiveFrames);
+    }
+
+    /**
+     * Computes the frame of each intermediate function relative to the start of intermediate execution. Frame
+     * differences between consecutive functions are scaled by the PlayRate in effect at the later function. Frame bytes
+     * are unsigned, so frames from 128 to 255 do not wrap to negative frames.
+     *
+     * @param firstFrameFunctions   The file's first frame functions.
+     * @param intermediateFunctions The file's intermediate functions.
+     *
+     * @return The frame of each intermediate function.
+     */
+    private static int[] computeScriptFrames(final List<Function> firstFrameFunctions, final List<Function> intermediateFunctions) {
+        final int[] frames = new int[intermediateFunctions.size()];
+        if (frames.length == 0) return frames;
+
+        // Keep track of play rate to ensure accurate frame data.
+        float playRate = 1.0f;
+        for (final Function function : firstFrameFunctions) playRate = playRateOf(function, playRate);
+
+        int currentFrame = Math.round(Byte.toUnsignedInt(intermediateFunctions.get(0).getFrame()) / playRate);
+        for (int i = 0; i < frames.length; i++) {
+            final Function currentFunction = intermediateFunctions.get(i);
+            playRate = playRateOf(currentFunction, playRate);
+
+            if (i > 0) {
+                final Function previousFunction = intermediateFunctions.get(i - 1);
+                if (currentFunction.getFrame() != previousFunction.getFrame()) {
+                    final int frameDifference = Byte.toUnsignedInt(currentFunction.getFrame()) - Byte.toUnsignedInt(previousFunction.getFrame());
+                    currentFrame += Math.round(frameDifference / playRate);
+                }
+            }
+            frames[i] = currentFrame;
+        }
+        return frames;
+    }
+
+    /**
+     * Returns the play rate set by a function.
+     *
+     * @param function The function.
+     * @param current  The play rate currently in effect.
+     *
+     * @return The new play rate if the function sets one, otherwise the current play rate.
+     */
+    private static float playRateOf(final Function function, final float current) {
+        if (!function.getLabel().equals(PLAY_RATE_LABEL)) return current;
+        final Attribute.FloatValue playRate = firstFloat(function);
+        return playRate == null ? current : playRate.floatValue();
+    }
+
+    /**
+     * Returns the first float attribute of a function.
+     *
+     * @param function The function.
+     *
+     * @return The attribute, or null if the function has none.
+     */
+    private static Attribute.FloatValue firstFloat(final Function function) {
+        for (final Attribute attribute : function.getAttributes())
+            if (attribute instanceof Attribute.FloatValue value) return value;
+        return null;
+    }
+
+    /**
+     * Walks the intermediate functions & pairs up the functions that open & close effects.
+     *
+     * @param functions The file's intermediate functions.
+     *
+     * @return The effect intervals ordered by start frame.
+     */
+    private List<Interval> computeIntervals(final List<Function> functions) {
+        final ArrayList<Interval> intervals = new ArrayList<>();
+        final ArrayList<Interval> open = new ArrayList<>();
+        for (int i = 0; i < functions.size(); i++) {
+            final Function function = functions.get(i);
+            final String label = function.getLabel();
+            final int frame = getAbsoluteFrame(i);
+
+            if (label.equals(ARMOR_LABEL)) {
+                // Any armor change ends the current armor window. A non-zero value starts a new one.
+                close(open, intervals, ARMOR, "", frame);
+                final Attribute.FloatValue armor = firstFloat(function);
+                if (armor != null && armor.floatValue() != 0.0f)
+                    open.add(new Interval(ARMOR, "", frame, frame, i));
+            }
+            else if (label.startsWith(ENABLE_PREFIX) && label.length() > ENABLE_PREFIX.length())
+                open.add(new Interval(label.substring(ENABLE_PREFIX.length()), nameOf(function), frame, frame, i));
+            else if (label.startsWith(DISABLE_PREFIX + ALL_PREFIX) && label.endsWith("s")) {
+                final String kind = label.substring((DISABLE_PREFIX + ALL_PREFIX).length(), label.length() - 1);
+                close(open, intervals, kind, "", frame);
+            }
+            else if (label.startsWith(DISABLE_PREFIX) && label.length() > DISABLE_PREFIX.length())
+                close(open, intervals, label.substring(DISABLE_PREFIX.length()), nameOf(function), frame);
+        }
+
+        // Effects that are never closed remain active through the final function's frame.
+        final int endFrame = scriptFrames.length == 0 ? frameDelay : getAbsoluteFrame(scriptFrames.length - 1) + 1;
+        for (final Interval interval : open)
+            if (endFrame > interval.start()) intervals.add(new Interval(interval.kind(), interval.name(), interval.start(), endFrame, interval.functionIndex()));
+
+        intervals.sort((a, b) -> a.start() != b.start() ? Integer.compare(a.start(), b.start()) : Integer.compare(a.functionIndex(), b.functionIndex()));
+        return intervals;
+    }
+
+    /**
+     * Closes open effects of a kind. If a name is given & an open effect has that name, only that effect is closed.
+     * Otherwise, every open effect of the kind is closed. Effects closed on the frame they were opened are dropped.
+     */
+    private static void close(
+            final List<Interval> open,
+            final List<Interval> closed,
+            final String kind,
+            final String name,
+            final int frame
+    ) {
+        final boolean byName = !name.isEmpty() && open.stream().anyMatch(i -> i.kind().equals(kind) && i.name().equals(name));
+        open.removeIf(interval -> {
+            if (!interval.kind().equals(kind) || (byName && !interval.name().equals(name))) return false;
+            if (frame > interval.start())
+                closed.add(new Interval(kind, interval.name(), interval.start(), frame, interval.functionIndex()));
+            return true;
+        });
+    }
+
+    /**
+     * Returns the name a function gives to the effect it opens or closes, which is its first string attribute.
+     *
+     * @param function The function.
+     *
+     * @return The effect name or an empty string.
+     */
+    private static String nameOf(final Function function) {
+        for (final Attribute attribute : function.getAttributes())
+            if (attribute instanceof Attribute.StringValue string) return string.text();
+        return "";
+    }
+
+    /**
+     * Returns the number of intermediate functions in the timeline.
+     *
+     * @return The function count.
+     */
+    public int size() {
+        return scriptFrames.length;
+    }
+
+    /**
+     * Returns the frame an intermediate function executes on, relative to the start of intermediate execution.
+     *
+     * @param index The intermediate function index.
+     *
+     * @return The frame.
+     */
+    public int getScriptFrame(final int index) {
+        return scriptFrames[index];
+    }
+
+    /**
+     * Returns the absolute frame an intermediate function executes on, including the header frame delay.
+     *
+     * @param index The intermediate function index.
+     *
+     * @return The frame.
+     */
+    public int getAbsoluteFrame(final int index) {
+        return frameDelay + scriptFrames[index];
+    }
+
+    /**
+     * Returns the absolute frame of the final intermediate function, which is the length of the move's timeline.
+     *
+     * @return The final frame, or the frame delay if there are no intermediate functions.
+     */
+    public int getLastFrame() {
+        return scriptFrames.length == 0 ? frameDelay : getAbsoluteFrame(scriptFrames.length - 1);
+    }
+
+    /**
+     * Returns every effect interval ordered by start frame.
+     *
+     * @return Unmodifiable list of intervals.
+     */
+    public List<Interval> getIntervals() {
+        return intervals;
+    }
+
+    /**
+     * Returns the effect intervals of a kind ordered by start frame.
+     *
+     * @param kind The effect kind.
+     *
+     * @return List of intervals.
+     */
+    public List<Interval> getIntervals(final String kind) {
+        return intervals.stream().filter(interval -> interval.kind().equals(kind)).toList();
+    }
+
+    /**
+     * Returns the effects active on an absolute frame.
+     *
+     * @param frame The absolute frame.
+     *
+     * @return List of active intervals.
+     */
+    public List<Interval> getActiveAt(final int frame) {
+        // Find the last segment starting at or before the frame.
+        int segment = Arrays.binarySearch(segmentStarts, frame);
+        if (segment < 0) segment = -segment - 2;
+        if (segment < 0) return List.of();
+
+        final int[] active = segmentIntervals[segment];
+        final ArrayList<Interval> result = new ArrayList<>(active.length);
+        for (final int index : active) result.add(intervals.get(index));
+        return result;
+    }
+
+    /**
+     * Returns the first absolute frame on which an effect of a kind is active.
+     *
+     * @param kind The effect kind.
+     *
+     * @return The first active frame or -1 if the effect is never active.
+     */
+    public int getFirstActiveFrame(final String kind) {
+        return firstActiveFrames.getOrDefault(kind, -1);
+    }
+
+    /**
+     * Returns the first absolute frame on which a hit volume is active.
+     *
+     * @return The first active hit frame or -1 if the move has no hit volumes.
+     */
+    public int getFirstActiveHitFrame() {
+        return getFirstActiveFrame(HIT_VOLUME);
+    }
+}
@@ -0,0 +1,239 @@
+package com.psas.cbws;
+
+import com.psas.function.Attribute;
+import com.psas.function.Function;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Renders windows of a file as offset-annotated hex. Only the requested lines are rendered, & function & attribute
+ * boundaries found in them are listed beside each line. Boundaries are indexed once, & the bytes of a window are
+ * decoded from the hex of the functions it covers, so rendering cost depends on the window size rather than the file
+ * size.
+ */
+public final class HexViewer {
+    /** Number of bytes shown on each line. */
+    public static final int BYTES_PER_LINE = 16;
+
+    /** Length of the file header in bytes. */
+    private static final int HEADER_LENGTH = 16;
+
+    /** Upper case hex digits, indexed by nibble. */
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /** A labelled byte offset. */
+    private record Mark(int offset, String text) {}
+
+    /** Hex of the header & of each function, in file order. */
+    private final List<String> segments = new ArrayList<>();
+
+    /** Offset of each segment, in file order. */
+    private int[] segmentOffsets = new int[16];
+
+    /** The file size in bytes. */
+    private final int size;
+
+    /** Function & attribute boundaries, sorted by offset. */
+    private final List<Mark> marks = new ArrayList<>();
+
+    /** Offset of each function, indexed by section ordinal & function index. */
+    private final int[][] functionOffsets = new int[Section.values().length][];
+
+    /** The snapshot being viewed. */
+    private final CBWSSnapshot snapshot;
+
+    /**
+     * Constructs a viewer.
+     *
+     * @param snapshot The file contents to view.
+     */
+    public HexViewer(final CBWSSnapshot snapshot) {
+        this.snapshot = snapshot;
+        for (final Section section : Section.values())
+            functionOffsets[section.ordinal()] = new int[snapshot.getFunctions(section).size()];
+
+        // Walk the functions in file order. The first final frame function precedes the first frame functions.
+        marks.add(new Mark(0, "Header"));
+        addSegment(snapshot.getHeader().toHex(), 0);
+        int offset = HEADER_LENGTH;
+        offset = index(Section.INTERMEDIATE, 0, snapshot.getFunctions(Section.INTERMEDIATE).size(), offset);
+        final int finalFrameCount = snapshot.getFunctions(Section.FINAL_FRAME).size();
+        offset = index(Section.FINAL_FRAME, 0, Math.min(1, finalFrameCount), offset);
+        offset = index(Section.FIRST_FRAME, 0, snapshot.getFunctions(Section.FIRST_FRAME).size(), offset);
+        offset = index(Section.FINAL_FRAME, 1, finalFrameCount, offset);
+        size = index(Section.IMPACT_FRAME, 0, snapshot.getFunctions(Section.IMPACT_FRAME).size(), offset);
+        segmentOffsets = Arrays.copyOf(segmentOffsets, segments.size());
+
+        // Marks are already in file order unless a decoder reported an offset outside its function. The sort is stable,
+        // so each function is still listed before attributes at the same offset.
+        marks.sort((a, b) -> Integer.compare(a.offset(), b.offset()));
+    }
+
+    /**
+     * Records the boundaries of a range of functions.
+     *
+     * @param section The section containing the functions.
+     * @param from    Index of the first function.
+     * @param to      Index after the last function.
+     * @param offset  Offset of the first function.
+     *
+     * @return Offset after the last function.
+     */
+    private int index(final Section section, final int from, final int to, int offset) {
+        final List<Function> functions = snapshot.getFunctions(section);
+        for (int i = from; i < to; i++) {
+            final Function function = functions.get(i);
+            functionOffsets[section.ordinal()][i] = offset;
+            addSegment(function.getHex(), offset);
+            marks.add(new Mark(offset, String.format("%s %d: %s", section, i, function.getLabel())));
+
+            for (final Attribute attribute : function.getAttributes())
+                marks.add(new Mark(offset + attribute.offset(), attribute.name()));
+
+            offset += function.getHex().length() / 2;
+        }
+        return offset;
+    }
+
+    /**
+     * Records the hex of the header or a function.
+     *
+     * @param hex    The hex.
+     * @param offset Offset of its first byte.
+     */
+    private void addSegment(final String hex, final int offset) {
+        if (segments.size() == segmentOffsets.length) segmentOffsets = Arrays.copyOf(segmentOffsets, segments.size() * 2);
+        segmentOffsets[segments.size()] = offset;
+        segments.add(hex);
+    }
+
+    /**
+     * Returns the file size.
+     *
+     * @return The number of bytes in the file.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the offset of a function.
+     *
+     * @param section The section containing the function.
+     * @param index   The function index.
+     *
+     * @return The offset, or -1 if there is no such function.
+     */
+    public int getFunctionOffset(final Section section, final int index) {
+        final int[] offsets = functionOffsets[section.ordinal()];
+        return index < 0 || index >= offsets.length ? -1 : offsets[index];
+    }
+
+    /**
+     * Returns the offset of an attribute.
+     *
+     * @param section        The section containing the function.
+     * @param functionIndex  The function index.
+     * @param attributeIndex The attribute index, as listed when the function is displayed.
+     *
+     * @return The offset, or -1 if there is no such attribute.
+     */
+    public int getAttributeOffset(final Section section, final int functionIndex, final int attributeIndex) {
+        final int functionOffset = getFunctionOffset(section, functionIndex);
+        if (functionOffset < 0) return -1;
+        final List<Attribute> attributes = snapshot.getFunctions(section).get(functionIndex).getAttributes();
+        if (attributeIndex < 0 || attributeIndex >= attributes.size()) return -1;
+        return functionOffset + attributes.get(attributeIndex).offset();
+    }
+
+    /**
+     * Renders a window of lines.
+     *
+     * @param offset Offset within the first line. It is rounded down to the start of its line.
+     * @param lines  Maximum number of lines to render.
+     *
+     * @return The rendered lines.
+     */
+    public String render(final int offset, final int lines) {
+        final StringBuilder builder = new StringBuilder();
+        final int start = Math.max(0, Math.min(offset, size - 1)) / BYTES_PER_LINE * BYTES_PER_LINE;
+        final int end = Math.min(size, start + lines * BYTES_PER_LINE);
+        final byte[] bytes = slice(start, end);
+        int mark = firstMarkAtOrAfter(start);
+
+        for (int lineStart = start; lineStart < end; lineStart += BYTES_PER_LINE) {
+            final int lineEnd = Math.min(end, lineStart + BYTES_PER_LINE);
+            for (int shift = 28; shift >= 0; shift -= 4) builder.append(HEX_DIGITS[lineStart >>> shift & 0xF]);
+            builder.append(' ');
+
+            // Hex columns, with an extra space between the two halves of the line.
+            for (int i = lineStart; i < lineStart + BYTES_PER_LINE; i++) {
+                if ((i - lineStart) % 8 == 0) builder.append(' ');
+                if (i < lineEnd) {
+                    final int b = bytes[i - start] & 0xFF;
+                    builder.append(HEX_DIGITS[b >>> 4]).append(HEX_DIGITS[b & 0xF]).append(' ');
+                }
+                else builder.append("   ");
+            }
+
+            // ASCII gutter.
+            builder.append(" |");
+            for (int i = lineStart; i < lineEnd; i++) {
+                final int b = bytes[i - start] & 0xFF;
+                builder.append(b >= 0x20 && b < 0x7F ? (char) b : '.');
+            }
+            builder.append('|');
+
+            // Boundaries starting on this line.
+            String separator = "  ";
+            for (; mark < marks.size() && marks.get(mark).offset() < lineEnd; mark++) {
+                builder.append(separator).append(Integer.toHexString(marks.get(mark).offset()).toUpperCase(Locale.ROOT))
+                        .append(' ').append(marks.get(mark).text());
+                separator = "; ";
+            }
+            builder.append(System.lineSeparator());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Decodes a range of bytes from the hex of the header & functions covering it.
+     *
+     * @param start Offset of the first byte.
+     * @param end   Offset after the last byte.
+     *
+     * @return The bytes.
+     */
+    private byte[] slice(final int start, final int end) {
+        final byte[] bytes = new byte[Math.max(0, end - start)];
+        int segment = Arrays.binarySearch(segmentOffsets, start);
+        if (segment < 0) segment = -segment - 2;  // The segment containing the start.
+        for (int offset = start; offset < end; segment++) {
+            final String hex = segments.get(segment);
+            final int segmentEnd = Math.min(end, segmentOffsets[segment] + hex.length() / 2);
+            for (int i = (offset - segmentOffsets[segment]) * 2; offset < segmentEnd; offset++, i += 2)
+                bytes[offset - start] = (byte) (Character.digit(hex.charAt(i), 16) << 4 | Character.digit(hex.charAt(i + 1), 16));
+        }
+        return bytes;
+    }
+
+    /**
+     * Finds the first mark at or after an offset.
+     *
+     * @param offset The offset.
+     *
+     * @return Index of the mark, or the number of marks if there is none.
+     */
+    private int firstMarkAtOrAfter(final int offset) {
+        int low = 0, high = marks.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (marks.get(middle).offset() < offset) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+}
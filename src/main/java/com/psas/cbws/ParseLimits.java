@@ -0,0 +1,70 @@
+package com.psas.cbws;
+
+import java.time.Duration;
+
+/**
+ * Per-file budgets applied while parsing, so one malformed or hostile file cannot stall or exhaust a batch. Parsing is
+ * linear in the file size, so the byte budget also bounds the work done on a file; the time budget catches files that
+ * are slow for other reasons, such as very many functions with attributes.
+ *
+ * @param maxBytes Largest file size accepted, in bytes.
+ * @param timeout  Longest time a file may take to parse.
+ */
+public record ParseLimits(long maxBytes, Duration timeout) {
+    /** Limits that never stop a parse. Used when editing a single file interactively. */
+    public static final ParseLimits UNLIMITED = new ParseLimits(Long.MAX_VALUE, Duration.ofNanos(Long.MAX_VALUE));
+
+    /** Default byte budget of batch commands. Real scripts are a few kilobytes. */
+    public static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+    /** Default time budget of batch commands. */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    /** Default limits of batch commands. */
+    public static final ParseLimits DEFAULT = new ParseLimits(DEFAULT_MAX_BYTES, DEFAULT_TIMEOUT);
+
+    public ParseLimits {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Byte budget must be positive.");
+        if (timeout == null || timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("Time budget must be positive.");
+    }
+
+    /**
+     * Starts timing a parse.
+     *
+     * @return The deadline of the parse, as a {@link System#nanoTime()} value.
+     */
+    public long deadline() {
+        final long now = System.nanoTime();
+        final long nanos = timeout.compareTo(Duration.ofNanos(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE : timeout.toNanos();
+        // Saturate so unlimited timeouts never wrap around.
+        return nanos > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + nanos;
+    }
+
+    /**
+     * Throws if a file is larger than the byte budget.
+     *
+     * @param size Size of the file, or of the part read so far.
+     *
+     * @throws CBWSParseException Indicates the file is too large.
+     */
+    public void checkSize(final long size) {
+        if (size > maxBytes)
+            throw new CBWSParseException(CBWSParseException.Reason.TOO_LARGE, maxBytes,
+                    String.format("File exceeds the %d byte budget.", maxBytes));
+    }
+
+    /**
+     * Throws if a parse has passed its deadline.
+     *
+     * @param deadline The deadline returned by {@link #deadline()}.
+     * @param offset   Offset the parse has reached.
+     *
+     * @throws CBWSParseException Indicates the parse took too long.
+     */
+    public void checkTime(final long deadline, final long offset) {
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0)
+            throw new CBWSParseException(CBWSParseException.Reason.TIMED_OUT, offset,
+                    String.format("Parse exceeded the %d ms time budget.", timeout.toMillis()));
+    }
+}
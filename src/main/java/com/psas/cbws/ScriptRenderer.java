@@ -0,0 +1,157 @@
+package com.psas.cbws;
+
+import com.psas.function.Function;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Renders translated scripts as text to a sink, such as a {@link java.io.BufferedWriter} for batch output or a
+ * {@link StringBuilder} printed once per menu command. Text is appended piece by piece instead of through a
+ * {@link java.util.Formatter}, & the text of each function is cached by the function until it is edited, so rendering
+ * a file that was rendered before only copies strings.
+ */
+public final class ScriptRenderer {
+    /** Text rendered by a renderer. */
+    @FunctionalInterface
+    public interface Rendering {
+        /**
+         * Renders the text.
+         *
+         * @param renderer The renderer to use.
+         *
+         * @throws IOException Indicates the sink could not be written.
+         */
+        void render(ScriptRenderer renderer) throws IOException;
+    }
+
+    /** Line separator, as written by {@code %n}. */
+    private static final String NEWLINE = System.lineSeparator();
+
+    /** Indent of each listed function. */
+    private static final String INDENT = "    ";
+
+    /** Sink the text is appended to. */
+    private final Appendable sink;
+
+    /**
+     * Constructs a renderer.
+     *
+     * @param sink Sink the text is appended to. It should be buffered; the renderer appends many short strings.
+     */
+    public ScriptRenderer(final Appendable sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Renders text into a buffer & prints it to the terminal at once, instead of line by line.
+     *
+     * @param rendering The text to render.
+     */
+    public static void print(final Rendering rendering) {
+        final StringBuilder text = new StringBuilder();
+        try { rendering.render(new ScriptRenderer(text)); }
+        catch (final IOException e) { throw new UncheckedIOException(e); }  // Unreachable; StringBuilder does not throw.
+        System.out.print(text);
+    }
+
+    /**
+     * Renders the header & the functions of every section.
+     *
+     * @param script The script.
+     *
+     * @throws IOException Indicates the sink could not be written.
+     */
+    public void renderFileInfo(final CBWSSnapshot script) throws IOException {
+        renderFileHeader(script.getHeader());
+        for (final Section section : Section.values()) renderSection(script, section);
+    }
+
+    /**
+     * Renders the file header.
+     *
+     * @param header The header.
+     *
+     * @throws IOException Indicates the sink could not be written.
+     */
+    public void renderFileHeader(final CBWSSnapshot.Header header) throws IOException {
+        sink.append("Header Info\n")
+                .append(INDENT).append("File Type: ").append(header.fileType()).append('\n')
+                .append(INDENT).append("Unknown Header Value: ").append(Integer.toString(header.unknownHeaderValue1())).append('\n')
+                .append(INDENT).append("Function Count: ").append(Integer.toString(header.functionCount())).append('\n')
+                .append(INDENT).append("Frame Delay: ").append(Integer.toString(header.frameDelay())).append(NEWLINE);
+    }
+
+    /**
+     * Renders the functions of a section. Intermediate functions are listed with the absolute frame they execute on.
+     *
+     * @param script  The script.
+     * @param section The section.
+     *
+     * @throws IOException Indicates the sink could not be written.
+     */
+    public void renderSection(final CBWSSnapshot script, final Section section) throws IOException {
+        sink.append(section.toString()).append(" Functions").append(NEWLINE);
+        final List<Function> functions = script.getFunctions(section);
+        if (section != Section.INTERMEDIATE) {
+            renderFunctions(functions);
+            return;
+        }
+
+        // Frames are precomputed by the timeline, accounting for PlayRate changes.
+        if (functions.isEmpty()) return;
+        final FrameTimeline timeline = script.getTimeline();
+        for (int i = 0; i < functions.size(); i++) {
+            appendIndex(i);
+            sink.append("Frame ").append(Integer.toString(timeline.getScriptFrame(i))).append(":  ");
+            sink.append(functions.get(i).toString());
+        }
+    }
+
+    /**
+     * Renders a numbered list of functions.
+     *
+     * @param functions The functions.
+     *
+     * @throws IOException Indicates the sink could not be written.
+     */
+    public void renderFunctions(final List<Function> functions) throws IOException {
+        for (int i = 0; i < functions.size(); i++) {
+            appendIndex(i);
+            sink.append(functions.get(i).toString());
+        }
+    }
+
+    /**
+     * Renders the frame windows during which hit volumes, armor & other effects are active.
+     *
+     * @param timeline The timeline of the script.
+     *
+     * @throws IOException Indicates the sink could not be written.
+     */
+    public void renderActiveFrameWindows(final FrameTimeline timeline) throws IOException {
+        sink.append("Active Frame Windows").append(NEWLINE);
+        sink.append(INDENT).append("First Active Hit Frame: ").append(Integer.toString(timeline.getFirstActiveHitFrame())).append(NEWLINE);
+        sink.append(INDENT).append("Last Frame: ").append(Integer.toString(timeline.getLastFrame())).append(NEWLINE);
+        for (final FrameTimeline.Interval interval : timeline.getIntervals()) {
+            sink.append(INDENT).append("Frames ").append(Integer.toString(interval.start()))
+                    .append('-').append(Integer.toString(interval.end() - 1)).append(": ").append(interval.kind());
+            if (!interval.name().isEmpty()) sink.append(' ').append(interval.name());
+            sink.append(" (function ").append(Integer.toString(interval.functionIndex())).append(')').append(NEWLINE);
+        }
+    }
+
+    /**
+     * Appends the indent & list number of a function, right-aligned to two digits.
+     *
+     * @param index The function index.
+     *
+     * @throws IOException Indicates the sink could not be written.
+     */
+    private void appendIndex(final int index) throws IOException {
+        sink.append(INDENT);
+        if (index >= 0 && index < 10) sink.append(' ');
+        sink.append(Integer.toString(index)).append(". ");
+    }
+}
@@ -0,0 +1,38 @@
+package com.psas.cbws;
+
+/** The sections of a CBWS file, each holding a list of functions. */
+public enum Section {
+    /** Functions executed before intermediate functions. */
+    FIRST_FRAME("First Frame"),
+
+    /** Functions executed in order, each on its own frame. */
+    INTERMEDIATE("Intermediate"),
+
+    /** Functions executed after intermediate functions. */
+    FINAL_FRAME("Final Frame"),
+
+    /** Functions executed on successful hit. */
+    IMPACT_FRAME("Impact Frame");
+
+    /** Display name of the section. */
+    private final String displayName;
+
+    Section(final String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returns whether each function in the section counts towards the function count in the file header. First &
+     * final frame functions combined only add 1 to the count.
+     *
+     * @return True if adding or removing a function changes the header function count.
+     */
+    public boolean isCountedInHeader() {
+        return this == INTERMEDIATE || this == IMPACT_FRAME;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
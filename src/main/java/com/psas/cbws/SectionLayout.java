@@ -0,0 +1,291 @@
+package com.psas.cbws;
+
+import com.psas.cbws.stream.CBWSVisitor;
+import com.psas.cbws.stream.StreamingParser;
+import com.psas.function.Function;
+import org.apache.commons.codec.DecoderException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.codec.binary.Hex.decodeHex;
+
+/**
+ * The functions of every section of a file, arranged in the order they are written. Keeps the bytes that separate
+ * sections consistent when functions are inserted or removed: the first first frame function, the second final frame function &
+ * the first impact frame function each start with 4 extra null bytes, & every function except the last one in the
+ * file must end with the null bytes the parser uses to find function ends. Intermediate functions & functions ending a
+ * block end with 15 null bytes & their frame byte; other functions end with 16 null bytes.
+ * <p>
+ * Functions are written as a plain concatenation of their bytes, so the cost of writing a layout is linear in the size
+ * of the file however many functions were inserted or removed.
+ */
+final class SectionLayout {
+    /** Hex of the 4 null bytes starting the first function of a section block. */
+    private static final String SECTION_PREFIX = "00000000";
+
+    /** Hex of the 4 bytes starting every function. */
+    private static final String FUNCTION_START = "00000003";
+
+    /** Hex of the 16 null bytes ending a function that is followed by another function of the same block. */
+    private static final String FUNCTION_END = "0".repeat(32);
+
+    /** Function lists by section. */
+    private final EnumMap<Section, ArrayList<Function>> sections = new EnumMap<>(Section.class);
+
+    /**
+     * Copies the function lists of every section. Functions are shared, not copied.
+     *
+     * @param sections Function lists by section.
+     */
+    SectionLayout(final Map<Section, ? extends List<Function>> sections) {
+        for (final Section section : Section.values()) this.sections.put(section, new ArrayList<>(sections.get(section)));
+    }
+
+    /**
+     * Returns the function list of a section.
+     *
+     * @param section The section.
+     *
+     * @return The mutable function list.
+     */
+    ArrayList<Function> get(final Section section) {
+        return sections.get(section);
+    }
+
+    /**
+     * Returns the number of functions counted by the header function count: every intermediate & impact frame
+     * function, plus 1 if there are any first or final frame functions.
+     *
+     * @return The counted number of functions.
+     */
+    int countHeaderFunctions() {
+        final boolean frameFunctions = !get(Section.FIRST_FRAME).isEmpty() || !get(Section.FINAL_FRAME).isEmpty();
+        return get(Section.INTERMEDIATE).size() + get(Section.IMPACT_FRAME).size() + (frameFunctions ? 1 : 0);
+    }
+
+    /**
+     * Returns whether the function at an index starts a block of the file, which is marked by {@link #SECTION_PREFIX}.
+     *
+     * @param section The section.
+     * @param index   The function index.
+     *
+     * @return True if the function starts with the section prefix.
+     */
+    private static boolean startsBlock(final Section section, final int index) {
+        return switch (section) {
+            case FIRST_FRAME, IMPACT_FRAME -> index == 0;
+            case FINAL_FRAME -> index == 1;
+            case INTERMEDIATE -> false;
+        };
+    }
+
+    /**
+     * Returns the functions in the order they are written: intermediate, the first final frame function, first frame,
+     * the remaining final frame & impact frame functions.
+     *
+     * @return The functions in file order.
+     */
+    private List<Function> fileOrder() {
+        final ArrayList<Function> order = new ArrayList<>(sections.get(Section.INTERMEDIATE));
+        final List<Function> finalFrame = sections.get(Section.FINAL_FRAME);
+        if (!finalFrame.isEmpty()) order.add(finalFrame.get(0));
+        order.addAll(sections.get(Section.FIRST_FRAME));
+        if (finalFrame.size() > 1) order.addAll(finalFrame.subList(1, finalFrame.size()));
+        order.addAll(sections.get(Section.IMPACT_FRAME));
+        return order;
+    }
+
+    /**
+     * Inserts a function, then restores the section prefixes & the ends of the functions around it.
+     *
+     * @param section  The section to insert into.
+     * @param index    Index of the new function within the section.
+     * @param function The function to insert. It is not modified; a copy is inserted if its bytes must change.
+     *
+     * @throws IndexOutOfBoundsException Indicates the index is outside the section.
+     * @throws IllegalArgumentException  Indicates a function would have to end a block but ends with a null byte.
+     */
+    void insert(final Section section, final int index, final Function function) {
+        final ArrayList<Function> functions = sections.get(section);
+        if (index < 0 || index > functions.size()) throw new IndexOutOfBoundsException(index);
+        functions.add(index, function);
+        restoreBoundaries(section);
+    }
+
+    /**
+     * Removes a function, then restores the section prefixes & the ends of the functions around it.
+     *
+     * @param section The section containing the function.
+     * @param index   The function index.
+     *
+     * @throws IndexOutOfBoundsException Indicates the index is outside the section.
+     * @throws IllegalArgumentException  Indicates a function would have to end a block but ends with a null byte.
+     */
+    void remove(final Section section, final int index) {
+        final ArrayList<Function> functions = sections.get(section);
+        if (index < 0 || index >= functions.size()) throw new IndexOutOfBoundsException(index);
+        functions.remove(index);
+        restoreBoundaries(section);
+    }
+
+    /**
+     * Restores the section prefixes of a section & the ends of every function after a function was inserted into or
+     * removed from it.
+     *
+     * @param section The section that changed.
+     *
+     * @throws IllegalArgumentException Indicates a function would have to end a block but ends with a null byte.
+     */
+    private void restoreBoundaries(final Section section) {
+        // A change at the start of a block moves the prefix between the function that started it & the one that does now.
+        final ArrayList<Function> functions = sections.get(section);
+        for (int i = 0; i < functions.size(); i++) functions.set(i, withPrefix(functions.get(i), startsBlock(section, i)));
+
+        // Fix the end of every function written before another. The last function of a file may be cut short, &
+        // outside the intermediate functions only a function followed by a new block may end with a non-null byte.
+        final List<Function> order = fileOrder();
+        final int intermediateEnd = get(Section.INTERMEDIATE).size() + (get(Section.FINAL_FRAME).isEmpty() ? 0 : 1);
+        for (int i = 0; i < order.size() - 1; i++) {
+            final String hex = order.get(i).getHex();
+            final boolean blockEnd = order.get(i + 1).getHex().startsWith(SECTION_PREFIX + FUNCTION_START);
+            if (blockEnd && hex.endsWith("00")) {
+                // The parser only ends a block after a non-null byte, & there is no value to invent for it.
+                throw new IllegalArgumentException(String.format(
+                        "%s ends with a null byte, so it cannot be followed by a new block of functions.", order.get(i).getLabel()));
+            }
+            final boolean nullEnd = i + 1 >= intermediateEnd && !blockEnd;
+            if (nullEnd ? hex.endsWith(FUNCTION_END) : hasFunctionEnd(hex)) continue;
+            replace(order.get(i), new Function(withFunctionEnd(hex)));
+        }
+    }
+
+    /**
+     * Returns whether function hex ends with 15 null bytes & any final byte, which the parser recognises as an end.
+     *
+     * @param hex The function hex.
+     *
+     * @return True if the function has a complete end.
+     */
+    private static boolean hasFunctionEnd(final String hex) {
+        return hex.length() >= FUNCTION_END.length() && hex.regionMatches(hex.length() - FUNCTION_END.length(), FUNCTION_END, 0, FUNCTION_END.length() - 2);
+    }
+
+    /**
+     * Ends function hex with {@link #FUNCTION_END}, replacing a shorter run of null bytes & the byte after it.
+     *
+     * @param hex The function hex.
+     *
+     * @return The hex ending with 16 null bytes.
+     */
+    private static String withFunctionEnd(final String hex) {
+        if (hasFunctionEnd(hex)) return hex.substring(0, hex.length() - FUNCTION_END.length()) + FUNCTION_END;
+        int end = hex.length();
+        while (end >= 2 && hex.startsWith("00", end - 2)) end -= 2;
+        return hex.substring(0, end) + FUNCTION_END;
+    }
+
+    /**
+     * Replaces a function wherever it appears in the layout.
+     *
+     * @param function    The function to replace.
+     * @param replacement The replacement.
+     */
+    private void replace(final Function function, final Function replacement) {
+        for (final ArrayList<Function> list : sections.values())
+            for (int i = 0; i < list.size(); i++)
+                if (list.get(i) == function) list.set(i, replacement);
+    }
+
+    /**
+     * Adds or removes the section prefix of a function.
+     *
+     * @param function The function.
+     * @param prefixed Whether the function must start with the section prefix.
+     *
+     * @return The function, or a copy with the prefix added or removed.
+     */
+    private static Function withPrefix(final Function function, final boolean prefixed) {
+        final String hex = function.getHex();
+        final boolean hasPrefix = hex.startsWith(SECTION_PREFIX + FUNCTION_START);
+        if (hasPrefix == prefixed || !hex.startsWith(prefixed ? FUNCTION_START : SECTION_PREFIX)) return function;
+        return new Function(prefixed ? SECTION_PREFIX + hex : hex.substring(SECTION_PREFIX.length()));
+    }
+
+    /**
+     * Writes the header & every function in file order.
+     *
+     * @param headerHex Hex of the file header.
+     * @param stream    The stream to write to.
+     *
+     * @throws IOException Indicates the stream could not be written.
+     */
+    void write(final String headerHex, final OutputStream stream) throws IOException {
+        stream.write(decode(headerHex));
+        for (final Function function : fileOrder()) stream.write(decode(function.getHex()));
+    }
+
+    /**
+     * Returns the layout as hex.
+     *
+     * @param headerHex Hex of the file header.
+     *
+     * @return The file hex.
+     */
+    String toHex(final String headerHex) {
+        final StringBuilder builder = new StringBuilder(headerHex);
+        for (final Function function : fileOrder()) builder.append(function.getHex());
+        return builder.toString();
+    }
+
+    /**
+     * Checks that parsing the written layout splits it back into the same sections & functions.
+     *
+     * @param headerHex Hex of the file header.
+     *
+     * @throws IllegalArgumentException Indicates the layout would be parsed differently.
+     */
+    void verify(final String headerHex) {
+        final String hex = toHex(headerHex);
+        final EnumMap<Section, ArrayList<Integer>> lengths = new EnumMap<>(Section.class);
+        for (final Section section : Section.values()) lengths.put(section, new ArrayList<>());
+        final byte[] bytes = decode(hex);
+        final StreamingParser parser = new StreamingParser(new CBWSVisitor() {
+            @Override
+            public void visitFunctionEnd(final Section section, final int index, final long offset, final int length) {
+                lengths.get(section).add(length);
+            }
+        });
+        parser.feed(bytes, 0, bytes.length);
+        parser.finish();
+
+        for (final Section section : Section.values()) {
+            final List<Function> functions = sections.get(section);
+            final List<Integer> parsed = lengths.get(section);
+            boolean matches = functions.size() == parsed.size();
+            for (int i = 0; matches && i < functions.size(); i++)
+                matches = functions.get(i).getHex().length() == parsed.get(i) * 2;
+            if (!matches) {
+                throw new IllegalArgumentException(String.format(
+                        "The %s functions would not be read back as written; the function does not fit at that index.",
+                        section.toString().toLowerCase()));
+            }
+        }
+    }
+
+    /**
+     * Decodes hex that is known to be valid.
+     *
+     * @param hex The hex.
+     *
+     * @return The bytes.
+     */
+    private static byte[] decode(final String hex) {
+        try { return decodeHex(hex); }
+        catch (final DecoderException e) { throw new IllegalStateException(e); }  // Function hex is always valid.
+    }
+}
@@ -0,0 +1,269 @@
+package com.psas.cbws;
+
+import com.psas.corpus.Corpus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * An editing session over every script in a workspace directory. Parsed scripts are kept in a least recently used cache
+ * bounded by their estimated size, so switching back to a script keeps its edits & undo history. Scripts with unwritten
+ * edits are never evicted. After a script is opened, its neighbours in name order (usually the adjacent moves of the
+ * same character) are parsed on a background thread so opening them next is instant.
+ * <p>
+ * A session & the scripts it returns are used from the thread that calls {@link #open}, which edits them without
+ * holding the session lock. The prefetch thread therefore never touches cached scripts: it only parses new ones & stores
+ * them under the session lock. The cache is trimmed to its budget by {@link #open}, on the session thread.
+ */
+public final class WorkspaceSession implements AutoCloseable {
+    /** Default bound on the estimated size of cached scripts. */
+    public static final long DEFAULT_CACHE_BYTES = 64L << 20;
+
+    /** Number of scripts on each side of the current script that are prefetched. */
+    private static final int PREFETCH_DISTANCE = 1;
+
+    /** The workspace directory. */
+    private final Path directory;
+
+    /** Paths of the scripts in the workspace, sorted. */
+    private final List<Path> scripts;
+
+    /** Names of the scripts relative to the workspace, in the same order as {@link #scripts}. */
+    private final List<String> names;
+
+    /** Bound on the estimated size of cached scripts. */
+    private final long cacheBytes;
+
+    /** Parsed scripts by index, least recently used first. */
+    private final LinkedHashMap<Integer, CBWS> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Prefetches that have not been collected yet, by script index. */
+    private final HashMap<Integer, Future<CBWS>> prefetches = new HashMap<>();
+
+    /** Thread parsing neighbouring scripts. */
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "cbws-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Index of the current script, or -1 before the first script is opened. */
+    private int current = -1;
+
+    /**
+     * Opens a workspace.
+     *
+     * @param directory  The workspace directory.
+     * @param cacheBytes Bound on the estimated size of cached scripts. Scripts with unwritten edits & the current
+     *                   script are kept even if they exceed it.
+     *
+     * @throws IOException Indicates the directory could not be listed.
+     */
+    public WorkspaceSession(final Path directory, final long cacheBytes) throws IOException {
+        this.directory = directory;
+        this.scripts = Corpus.listScripts(directory);
+        this.cacheBytes = cacheBytes;
+        final ArrayList<String> names = new ArrayList<>(scripts.size());
+        for (final Path script : scripts) names.add(Corpus.relativeName(directory, script));
+        this.names = List.copyOf(names);
+    }
+
+    /**
+     * Returns the number of scripts in the workspace.
+     *
+     * @return The number of scripts.
+     */
+    public int size() {
+        return scripts.size();
+    }
+
+    /**
+     * Returns the name of a script relative to the workspace.
+     *
+     * @param index Index of the script.
+     *
+     * @return The script name.
+     */
+    public String getName(final int index) {
+        return names.get(index);
+    }
+
+    /**
+     * Returns the script names.
+     *
+     * @return Unmodifiable list of names, sorted.
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Returns the index of the current script.
+     *
+     * @return The index, or -1 if no script has been opened.
+     */
+    public int getCurrentIndex() {
+        return current;
+    }
+
+    /**
+     * Opens a script, making it the current script. Cached & prefetched scripts are returned without parsing.
+     *
+     * @param index Index of the script.
+     *
+     * @return The parsed script.
+     *
+     * @throws IndexOutOfBoundsException Indicates there is no script at the index.
+     * @throws IOException               Indicates the script could not be read.
+     */
+    public CBWS open(final int index) throws IOException {
+        if (index < 0 || index >= scripts.size()) throw new IndexOutOfBoundsException(index);
+
+        CBWS cbws;
+        final Future<CBWS> prefetch;
+        synchronized (this) {
+            cbws = cache.get(index);
+            prefetch = cbws == null ? prefetches.remove(index) : null;
+        }
+
+        // Wait for an in-flight prefetch rather than parsing the script twice.
+        if (cbws == null && prefetch != null) {
+            try { cbws = prefetch.get(); }
+            catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a prefetched script.", e);
+            }
+            catch (final ExecutionException e) {
+                // Parse again on this thread so the caller sees the real error.
+                cbws = null;
+            }
+        }
+        if (cbws == null) cbws = parse(index);
+
+        synchronized (this) {
+            // A prefetch may have finished while this thread was parsing; keep the instance already cached.
+            final CBWS cached = cache.get(index);
+            if (cached != null) cbws = cached;
+            else cache.put(index, cbws);
+            current = index;
+            evict();
+        }
+        prefetchNeighbours(index);
+        return cbws;
+    }
+
+    /**
+     * Returns the scripts with unwritten edits.
+     *
+     * @return Names of the modified scripts, sorted.
+     */
+    public synchronized List<String> getModifiedNames() {
+        final ArrayList<String> modified = new ArrayList<>();
+        for (final Map.Entry<Integer, CBWS> entry : cache.entrySet())
+            if (entry.getValue().isModified()) modified.add(names.get(entry.getKey()));
+        modified.sort(String::compareTo);
+        return modified;
+    }
+
+    /**
+     * Returns the number of parsed scripts held by the session.
+     *
+     * @return The number of cached scripts.
+     */
+    public synchronized int getCachedCount() {
+        return cache.size();
+    }
+
+    /**
+     * Reads & parses a script.
+     *
+     * @param index Index of the script.
+     *
+     * @return The parsed script.
+     *
+     * @throws IOException Indicates the script could not be read.
+     */
+    private CBWS parse(final int index) throws IOException {
+        final Path script = scripts.get(index);
+        return new CBWS(script.toFile(), Files.readAllBytes(script));
+    }
+
+    /**
+     * Starts parsing the scripts next to a script in the background, unless they are cached or already being parsed.
+     *
+     * @param index Index of the script.
+     */
+    private synchronized void prefetchNeighbours(final int index) {
+        for (int distance = 1; distance <= PREFETCH_DISTANCE; distance++) {
+            for (final int neighbour : new int[]{index + distance, index - distance}) {
+                if (neighbour < 0 || neighbour >= scripts.size()) continue;
+                if (cache.containsKey(neighbour) || prefetches.containsKey(neighbour)) continue;
+                prefetches.put(neighbour, prefetcher.submit(() -> {
+                    final CBWS cbws;
+                    try { cbws = parse(neighbour); }
+                    catch (final IOException e) { throw new UncheckedIOException(e); }
+                    collect(neighbour, cbws);
+                    return cbws;
+                }));
+            }
+        }
+    }
+
+    /**
+     * Moves a finished prefetch into the cache. Called on the prefetch thread, so it must not read cached scripts, which
+     * the session thread may be editing; the cache is trimmed by the next {@link #open}.
+     *
+     * @param index Index of the script.
+     * @param cbws  The parsed script.
+     */
+    private synchronized void collect(final int index, final CBWS cbws) {
+        if (prefetches.remove(index) == null || cache.containsKey(index)) return;
+
+        // Prefetched scripts become the most recently used, since they are the likeliest to be opened next.
+        cache.put(index, cbws);
+    }
+
+    /**
+     * Evicts least recently used scripts until the cache fits its budget. The current script & scripts with unwritten
+     * edits are kept. Only called on the session thread, which is the only thread that edits cached scripts.
+     */
+    private void evict() {
+        long size = 0;
+        for (final CBWS cbws : cache.values()) size += cbws.estimateSize();
+
+        final Iterator<Map.Entry<Integer, CBWS>> iterator = cache.entrySet().iterator();
+        while (size > cacheBytes && iterator.hasNext()) {
+            final Map.Entry<Integer, CBWS> entry = iterator.next();
+            if (entry.getKey() == current || entry.getValue().isModified()) continue;
+            size -= entry.getValue().estimateSize();
+            iterator.remove();
+        }
+    }
+
+    /** Stops prefetching. Cached scripts are discarded; unwritten edits are lost. */
+    @Override
+    public void close() {
+        prefetcher.shutdownNow();
+        synchronized (this) {
+            prefetches.clear();
+            cache.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return directory.toString();
+    }
+}
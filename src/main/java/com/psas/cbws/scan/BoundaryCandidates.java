@@ -0,0 +1,115 @@
+package com.psas.cbws.scan;
+
+import java.util.Arrays;
+
+/**
+ * Function boundary candidates found in a range of CBWS bytes: maximal runs of null bytes long enough to terminate a
+ * function, and the offsets of {@code 00000003} function start markers.
+ */
+public final class BoundaryCandidates {
+    /** Null run starts & lengths, stored in parallel. */
+    private int[] runStarts = new int[16], runLengths = new int[16];
+
+    /** Marker offsets. */
+    private int[] markers = new int[16];
+
+    /** Number of runs & markers stored. */
+    private int runCount, markerCount;
+
+    /**
+     * Records a null run.
+     *
+     * @param start  Offset of the first null byte.
+     * @param length Number of null bytes.
+     */
+    void addNullRun(final int start, final int length) {
+        if (runCount == runStarts.length) {
+            runStarts = Arrays.copyOf(runStarts, runCount * 2);
+            runLengths = Arrays.copyOf(runLengths, runCount * 2);
+        }
+        runStarts[runCount] = start;
+        runLengths[runCount++] = length;
+    }
+
+    /**
+     * Records a function start marker.
+     *
+     * @param offset Offset of the marker's first byte.
+     */
+    void addMarker(final int offset) {
+        if (markerCount == markers.length) markers = Arrays.copyOf(markers, markerCount * 2);
+        markers[markerCount++] = offset;
+    }
+
+    /**
+     * Returns the number of null runs found.
+     *
+     * @return The null run count.
+     */
+    public int getNullRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Returns the offset of a null run's first byte.
+     *
+     * @param index The null run index.
+     *
+     * @return The offset.
+     */
+    public int getNullRunStart(final int index) {
+        return runStarts[index];
+    }
+
+    /**
+     * Returns the length of a null run.
+     *
+     * @param index The null run index.
+     *
+     * @return The number of null bytes.
+     */
+    public int getNullRunLength(final int index) {
+        return runLengths[index];
+    }
+
+    /**
+     * Returns the number of function start markers found.
+     *
+     * @return The marker count.
+     */
+    public int getMarkerCount() {
+        return markerCount;
+    }
+
+    /**
+     * Returns the offset of a function start marker.
+     *
+     * @param index The marker index.
+     *
+     * @return The offset of the marker's first byte.
+     */
+    public int getMarker(final int index) {
+        return markers[index];
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (!(object instanceof final BoundaryCandidates other)) return false;
+        return Arrays.equals(runStarts, 0, runCount, other.runStarts, 0, other.runCount)
+                && Arrays.equals(runLengths, 0, runCount, other.runLengths, 0, other.runCount)
+                && Arrays.equals(markers, 0, markerCount, other.markers, 0, other.markerCount);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = runCount * 31 + markerCount;
+        for (int i = 0; i < runCount; i++) hash = hash * 31 + runStarts[i];
+        for (int i = 0; i < markerCount; i++) hash = hash * 31 + markers[i];
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d null runs, %d markers", runCount, markerCount);
+    }
+}
@@ -0,0 +1,39 @@
+package com.psas.cbws.scan;
+
+/**
+ * Scans raw CBWS bytes for function boundary candidates. Functions end with runs of 12, 15 or 16 null bytes & the
+ * functions of most sections begin with the {@code 00000003} marker, so both are reported for the parser to validate.
+ */
+public interface BoundaryScanner {
+    /** Minimum length of a null run reported by a scanner. This is the shortest function terminator. */
+    int MIN_NULL_RUN = 12;
+
+    /** Value of the final byte of a function start marker. The three bytes preceding it are null. */
+    byte MARKER_BYTE = 0x03;
+
+    /** Length of a function start marker in bytes. */
+    int MARKER_LENGTH = 4;
+
+    /**
+     * Scans a range of bytes. The range boundaries are treated as the ends of any null run crossing them, and markers
+     * must lie entirely within the range.
+     *
+     * @param bytes The bytes to scan.
+     * @param from  Offset of the first byte to scan.
+     * @param to    Offset after the last byte to scan.
+     *
+     * @return The candidates found in the range.
+     */
+    BoundaryCandidates scan(byte[] bytes, int from, int to);
+
+    /**
+     * Scans a whole array.
+     *
+     * @param bytes The bytes to scan.
+     *
+     * @return The candidates found.
+     */
+    default BoundaryCandidates scan(final byte[] bytes) {
+        return scan(bytes, 0, bytes.length);
+    }
+}
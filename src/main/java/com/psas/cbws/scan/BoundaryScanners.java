@@ -0,0 +1,38 @@
+package com.psas.cbws.scan;
+
+/** Selects the fastest boundary scanner available on the running JVM. */
+public final class BoundaryScanners {
+    /** Class name of the vectorized scanner, which is only compiled by the {@code vector} build profile. */
+    private static final String VECTOR_SCANNER = "com.psas.cbws.scan.VectorBoundaryScanner";
+
+    /** The selected scanner. */
+    private static final BoundaryScanner BEST = load();
+
+    private BoundaryScanners() {}
+
+    /**
+     * Returns the vectorized scanner if it was compiled & the {@code jdk.incubator.vector} module is available,
+     * otherwise the scalar scanner. Both produce identical results.
+     *
+     * @return The scanner.
+     */
+    public static BoundaryScanner best() {
+        return BEST;
+    }
+
+    /**
+     * Returns the vectorized scanner if it can be used.
+     *
+     * @return The vectorized scanner, or null if it is unavailable.
+     */
+    public static BoundaryScanner vector() {
+        return BEST instanceof ScalarBoundaryScanner ? null : BEST;
+    }
+
+    private static BoundaryScanner load() {
+        // The Vector API is an incubator module; it must be enabled with --add-modules jdk.incubator.vector.
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return ScalarBoundaryScanner.INSTANCE;
+        try { return (BoundaryScanner) Class.forName(VECTOR_SCANNER).getDeclaredConstructor().newInstance(); }
+        catch (final ReflectiveOperationException | LinkageError e) { return ScalarBoundaryScanner.INSTANCE; }
+    }
+}
@@ -0,0 +1,75 @@
+package com.psas.cbws.scan;
+
+/** Byte-at-a-time boundary scanner. This is the reference implementation & the fallback on every platform. */
+public final class ScalarBoundaryScanner implements BoundaryScanner {
+    /** Shared instance. The scanner holds no state. */
+    public static final ScalarBoundaryScanner INSTANCE = new ScalarBoundaryScanner();
+
+    private ScalarBoundaryScanner() {}
+
+    @Override
+    public BoundaryCandidates scan(final byte[] bytes, final int from, final int to) {
+        final BoundaryCandidates candidates = new BoundaryCandidates();
+        final int runStart = scanRange(bytes, from, from, to, -1, candidates);
+        endRun(runStart, to, candidates);
+        return candidates;
+    }
+
+    /**
+     * Scans part of a range one byte at a time. Shared with the vectorized scanner to handle the tail of a range.
+     *
+     * @param bytes      The bytes to scan.
+     * @param rangeStart Start of the whole range being scanned. Markers may not begin before it.
+     * @param from       Offset of the first byte to scan.
+     * @param to         Offset after the last byte to scan.
+     * @param runStart   Start of the null run in progress when scanning begins, or -1 if there is none.
+     * @param candidates Candidates to add to.
+     *
+     * @return Start of the null run in progress when scanning ends, or -1 if there is none.
+     */
+    static int scanRange(
+            final byte[] bytes,
+            final int rangeStart,
+            final int from,
+            final int to,
+            int runStart,
+            final BoundaryCandidates candidates
+    ) {
+        for (int i = from; i < to; i++) {
+            final byte value = bytes[i];
+            if (value == 0) {
+                if (runStart < 0) runStart = i;
+                continue;
+            }
+            endRun(runStart, i, candidates);
+            runStart = -1;
+            if (value == MARKER_BYTE) checkMarker(bytes, rangeStart, i, candidates);
+        }
+        return runStart;
+    }
+
+    /**
+     * Records a null run if it is long enough to terminate a function.
+     *
+     * @param runStart   Start of the run, or -1 if there is none.
+     * @param end        Offset after the run's last byte.
+     * @param candidates Candidates to add to.
+     */
+    static void endRun(final int runStart, final int end, final BoundaryCandidates candidates) {
+        if (runStart >= 0 && end - runStart >= MIN_NULL_RUN) candidates.addNullRun(runStart, end - runStart);
+    }
+
+    /**
+     * Records a marker ending at an offset holding {@link #MARKER_BYTE} if the three preceding bytes are null.
+     *
+     * @param bytes      The bytes being scanned.
+     * @param rangeStart Start of the range being scanned.
+     * @param offset     Offset of the marker's final byte.
+     * @param candidates Candidates to add to.
+     */
+    static void checkMarker(final byte[] bytes, final int rangeStart, final int offset, final BoundaryCandidates candidates) {
+        final int start = offset - (MARKER_LENGTH - 1);
+        if (start >= rangeStart && bytes[start] == 0 && bytes[start + 1] == 0 && bytes[start + 2] == 0)
+            candidates.addMarker(start);
+    }
+}
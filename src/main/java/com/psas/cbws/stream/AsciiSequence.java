@@ -0,0 +1,52 @@
+package com.psas.cbws.stream;
+
+/** A reusable character sequence view over ASCII bytes, so visitors can read text without allocating. */
+final class AsciiSequence implements CharSequence {
+    /** The viewed bytes. */
+    private byte[] bytes;
+
+    /** Offset of the first viewed byte. */
+    private int offset;
+
+    /** Number of viewed bytes. */
+    private int length;
+
+    /**
+     * Points this view at a range of bytes.
+     *
+     * @param bytes  The bytes.
+     * @param offset Offset of the first byte.
+     * @param length Number of bytes.
+     *
+     * @return This view.
+     */
+    AsciiSequence set(final byte[] bytes, final int offset, final int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+        return (char) (bytes[offset + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) chars[i] = (char) (bytes[offset + i] & 0xFF);
+        return new String(chars);
+    }
+}
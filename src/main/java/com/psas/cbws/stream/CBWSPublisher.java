@@ -0,0 +1,191 @@
+package com.psas.cbws.stream;
+
+import com.psas.cbws.Section;
+import com.psas.function.Attribute;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the parser events of a CBWS file with backpressure. The file is opened for each subscriber & read one
+ * chunk at a time, only as far as the subscriber's demand requires, so at most one chunk of events is buffered.
+ * Reading & parsing happen on the thread that calls {@link Flow.Subscription#request(long)}.
+ */
+public final class CBWSPublisher implements Flow.Publisher<ParseEvent> {
+    /** Size of the chunks read from the file. */
+    private static final int CHUNK_SIZE = 8192;
+
+    /** The file to publish. */
+    private final Path path;
+
+    /** Whether attribute events are published. */
+    private final boolean attributes;
+
+    /**
+     * Constructs a publisher.
+     *
+     * @param path       The file to publish.
+     * @param attributes Whether to decode & publish attribute events.
+     */
+    public CBWSPublisher(final Path path, final boolean attributes) {
+        this.path = path;
+        this.attributes = attributes;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ParseEvent> subscriber) {
+        final Subscription subscription = new Subscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /** Subscription reading the file as demand arrives. */
+    private final class Subscription implements Flow.Subscription, CBWSVisitor {
+        /** The subscriber. */
+        private final Flow.Subscriber<? super ParseEvent> subscriber;
+
+        /** Events parsed but not yet delivered. */
+        private final ArrayDeque<ParseEvent> queue = new ArrayDeque<>();
+
+        /** Outstanding demand. */
+        private final AtomicLong requested = new AtomicLong();
+
+        /** Number of pending drain requests. Only the caller that raises it from 0 drains. */
+        private final AtomicInteger work = new AtomicInteger();
+
+        /** Parser fed from the file. */
+        private final StreamingParser parser = new StreamingParser(this);
+
+        /** Chunk buffer. */
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+
+        /** The open file, or null before the first request. */
+        private InputStream stream;
+
+        /** Whether the whole file has been parsed. */
+        private boolean endOfFile;
+
+        /** Whether the subscription has ended through completion, error or cancellation. */
+        private volatile boolean done;
+
+        /**
+         * Constructs a subscription.
+         *
+         * @param subscriber The subscriber.
+         */
+        private Subscription(final Flow.Subscriber<? super ParseEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException(String.format("Requested %d events; demand must be positive.", n)));
+                return;
+            }
+            requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+            close();
+        }
+
+        /** Delivers events while there is demand. Re-entrant calls from {@code onNext} only record more work. */
+        private void drain() {
+            if (work.getAndIncrement() != 0) return;
+            do {
+                try {
+                    while (!done && requested.get() > 0) {
+                        final ParseEvent event = next();
+                        if (event == null) break;
+                        requested.decrementAndGet();
+                        subscriber.onNext(event);
+                    }
+                    if (!done && endOfFile && queue.isEmpty()) {
+                        done = true;
+                        close();
+                        subscriber.onComplete();
+                    }
+                }
+                catch (final IOException | RuntimeException e) { fail(e); }
+            } while (work.decrementAndGet() != 0);
+        }
+
+        /**
+         * Returns the next event, reading more of the file if none are queued.
+         *
+         * @return The event, or null at the end of the file.
+         *
+         * @throws IOException Indicates the file could not be read.
+         */
+        private ParseEvent next() throws IOException {
+            while (queue.isEmpty() && !endOfFile) {
+                if (stream == null) stream = Files.newInputStream(path);
+                final int read = stream.read(chunk);
+                if (read < 0) {
+                    parser.finish();
+                    endOfFile = true;
+                }
+                else parser.feed(chunk, 0, read);
+            }
+            return queue.poll();
+        }
+
+        /**
+         * Ends the subscription with an error.
+         *
+         * @param error The error.
+         */
+        private void fail(final Throwable error) {
+            if (done) return;
+            done = true;
+            close();
+            subscriber.onError(error);
+        }
+
+        /** Closes the file if it is open. */
+        private void close() {
+            if (stream == null) return;
+            try { stream.close(); }
+            catch (final IOException ignored) {}  // Nothing more is read from the file.
+        }
+
+        @Override
+        public void visitHeader(final CharSequence fileType, final int unknownHeaderValue1, final int functionCount, final int frameDelay) {
+            queue.add(new ParseEvent.Header(fileType.toString(), unknownHeaderValue1, functionCount, frameDelay));
+        }
+
+        @Override
+        public void visitSectionStart(final Section section) {
+            queue.add(new ParseEvent.SectionStart(section));
+        }
+
+        @Override
+        public void visitFunctionStart(final Section section, final int index, final long offset, final CharSequence label, final byte frame) {
+            queue.add(new ParseEvent.FunctionStart(section, index, offset, label.toString(), frame));
+        }
+
+        @Override
+        public boolean wantsAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public void visitAttribute(final Section section, final int index, final Attribute attribute) {
+            queue.add(new ParseEvent.FunctionAttribute(section, index, attribute));
+        }
+
+        @Override
+        public void visitFunctionEnd(final Section section, final int index, final long offset, final int length) {
+            queue.add(new ParseEvent.FunctionEnd(section, index, offset, length));
+        }
+    }
+}
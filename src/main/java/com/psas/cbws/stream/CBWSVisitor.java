@@ -0,0 +1,86 @@
+package com.psas.cbws.stream;
+
+import com.psas.cbws.Section;
+import com.psas.function.Attribute;
+import com.psas.function.Function;
+
+/**
+ * Receives events from a {@link StreamingParser} as CBWS bytes are scanned. Every method has an empty default, so
+ * visitors only override the events they need.
+ * <p>
+ * Events for a function are delivered once its end has been found, since the bytes that follow a function decide which
+ * section it belongs to. Character sequences passed to a visitor are views over the parser's buffer & are only valid
+ * during the call; use {@code toString()} to keep them.
+ */
+public interface CBWSVisitor {
+    /**
+     * Called once the 16-byte file header has been read.
+     *
+     * @param fileType            File type from the file header.
+     * @param unknownHeaderValue1 The 1st numerical value in the file header. Its purpose is unknown.
+     * @param functionCount       Number of functions in the file. First & final frame functions together count once.
+     * @param frameDelay          Number of frames to wait before beginning intermediate function execution.
+     */
+    default void visitHeader(CharSequence fileType, int unknownHeaderValue1, int functionCount, int frameDelay) {}
+
+    /**
+     * Called before the first function of a run of functions in the same section. Sections appear in file order, so
+     * the final frame section starts twice: once for its first function & again after the first frame functions.
+     *
+     * @param section The section.
+     */
+    default void visitSectionStart(Section section) {}
+
+    /**
+     * Called at the start of each function's events.
+     *
+     * @param section The section containing the function.
+     * @param index   Index of the function within its section.
+     * @param offset  Offset of the function's first byte in the file.
+     * @param label   The function label.
+     * @param frame   The function's final byte, which is its frame for intermediate functions.
+     */
+    default void visitFunctionStart(Section section, int index, long offset, CharSequence label, byte frame) {}
+
+    /**
+     * Returns whether {@link #visitFunction} & {@link #visitAttribute} should be called. Decoding functions allocates,
+     * so it is only done for visitors that ask for it.
+     *
+     * @return True to receive function & attribute events.
+     */
+    default boolean wantsAttributes() {
+        return false;
+    }
+
+    /**
+     * Called with each decoded function before its attributes, if {@link #wantsAttributes()} returns true. The function
+     * is not used by the parser afterwards, so it may be kept.
+     *
+     * @param section  The section containing the function.
+     * @param index    Index of the function within its section.
+     * @param function The decoded function.
+     */
+    default void visitFunction(Section section, int index, Function function) {}
+
+    /**
+     * Called for each attribute of a function, in index order, if {@link #wantsAttributes()} returns true.
+     *
+     * @param section   The section containing the function.
+     * @param index     Index of the function within its section.
+     * @param attribute The attribute.
+     */
+    default void visitAttribute(Section section, int index, Attribute attribute) {}
+
+    /**
+     * Called at the end of each function's events.
+     *
+     * @param section The section containing the function.
+     * @param index   Index of the function within its section.
+     * @param offset  Offset of the function's first byte in the file.
+     * @param length  Length of the function in bytes.
+     */
+    default void visitFunctionEnd(Section section, int index, long offset, int length) {}
+
+    /** Called once after the last function. */
+    default void visitEnd() {}
+}
@@ -0,0 +1,274 @@
+package com.psas.cbws.stream;
+
+import com.psas.cbws.ParseLimits;
+import com.psas.cbws.Section;
+import com.psas.cbws.scan.BoundaryCandidates;
+import com.psas.cbws.scan.BoundaryScanners;
+import com.psas.function.Attribute;
+import com.psas.function.Function;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Parses a large file on several cores, sending exactly the events a {@link StreamingParser} would send, in the same
+ * order. Files smaller than a threshold are parsed by a single {@link StreamingParser}.
+ * <p>
+ * A {@code 00000003} function start marker preceded by at least 16 null bytes ends the function before it whatever
+ * section the parser is in, so the file is split at such markers into chunks that are parsed in parallel. Only the
+ * section a chunk starts in is unknown until the chunks before it are parsed; each chunk is parsed speculatively as if
+ * it started among the intermediate functions, where nearly every marker lies. The chunks are then stitched in file
+ * order: a chunk whose speculation was wrong is parsed again from its real section, the section indexes are assigned &
+ * the recorded events are sent to the visitor. Decoding labels & attributes dominates parsing, & that work is done in
+ * parallel.
+ */
+public final class ParallelParser {
+    /** Size, in bytes, below which files are parsed on one thread by default. */
+    public static final int DEFAULT_THRESHOLD = 1 << 20;
+
+    /** Smallest chunk worth parsing on its own, in bytes. */
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+    /** Number of null bytes before a marker that guarantee a function ends at it. */
+    private static final int CERTAIN_NULL_RUN = 16;
+
+    /** Length of the file header in bytes. */
+    private static final int HEADER_LENGTH = 16;
+
+    /** Length of a function start marker in bytes. */
+    private static final int MARKER_LENGTH = 4;
+
+    /**
+     * A function found while parsing a chunk.
+     *
+     * @param section  The section the function belongs to, assuming the chunk started in the right section.
+     * @param offset   Offset of the function's first byte in the file.
+     * @param length   Length of the function in bytes.
+     * @param label    The function label.
+     * @param frame    The function's final byte.
+     * @param function The decoded function, or null if the visitor does not want attributes.
+     */
+    private record FunctionEvent(Section section, long offset, int length, String label, byte frame, Function function) {}
+
+    /**
+     * The file header.
+     *
+     * @param fileType            File type from the file header.
+     * @param unknownHeaderValue1 The 1st numerical value in the file header.
+     * @param functionCount       Number of functions in the file.
+     * @param frameDelay          Number of frames to wait before beginning intermediate function execution.
+     */
+    private record HeaderEvent(String fileType, int unknownHeaderValue1, int functionCount, int frameDelay) {}
+
+    /**
+     * The events of one chunk.
+     *
+     * @param startState Section the chunk was parsed as starting in.
+     * @param endState   Section the parser was in at the end of the chunk.
+     * @param header     The file header, or null if the chunk does not start the file.
+     * @param functions  The functions of the chunk, in file order. If the chunk was stopped by an exception, the last
+     *                   may be the function being parsed, with a length of -1.
+     * @param error      The exception that stopped the chunk, or null if it was parsed to its end.
+     */
+    private record Chunk(Section startState, Section endState, HeaderEvent header, List<FunctionEvent> functions,
+                         RuntimeException error) {}
+
+    /** Records the events of a chunk for {@link #parse} to send on in file order. */
+    private static final class Recorder implements CBWSVisitor {
+        /** Whether to decode the functions. */
+        private final boolean attributes;
+
+        /** The functions parsed so far. */
+        private final ArrayList<FunctionEvent> functions = new ArrayList<>();
+
+        /** The file header, or null if it has not been read. */
+        private HeaderEvent header;
+
+        /** The function being parsed, with a length of -1, or null between functions. */
+        private FunctionEvent started;
+
+        /** The decoded function being parsed, or null. */
+        private Function function;
+
+        /**
+         * Constructs a recorder.
+         *
+         * @param attributes Whether to decode the functions.
+         */
+        private Recorder(final boolean attributes) {
+            this.attributes = attributes;
+        }
+
+        @Override
+        public void visitHeader(final CharSequence fileType, final int unknownHeaderValue1, final int functionCount, final int frameDelay) {
+            header = new HeaderEvent(fileType.toString(), unknownHeaderValue1, functionCount, frameDelay);
+        }
+
+        @Override
+        public void visitFunctionStart(final Section section, final int index, final long offset, final CharSequence label, final byte frame) {
+            started = new FunctionEvent(section, offset, -1, label.toString(), frame, null);
+            function = null;
+        }
+
+        @Override
+        public boolean wantsAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public void visitFunction(final Section section, final int index, final Function function) {
+            this.function = function;
+        }
+
+        @Override
+        public void visitFunctionEnd(final Section section, final int index, final long offset, final int length) {
+            functions.add(new FunctionEvent(section, offset, length, started.label(), started.frame(), function));
+            started = null;
+        }
+    }
+
+    private ParallelParser() {}
+
+    /**
+     * Parses a file, in parallel if it is at least {@link #DEFAULT_THRESHOLD} bytes long.
+     *
+     * @param bytes   The file contents.
+     * @param visitor The visitor to send events to.
+     * @param limits  Budgets of the parse.
+     *
+     * @throws com.psas.cbws.CBWSParseException Indicates a budget was exceeded or the file could not be decoded.
+     */
+    public static void parse(final byte[] bytes, final CBWSVisitor visitor, final ParseLimits limits) {
+        parse(bytes, visitor, limits, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Parses a file, in parallel if it is at least a given size.
+     *
+     * @param bytes     The file contents.
+     * @param visitor   The visitor to send events to.
+     * @param limits    Budgets of the parse.
+     * @param threshold Size, in bytes, below which the file is parsed on one thread.
+     *
+     * @throws com.psas.cbws.CBWSParseException Indicates a budget was exceeded or the file could not be decoded.
+     */
+    public static void parse(final byte[] bytes, final CBWSVisitor visitor, final ParseLimits limits, final int threshold) {
+        final long deadline = limits.deadline();
+        final int[] splits = bytes.length < threshold ? new int[0] : findSplits(bytes);
+        if (splits.length == 0) {
+            final StreamingParser parser = new StreamingParser(visitor, limits, deadline, 0, Section.INTERMEDIATE);
+            parser.feed(bytes, 0, bytes.length);
+            parser.finish();
+            return;
+        }
+        limits.checkSize(bytes.length);
+
+        // Chunk i runs from bounds[i] to bounds[i + 1]; every chunk after the first starts at a marker.
+        final int[] bounds = new int[splits.length + 2];
+        System.arraycopy(splits, 0, bounds, 1, splits.length);
+        bounds[bounds.length - 1] = bytes.length;
+        final boolean attributes = visitor.wantsAttributes();
+        final Chunk[] chunks = IntStream.range(0, bounds.length - 1).parallel()
+                .mapToObj(i -> parseChunk(bytes, bounds[i], bounds[i + 1], Section.INTERMEDIATE, attributes, limits, deadline))
+                .toArray(Chunk[]::new);
+
+        // Stitch the chunks in file order, parsing again any chunk that started in another section than assumed.
+        final int[] functionCounts = new int[Section.values().length];
+        Section state = Section.INTERMEDIATE, lastSection = null;
+        for (int i = 0; i < chunks.length; i++) {
+            Chunk chunk = chunks[i];
+            if (chunk.startState() != state)
+                chunk = parseChunk(bytes, bounds[i], bounds[i + 1], state, attributes, limits, deadline);
+
+            final HeaderEvent header = chunk.header();
+            if (header != null)
+                visitor.visitHeader(header.fileType(), header.unknownHeaderValue1(), header.functionCount(), header.frameDelay());
+            for (final FunctionEvent event : chunk.functions()) {
+                final Section section = event.section();
+                final int index = functionCounts[section.ordinal()]++;
+                if (section != lastSection) {
+                    visitor.visitSectionStart(section);
+                    lastSection = section;
+                }
+                visitor.visitFunctionStart(section, index, event.offset(), event.label(), event.frame());
+                if (event.length() < 0) break;  // The function that failed to decode.
+                if (attributes) {
+                    visitor.visitFunction(section, index, event.function());
+                    for (final Attribute attribute : event.function().getAttributes())
+                        visitor.visitAttribute(section, index, attribute);
+                }
+                visitor.visitFunctionEnd(section, index, event.offset(), event.length());
+            }
+            if (chunk.error() != null) throw chunk.error();
+            state = chunk.endState();
+        }
+        visitor.visitEnd();
+    }
+
+    /**
+     * Finds the markers to split a file at. Each ends a function in every section, & consecutive markers are at least
+     * {@link #MIN_CHUNK_SIZE} bytes apart, with about one chunk per core.
+     *
+     * @param bytes The file contents.
+     *
+     * @return Offsets of the markers, in file order.
+     */
+    private static int[] findSplits(final byte[] bytes) {
+        final int chunkSize = Math.max(MIN_CHUNK_SIZE, bytes.length / Runtime.getRuntime().availableProcessors());
+        if (bytes.length < chunkSize * 2) return new int[0];
+        final BoundaryCandidates candidates = BoundaryScanners.best().scan(bytes);
+
+        // A marker's own 3 null bytes end the null run before it.
+        final int[] splits = new int[bytes.length / chunkSize];
+        int count = 0, next = chunkSize, run = 0;
+        for (int i = 0; i < candidates.getMarkerCount() && count < splits.length; i++) {
+            final int marker = candidates.getMarker(i);
+            if (marker < next || marker + MARKER_LENGTH > bytes.length - MIN_CHUNK_SIZE / 2) continue;
+            while (run < candidates.getNullRunCount()
+                    && candidates.getNullRunStart(run) + candidates.getNullRunLength(run) < marker + MARKER_LENGTH - 1) run++;
+            if (run == candidates.getNullRunCount()) break;
+            final int runStart = candidates.getNullRunStart(run);
+            if (runStart + candidates.getNullRunLength(run) != marker + MARKER_LENGTH - 1
+                    || marker - runStart < CERTAIN_NULL_RUN || marker - CERTAIN_NULL_RUN < HEADER_LENGTH) continue;
+            splits[count++] = marker;
+            next = marker + chunkSize;
+        }
+        final int[] found = new int[count];
+        System.arraycopy(splits, 0, found, 0, count);
+        return found;
+    }
+
+    /**
+     * Parses a chunk of a file, recording its events.
+     *
+     * @param bytes      The file contents.
+     * @param from       Offset of the chunk's first byte: 0, or a marker that ends a function in every section.
+     * @param to         Offset after the chunk's last byte: the next such marker, or the end of the file.
+     * @param state      Section the chunk is assumed to start in.
+     * @param attributes Whether to decode the functions.
+     * @param limits     Budgets of the parse.
+     * @param deadline   Deadline of the parse, as a {@link System#nanoTime()} value.
+     *
+     * @return The events of the chunk.
+     */
+    private static Chunk parseChunk(final byte[] bytes, final int from, final int to, final Section state,
+                                    final boolean attributes, final ParseLimits limits, final long deadline) {
+        // The function ending at the next marker is found once the marker itself is fed as lookahead.
+        final Recorder recorder = new Recorder(attributes);
+        final StreamingParser parser = new StreamingParser(recorder, limits, deadline, from, state);
+        try {
+            if (to == bytes.length) {
+                parser.feed(bytes, from, to - from);
+                parser.finish();
+            }
+            else parser.feed(bytes, from, to + MARKER_LENGTH - from);
+        }
+        catch (final RuntimeException e) {
+            // The sequential parser visits the start of a function before finding it cannot be decoded.
+            if (recorder.started != null) recorder.functions.add(recorder.started);
+            return new Chunk(state, parser.getState(), recorder.header, recorder.functions, e);
+        }
+        return new Chunk(state, parser.getState(), recorder.header, recorder.functions, null);
+    }
+}
@@ -0,0 +1,54 @@
+package com.psas.cbws.stream;
+
+import com.psas.cbws.Section;
+import com.psas.function.Attribute;
+
+/** Parser events published by a {@link CBWSPublisher}. Each mirrors a {@link CBWSVisitor} method. */
+public sealed interface ParseEvent {
+    /**
+     * The file header.
+     *
+     * @param fileType            File type from the file header.
+     * @param unknownHeaderValue1 The 1st numerical value in the file header. Its purpose is unknown.
+     * @param functionCount       Number of functions in the file.
+     * @param frameDelay          Number of frames to wait before beginning intermediate function execution.
+     */
+    record Header(String fileType, int unknownHeaderValue1, int functionCount, int frameDelay) implements ParseEvent {}
+
+    /**
+     * The start of a run of functions in the same section.
+     *
+     * @param section The section.
+     */
+    record SectionStart(Section section) implements ParseEvent {}
+
+    /**
+     * The start of a function.
+     *
+     * @param section The section containing the function.
+     * @param index   Index of the function within its section.
+     * @param offset  Offset of the function's first byte in the file.
+     * @param label   The function label.
+     * @param frame   The function's final byte, which is its frame for intermediate functions.
+     */
+    record FunctionStart(Section section, int index, long offset, String label, byte frame) implements ParseEvent {}
+
+    /**
+     * An attribute of a function.
+     *
+     * @param section   The section containing the function.
+     * @param index     Index of the function within its section.
+     * @param attribute The attribute.
+     */
+    record FunctionAttribute(Section section, int index, Attribute attribute) implements ParseEvent {}
+
+    /**
+     * The end of a function.
+     *
+     * @param section The section containing the function.
+     * @param index   Index of the function within its section.
+     * @param offset  Offset of the function's first byte in the file.
+     * @param length  Length of the function in bytes.
+     */
+    record FunctionEnd(Section section, int index, long offset, int length) implements ParseEvent {}
+}
@@ -0,0 +1,342 @@
+package com.psas.cbws.stream;
+
+import com.psas.cbws.CBWSParseException;
+import com.psas.cbws.ParseLimits;
+import com.psas.cbws.Section;
+import com.psas.function.AsciiRuns;
+import com.psas.function.Attribute;
+import com.psas.function.Function;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.apache.commons.codec.binary.Hex.encodeHexString;
+
+/**
+ * Push-based CBWS parser. Bytes are fed in chunks of any size & events are sent to a {@link CBWSVisitor} as soon as
+ * the function boundaries they depend on are known. Only the current function & a few bytes of lookahead are buffered,
+ * so memory use is bounded by the largest function rather than the file.
+ * <p>
+ * Boundaries follow the same rules as {@link com.psas.cbws.CBWS}: a function ends with 15 null bytes & a non-null byte
+ * or with 16 null bytes, & the 4 bytes that follow decide whether it really ends & which section comes next.
+ */
+public final class StreamingParser {
+    /** Length of the file header in bytes. */
+    private static final int HEADER_LENGTH = 16;
+
+    /** Number of bytes after a function end that decide the next section. */
+    private static final int LOOKAHEAD = 4;
+
+    /** Value of the 4 bytes starting every function except the first of a section. */
+    private static final int FUNCTION_START = 0x00000003;
+
+    /** Label reported when none is found, as ASCII bytes. */
+    private static final byte[] UNKNOWN_FUNCTION = "Unknown Function".getBytes(StandardCharsets.US_ASCII);
+
+    /** Size of the chunks read by {@link #parse(InputStream, CBWSVisitor)}. */
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * Parses a whole stream.
+     *
+     * @param stream  The stream to read. It is not closed.
+     * @param visitor The visitor to send events to.
+     *
+     * @throws IOException              Indicates the stream could not be read.
+     * @throws CBWSParseException Indicates the stream is shorter than the file header or could not be decoded.
+     */
+    public static void parse(final InputStream stream, final CBWSVisitor visitor) throws IOException {
+        final StreamingParser parser = new StreamingParser(visitor);
+        final byte[] chunk = new byte[CHUNK_SIZE];
+        int read;
+        while ((read = stream.read(chunk)) >= 0) parser.feed(chunk, 0, read);
+        parser.finish();
+    }
+
+    /** The visitor to send events to. */
+    private final CBWSVisitor visitor;
+
+    /** Whether the visitor receives attribute events. */
+    private final boolean attributes;
+
+    /** Budgets of the parse. */
+    private final ParseLimits limits;
+
+    /** Deadline of the parse, as a {@link System#nanoTime()} value. */
+    private final long deadline;
+
+    /** Reusable view used for labels & the file type. */
+    private final AsciiSequence text = new AsciiSequence();
+
+    /** Reusable scanner finding function labels. */
+    private final AsciiRuns scanner = new AsciiRuns();
+
+    /** Number of functions seen in each section, indexed by ordinal. */
+    private final int[] functionCounts = new int[Section.values().length];
+
+    /** Buffered bytes: the current function, followed by bytes not yet examined. */
+    private byte[] buffer = new byte[CHUNK_SIZE];
+
+    /** Number of bytes in the buffer. */
+    private int length;
+
+    /** Buffer index of the current function's first byte. */
+    private int start;
+
+    /** Buffer index of the next byte to examine. */
+    private int position;
+
+    /** File offset of the first byte in the buffer. */
+    private long bufferOffset;
+
+    /** Section the current function belongs to unless its end says otherwise. */
+    private Section state;
+
+    /** Section of the last function sent to the visitor. */
+    private Section lastSection;
+
+    /** Number of null bytes ending the current function. */
+    private int nullRun;
+
+    /** Number of null bytes before the current function's last non-null byte. */
+    private int nullRunBeforeLast;
+
+    /** Whether the file header has been read. */
+    private boolean headerRead;
+
+    /** Whether {@link #finish()} has been called. */
+    private boolean finished;
+
+    /**
+     * Constructs a parser without budgets.
+     *
+     * @param visitor The visitor to send events to.
+     */
+    public StreamingParser(final CBWSVisitor visitor) {
+        this(visitor, ParseLimits.UNLIMITED);
+    }
+
+    /**
+     * Constructs a parser that stops with a {@link CBWSParseException} once a budget is exceeded. The time budget
+     * starts now.
+     *
+     * @param visitor The visitor to send events to.
+     * @param limits  Budgets of the parse.
+     */
+    public StreamingParser(final CBWSVisitor visitor, final ParseLimits limits) {
+        this(visitor, limits, limits.deadline(), 0, Section.INTERMEDIATE);
+    }
+
+    /**
+     * Constructs a parser that starts at a function boundary within a file instead of at its header. Used by
+     * {@link ParallelParser} to parse chunks of a file independently.
+     *
+     * @param visitor  The visitor to send events to.
+     * @param limits   Budgets of the parse.
+     * @param deadline Deadline of the parse, as a {@link System#nanoTime()} value.
+     * @param offset   File offset of the first byte to be fed. If it is 0, the file header is read first.
+     * @param state    Section the function starting at the offset belongs to unless its end says otherwise.
+     */
+    StreamingParser(final CBWSVisitor visitor, final ParseLimits limits, final long deadline, final long offset,
+                    final Section state) {
+        this.visitor = visitor;
+        this.attributes = visitor.wantsAttributes();
+        this.limits = limits;
+        this.deadline = deadline;
+        this.bufferOffset = offset;
+        this.headerRead = offset > 0;
+        this.state = state;
+    }
+
+    /**
+     * Returns the section the current function belongs to unless its end says otherwise.
+     *
+     * @return The section state.
+     */
+    Section getState() {
+        return state;
+    }
+
+    /**
+     * Feeds the next chunk of the file. Events for any functions completed by the chunk are sent before returning.
+     *
+     * @param bytes  Array containing the chunk.
+     * @param offset Offset of the chunk in the array.
+     * @param count  Length of the chunk.
+     *
+     * @throws CBWSParseException Indicates a budget was exceeded or a function could not be decoded.
+     */
+    public void feed(final byte[] bytes, final int offset, final int count) {
+        if (finished) throw new IllegalStateException("Parser is finished.");
+        limits.checkSize(bufferOffset + length + count);
+        compact(count);
+        System.arraycopy(bytes, offset, buffer, length, count);
+        length += count;
+        process();
+    }
+
+    /**
+     * Feeds the next chunk of the file from a buffer, such as a slice of a mapped corpus pack. The buffer's remaining
+     * bytes are consumed.
+     *
+     * @param chunk The chunk.
+     *
+     * @throws CBWSParseException Indicates a budget was exceeded or a function could not be decoded.
+     */
+    public void feed(final ByteBuffer chunk) {
+        if (finished) throw new IllegalStateException("Parser is finished.");
+        final int count = chunk.remaining();
+        limits.checkSize(bufferOffset + length + count);
+        compact(count);
+        chunk.get(buffer, length, count);
+        length += count;
+        process();
+    }
+
+    /**
+     * Signals the end of the file, sending events for the trailing function.
+     *
+     * @throws CBWSParseException Indicates the file was shorter than its header, a budget was exceeded or a function
+     *                            could not be decoded.
+     */
+    public void finish() {
+        if (finished) return;
+        finished = true;
+        if (!headerRead)
+            throw new CBWSParseException(CBWSParseException.Reason.TRUNCATED_HEADER, 0, "File is shorter than its header.");
+
+        // Fewer than 4 bytes remain. They end the last final frame or impact function, as when parsing a whole file.
+        position = length;
+        if (position > start && (state == Section.FINAL_FRAME || state == Section.IMPACT_FRAME)) emit(state);
+        visitor.visitEnd();
+    }
+
+    /**
+     * Drops bytes before the current function & makes room for more.
+     *
+     * @param count Number of bytes about to be added.
+     */
+    private void compact(final int count) {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, length - start);
+            bufferOffset += start;
+            length -= start;
+            position -= start;
+            start = 0;
+        }
+        if (length + count > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+    }
+
+    /** Examines buffered bytes until more lookahead is needed. */
+    private void process() {
+        if (!headerRead) {
+            if (length < HEADER_LENGTH) return;
+            visitor.visitHeader(text.set(buffer, 0, 4), readInt(4), readInt(8), readInt(12));
+            start = position = HEADER_LENGTH;
+            headerRead = true;
+        }
+
+        while (position + LOOKAHEAD <= length) {
+            final int next = readInt(position);
+
+            // Function ends with 15 null bytes followed by a non-null byte.
+            if (nullRun == 0 && nullRunBeforeLast >= 15) {
+                if (state == Section.INTERMEDIATE && next == 0) {
+                    // The first final frame function precedes the first frame functions.
+                    emit(Section.FINAL_FRAME);
+                    state = Section.FIRST_FRAME;
+                    continue;
+                }
+                if (state == Section.INTERMEDIATE && next == FUNCTION_START) {
+                    emit(Section.INTERMEDIATE);
+                    continue;
+                }
+                if (state == Section.FIRST_FRAME && next == 0) {
+                    emit(Section.FIRST_FRAME);
+                    state = Section.FINAL_FRAME;
+                    continue;
+                }
+                if (state == Section.FINAL_FRAME && next == 0) {
+                    emit(Section.FINAL_FRAME);
+                    state = Section.IMPACT_FRAME;
+                    continue;
+                }
+            }
+
+            // Function ends with 16 null bytes.
+            if (nullRun >= 16 && next == FUNCTION_START) {
+                emit(state);
+                continue;
+            }
+
+            // Append current byte to the function.
+            if (buffer[position++] == 0) nullRun++;
+            else {
+                nullRunBeforeLast = nullRun;
+                nullRun = 0;
+            }
+        }
+    }
+
+    /**
+     * Sends the events of the function ending at the current position & starts the next function.
+     *
+     * @param section The section the function belongs to.
+     */
+    private void emit(final Section section) {
+        final int index = functionCounts[section.ordinal()]++;
+        final long offset = bufferOffset + start;
+        final int functionLength = position - start;
+        limits.checkTime(deadline, offset);
+
+        if (section != lastSection) {
+            visitor.visitSectionStart(section);
+            lastSection = section;
+        }
+        visitor.visitFunctionStart(section, index, offset, findLabel(start, position), buffer[position - 1]);
+        if (attributes) {
+            final Function function;
+            try { function = new Function(encodeHexString(Arrays.copyOfRange(buffer, start, position), false)); }
+            catch (final RuntimeException e) {
+                throw new CBWSParseException(CBWSParseException.Reason.MALFORMED_FUNCTION, offset,
+                        String.format("Function at offset %d could not be decoded.", offset), e);
+            }
+            visitor.visitFunction(section, index, function);
+            for (final Attribute attribute : function.getAttributes()) visitor.visitAttribute(section, index, attribute);
+        }
+        visitor.visitFunctionEnd(section, index, offset, functionLength);
+
+        start = position;
+        nullRun = nullRunBeforeLast = 0;
+    }
+
+    /**
+     * Finds the function label: the first run of UpperCamelCase words at least 4 characters long.
+     *
+     * @param from Buffer index of the function's first byte.
+     * @param to   Buffer index after the function's last byte.
+     *
+     * @return View of the label.
+     */
+    private CharSequence findLabel(final int from, final int to) {
+        scanner.scan(buffer, from, to);
+        if (scanner.hasLabel()) return text.set(buffer, from + scanner.labelStart(), scanner.labelLength());
+        return text.set(UNKNOWN_FUNCTION, 0, UNKNOWN_FUNCTION.length);
+    }
+
+    /**
+     * Reads a big-endian 32-bit value from the buffer.
+     *
+     * @param index Buffer index of the value's first byte.
+     *
+     * @return The value.
+     */
+    private int readInt(final int index) {
+        return (buffer[index] & 0xFF) << 24 | (buffer[index + 1] & 0xFF) << 16
+                | (buffer[index + 2] & 0xFF) << 8 | buffer[index + 3] & 0xFF;
+    }
+}
@@ -0,0 +1,60 @@
+package com.psas.corpus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+
+/** Helpers for working with directories of CBWS scripts. */
+public final class Corpus {
+    /** File extension used by CBWS scripts. */
+    public static final String SCRIPT_EXTENSION = ".cbws";
+
+    private Corpus() {}
+
+    /**
+     * Lists every CBWS script below a directory in a stable, sorted order.
+     *
+     * @param directory The directory to search.
+     *
+     * @return Sorted list of script paths.
+     *
+     * @throws IOException Indicates the directory could not be walked.
+     */
+    public static List<Path> listScripts(final Path directory) throws IOException {
+        try (final Stream<Path> paths = Files.walk(directory)) {
+            return paths
+                    .filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase().endsWith(SCRIPT_EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Returns the path of a script relative to the corpus root, always using forward slashes so it can be stored in
+     * manifests and indexes regardless of platform.
+     *
+     * @param root The corpus root directory.
+     * @param path The script path.
+     *
+     * @return The relative path.
+     */
+    public static String relativeName(final Path root, final Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    /**
+     * Computes the content hash used to detect changed scripts.
+     *
+     * @param bytes The script contents.
+     *
+     * @return Hex encoded SHA-256 hash.
+     */
+    public static String contentHash(final byte[] bytes) {
+        return sha256Hex(bytes);
+    }
+}
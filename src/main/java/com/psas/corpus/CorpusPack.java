@@ -0,0 +1,464 @@
+package com.psas.corpus;
+
+import org.apache.commons.codec.DecoderException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.codec.binary.Hex.decodeHex;
+import static org.apache.commons.codec.binary.Hex.encodeHexString;
+
+/**
+ * A corpus of scripts concatenated into a single file, so the whole roster can be opened with one memory mapping
+ * instead of one file handle per script. Scripts with identical contents are stored once.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header  magic "CBWSPACK", int version, int entry count, long index offset
+ * data    script contents, back to back
+ * index   one record per script, sorted by name:
+ *         long data offset, int length, long modified time, int name offset, int name length, 32 byte SHA-256
+ * names   UTF-8 script names, addressed by the name offsets
+ * </pre>
+ * Building is incremental: scripts whose size & modification time match the previous pack are copied from it without
+ * being read or hashed again.
+ */
+public final class CorpusPack implements ScriptSource {
+    /** File extension used by corpus packs. */
+    public static final String PACK_EXTENSION = ".cbwspack";
+
+    /** Magic bytes starting every pack. */
+    private static final byte[] MAGIC = "CBWSPACK".getBytes(StandardCharsets.US_ASCII);
+
+    /** Version of the pack layout. */
+    private static final int VERSION = 1;
+
+    /** Size of the header in bytes. */
+    private static final int HEADER_SIZE = MAGIC.length + 4 + 4 + 8;
+
+    /** Size of a SHA-256 hash in bytes. */
+    private static final int HASH_SIZE = 32;
+
+    /** Offsets of the fields within an index record. */
+    private static final int DATA_OFFSET = 0, LENGTH = 8, MODIFIED = 12, NAME_OFFSET = 20, NAME_LENGTH = 24, HASH = 28;
+
+    /** Size of an index record in bytes. */
+    private static final int RECORD_SIZE = HASH + HASH_SIZE;
+
+    /** Path of the pack. */
+    private final Path path;
+
+    /** Read-only view of the mapped pack. Only absolute reads are used, so it can be shared between threads. */
+    private final ByteBuffer buffer;
+
+    /** Offset of the index. */
+    private final int indexOffset;
+
+    /** Script names, sorted. */
+    private final String[] names;
+
+    /**
+     * Maps a pack & validates its index.
+     *
+     * @param path   Path of the pack.
+     * @param buffer The mapped pack.
+     *
+     * @throws IOException Indicates the pack is malformed.
+     */
+    private CorpusPack(final Path path, final ByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer.asReadOnlyBuffer().order(ByteOrder.BIG_ENDIAN);
+
+        // Check the header.
+        final byte[] magic = new byte[MAGIC.length];
+        if (this.buffer.capacity() < HEADER_SIZE) throw malformed("file is shorter than the header");
+        this.buffer.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) throw malformed("missing pack magic");
+        final int version = this.buffer.getInt(MAGIC.length);
+        if (version != VERSION) throw malformed(String.format("unsupported version %d", version));
+        final int count = this.buffer.getInt(MAGIC.length + 4);
+        final long index = this.buffer.getLong(MAGIC.length + 8);
+        if (count < 0 || index < HEADER_SIZE || index + (long) count * RECORD_SIZE > this.buffer.capacity())
+            throw malformed("index is out of bounds");
+        indexOffset = (int) index;
+
+        // Check every record points inside the pack & read the names, which must be sorted for lookups.
+        names = new String[count];
+        for (int i = 0; i < count; i++) {
+            final int record = indexOffset + i * RECORD_SIZE;
+            final long dataOffset = this.buffer.getLong(record + DATA_OFFSET);
+            final int length = this.buffer.getInt(record + LENGTH);
+            final int nameOffset = this.buffer.getInt(record + NAME_OFFSET), nameLength = this.buffer.getInt(record + NAME_LENGTH);
+            if (dataOffset < HEADER_SIZE || length < 0 || dataOffset + length > indexOffset)
+                throw malformed(String.format("data of entry %d is out of bounds", i));
+            if (nameOffset < 0 || nameLength < 0 || (long) nameOffset + nameLength > this.buffer.capacity())
+                throw malformed(String.format("name of entry %d is out of bounds", i));
+
+            final byte[] name = new byte[nameLength];
+            this.buffer.get(nameOffset, name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+            if (i > 0 && names[i - 1].compareTo(names[i]) >= 0) throw malformed("index is not sorted");
+        }
+    }
+
+    /**
+     * Creates the exception thrown for malformed packs.
+     *
+     * @param reason What is wrong with the pack.
+     *
+     * @return The exception.
+     */
+    private IOException malformed(final String reason) {
+        return new IOException(String.format("Malformed corpus pack \"%s\": %s.", path, reason));
+    }
+
+    /**
+     * Returns whether a file starts with the pack magic.
+     *
+     * @param path The file.
+     *
+     * @return True if the file is a corpus pack.
+     *
+     * @throws IOException Indicates the file could not be read.
+     */
+    public static boolean isPack(final Path path) throws IOException {
+        try (final InputStream stream = Files.newInputStream(path)) {
+            return Arrays.equals(stream.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    /**
+     * Opens a pack by mapping it into memory.
+     *
+     * @param path Path of the pack.
+     *
+     * @return The opened pack.
+     *
+     * @throws IOException Indicates the pack could not be read or is malformed.
+     */
+    public static CorpusPack open(final Path path) throws IOException {
+        // The mapping stays valid after the channel is closed.
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException(String.format("Corpus pack \"%s\" is too large to map.", path));
+            return new CorpusPack(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the offset of an index record.
+     *
+     * @param index Index of the script.
+     *
+     * @return Offset of the record.
+     */
+    private int record(final int index) {
+        return indexOffset + index * RECORD_SIZE;
+    }
+
+    /**
+     * Returns the modification time a script had when it was packed.
+     *
+     * @param index Index of the script.
+     *
+     * @return Modification time in milliseconds since the epoch.
+     */
+    long modified(final int index) {
+        return buffer.getLong(record(index) + MODIFIED);
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public String name(final int index) {
+        return names[index];
+    }
+
+    @Override
+    public int indexOf(final String name) {
+        final int index = Arrays.binarySearch(names, name);
+        return index < 0 ? -1 : index;
+    }
+
+    @Override
+    public long length(final int index) {
+        return buffer.getInt(record(index) + LENGTH);
+    }
+
+    /**
+     * Returns a script as a slice of the mapped pack. No bytes are copied.
+     *
+     * @param index Index of the script.
+     *
+     * @return The script contents.
+     */
+    @Override
+    public ByteBuffer contents(final int index) {
+        final int record = record(index);
+        return buffer.slice((int) buffer.getLong(record + DATA_OFFSET), buffer.getInt(record + LENGTH));
+    }
+
+    @Override
+    public String hash(final int index) {
+        final byte[] hash = new byte[HASH_SIZE];
+        buffer.get(record(index) + HASH, hash);
+        return encodeHexString(hash);
+    }
+
+    /** The mapping is released by the garbage collector; there is nothing to close. */
+    @Override
+    public void close() {}
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+
+    /**
+     * A script to write to a pack.
+     *
+     * @param name       Script name.
+     * @param modified   Modification time in milliseconds since the epoch.
+     * @param length     Length of the contents.
+     * @param hash       Content hash.
+     * @param dataOffset Offset of the contents in the new pack.
+     */
+    private record Entry(String name, long modified, int length, String hash, long dataOffset) {}
+
+    /**
+     * A script in the previous pack.
+     *
+     * @param dataOffset Offset of the contents in the previous pack.
+     * @param length     Length of the contents.
+     * @param modified   Modification time in milliseconds since the epoch.
+     * @param hash       Content hash.
+     */
+    private record PreviousEntry(long dataOffset, int length, long modified, String hash) {}
+
+    /**
+     * Packs every script below a directory. If a pack already exists at the output path, scripts unchanged since it
+     * was built are copied from it. The previous pack is read through a channel rather than mapped, & the new pack is
+     * written to a temporary file that replaces it once the channel is closed, since a mapped file cannot be replaced
+     * on every platform.
+     *
+     * @param directory Directory containing the scripts.
+     * @param output    Path of the pack to write.
+     *
+     * @throws IOException Indicates a script could not be read or the pack could not be written.
+     */
+    public static void build(final Path directory, final Path output) throws IOException {
+        final DirectorySource scripts = new DirectorySource(directory);
+        final Path temporary = output.resolveSibling(output.getFileName() + ".tmp");
+        final ArrayList<Entry> entries = new ArrayList<>(scripts.size());
+        final HashMap<String, Long> offsets = new HashMap<>();
+        int read = 0, reused = 0;
+        try (final FileChannel previous = openPrevious(output);
+             final FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final Map<String, PreviousEntry> previousEntries = readPrevious(previous, output);
+            channel.position(HEADER_SIZE);
+            for (int i = 0; i < scripts.size(); i++) {
+                final String name = scripts.name(i);
+                final Path script = scripts.path(i);
+                final long modified = Files.getLastModifiedTime(script).toMillis();
+                final long size = Files.size(script);
+                if (size > Integer.MAX_VALUE) throw new IOException(String.format("Script \"%s\" is too large to pack.", script));
+
+                // Take unchanged scripts from the previous pack, otherwise read & hash the file.
+                final PreviousEntry previousEntry = previousEntries.get(name);
+                final boolean unchanged = previousEntry != null && previousEntry.modified() == modified && previousEntry.length() == size;
+                final byte[] bytes = unchanged ? null : Files.readAllBytes(script);
+                final String hash = unchanged ? previousEntry.hash() : Corpus.contentHash(bytes);
+                if (unchanged) reused++;
+                else read++;
+
+                // Store each distinct content once.
+                Long dataOffset = offsets.get(hash);
+                if (dataOffset == null) {
+                    dataOffset = channel.position();
+                    offsets.put(hash, dataOffset);
+                    if (unchanged) copy(previous, previousEntry.dataOffset(), previousEntry.length(), channel);
+                    else {
+                        final ByteBuffer contents = ByteBuffer.wrap(bytes);
+                        while (contents.hasRemaining()) channel.write(contents);
+                    }
+                }
+                entries.add(new Entry(name, modified, (int) size, hash, dataOffset));
+            }
+            writeIndex(channel, entries);
+        }
+        catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING);
+        System.out.printf("Packed %d scripts (%d unique, %d read, %d reused) to %s%n",
+                entries.size(), offsets.size(), read, reused, output);
+    }
+
+    /**
+     * Copies a range of the previous pack to the end of the new pack.
+     *
+     * @param previous The previous pack.
+     * @param offset   Offset of the range.
+     * @param length   Length of the range.
+     * @param channel  The new pack.
+     *
+     * @throws IOException Indicates the previous pack was truncated or could not be read, or the new pack could not be
+     *                     written.
+     */
+    private static void copy(final FileChannel previous, final long offset, final int length, final FileChannel channel) throws IOException {
+        long copied = 0;
+        while (copied < length) {
+            final long transferred = previous.transferTo(offset + copied, length - copied, channel);
+            if (transferred <= 0) throw new IOException("Previous corpus pack was truncated while packing.");
+            copied += transferred;
+        }
+    }
+
+    /**
+     * Writes the index & names after the data, then the header.
+     *
+     * @param channel Channel positioned after the data.
+     * @param entries The packed scripts, sorted by name.
+     *
+     * @throws IOException Indicates the pack could not be written.
+     */
+    private static void writeIndex(final FileChannel channel, final List<Entry> entries) throws IOException {
+        final long indexOffset = channel.position();
+        if (indexOffset + (long) entries.size() * RECORD_SIZE > Integer.MAX_VALUE)
+            throw new IOException("Corpus is too large to pack.");
+
+        // Names follow the records, so their offsets are known before anything is written.
+        final byte[][] names = new byte[entries.size()][];
+        long nameOffset = indexOffset + (long) entries.size() * RECORD_SIZE;
+        final ByteBuffer index = ByteBuffer.allocate(entries.size() * RECORD_SIZE);
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry entry = entries.get(i);
+            names[i] = entry.name().getBytes(StandardCharsets.UTF_8);
+            index.putLong(entry.dataOffset()).putInt(entry.length()).putLong(entry.modified())
+                    .putInt((int) nameOffset).putInt(names[i].length);
+            try { index.put(decodeHex(entry.hash())); }
+            catch (final DecoderException e) { throw new IOException(e); }
+            nameOffset += names[i].length;
+        }
+        if (nameOffset > Integer.MAX_VALUE) throw new IOException("Corpus is too large to pack.");
+
+        index.flip();
+        while (index.hasRemaining()) channel.write(index);
+        for (final byte[] name : names) {
+            final ByteBuffer buffer = ByteBuffer.wrap(name);
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).put(MAGIC).putInt(VERSION).putInt(entries.size()).putLong(indexOffset);
+        header.flip();
+        channel.position(0);
+        while (header.hasRemaining()) channel.write(header);
+    }
+
+    /**
+     * Opens the pack currently at the output path, if any.
+     *
+     * @param output Path of the pack being built.
+     *
+     * @return A channel reading the previous pack, or null if there is none.
+     */
+    private static FileChannel openPrevious(final Path output) {
+        if (!Files.isRegularFile(output)) return null;
+        try { return FileChannel.open(output, StandardOpenOption.READ); }
+        catch (final IOException e) {
+            System.out.printf("Ignoring previous pack \"%s\": %s%n", output, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the index of the previous pack without mapping it.
+     *
+     * @param previous A channel reading the previous pack, or null if there is none.
+     * @param output   Path of the pack being built.
+     *
+     * @return The scripts of the previous pack by name, empty if there is no readable pack.
+     */
+    private static Map<String, PreviousEntry> readPrevious(final FileChannel previous, final Path output) {
+        final HashMap<String, PreviousEntry> entries = new HashMap<>();
+        if (previous == null) return entries;
+        try {
+            final long size = previous.size();
+            final ByteBuffer header = read(previous, 0, (int) Math.min(size, HEADER_SIZE));
+            final byte[] magic = new byte[MAGIC.length];
+            if (header.capacity() < HEADER_SIZE) throw new IOException("file is shorter than the header");
+            header.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("missing pack magic");
+            final int version = header.getInt(MAGIC.length);
+            if (version != VERSION) throw new IOException(String.format("unsupported version %d", version));
+            final int count = header.getInt(MAGIC.length + 4);
+            final long indexOffset = header.getLong(MAGIC.length + 8);
+            if (count < 0 || indexOffset < HEADER_SIZE || indexOffset + (long) count * RECORD_SIZE > size || size > Integer.MAX_VALUE)
+                throw new IOException("index is out of bounds");
+
+            // The index & names follow the data, so only the end of the pack is read.
+            final ByteBuffer index = read(previous, indexOffset, (int) (size - indexOffset));
+            final byte[] hash = new byte[HASH_SIZE];
+            for (int i = 0; i < count; i++) {
+                final int record = i * RECORD_SIZE;
+                final long dataOffset = index.getLong(record + DATA_OFFSET);
+                final int length = index.getInt(record + LENGTH);
+                final long nameOffset = index.getInt(record + NAME_OFFSET) - indexOffset;
+                final int nameLength = index.getInt(record + NAME_LENGTH);
+                if (dataOffset < HEADER_SIZE || length < 0 || dataOffset + length > indexOffset)
+                    throw new IOException(String.format("data of entry %d is out of bounds", i));
+                if (nameOffset < 0 || nameLength < 0 || nameOffset + nameLength > index.capacity())
+                    throw new IOException(String.format("name of entry %d is out of bounds", i));
+
+                final byte[] name = new byte[nameLength];
+                index.get((int) nameOffset, name);
+                index.get(record + HASH, hash);
+                entries.put(new String(name, StandardCharsets.UTF_8),
+                        new PreviousEntry(dataOffset, length, index.getLong(record + MODIFIED), encodeHexString(hash)));
+            }
+        }
+        catch (final IOException e) {
+            // An unreadable previous pack only means every script is read again.
+            System.out.printf("Ignoring previous pack \"%s\": %s%n", output, e.getMessage());
+            entries.clear();
+        }
+        return entries;
+    }
+
+    /**
+     * Reads a range of a file.
+     *
+     * @param channel The file.
+     * @param offset  Offset of the range.
+     * @param length  Length of the range.
+     *
+     * @return The range, big-endian.
+     *
+     * @throws IOException Indicates the file ended early or could not be read.
+     */
+    private static ByteBuffer read(final FileChannel channel, final long offset, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, offset + buffer.position()) < 0) throw new IOException("file ended early");
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,113 @@
+package com.psas.corpus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/** Scripts read from a directory, one file at a time. */
+final class DirectorySource implements ScriptSource {
+    /** Smallest script that is memory-mapped rather than read. Smaller scripts are cheaper to read than to map. */
+    private static final long MAP_THRESHOLD = 64 * 1024;
+
+    /** The corpus root directory. */
+    private final Path directory;
+
+    /** Script paths, sorted by name. */
+    private final Path[] scripts;
+
+    /** Script names, sorted. */
+    private final String[] names;
+
+    /**
+     * Lists the scripts below a directory.
+     *
+     * @param directory The corpus root directory.
+     *
+     * @throws IOException Indicates the directory could not be walked.
+     */
+    DirectorySource(final Path directory) throws IOException {
+        this.directory = directory;
+
+        // Sort by name rather than by path so the order matches a pack built from the same directory.
+        final List<Path> paths = Corpus.listScripts(directory);
+        final Integer[] order = new Integer[paths.size()];
+        final String[] unsorted = new String[paths.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            unsorted[i] = Corpus.relativeName(directory, paths.get(i));
+        }
+        Arrays.sort(order, (a, b) -> unsorted[a].compareTo(unsorted[b]));
+
+        scripts = new Path[order.length];
+        names = new String[order.length];
+        for (int i = 0; i < order.length; i++) {
+            scripts[i] = paths.get(order[i]);
+            names[i] = unsorted[order[i]];
+        }
+    }
+
+    /**
+     * Returns the path of a script.
+     *
+     * @param index Index of the script.
+     *
+     * @return The script path.
+     */
+    Path path(final int index) {
+        return scripts[index];
+    }
+
+    @Override
+    public int size() {
+        return scripts.length;
+    }
+
+    @Override
+    public String name(final int index) {
+        return names[index];
+    }
+
+    @Override
+    public int indexOf(final String name) {
+        final int index = Arrays.binarySearch(names, name);
+        return index < 0 ? -1 : index;
+    }
+
+    @Override
+    public long length(final int index) throws IOException {
+        return Files.size(scripts[index]);
+    }
+
+    @Override
+    public ByteBuffer contents(final int index) throws IOException {
+        if (Files.size(scripts[index]) < MAP_THRESHOLD) return ByteBuffer.wrap(Files.readAllBytes(scripts[index])).asReadOnlyBuffer();
+
+        // The mapping stays valid after the channel is closed.
+        try (final FileChannel channel = FileChannel.open(scripts[index], StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public byte[] bytes(final int index) throws IOException {
+        return Files.readAllBytes(scripts[index]);
+    }
+
+    @Override
+    public String hash(final int index) throws IOException {
+        return Corpus.contentHash(bytes(index));
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public String toString() {
+        return directory.toString();
+    }
+}
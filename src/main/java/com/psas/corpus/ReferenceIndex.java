@@ -0,0 +1,333 @@
+package com.psas.corpus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Cross-reference index of the asset names (effects, sounds, projectiles, animations) referenced by string attributes
+ * across a corpus. References are stored as compact adjacency lists in both directions, so the scripts referencing an
+ * asset & the assets referenced by a script are found without parsing anything.
+ * <p>
+ * Each script is stored with its content hash, so an index can be updated by re-parsing only the scripts that changed.
+ */
+public final class ReferenceIndex {
+    /**
+     * A reference from a script to an asset.
+     *
+     * @param script Name of the referencing script.
+     * @param asset  The referenced asset name.
+     * @param label  Label of the function containing the reference.
+     */
+    public record Reference(String script, String asset, String label) {}
+
+    /** Magic bytes starting every index file. */
+    private static final byte[] MAGIC = "CBWSXREF".getBytes(StandardCharsets.US_ASCII);
+
+    /** Version of the index file layout. */
+    private static final int VERSION = 1;
+
+    /** Script names, sorted. */
+    private final String[] scripts;
+
+    /** Content hash of each script. */
+    private final String[] hashes;
+
+    /** Asset names, sorted. */
+    private final String[] assets;
+
+    /** Function labels containing references. */
+    private final String[] labels;
+
+    /** Start of each script's references in {@link #scriptAssets}, followed by the total number of references. */
+    private final int[] scriptStarts;
+
+    /** Asset ID & label ID of each reference, grouped by script. */
+    private final int[] scriptAssets, scriptLabels;
+
+    /** Start of each asset's references in {@link #assetScripts}, followed by the total number of references. */
+    private final int[] assetStarts;
+
+    /** Script ID & label ID of each reference, grouped by asset. */
+    private final int[] assetScripts, assetLabels;
+
+    /**
+     * Constructs an index from its forward adjacency lists & builds the reverse lists.
+     *
+     * @param scripts      Script names, sorted.
+     * @param hashes       Content hash of each script.
+     * @param assets       Asset names, sorted.
+     * @param labels       Function labels containing references.
+     * @param scriptStarts Start of each script's references, followed by the total number of references.
+     * @param scriptAssets Asset ID of each reference.
+     * @param scriptLabels Label ID of each reference.
+     */
+    private ReferenceIndex(final String[] scripts, final String[] hashes, final String[] assets, final String[] labels,
+                           final int[] scriptStarts, final int[] scriptAssets, final int[] scriptLabels) {
+        this.scripts = scripts;
+        this.hashes = hashes;
+        this.assets = assets;
+        this.labels = labels;
+        this.scriptStarts = scriptStarts;
+        this.scriptAssets = scriptAssets;
+        this.scriptLabels = scriptLabels;
+
+        // Count references per asset, then place each reference. Scripts are visited in order, so each asset's
+        // references stay sorted by script.
+        assetStarts = new int[assets.length + 1];
+        for (final int asset : scriptAssets) assetStarts[asset + 1]++;
+        for (int i = 0; i < assets.length; i++) assetStarts[i + 1] += assetStarts[i];
+        assetScripts = new int[scriptAssets.length];
+        assetLabels = new int[scriptAssets.length];
+        final int[] next = Arrays.copyOf(assetStarts, assets.length);
+        for (int script = 0; script < scripts.length; script++) {
+            for (int i = scriptStarts[script]; i < scriptStarts[script + 1]; i++) {
+                final int position = next[scriptAssets[i]]++;
+                assetScripts[position] = script;
+                assetLabels[position] = scriptLabels[i];
+            }
+        }
+    }
+
+    /**
+     * Creates an index from the references of each script.
+     *
+     * @param scripts    Script names, sorted.
+     * @param hashes     Content hash of each script, or an empty string for scripts that could not be parsed.
+     * @param references References of each script. The script field of each reference is ignored.
+     *
+     * @return The index.
+     */
+    public static ReferenceIndex of(final List<String> scripts, final List<String> hashes, final List<List<Reference>> references) {
+        // Assign IDs to assets in sorted order so they can be found by binary search.
+        final TreeSet<String> assetNames = new TreeSet<>();
+        for (final List<Reference> list : references) for (final Reference reference : list) assetNames.add(reference.asset());
+        final String[] assets = assetNames.toArray(String[]::new);
+        final HashMap<String, Integer> assetIds = new HashMap<>();
+        for (int i = 0; i < assets.length; i++) assetIds.put(assets[i], i);
+        final HashMap<String, Integer> labelIds = new HashMap<>();
+        final ArrayList<String> labels = new ArrayList<>();
+
+        // Store each script's distinct references, sorted by asset.
+        final int[] scriptStarts = new int[scripts.size() + 1];
+        final ArrayList<long[]> edges = new ArrayList<>();
+        for (int script = 0; script < scripts.size(); script++) {
+            final TreeSet<Long> distinct = new TreeSet<>();
+            for (final Reference reference : references.get(script)) {
+                final int label = labelIds.computeIfAbsent(reference.label(), key -> {
+                    labels.add(key);
+                    return labels.size() - 1;
+                });
+                distinct.add((long) assetIds.get(reference.asset()) << 32 | label);
+            }
+            edges.add(distinct.stream().mapToLong(Long::longValue).toArray());
+            scriptStarts[script + 1] = scriptStarts[script] + distinct.size();
+        }
+
+        final int[] scriptAssets = new int[scriptStarts[scripts.size()]], scriptLabels = new int[scriptAssets.length];
+        for (int script = 0; script < scripts.size(); script++) {
+            final long[] list = edges.get(script);
+            for (int i = 0; i < list.length; i++) {
+                scriptAssets[scriptStarts[script] + i] = (int) (list[i] >>> 32);
+                scriptLabels[scriptStarts[script] + i] = (int) list[i];
+            }
+        }
+        return new ReferenceIndex(scripts.toArray(String[]::new), hashes.toArray(String[]::new), assets,
+                labels.toArray(String[]::new), scriptStarts, scriptAssets, scriptLabels);
+    }
+
+    /**
+     * Returns the number of scripts.
+     *
+     * @return The number of scripts.
+     */
+    public int scriptCount() {
+        return scripts.length;
+    }
+
+    /**
+     * Returns the number of distinct asset names.
+     *
+     * @return The number of assets.
+     */
+    public int assetCount() {
+        return assets.length;
+    }
+
+    /**
+     * Returns the number of distinct references.
+     *
+     * @return The number of references.
+     */
+    public int referenceCount() {
+        return scriptAssets.length;
+    }
+
+    /**
+     * Returns the content hash a script had when it was indexed.
+     *
+     * @param script The script name.
+     *
+     * @return The content hash, an empty string if the script could not be parsed, or null if the script is not
+     *         indexed.
+     */
+    public String hash(final String script) {
+        final int id = Arrays.binarySearch(scripts, script);
+        return id < 0 ? null : hashes[id];
+    }
+
+    /**
+     * Returns whether an asset is referenced by any script.
+     *
+     * @param asset The asset name.
+     *
+     * @return True if the asset is indexed.
+     */
+    public boolean containsAsset(final String asset) {
+        return Arrays.binarySearch(assets, asset) >= 0;
+    }
+
+    /**
+     * Returns the references made by a script.
+     *
+     * @param script The script name.
+     *
+     * @return The references, sorted by asset, or an empty list if the script is not indexed.
+     */
+    public List<Reference> referencesFrom(final String script) {
+        final int id = Arrays.binarySearch(scripts, script);
+        if (id < 0) return List.of();
+        final ArrayList<Reference> references = new ArrayList<>();
+        for (int i = scriptStarts[id]; i < scriptStarts[id + 1]; i++)
+            references.add(new Reference(script, assets[scriptAssets[i]], labels[scriptLabels[i]]));
+        return references;
+    }
+
+    /**
+     * Returns the references to an asset.
+     *
+     * @param asset The asset name.
+     *
+     * @return The references, sorted by script, or an empty list if the asset is not referenced.
+     */
+    public List<Reference> referencesTo(final String asset) {
+        final int id = Arrays.binarySearch(assets, asset);
+        if (id < 0) return List.of();
+        final ArrayList<Reference> references = new ArrayList<>();
+        for (int i = assetStarts[id]; i < assetStarts[id + 1]; i++)
+            references.add(new Reference(scripts[assetScripts[i]], asset, labels[assetLabels[i]]));
+        return references;
+    }
+
+    /**
+     * Writes the index. The file is replaced atomically so readers never see a partial index.
+     *
+     * @param path Path of the index file.
+     *
+     * @throws IOException Indicates the index could not be written.
+     */
+    public void write(final Path path) throws IOException {
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (final DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            stream.write(MAGIC);
+            stream.writeInt(VERSION);
+            writeStrings(stream, scripts);
+            writeStrings(stream, hashes);
+            writeStrings(stream, assets);
+            writeStrings(stream, labels);
+            for (final int start : scriptStarts) stream.writeInt(start);
+            for (int i = 0; i < scriptAssets.length; i++) {
+                stream.writeInt(scriptAssets[i]);
+                stream.writeInt(scriptLabels[i]);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads an index.
+     *
+     * @param path Path of the index file.
+     *
+     * @return The index.
+     *
+     * @throws IOException Indicates the index could not be read or is malformed.
+     */
+    public static ReferenceIndex read(final Path path) throws IOException {
+        try (final DataInputStream stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (!Arrays.equals(stream.readNBytes(MAGIC.length), MAGIC) || stream.readInt() != VERSION)
+                throw new IOException(String.format("\"%s\" is not a reference index.", path));
+            final String[] scripts = readStrings(stream), hashes = readStrings(stream);
+            final String[] assets = readStrings(stream), labels = readStrings(stream);
+            if (hashes.length != scripts.length) throw malformed(path);
+
+            final int[] scriptStarts = new int[scripts.length + 1];
+            for (int i = 0; i < scriptStarts.length; i++) {
+                scriptStarts[i] = stream.readInt();
+                if (scriptStarts[i] < (i == 0 ? 0 : scriptStarts[i - 1])) throw malformed(path);
+            }
+            if (scriptStarts[0] != 0) throw malformed(path);
+
+            final int[] scriptAssets = new int[scriptStarts[scripts.length]], scriptLabels = new int[scriptAssets.length];
+            for (int i = 0; i < scriptAssets.length; i++) {
+                scriptAssets[i] = stream.readInt();
+                scriptLabels[i] = stream.readInt();
+                if (scriptAssets[i] < 0 || scriptAssets[i] >= assets.length || scriptLabels[i] < 0 || scriptLabels[i] >= labels.length)
+                    throw malformed(path);
+            }
+            return new ReferenceIndex(scripts, hashes, assets, labels, scriptStarts, scriptAssets, scriptLabels);
+        }
+    }
+
+    /**
+     * Creates the exception thrown for malformed index files.
+     *
+     * @param path Path of the index file.
+     *
+     * @return The exception.
+     */
+    private static IOException malformed(final Path path) {
+        return new IOException(String.format("Reference index \"%s\" is malformed.", path));
+    }
+
+    /**
+     * Writes a length-prefixed list of strings.
+     *
+     * @param stream  The stream to write to.
+     * @param strings The strings.
+     *
+     * @throws IOException Indicates the strings could not be written.
+     */
+    private static void writeStrings(final DataOutputStream stream, final String[] strings) throws IOException {
+        stream.writeInt(strings.length);
+        for (final String string : strings) stream.writeUTF(string);
+    }
+
+    /**
+     * Reads a length-prefixed list of strings.
+     *
+     * @param stream The stream to read from.
+     *
+     * @return The strings.
+     *
+     * @throws IOException Indicates the strings could not be read.
+     */
+    private static String[] readStrings(final DataInputStream stream) throws IOException {
+        final int count = stream.readInt();
+        if (count < 0) throw new IOException("Negative string count.");
+        final ArrayList<String> strings = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) strings.add(stream.readUTF());
+        return strings.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,102 @@
+package com.psas.corpus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A read-only, sorted collection of CBWS scripts, backed either by a directory or by a {@link CorpusPack}. Scripts are
+ * addressed by index in name order, so any script can be read without opening the others. Implementations are safe
+ * to read from several threads at once.
+ */
+public interface ScriptSource extends Closeable {
+    /**
+     * Opens the scripts at a path, which may be a corpus pack or a directory of scripts.
+     *
+     * @param path The pack or directory.
+     *
+     * @return The opened scripts.
+     *
+     * @throws IOException Indicates the path could not be read.
+     */
+    static ScriptSource open(final Path path) throws IOException {
+        if (Files.isRegularFile(path) && CorpusPack.isPack(path)) return CorpusPack.open(path);
+        return new DirectorySource(path);
+    }
+
+    /**
+     * Returns the number of scripts.
+     *
+     * @return The number of scripts.
+     */
+    int size();
+
+    /**
+     * Returns the name of a script: its path relative to the corpus root, using forward slashes.
+     *
+     * @param index Index of the script.
+     *
+     * @return The script name.
+     */
+    String name(int index);
+
+    /**
+     * Finds a script by name.
+     *
+     * @param name The script name.
+     *
+     * @return Index of the script, or -1 if there is no script with that name.
+     */
+    int indexOf(String name);
+
+    /**
+     * Returns the length of a script without reading it, so oversized scripts can be skipped.
+     *
+     * @param index Index of the script.
+     *
+     * @return Length in bytes.
+     *
+     * @throws IOException Indicates the script could not be read.
+     */
+    long length(int index) throws IOException;
+
+    /**
+     * Returns the contents of a script. The buffer is read-only & positioned at the first byte of the script.
+     *
+     * @param index Index of the script.
+     *
+     * @return The script contents.
+     *
+     * @throws IOException Indicates the script could not be read.
+     */
+    ByteBuffer contents(int index) throws IOException;
+
+    /**
+     * Returns the content hash of a script, as computed by {@link Corpus#contentHash(byte[])}.
+     *
+     * @param index Index of the script.
+     *
+     * @return Hex encoded SHA-256 hash.
+     *
+     * @throws IOException Indicates the script could not be read.
+     */
+    String hash(int index) throws IOException;
+
+    /**
+     * Copies the contents of a script into a new array.
+     *
+     * @param index Index of the script.
+     *
+     * @return The script contents.
+     *
+     * @throws IOException Indicates the script could not be read.
+     */
+    default byte[] bytes(final int index) throws IOException {
+        final ByteBuffer contents = contents(index);
+        final byte[] bytes = new byte[contents.remaining()];
+        contents.get(bytes);
+        return bytes;
+    }
+}
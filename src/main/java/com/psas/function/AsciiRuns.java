@@ -0,0 +1,239 @@
+package com.psas.function;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Single-pass byte scanner finding the printable text inside a function: the runs of string characters
+ * ({@code A-Z a-z 0-9 _ / *} and space) and the function label, the first run of UpperCamelCase words. Function labels
+ * & string attributes are both identified from one scan, without decoding the bytes into a String first.
+ * <p>
+ * A scanner can be reused; each {@link #scan(byte[], int, int)} replaces the previous results. Offsets are relative to
+ * the start of the scanned range.
+ */
+public final class AsciiRuns {
+    /** Minimum length of a string run. Shorter runs are assumed to be coincidental byte values. */
+    public static final int MIN_STRING_LENGTH = 5;
+
+    /** Minimum length of a function label. Shorter UpperCamelCase runs are assumed not to be labels. */
+    public static final int MIN_LABEL_LENGTH = 4;
+
+    /** Character classes of each byte value. */
+    private static final byte[] CLASSES = new byte[256];
+
+    /** Class bit of bytes that may appear in a string run. */
+    private static final byte STRING = 1;
+
+    /** Class bit of uppercase letters. */
+    private static final byte UPPER = 2;
+
+    /** Class bit of lowercase letters. */
+    private static final byte LOWER = 4;
+
+    static {
+        for (int c = 'A'; c <= 'Z'; c++) CLASSES[c] = STRING | UPPER;
+        for (int c = 'a'; c <= 'z'; c++) CLASSES[c] = STRING | LOWER;
+        for (int c = '0'; c <= '9'; c++) CLASSES[c] = STRING;
+        for (final char c : new char[]{'_', ' ', '/', '*'}) CLASSES[c] = STRING;
+    }
+
+    /** The scanned bytes. */
+    private byte[] bytes;
+
+    /** Index of the first scanned byte. */
+    private int from;
+
+    /** Start offset & end offset of each string run, interleaved. */
+    private int[] runs = new int[16];
+
+    /** Number of string runs. */
+    private int count;
+
+    /** Offset of the label, or -1 if none was found. */
+    private int labelStart;
+
+    /** Length of the label. */
+    private int labelLength;
+
+    /**
+     * Scans a range of bytes.
+     *
+     * @param bytes The bytes to scan. They are referenced, not copied, until the next scan.
+     * @param from  Index of the first byte to scan.
+     * @param to    Index after the last byte to scan.
+     *
+     * @return This scanner.
+     */
+    public AsciiRuns scan(final byte[] bytes, final int from, final int to) {
+        this.bytes = bytes;
+        this.from = from;
+        count = 0;
+        labelStart = -1;
+        labelLength = 0;
+
+        int i = from;
+        while (i < to) {
+            if ((CLASSES[bytes[i] & 0xFF] & STRING) == 0) {
+                i++;
+                continue;
+            }
+
+            // Find the end of this run; labels consist of letters only, so they never cross a run boundary.
+            int end = i + 1;
+            while (end < to && (CLASSES[bytes[end] & 0xFF] & STRING) != 0) end++;
+            if (labelStart < 0) findLabel(i, end);
+            if (end - i >= MIN_STRING_LENGTH) addRun(i - from, end - from);
+            i = end;
+        }
+        return this;
+    }
+
+    /**
+     * Looks for the label within a string run, matching as many capitalised words as possible at each position.
+     *
+     * @param from Index of the run's first byte.
+     * @param to   Index after the run's last byte.
+     */
+    private void findLabel(final int from, final int to) {
+        int i = from;
+        while (i < to) {
+            int end = i;
+            while (end + 1 < to && (CLASSES[bytes[end] & 0xFF] & UPPER) != 0
+                    && (CLASSES[bytes[end + 1] & 0xFF] & LOWER) != 0) {
+                end += 2;
+                while (end < to && (CLASSES[bytes[end] & 0xFF] & LOWER) != 0) end++;
+            }
+
+            if (end == i) i++;
+            else if (end - i >= MIN_LABEL_LENGTH) {
+                labelStart = i - this.from;
+                labelLength = end - i;
+                return;
+            }
+            else i = end;
+        }
+    }
+
+    /**
+     * Records a string run.
+     *
+     * @param start Offset of the run's first byte.
+     * @param end   Offset after the run's last byte.
+     */
+    private void addRun(final int start, final int end) {
+        if (count * 2 == runs.length) runs = Arrays.copyOf(runs, runs.length * 2);
+        runs[count * 2] = start;
+        runs[count * 2 + 1] = end;
+        count++;
+    }
+
+    /**
+     * Returns the number of string runs at least {@value #MIN_STRING_LENGTH} bytes long.
+     *
+     * @return The number of runs.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the offset of a string run.
+     *
+     * @param run Index of the run.
+     *
+     * @return Offset of the run's first byte.
+     */
+    public int start(final int run) {
+        return runs[checkRun(run) * 2];
+    }
+
+    /**
+     * Returns the length of a string run.
+     *
+     * @param run Index of the run.
+     *
+     * @return Number of bytes in the run.
+     */
+    public int length(final int run) {
+        return runs[checkRun(run) * 2 + 1] - runs[run * 2];
+    }
+
+    /**
+     * Returns the text of a string run.
+     *
+     * @param run Index of the run.
+     *
+     * @return The run text.
+     */
+    public String text(final int run) {
+        return new String(bytes, from + start(run), length(run), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns whether a string run has the same text as a string, without decoding the run.
+     *
+     * @param run  Index of the run.
+     * @param text The text to compare against.
+     *
+     * @return True if the run text equals the string.
+     */
+    public boolean textEquals(final int run, final String text) {
+        final int start = from + start(run), length = length(run);
+        if (text.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if ((bytes[start + i] & 0xFF) != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether a label was found.
+     *
+     * @return True if the scanned bytes contain an UpperCamelCase run at least {@value #MIN_LABEL_LENGTH} bytes long.
+     */
+    public boolean hasLabel() {
+        return labelStart >= 0;
+    }
+
+    /**
+     * Returns the offset of the label.
+     *
+     * @return Offset of the label's first byte, or -1 if none was found.
+     */
+    public int labelStart() {
+        return labelStart;
+    }
+
+    /**
+     * Returns the length of the label.
+     *
+     * @return Number of bytes in the label, or 0 if none was found.
+     */
+    public int labelLength() {
+        return labelLength;
+    }
+
+    /**
+     * Returns the label text.
+     *
+     * @param fallback Text returned if no label was found.
+     *
+     * @return The label.
+     */
+    public String label(final String fallback) {
+        if (!hasLabel()) return fallback;
+        return new String(bytes, from + labelStart, labelLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Validates a run index.
+     *
+     * @param run Index of the run.
+     *
+     * @return The index.
+     */
+    private int checkRun(final int run) {
+        if (run < 0 || run >= count) throw new IndexOutOfBoundsException(run);
+        return run;
+    }
+}
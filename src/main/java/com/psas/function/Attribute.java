@@ -1,29 +1,205 @@
 package com.psas.function;
 
-import static org.apache.commons.lang3.StringUtils.isEmpty;
+/**
+ * Represents a CBWS function attribute. Values are stored in their decoded form & only rendered as text by
+ * {@link #value()}, for display.
+ */
+public sealed interface Attribute extends Comparable<Attribute> {
+    /** Text rendered for values that could not be determined. */
+    String UNKNOWN = "Unknown";
 
-/** Represents a CBWS function attribute. */
-public record Attribute(String name, String value, int index) implements Comparable<Attribute> {
     /**
-     * Constructs a CBWS function attribute.
+     * Returns the interned ID of the attribute name.
      *
-     * @param name  Attribute name.
-     * @param value Attribute value.
-     * @param index Attribute index within the function hex string.
+     * @return The name ID.
+     *
+     * @see AttributeNames
+     */
+    int nameId();
+
+    /**
+     * Returns the offset of the attribute within its function, in bytes.
+     *
+     * @return The byte offset.
      */
-    public Attribute {
-        if (isEmpty(name)) throw new IllegalArgumentException("No attribute name provided.");
-        if (isEmpty(value)) throw new IllegalArgumentException("No attribute value provided.");
-        if (index < 0) throw new IllegalArgumentException("Invalid attribute index.");
+    int offset();
+
+    /**
+     * Returns the attribute name.
+     *
+     * @return The attribute name.
+     */
+    default String name() {
+        return AttributeNames.getName(nameId());
     }
 
-    @Override
-    public String toString() {
-        return String.format("%s: %s", name, value);
+    /**
+     * Renders the attribute value as text.
+     *
+     * @return The attribute value.
+     */
+    String value();
+
+    /**
+     * Returns whether the attribute value could not be determined.
+     *
+     * @return True if the value is unknown.
+     */
+    default boolean isUnknown() {
+        return false;
     }
 
     @Override
-    public int compareTo(final Attribute attribute) {
-        return Integer.compare(index, attribute.index);
+    default int compareTo(final Attribute attribute) {
+        return Integer.compare(offset(), attribute.offset());
+    }
+
+    /**
+     * Checks the components shared by every attribute.
+     *
+     * @param nameId The name ID.
+     * @param offset The byte offset.
+     */
+    private static void validate(final int nameId, final int offset) {
+        if (nameId < 0) throw new IllegalArgumentException("Invalid attribute name.");
+        if (offset < 0) throw new IllegalArgumentException("Invalid attribute offset.");
+    }
+
+    /**
+     * A 32-bit float attribute. The raw bits are kept so values are preserved exactly.
+     *
+     * @param nameId The name ID.
+     * @param offset The byte offset.
+     * @param bits   The raw float bits.
+     */
+    record FloatValue(int nameId, int offset, int bits) implements Attribute {
+        public FloatValue {
+            validate(nameId, offset);
+        }
+
+        /**
+         * Returns the value as a float.
+         *
+         * @return The float value.
+         */
+        public float floatValue() {
+            return Float.intBitsToFloat(bits);
+        }
+
+        @Override
+        public String value() {
+            return String.valueOf(floatValue());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s", name(), value());
+        }
+    }
+
+    /**
+     * A boolean attribute.
+     *
+     * @param nameId  The name ID.
+     * @param offset  The byte offset.
+     * @param enabled The value.
+     */
+    record BooleanValue(int nameId, int offset, boolean enabled) implements Attribute {
+        public BooleanValue {
+            validate(nameId, offset);
+        }
+
+        @Override
+        public String value() {
+            return enabled ? "True" : "False";
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s", name(), value());
+        }
+    }
+
+    /**
+     * An attribute identified by a 4-byte ID, such as a hit reaction.
+     *
+     * @param nameId    The name ID.
+     * @param offset    The byte offset.
+     * @param category  The category the ID belongs to.
+     * @param id        The ID.
+     * @param qualifier Text appended to the ID's name, or null.
+     */
+    record IdValue(int nameId, int offset, IdCategory category, int id, String qualifier) implements Attribute {
+        public IdValue {
+            validate(nameId, offset);
+        }
+
+        @Override
+        public String value() {
+            final String name = IdDictionary.get().getName(category, id);
+            if (name == null) return UNKNOWN;
+            return qualifier == null ? name : name + " - " + qualifier;
+        }
+
+        @Override
+        public boolean isUnknown() {
+            return IdDictionary.get().getName(category, id) == null;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s", name(), value());
+        }
+    }
+
+    /**
+     * A string attribute.
+     *
+     * @param nameId The name ID.
+     * @param offset The byte offset.
+     * @param text   The string.
+     */
+    record StringValue(int nameId, int offset, String text) implements Attribute {
+        public StringValue {
+            validate(nameId, offset);
+            if (text == null || text.isEmpty()) throw new IllegalArgumentException("No attribute value provided.");
+        }
+
+        @Override
+        public String value() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s", name(), value());
+        }
+    }
+
+    /**
+     * An attribute known to exist whose value could not be decoded.
+     *
+     * @param nameId The name ID.
+     * @param offset The byte offset.
+     */
+    record UnknownValue(int nameId, int offset) implements Attribute {
+        public UnknownValue {
+            validate(nameId, offset);
+        }
+
+        @Override
+        public String value() {
+            return UNKNOWN;
+        }
+
+        @Override
+        public boolean isUnknown() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s", name(), value());
+        }
     }
 }
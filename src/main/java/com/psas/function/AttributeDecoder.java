@@ -0,0 +1,17 @@
+package com.psas.function;
+
+import java.util.List;
+
+/**
+ * Decodes one kind of attribute from a function's hex. Decoders are built from the function schema & shared by every
+ * function with the same label, so they must not hold per-function state.
+ */
+interface AttributeDecoder {
+    /**
+     * Decodes attributes from a function & adds them to a list.
+     *
+     * @param function   The function to decode.
+     * @param attributes The list to add attributes to. Attributes added by earlier decoders are already present.
+     */
+    void decode(Function function, List<Attribute> attributes);
+}
@@ -0,0 +1,370 @@
+package com.psas.function;
+
+import java.util.List;
+
+import static com.psas.Main.promptFloatResponse;
+import static com.psas.Main.promptIntegerResponse;
+import static com.psas.Main.promptYesNoResponse;
+import static com.psas.cbws.CBWS.getFloatHex;
+import static com.psas.cbws.CBWS.getIntHex;
+
+/**
+ * The attribute decoders that can be referenced from the function schema. Decoders search the function hex, so hex
+ * indices are converted to & from the byte offsets stored in attributes.
+ */
+final class AttributeDecoders {
+    /** Name ID of numeric attributes whose signature is not in the schema. */
+    private static final int UNKNOWN_NAME = AttributeNames.intern(Attribute.UNKNOWN);
+
+    private AttributeDecoders() {}
+
+    /**
+     * Reads a 32-bit value from a hex string without allocating.
+     *
+     * @param hex   The hex string.
+     * @param index Index of the value's first hex character.
+     *
+     * @return The value.
+     */
+    private static int readInt(final String hex, final int index) {
+        return Integer.parseUnsignedInt(hex, index, index + 8, 16);
+    }
+
+    /**
+     * Returns whether a whole 32-bit value can be read from a hex string. Values cut off by the end of a malformed
+     * function are skipped instead of failing the parse.
+     *
+     * @param hex   The hex string.
+     * @param index Index of the value's first hex character.
+     *
+     * @return True if the value lies within the string.
+     */
+    private static boolean hasInt(final String hex, final int index) {
+        return index >= 0 && index + 8 <= hex.length();
+    }
+
+    /**
+     * Finds a marker starting on a byte boundary. Matches straddling two bytes are coincidental & skipped.
+     *
+     * @param hex    The hex string.
+     * @param marker The marker hex.
+     * @param from   Hex index to search from.
+     *
+     * @return Hex index of the marker, or -1 if not found.
+     */
+    private static int indexOf(final String hex, final String marker, final int from) {
+        int index = hex.indexOf(marker, from);
+        while (index > 0 && index % 2 != 0) index = hex.indexOf(marker, index + 1);
+        return index;
+    }
+
+    /**
+     * Converts a hex index to a byte offset.
+     *
+     * @param hexIndex The hex index. Negative indices, from missing markers, are treated as 0.
+     *
+     * @return The byte offset.
+     */
+    private static int toOffset(final int hexIndex) {
+        return Math.max(0, hexIndex) / 2;
+    }
+
+    /** Decodes the 4-byte float following each occurrence of a marker. */
+    static final class FloatDecoder implements EditableAttributeDecoder {
+        /** Hex preceding each value. */
+        private final String marker;
+
+        /** Attribute name ID, or -1 to look the name up by signature. */
+        private final int nameId;
+
+        /** Schema used to look up attribute names. */
+        private final FunctionSchema schema;
+
+        FloatDecoder(final String marker, final String name, final FunctionSchema schema) {
+            this.marker = marker;
+            this.nameId = name == null ? -1 : AttributeNames.intern(name);
+            this.schema = schema;
+        }
+
+        @Override
+        public void decode(final Function function, final List<Attribute> attributes) {
+            final String hex = function.getHex();
+            int substringIndex = 0;
+
+            while (true) {
+                // Find next index of hex string that indicates numerical attribute is being set.
+                final int startIndex = indexOf(hex, marker, substringIndex);
+                if (startIndex < 0) return;
+
+                // Attribute value hex will be the next four bytes.
+                final int valueStartIndex = startIndex + marker.length();
+                final int valueEndIndex = valueStartIndex + 8;
+                if (!hasInt(hex, valueStartIndex)) return;
+
+                attributes.add(new Attribute.FloatValue(
+                        attributeNameId(hex, valueStartIndex), toOffset(startIndex), readInt(hex, valueStartIndex)
+                ));
+
+                substringIndex = valueEndIndex;
+            }
+        }
+
+        /**
+         * Returns the name ID of the attribute whose value begins at an index.
+         *
+         * @param hex             The function hex.
+         * @param valueStartIndex Index of the value's first hex character.
+         *
+         * @return The name ID.
+         */
+        private int attributeNameId(final String hex, final int valueStartIndex) {
+            if (nameId >= 0) return nameId;
+            final int match = schema.matchSignature(hex, valueStartIndex);
+            return match < 0 ? UNKNOWN_NAME : match;
+        }
+
+        @Override
+        public boolean owns(final Function function, final Attribute attribute) {
+            final String hex = function.getHex();
+            final int startIndex = attribute.offset() * 2;
+            final int valueStartIndex = startIndex + marker.length();
+            return attribute instanceof Attribute.FloatValue
+                    && hex.startsWith(marker, startIndex)
+                    && valueStartIndex + 8 <= hex.length()
+                    && attribute.nameId() == attributeNameId(hex, valueStartIndex);
+        }
+
+        @Override
+        public void modify(final Function function, final Attribute attribute) {
+            System.out.printf("Current value: %s%n", attribute.value());
+            final float newValue = promptFloatResponse("Enter new value: ");
+
+            // Overwrite the value in place so other occurrences of the same bytes are unaffected.
+            final String hex = function.getHex();
+            final int valueStartIndex = attribute.offset() * 2 + marker.length();
+            function.setHex(hex.substring(0, valueStartIndex) + getFloatHex(newValue) + hex.substring(valueStartIndex + 8));
+        }
+    }
+
+    /** Decodes printable ASCII strings other than the function label. */
+    static final class StringDecoder implements AttributeDecoder {
+        @Override
+        public void decode(final Function function, final List<Attribute> attributes) {
+            // String names are numbered by run, counting the label but not reporting it.
+            final AsciiRuns text = function.getText();
+            for (int run = 0; run < text.size(); run++) {
+                if (!text.textEquals(run, function.getLabel()))
+                    attributes.add(new Attribute.StringValue(AttributeNames.stringAttribute(run), text.start(run), text.text(run)));
+            }
+        }
+    }
+
+    /** Decodes the hit reaction ID following each occurrence of a marker. */
+    static final class ReactionDecoder implements EditableAttributeDecoder {
+        /** ID enabling slam down bounce. */
+        private static final int SLAM_DOWN_BOUNCE_ENABLE = 0xD04D6798;
+
+        /** ID of the slam down hit reaction, which is followed by a bounce/flatten flag. */
+        private static final int SLAM_DOWN_REACTION = 0x45856983;
+
+        /** ID of the generic light hit reaction, which is also followed by a bounce flag. */
+        private static final int GENERIC_LIGHT_REACTION = 0xC572FE3F;
+
+        /** Distance in hex characters from the end of a reaction ID to its bounce flag. */
+        private static final int BOUNCE_FLAG_OFFSET = 12;
+
+        /** Qualifiers of the slam down reaction. */
+        private static final String FLATTEN = "Flatten", BOUNCE = "Bounce";
+
+        /** Hex preceding each reaction ID. */
+        private final String marker;
+
+        /** Attribute name ID. */
+        private final int nameId;
+
+        ReactionDecoder(final String marker, final String name) {
+            this.marker = marker;
+            this.nameId = AttributeNames.intern(name);
+        }
+
+        @Override
+        public void decode(final Function function, final List<Attribute> attributes) {
+            final String hex = function.getHex();
+            int substringIndex = 0;
+
+            while (true) {
+                // Find index of hex string that indicates hit reaction is being set.
+                final int startIndex = indexOf(hex, marker, substringIndex);
+                if (startIndex < 0) return;
+
+                // Four bytes define the hit reaction. A byte is two characters
+                final int reactionStartIndex = startIndex + marker.length();
+                final int reactionEndIndex = reactionStartIndex + 8;
+                if (!hasInt(hex, reactionStartIndex)) return;
+                final int reaction = readInt(hex, reactionStartIndex);
+
+                // Slam downs either bounce or flatten, depending on the flag following the reaction.
+                String qualifier = null;
+                if (reaction == SLAM_DOWN_REACTION && hasInt(hex, reactionEndIndex + BOUNCE_FLAG_OFFSET))
+                    qualifier = readInt(hex, reactionEndIndex + BOUNCE_FLAG_OFFSET) == 0 ? FLATTEN : BOUNCE;
+                attributes.add(new Attribute.IdValue(nameId, toOffset(startIndex), IdCategory.REACTION, reaction, qualifier));
+
+                // If attack causes multiple reactions, add them all.
+                substringIndex = reactionEndIndex;
+            }
+        }
+
+        @Override
+        public boolean owns(final Function function, final Attribute attribute) {
+            return attribute.nameId() == nameId && function.getHex().startsWith(marker, attribute.offset() * 2);
+        }
+
+        @Override
+        public void modify(final Function function, final Attribute attribute) {
+            final IdDictionary dictionary = IdDictionary.get();
+
+            // Prompt user to select a new hit reaction.
+            int selection;
+            final List<String> hitReactions = dictionary.getNames(IdCategory.REACTION);
+            while (true) {
+                System.out.println("Hit Reactions:");
+                for (int i = 0; i < hitReactions.size(); i++)
+                    System.out.printf("    %d. %s%n", i, hitReactions.get(i));
+                System.out.println();
+                selection = promptIntegerResponse("Enter number for hit reaction selection: ");
+                if (selection < 0 || selection >= hitReactions.size()) continue;
+                break;
+            }
+            final int newReaction = dictionary.getId(IdCategory.REACTION, hitReactions.get(selection));
+
+            // Four bytes define the hit reaction. A byte is two characters
+            String hex = function.getHex();
+            final int reactionStartIndex = attribute.offset() * 2 + marker.length();
+            final int reactionEndIndex = reactionStartIndex + 8;
+            if (newReaction == SLAM_DOWN_REACTION || newReaction == GENERIC_LIGHT_REACTION) {
+                // Determine slam-down bounce/flatten.
+                final boolean bounce = promptYesNoResponse("Enable bounce?");
+                final int slamDownStartIndex = reactionEndIndex + BOUNCE_FLAG_OFFSET;
+                final String flagHex = getIntHex(bounce ? SLAM_DOWN_BOUNCE_ENABLE : 0);
+                hex = hex.substring(0, slamDownStartIndex) + flagHex + hex.substring(slamDownStartIndex + 8);
+            }
+            function.setHex(hex.substring(0, reactionStartIndex) + getIntHex(newReaction) + hex.substring(reactionEndIndex));
+        }
+    }
+
+    /** Decodes a boolean byte following the first occurrence of a marker. */
+    static final class ByteFlagDecoder implements EditableAttributeDecoder {
+        /** Hex preceding the flag. */
+        private final String marker;
+
+        /** Attribute name ID. */
+        private final int nameId;
+
+        ByteFlagDecoder(final String marker, final String name) {
+            this.marker = marker;
+            this.nameId = AttributeNames.intern(name);
+        }
+
+        @Override
+        public void decode(final Function function, final List<Attribute> attributes) {
+            final String hex = function.getHex();
+            final int markerIndex = indexOf(hex, marker, 0);
+            if (markerIndex < 0) return;  // Without the marker the function has no flag.
+            final int startIndex = markerIndex + marker.length();
+            final boolean enabled = hex.startsWith("01", startIndex);
+            attributes.add(new Attribute.BooleanValue(nameId, toOffset(startIndex), enabled));
+        }
+
+        @Override
+        public boolean owns(final Function function, final Attribute attribute) {
+            // Without the marker there is no flag to modify.
+            return attribute.nameId() == nameId && indexOf(function.getHex(), marker, 0) >= 0;
+        }
+
+        @Override
+        public void modify(final Function function, final Attribute attribute) {
+            final boolean enable = promptYesNoResponse(String.format("Enable %s?", attribute.name().toLowerCase()));
+            final String hex = function.getHex();
+            final int startIndex = attribute.offset() * 2;
+            function.setHex(hex.substring(0, startIndex) + (enable ? "01" : "00") + hex.substring(startIndex + 2));
+        }
+    }
+
+    /** Decodes a flag that is set when a specific ID follows the first occurrence of a marker. */
+    static final class IdFlagDecoder implements AttributeDecoder {
+        /** Hex preceding the flag. */
+        private final String marker;
+
+        /** ID indicating the flag is set. */
+        private final int enabledId;
+
+        /** Attribute name ID. */
+        private final int nameId;
+
+        IdFlagDecoder(final String marker, final int enabledId, final String name) {
+            this.marker = marker;
+            this.enabledId = enabledId;
+            this.nameId = AttributeNames.intern(name);
+        }
+
+        @Override
+        public void decode(final Function function, final List<Attribute> attributes) {
+            final String hex = function.getHex();
+            final int markerIndex = indexOf(hex, marker, 0);
+            final int startIndex = markerIndex + marker.length();
+            final boolean enabled = markerIndex >= 0 && hasInt(hex, startIndex) && readInt(hex, startIndex) == enabledId;
+            attributes.add(new Attribute.BooleanValue(nameId, toOffset(startIndex), enabled));
+        }
+    }
+
+    /**
+     * Decodes a float that may be omitted. When present, the marker is followed by a value marker & the value. When
+     * omitted, the marker is followed by default bytes & the attribute is reported as unknown.
+     */
+    static final class OptionalFloatDecoder implements EditableAttributeDecoder {
+        /** Hex preceding the value or default bytes. */
+        private final String marker;
+
+        /** Hex following the marker when the value is omitted. */
+        private final String defaultHex;
+
+        /** Hex between the marker & the value when the value is present. */
+        private final String valueMarker;
+
+        /** Attribute name ID. */
+        private final int nameId;
+
+        OptionalFloatDecoder(final String marker, final String defaultHex, final String valueMarker, final String name) {
+            this.marker = marker;
+            this.defaultHex = defaultHex;
+            this.valueMarker = valueMarker;
+            this.nameId = AttributeNames.intern(name);
+        }
+
+        @Override
+        public void decode(final Function function, final List<Attribute> attributes) {
+            // A present value has already been decoded as a float attribute.
+            for (final Attribute attribute : attributes) if (attribute.nameId() == nameId) return;
+            final String hex = function.getHex();
+            attributes.add(new Attribute.UnknownValue(nameId, toOffset(indexOf(hex, marker, 0) + marker.length())));
+        }
+
+        @Override
+        public boolean owns(final Function function, final Attribute attribute) {
+            return attribute.nameId() == nameId && attribute instanceof Attribute.UnknownValue;
+        }
+
+        @Override
+        public void modify(final Function function, final Attribute attribute) {
+            final float newValue = promptFloatResponse("Enter new value: ");
+            final String hex = function.getHex();
+            final int startIndex = indexOf(hex, marker, 0) + marker.length();
+            if (startIndex < marker.length() || !hex.startsWith(defaultHex, startIndex)) {
+                System.out.printf("Unexpected byte sequence found. Unable to modify %s.%n", attribute.name());
+                return;
+            }
+            function.setHex(hex.substring(0, startIndex) + valueMarker + getFloatHex(newValue)
+                    + hex.substring(startIndex + defaultHex.length()));
+        }
+    }
+}
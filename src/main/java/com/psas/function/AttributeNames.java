@@ -0,0 +1,80 @@
+package com.psas.function;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Interns attribute names as small integer IDs, so attributes store an int rather than a name & can be compared by ID.
+ * Names are interned when the function schema is compiled, apart from string attribute names, which are interned on
+ * first use.
+ */
+public final class AttributeNames {
+    /** Number of string attribute names interned up front. */
+    private static final int CACHED_STRING_ATTRIBUTES = 16;
+
+    /** IDs by name. Guarded by the class lock. */
+    private static final HashMap<String, Integer> IDS = new HashMap<>();
+
+    /** Names by ID. Replaced, never modified, when a name is added, so readers do not need to lock. */
+    private static volatile String[] names = new String[0];
+
+    /** IDs of the first string attribute names. */
+    private static final int[] STRING_ATTRIBUTE_IDS = new int[CACHED_STRING_ATTRIBUTES];
+    static {
+        for (int i = 0; i < CACHED_STRING_ATTRIBUTES; i++) STRING_ATTRIBUTE_IDS[i] = intern(stringAttributeName(i));
+    }
+
+    private AttributeNames() {}
+
+    /**
+     * Returns the ID of a name, assigning one if the name is new.
+     *
+     * @param name The attribute name.
+     *
+     * @return The name ID.
+     */
+    public static synchronized int intern(final String name) {
+        final Integer id = IDS.get(name);
+        if (id != null) return id;
+
+        final String[] current = names;
+        final String[] extended = Arrays.copyOf(current, current.length + 1);
+        extended[current.length] = name;
+        IDS.put(name, current.length);
+        names = extended;
+        return current.length;
+    }
+
+    /**
+     * Returns the name of an ID.
+     *
+     * @param id The name ID.
+     *
+     * @return The attribute name.
+     */
+    public static String getName(final int id) {
+        return names[id];
+    }
+
+    /**
+     * Returns the ID of the name given to the nth string attribute of a function.
+     *
+     * @param n The string attribute number, starting from 0.
+     *
+     * @return The name ID.
+     */
+    static int stringAttribute(final int n) {
+        return n < CACHED_STRING_ATTRIBUTES ? STRING_ATTRIBUTE_IDS[n] : intern(stringAttributeName(n));
+    }
+
+    /**
+     * Returns the name given to the nth string attribute of a function.
+     *
+     * @param n The string attribute number, starting from 0.
+     *
+     * @return The attribute name.
+     */
+    private static String stringAttributeName(final int n) {
+        return String.format("String Attribute %d", n);
+    }
+}
@@ -0,0 +1,25 @@
+package com.psas.function;
+
+/**
+ * An attribute decoder whose attributes can also be modified in place. Like other decoders, editable decoders are
+ * shared by every function with the same label, so they must not hold per-function state.
+ */
+interface EditableAttributeDecoder extends AttributeDecoder {
+    /**
+     * Returns whether this decoder produced an attribute & can still locate it in the function hex.
+     *
+     * @param function  The function containing the attribute.
+     * @param attribute The attribute.
+     *
+     * @return True if the attribute was produced by this decoder & can be modified.
+     */
+    boolean owns(Function function, Attribute attribute);
+
+    /**
+     * Prompts the user for a new value & updates the function hex.
+     *
+     * @param function  The function containing the attribute.
+     * @param attribute The attribute to modify, which this decoder {@link #owns owns}.
+     */
+    void modify(Function function, Attribute attribute);
+}
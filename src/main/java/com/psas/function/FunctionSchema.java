@@ -0,0 +1,289 @@
+package com.psas.function;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.codec.binary.Hex.encodeHexString;
+import static org.apache.commons.codec.digest.DigestUtils.getSha256Digest;
+import static org.apache.commons.codec.digest.DigestUtils.updateDigest;
+
+/**
+ * Describes which attributes each function label contains & how they are decoded. The schema is read from a data file
+ * & compiled into one {@link LabelDecoder} per label, indexed by a small integer label ID. Functions resolve their
+ * label ID once, so decoding never switches on label strings. See {@code function-schema.txt} for the file format.
+ */
+public final class FunctionSchema {
+    /** Name of the bundled schema file. */
+    private static final String BUNDLED_SCHEMA = "function-schema.txt";
+
+    /** Label used in the schema for the decoders of labels without their own entry. */
+    private static final String DEFAULT_LABEL = "*";
+
+    /** Label ID of labels without their own entry. */
+    public static final int DEFAULT_LABEL_ID = 0;
+
+    /** The schema in use. */
+    private static volatile FunctionSchema current;
+
+    /**
+     * Returns the schema in use, loading the bundled schema on first use.
+     *
+     * @return The schema.
+     */
+    public static FunctionSchema get() {
+        FunctionSchema schema = current;
+        if (schema == null) {
+            synchronized (FunctionSchema.class) {
+                if (current == null) current = readBundled();
+                schema = current;
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * Replaces the schema in use with one read from a file. Must be called before any function is parsed.
+     *
+     * @param path Path to the schema file.
+     *
+     * @throws IOException              Indicates the file could not be read.
+     * @throws IllegalArgumentException Indicates the schema is malformed.
+     */
+    public static synchronized void load(final Path path) throws IOException {
+        try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            current = new FunctionSchema(reader);
+        }
+    }
+
+    /** A numeric attribute signature & the interned ID of the attribute name. */
+    private record Signature(String hex, int nameId) {}
+
+    /** Label IDs by label. */
+    private final Map<String, Integer> labelIds = new HashMap<>();
+
+    /** Label decoders indexed by label ID. */
+    private final List<LabelDecoder> decoders = new ArrayList<>();
+
+    /** Numeric attribute signatures, shortest first. */
+    private final List<Signature> signatures = new ArrayList<>();
+
+    /** Hex of each defined name. */
+    private final Map<String, String> definitions = new HashMap<>();
+
+    /** SHA-256 of the schema text, identifying the schema in caches of decoded data. */
+    private final String digest;
+
+    /**
+     * Reads & compiles a schema.
+     *
+     * @param reader Reader over the schema file.
+     *
+     * @throws IOException              Indicates the schema could not be read.
+     * @throws IllegalArgumentException Indicates the schema is malformed.
+     */
+    private FunctionSchema(final Reader reader) throws IOException {
+        final List<List<AttributeDecoder>> labelDecoders = new ArrayList<>();
+        final BufferedReader lines = new BufferedReader(reader);
+        final MessageDigest text = getSha256Digest();
+        labelDecoders.add(List.of());  // Reserve the default label ID.
+
+        List<AttributeDecoder> currentDecoders = null;
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            updateDigest(text, line + '\n');
+            final boolean indented = !line.isEmpty() && Character.isWhitespace(line.charAt(0));
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            final String[] tokens = line.split("\\s+");
+            try {
+                if (indented) {
+                    if (currentDecoders == null) throw new IllegalArgumentException("Decoder outside of a label.");
+                    currentDecoders.add(compileDecoder(tokens, definitions));
+                    continue;
+                }
+
+                currentDecoders = null;
+                switch (tokens[0]) {
+                    case "define" -> definitions.put(tokens[1], resolve(tokens[2], definitions));
+                    case "signature" -> signatures.add(new Signature(resolve(tokens[1], definitions), AttributeNames.intern(join(tokens, 2))));
+                    case "label" -> {
+                        currentDecoders = new ArrayList<>();
+                        for (int i = 1; i < tokens.length; i++) {
+                            if (tokens[i].equals(DEFAULT_LABEL)) labelDecoders.set(DEFAULT_LABEL_ID, currentDecoders);
+                            else {
+                                labelIds.put(tokens[i], labelDecoders.size());
+                                labelDecoders.add(currentDecoders);
+                            }
+                        }
+                    }
+                    default -> throw new IllegalArgumentException(String.format("Unknown statement \"%s\".", tokens[0]));
+                }
+            }
+            catch (final IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException(String.format("Schema line %d is incomplete: %s", lineNumber, line), e);
+            }
+            catch (final IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("Schema line %d: %s", lineNumber, e.getMessage()), e);
+            }
+        }
+
+        // Compile each label's decoder list once the whole file has been read.
+        final IdentityHashMap<List<AttributeDecoder>, LabelDecoder> compiled = new IdentityHashMap<>();
+        for (final List<AttributeDecoder> list : labelDecoders)
+            decoders.add(compiled.computeIfAbsent(list, LabelDecoder::new));
+        signatures.sort(Comparator.comparingInt(signature -> signature.hex().length()));
+        digest = encodeHexString(text.digest(), false);
+    }
+
+    /**
+     * Compiles a decoder line.
+     *
+     * @param tokens      The tokens of the line.
+     * @param definitions Named hex values.
+     *
+     * @return The decoder.
+     */
+    private AttributeDecoder compileDecoder(final String[] tokens, final Map<String, String> definitions) {
+        return switch (tokens[0]) {
+            case "float" -> {
+                final String name = join(tokens, 2);
+                yield new AttributeDecoders.FloatDecoder(resolve(tokens[1], definitions), name.equals("*") ? null : name, this);
+            }
+            case "strings" -> new AttributeDecoders.StringDecoder();
+            case "reaction" -> new AttributeDecoders.ReactionDecoder(resolve(tokens[1], definitions), join(tokens, 2));
+            case "byte-flag" -> new AttributeDecoders.ByteFlagDecoder(resolve(tokens[1], definitions), join(tokens, 2));
+            case "id-flag" -> new AttributeDecoders.IdFlagDecoder(
+                    resolve(tokens[1], definitions),
+                    Integer.parseUnsignedInt(resolve(tokens[2], definitions), 16),
+                    join(tokens, 3)
+            );
+            case "optional-float" -> new AttributeDecoders.OptionalFloatDecoder(
+                    resolve(tokens[1], definitions),
+                    resolve(tokens[2], definitions),
+                    resolve(tokens[3], definitions),
+                    join(tokens, 4)
+            );
+            default -> throw new IllegalArgumentException(String.format("Unknown decoder \"%s\".", tokens[0]));
+        };
+    }
+
+    /**
+     * Resolves a hex value made of literal hex & defined names joined by '+'.
+     *
+     * @param value       The value to resolve.
+     * @param definitions Named hex values.
+     *
+     * @return The hex string.
+     */
+    private static String resolve(final String value, final Map<String, String> definitions) {
+        final StringBuilder builder = new StringBuilder();
+        for (final String part : value.split("\\+")) {
+            final String definition = definitions.get(part);
+            if (definition != null) builder.append(definition);
+            else if (part.matches("([0-9A-F]{2})+")) builder.append(part);
+            else throw new IllegalArgumentException(String.format("\"%s\" is neither hex nor a defined name.", part));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Joins the tokens of a line from an index onwards, used for names containing spaces.
+     *
+     * @param tokens The tokens.
+     * @param from   Index of the first token to join.
+     *
+     * @return The joined name.
+     */
+    private static String join(final String[] tokens, final int from) {
+        if (from >= tokens.length) throw new IndexOutOfBoundsException(from);
+        return String.join(" ", List.of(tokens).subList(from, tokens.length));
+    }
+
+    /**
+     * Returns the ID of a label.
+     *
+     * @param label The function label.
+     *
+     * @return The label ID, or {@link #DEFAULT_LABEL_ID} if the schema has no entry for the label.
+     */
+    public int getLabelId(final String label) {
+        return labelIds.getOrDefault(label, DEFAULT_LABEL_ID);
+    }
+
+    /**
+     * Returns the hex of a name defined by the schema.
+     *
+     * @param name The defined name.
+     *
+     * @return The hex, or null if the name is not defined.
+     */
+    public String getDefinition(final String name) {
+        return definitions.get(name);
+    }
+
+    /**
+     * Returns the SHA-256 of the schema text. Data decoded under one schema may decode differently under another.
+     *
+     * @return The lowercase hex digest.
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * Returns the decoder of a label.
+     *
+     * @param labelId The label ID.
+     *
+     * @return The label decoder.
+     */
+    LabelDecoder getDecoder(final int labelId) {
+        return decoders.get(labelId);
+    }
+
+    /**
+     * Finds the numeric attribute signature ending where a value begins. The shortest matching signature wins.
+     *
+     * @param hex             The function hex.
+     * @param valueStartIndex Index of the value's first hex character.
+     *
+     * @return The interned attribute name ID, or -1 if no signature matches.
+     */
+    public int matchSignature(final String hex, final int valueStartIndex) {
+        for (final Signature signature : signatures) {
+            final int startIndex = valueStartIndex - signature.hex().length();
+            if (startIndex >= 0 && hex.startsWith(signature.hex(), startIndex)) return signature.nameId();
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the bundled schema.
+     *
+     * @return The schema.
+     */
+    private static FunctionSchema readBundled() {
+        try (final InputStream stream = FunctionSchema.class.getResourceAsStream(BUNDLED_SCHEMA)) {
+            if (stream == null) throw new IllegalStateException(String.format("Missing bundled schema \"%s\".", BUNDLED_SCHEMA));
+            return new FunctionSchema(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        }
+        catch (final IOException e) { throw new UncheckedIOException(e); }
+    }
+}
@@ -0,0 +1,10 @@
+package com.psas.function;
+
+/** Categories of 4-byte IDs known to the {@link IdDictionary}. */
+public enum IdCategory {
+    /** Hit reaction types. */
+    REACTION,
+
+    /** Flags that enable hit volume behaviour. */
+    FLAG
+}
@@ -0,0 +1,271 @@
+package com.psas.function;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.codec.binary.Hex.encodeHexString;
+import static org.apache.commons.codec.digest.DigestUtils.getSha256Digest;
+import static org.apache.commons.codec.digest.DigestUtils.updateDigest;
+
+/**
+ * Dictionary of known 4-byte IDs such as hit reactions & flags. IDs are resolved through an open-addressing hash table
+ * keyed by primitive {@code int}, so decoding never allocates. A reverse index maps names back to IDs for editing.
+ *
+ * <p>The bundled IDs are loaded from {@code ids.txt} next to this class. Additional IDs can be loaded from a file in
+ * the same format with {@link #extend(Path)}; entries with an existing ID replace the bundled entry.</p>
+ */
+public final class IdDictionary {
+    /** Name of the bundled data file. */
+    private static final String BUNDLED_IDS = "ids.txt";
+
+    /** Value returned when an ID or name is not in the dictionary. */
+    public static final int NOT_FOUND = -1;
+
+    /** The dictionary in use. Replaced as a whole when extended, so readers never see a partially built table. */
+    private static volatile IdDictionary current = new IdDictionary(readBundled());
+
+    /**
+     * Returns the dictionary in use.
+     *
+     * @return The dictionary.
+     */
+    public static IdDictionary get() {
+        return current;
+    }
+
+    /**
+     * Adds the IDs in a data file to the dictionary in use.
+     *
+     * @param path Path to the data file.
+     *
+     * @throws IOException Indicates the file could not be read.
+     */
+    public static synchronized void extend(final Path path) throws IOException {
+        final LinkedHashMap<Integer, Entry> entries = readBundled();
+        try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) { read(reader, entries); }
+        current = new IdDictionary(entries);
+    }
+
+    /** A dictionary entry. */
+    private record Entry(IdCategory category, int id, String name) {}
+
+    /** Slot table. Each slot holds an entry index plus one, or zero if the slot is empty. */
+    private final int[] slots;
+
+    /** Entry data, indexed by entry index. */
+    private final int[] ids;
+    private final String[] names;
+    private final IdCategory[] categories;
+
+    /** Mask applied to hashes to select a slot. */
+    private final int mask;
+
+    /** Reverse index of IDs by category & name. */
+    private final EnumMap<IdCategory, Map<String, Integer>> idsByName = new EnumMap<>(IdCategory.class);
+
+    /** Names of each category in file order. */
+    private final EnumMap<IdCategory, List<String>> namesByCategory = new EnumMap<>(IdCategory.class);
+
+    /** SHA-256 of the entries, identifying the dictionary in caches of decoded data. */
+    private final String digest;
+
+    /**
+     * Builds the hash table for a set of entries.
+     *
+     * @param entries Entries keyed by ID, in file order.
+     */
+    private IdDictionary(final LinkedHashMap<Integer, Entry> entries) {
+        final int count = entries.size();
+        ids = new int[count];
+        names = new String[count];
+        categories = new IdCategory[count];
+
+        // Keep the load factor at or below one half so probe sequences stay short.
+        final int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, count) * 4 - 1));
+        slots = new int[capacity];
+        mask = capacity - 1;
+
+        for (final IdCategory category : IdCategory.values()) {
+            idsByName.put(category, new HashMap<>());
+            namesByCategory.put(category, new ArrayList<>());
+        }
+
+        final MessageDigest text = getSha256Digest();
+        int index = 0;
+        for (final Entry entry : entries.values()) {
+            updateDigest(text, String.format("%s %08X %s%n", entry.category(), entry.id(), entry.name()));
+            ids[index] = entry.id();
+            names[index] = entry.name();
+            categories[index] = entry.category();
+
+            int slot = hash(entry.id()) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = index + 1;
+
+            idsByName.get(entry.category()).put(entry.name(), entry.id());
+            namesByCategory.get(entry.category()).add(entry.name());
+            index++;
+        }
+        namesByCategory.replaceAll((category, list) -> Collections.unmodifiableList(list));
+        digest = encodeHexString(text.digest(), false);
+    }
+
+    /**
+     * Returns the SHA-256 of the entries. Data decoded with one dictionary may decode differently with another.
+     *
+     * @return The lowercase hex digest.
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * Finds the entry index of an ID.
+     *
+     * @param id The ID.
+     *
+     * @return The entry index or {@link #NOT_FOUND}.
+     */
+    private int find(final int id) {
+        int slot = hash(id) & mask;
+        while (true) {
+            final int entry = slots[slot];
+            if (entry == 0) return NOT_FOUND;
+            if (ids[entry - 1] == id) return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the name of an ID.
+     *
+     * @param id The ID.
+     *
+     * @return The name, or null if the ID is unknown.
+     */
+    public String getName(final int id) {
+        final int entry = find(id);
+        return entry == NOT_FOUND ? null : names[entry];
+    }
+
+    /**
+     * Returns the name of an ID if it belongs to a category.
+     *
+     * @param category The expected category.
+     * @param id       The ID.
+     *
+     * @return The name, or null if the ID is unknown or belongs to another category.
+     */
+    public String getName(final IdCategory category, final int id) {
+        final int entry = find(id);
+        return entry == NOT_FOUND || categories[entry] != category ? null : names[entry];
+    }
+
+    /**
+     * Returns whether an ID is known.
+     *
+     * @param id The ID.
+     *
+     * @return True if the dictionary contains the ID.
+     */
+    public boolean contains(final int id) {
+        return find(id) != NOT_FOUND;
+    }
+
+    /**
+     * Returns the ID with a name.
+     *
+     * @param category The category of the ID.
+     * @param name     The name.
+     *
+     * @return The ID or {@link #NOT_FOUND}.
+     */
+    public int getId(final IdCategory category, final String name) {
+        return idsByName.get(category).getOrDefault(name, NOT_FOUND);
+    }
+
+    /**
+     * Returns the names in a category, in data file order.
+     *
+     * @param category The category.
+     *
+     * @return Unmodifiable list of names.
+     */
+    public List<String> getNames(final IdCategory category) {
+        return namesByCategory.get(category);
+    }
+
+    /**
+     * Returns the number of IDs in the dictionary.
+     *
+     * @return The ID count.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Spreads the bits of an ID so that similar IDs land in different slots.
+     *
+     * @param id The ID.
+     *
+     * @return The hash.
+     */
+    private static int hash(final int id) {
+        final int hash = id * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Reads the bundled data file.
+     *
+     * @return Entries keyed by ID, in file order.
+     */
+    private static LinkedHashMap<Integer, Entry> readBundled() {
+        final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>();
+        try (final InputStream stream = IdDictionary.class.getResourceAsStream(BUNDLED_IDS)) {
+            if (stream == null) throw new IllegalStateException(String.format("Missing bundled data file \"%s\".", BUNDLED_IDS));
+            read(new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)), entries);
+        }
+        catch (final IOException e) { throw new UncheckedIOException(e); }
+        return entries;
+    }
+
+    /**
+     * Reads entries from a data file. Blank lines & lines starting with '#' are ignored.
+     *
+     * @param reader  Reader over the data file.
+     * @param entries Entries to add to.
+     *
+     * @throws IOException              Indicates the file could not be read.
+     * @throws IllegalArgumentException Indicates a malformed line.
+     */
+    private static void read(final BufferedReader reader, final LinkedHashMap<Integer, Entry> entries) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            final String[] columns = line.split("\\s+", 3);
+            if (columns.length != 3 || columns[1].length() != 8)
+                throw new IllegalArgumentException(String.format("Malformed ID line: %s", line));
+            final IdCategory category = IdCategory.valueOf(columns[0]);
+            final int id = Integer.parseUnsignedInt(columns[1], 16);
+            entries.put(id, new Entry(category, id, columns[2]));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.psas.function;
+
+import java.util.List;
+
+/** The attribute decoders of a function label, compiled from the function schema. */
+final class LabelDecoder {
+    /** Decoders in the order attributes are decoded. */
+    private final AttributeDecoder[] decoders;
+
+    /** Decoders whose attributes can be modified, in the order attributes are decoded. */
+    private final EditableAttributeDecoder[] editors;
+
+    /**
+     * Constructs a label decoder.
+     *
+     * @param decoders Decoders in the order attributes are decoded.
+     */
+    LabelDecoder(final List<AttributeDecoder> decoders) {
+        this.decoders = decoders.toArray(new AttributeDecoder[0]);
+        this.editors = decoders.stream()
+                .filter(EditableAttributeDecoder.class::isInstance)
+                .map(EditableAttributeDecoder.class::cast)
+                .toArray(EditableAttributeDecoder[]::new);
+    }
+
+    /**
+     * Decodes every attribute of a function.
+     *
+     * @param function   The function to decode.
+     * @param attributes The list to add attributes to.
+     */
+    void decode(final Function function, final List<Attribute> attributes) {
+        for (final AttributeDecoder decoder : decoders) decoder.decode(function, attributes);
+    }
+
+    /**
+     * Finds the decoder able to modify an attribute.
+     *
+     * @param function  The function containing the attribute.
+     * @param attribute The attribute.
+     *
+     * @return The decoder, or null if the attribute cannot be modified.
+     */
+    EditableAttributeDecoder findEditor(final Function function, final Attribute attribute) {
+        for (final EditableAttributeDecoder editor : editors)
+            if (editor.owns(function, attribute)) return editor;
+        return null;
+    }
+}
@@ -0,0 +1,154 @@
+package com.psas.geometry;
+
+import com.psas.cbws.CBWSSnapshot;
+import com.psas.cbws.FrameTimeline;
+import com.psas.cbws.Section;
+import com.psas.function.Attribute;
+import com.psas.function.AttributeNames;
+import com.psas.function.Function;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An oriented hit box opened by an {@code EnableHitVolume} function, together with the frames it is active on.
+ * <p>
+ * The box is anchored at the function's X & Y offsets. It extends {@code length} units from the anchor along the
+ * direction given by {@code angle} (degrees counter-clockwise from the character's facing direction, +X) & is
+ * {@code height} units thick, centred on that direction. Coordinates are in the character's local space, facing +X.
+ *
+ * @param script        Name of the move script.
+ * @param functionIndex Index of the intermediate function that opens the hit volume.
+ * @param start         The first absolute frame the box is active on.
+ * @param end           The first absolute frame the box is no longer active on.
+ * @param x             X offset of the anchor.
+ * @param y             Y offset of the anchor.
+ * @param length        Extent of the box along its direction.
+ * @param height        Extent of the box across its direction.
+ * @param angle         Direction of the box in degrees.
+ */
+public record HitBox(String script, int functionIndex, int start, int end,
+                     float x, float y, float length, float height, float angle) {
+    /** Label of the function that enables a hit volume. */
+    private static final String HIT_VOLUME_LABEL = "EnableHitVolume";
+
+    /** IDs of the attributes describing the box geometry. */
+    private static final int LENGTH = AttributeNames.intern("Hit Volume Length 1"),
+            HEIGHT = AttributeNames.intern("Hit Volume Height 1"),
+            ANGLE = AttributeNames.intern("Angle"),
+            X_OFFSET = AttributeNames.intern("X Offset"),
+            Y_OFFSET = AttributeNames.intern("Y Offset");
+
+    /**
+     * Builds the hit boxes of a move, one per active hit volume window. Hit volumes missing any geometry attribute,
+     * or with non-finite values, are skipped.
+     *
+     * @param script Name of the move script.
+     * @param move   The parsed move.
+     *
+     * @return The hit boxes ordered by start frame.
+     */
+    public static List<HitBox> of(final String script, final CBWSSnapshot move) {
+        final List<Function> functions = move.getFunctions(Section.INTERMEDIATE);
+        final ArrayList<HitBox> boxes = new ArrayList<>();
+        for (final FrameTimeline.Interval interval : move.getTimeline().getIntervals(FrameTimeline.HIT_VOLUME)) {
+            final Function function = functions.get(interval.functionIndex());
+            if (!function.getLabel().equals(HIT_VOLUME_LABEL)) continue;
+
+            final float length = floatOf(function, LENGTH), height = floatOf(function, HEIGHT), angle = floatOf(function, ANGLE);
+            final float x = floatOf(function, X_OFFSET), y = floatOf(function, Y_OFFSET);
+            if (!Float.isFinite(length + height + angle + x + y)) continue;
+            boxes.add(new HitBox(script, interval.functionIndex(), interval.start(), interval.end(),
+                    x, y, Math.abs(length), Math.abs(height), angle));
+        }
+        return boxes;
+    }
+
+    /**
+     * Returns the first float attribute of a function with a name.
+     *
+     * @param function The function.
+     * @param nameId   ID of the attribute name.
+     *
+     * @return The value, or NaN if the function has no such attribute.
+     */
+    private static float floatOf(final Function function, final int nameId) {
+        for (final Attribute attribute : function.getAttributes())
+            if (attribute.nameId() == nameId && attribute instanceof Attribute.FloatValue value) return value.floatValue();
+        return Float.NaN;
+    }
+
+    /**
+     * Returns the corners of the box, counter-clockwise from the anchor's lower side.
+     *
+     * @return The corners as {x0, y0, x1, y1, x2, y2, x3, y3}.
+     */
+    public float[] corners() {
+        final double radians = Math.toRadians(angle);
+        final float dx = (float) Math.cos(radians), dy = (float) Math.sin(radians);
+
+        // Direction vector scaled by the length, & the perpendicular scaled by half the height.
+        final float ax = dx * length, ay = dy * length;
+        final float px = -dy * height / 2, py = dx * height / 2;
+        return new float[]{
+                x - px, y - py,
+                x + ax - px, y + ay - py,
+                x + ax + px, y + ay + py,
+                x + px, y + py
+        };
+    }
+
+    /**
+     * Returns whether the box is active on any frame of a range.
+     *
+     * @param from The first frame of the range.
+     * @param to   The last frame of the range, inclusive.
+     *
+     * @return True if the active frames overlap the range.
+     */
+    public boolean isActiveDuring(final int from, final int to) {
+        return start <= to && from < end;
+    }
+
+    /**
+     * Returns whether the box overlaps an axis-aligned region. Uses the separating axis test, so boxes whose bounds
+     * overlap the region but whose rotated outline does not are excluded.
+     *
+     * @param region The region.
+     *
+     * @return True if the box & the region overlap.
+     */
+    public boolean intersects(final Region region) {
+        final float[] corners = corners();
+        if (!region.intersects(Region.bounding(corners))) return false;
+
+        // Project the region's corners onto both box axes & compare with the box's extent along each.
+        final double radians = Math.toRadians(angle);
+        final float[][] axes = {{(float) Math.cos(radians), (float) Math.sin(radians)}, {(float) -Math.sin(radians), (float) Math.cos(radians)}};
+        final float[] regionCorners = {region.minX(), region.minY(), region.maxX(), region.minY(),
+                region.maxX(), region.maxY(), region.minX(), region.maxY()};
+        for (final float[] axis : axes) {
+            float boxMin = Float.POSITIVE_INFINITY, boxMax = Float.NEGATIVE_INFINITY;
+            float regionMin = Float.POSITIVE_INFINITY, regionMax = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < 8; i += 2) {
+                final float box = corners[i] * axis[0] + corners[i + 1] * axis[1];
+                final float other = regionCorners[i] * axis[0] + regionCorners[i + 1] * axis[1];
+                boxMin = Math.min(boxMin, box);
+                boxMax = Math.max(boxMax, box);
+                regionMin = Math.min(regionMin, other);
+                regionMax = Math.max(regionMax, other);
+            }
+            if (boxMax < regionMin || regionMax < boxMin) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the axis-aligned bounds of the box.
+     *
+     * @return The bounding region.
+     */
+    public Region bounds() {
+        return Region.bounding(corners());
+    }
+}
@@ -0,0 +1,269 @@
+package com.psas.geometry;
+
+import com.psas.cbws.CBWSParseException;
+import com.psas.cbws.CBWSSnapshot;
+import com.psas.cbws.ParseLimits;
+import com.psas.corpus.ScriptSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Uniform grid over the hit boxes of a whole corpus, so the moves reaching a region are found without testing every
+ * box. Each box is listed in every cell its bounds overlap; a query visits only the cells the region overlaps & reports
+ * each box from a single cell, so no de-duplication is needed. The index is immutable & safe to query from several
+ * threads at once.
+ */
+public final class HitBoxIndex {
+    /** Upper bound on the number of cells along each axis. */
+    private static final int MAX_CELLS_PER_AXIS = 256;
+
+    /** The indexed boxes. */
+    private final HitBox[] boxes;
+
+    /** Bounds of each box, as {minX, minY, maxX, maxY} per box. */
+    private final float[] bounds;
+
+    /** Region covered by the grid, which contains every box. */
+    private final Region extent;
+
+    /** Number of cells along each axis. */
+    private final int columns, rows;
+
+    /** Size of a cell along each axis. */
+    private final float cellWidth, cellHeight;
+
+    /** Start of each cell's boxes in {@link #cellBoxes}, followed by the total number of entries. */
+    private final int[] cellStarts;
+
+    /** Indexes of the boxes in each cell, grouped by cell. */
+    private final int[] cellBoxes;
+
+    /**
+     * Builds the grid over a set of boxes.
+     *
+     * @param boxes The boxes.
+     */
+    private HitBoxIndex(final List<HitBox> boxes) {
+        this.boxes = boxes.toArray(HitBox[]::new);
+        bounds = new float[this.boxes.length * 4];
+        float minX = 0, minY = 0, maxX = 0, maxY = 0;
+        for (int i = 0; i < this.boxes.length; i++) {
+            final Region box = this.boxes[i].bounds();
+            bounds[i * 4] = box.minX();
+            bounds[i * 4 + 1] = box.minY();
+            bounds[i * 4 + 2] = box.maxX();
+            bounds[i * 4 + 3] = box.maxY();
+            minX = i == 0 ? box.minX() : Math.min(minX, box.minX());
+            minY = i == 0 ? box.minY() : Math.min(minY, box.minY());
+            maxX = i == 0 ? box.maxX() : Math.max(maxX, box.maxX());
+            maxY = i == 0 ? box.maxY() : Math.max(maxY, box.maxY());
+        }
+        extent = new Region(minX, minY, maxX, maxY);
+
+        // Aim for about one box per cell.
+        final int perAxis = Math.max(1, Math.min(MAX_CELLS_PER_AXIS, (int) Math.sqrt(this.boxes.length)));
+        columns = perAxis;
+        rows = perAxis;
+        cellWidth = Math.max(Float.MIN_NORMAL, (maxX - minX) / columns);
+        cellHeight = Math.max(Float.MIN_NORMAL, (maxY - minY) / rows);
+
+        // Count the entries of each cell, then place each box.
+        cellStarts = new int[columns * rows + 1];
+        for (int i = 0; i < this.boxes.length; i++)
+            for (int row = row(bounds[i * 4 + 1]); row <= row(bounds[i * 4 + 3]); row++)
+                for (int column = column(bounds[i * 4]); column <= column(bounds[i * 4 + 2]); column++)
+                    cellStarts[row * columns + column + 1]++;
+        for (int i = 0; i < columns * rows; i++) cellStarts[i + 1] += cellStarts[i];
+        cellBoxes = new int[cellStarts[columns * rows]];
+        final int[] next = cellStarts.clone();
+        for (int i = 0; i < this.boxes.length; i++)
+            for (int row = row(bounds[i * 4 + 1]); row <= row(bounds[i * 4 + 3]); row++)
+                for (int column = column(bounds[i * 4]); column <= column(bounds[i * 4 + 2]); column++)
+                    cellBoxes[next[row * columns + column]++] = i;
+    }
+
+    /**
+     * Creates an index over a set of boxes.
+     *
+     * @param boxes The boxes.
+     *
+     * @return The index.
+     */
+    public static HitBoxIndex of(final List<HitBox> boxes) {
+        return new HitBoxIndex(boxes);
+    }
+
+    /**
+     * Parses every script in a directory or corpus pack in parallel & indexes their hit boxes. Scripts that cannot be
+     * parsed within the budgets are reported & skipped.
+     *
+     * @param corpus Directory or corpus pack containing the move scripts.
+     * @param limits Budgets applied to each script.
+     *
+     * @return The index.
+     *
+     * @throws IOException Indicates the scripts could not be read.
+     */
+    public static HitBoxIndex build(final Path corpus, final ParseLimits limits) throws IOException {
+        try (final ScriptSource scripts = ScriptSource.open(corpus)) {
+            final List<List<HitBox>> perScript = IntStream.range(0, scripts.size()).parallel().mapToObj(index -> {
+                final String name = scripts.name(index);
+                try {
+                    limits.checkSize(scripts.length(index));
+                    return HitBox.of(name, CBWSSnapshot.parse(corpus.resolve(name).toFile(), scripts.bytes(index), limits));
+                }
+                catch (final IOException e) { throw new UncheckedIOException(e); }
+                catch (final RuntimeException e) {
+                    System.out.println(CBWSParseException.describe(name, e));
+                    return List.<HitBox>of();
+                }
+            }).toList();
+
+            final ArrayList<HitBox> boxes = new ArrayList<>();
+            for (final List<HitBox> list : perScript) boxes.addAll(list);
+            return new HitBoxIndex(boxes);
+        }
+        catch (final UncheckedIOException e) { throw e.getCause(); }
+    }
+
+    /**
+     * Returns the column of the cell containing an X coordinate, clamped to the grid.
+     *
+     * @param x The X coordinate.
+     *
+     * @return The column.
+     */
+    private int column(final float x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - extent.minX()) / cellWidth)));
+    }
+
+    /**
+     * Returns the row of the cell containing a Y coordinate, clamped to the grid.
+     *
+     * @param y The Y coordinate.
+     *
+     * @return The row.
+     */
+    private int row(final float y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - extent.minY()) / cellHeight)));
+    }
+
+    /**
+     * Returns the number of indexed boxes.
+     *
+     * @return The number of boxes.
+     */
+    public int size() {
+        return boxes.length;
+    }
+
+    /**
+     * Returns the region covered by every indexed box.
+     *
+     * @return The extent.
+     */
+    public Region getExtent() {
+        return extent;
+    }
+
+    /**
+     * Finds the boxes overlapping a region on any frame of a range.
+     *
+     * @param region The region.
+     * @param from   The first frame of the range.
+     * @param to     The last frame of the range, inclusive. Use {@link Integer#MAX_VALUE} to match any frame.
+     *
+     * @return The matching boxes, in index order of the cells visited.
+     */
+    public List<HitBox> query(final Region region, final int from, final int to) {
+        final ArrayList<HitBox> matches = new ArrayList<>();
+        if (boxes.length == 0 || !region.intersects(extent)) return matches;
+
+        final int firstColumn = column(region.minX()), lastColumn = column(region.maxX());
+        final int firstRow = row(region.minY()), lastRow = row(region.maxY());
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final int cell = row * columns + column;
+                for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+                    final int box = cellBoxes[i];
+
+                    // Report a box only from the first visited cell it occupies.
+                    if (column != Math.max(firstColumn, column(bounds[box * 4]))) continue;
+                    if (row != Math.max(firstRow, row(bounds[box * 4 + 1]))) continue;
+
+                    if (bounds[box * 4] > region.maxX() || bounds[box * 4 + 2] < region.minX()) continue;
+                    if (bounds[box * 4 + 1] > region.maxY() || bounds[box * 4 + 3] < region.minY()) continue;
+                    final HitBox hitBox = boxes[box];
+                    if (hitBox.isActiveDuring(from, to) && hitBox.intersects(region)) matches.add(hitBox);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Summary of how far one character's hit boxes reach.
+     *
+     * @param character     The character, i.e. the first directory of its script names.
+     * @param moves         Number of moves with hit boxes.
+     * @param boxes         Number of hit boxes.
+     * @param forward       Furthest X reached by any box.
+     * @param forwardScript Script of the move reaching furthest forward.
+     * @param up            Highest Y reached by any box.
+     * @param upScript      Script of the move reaching highest.
+     */
+    public record Reach(String character, int moves, int boxes, float forward, String forwardScript, float up, String upScript) {}
+
+    /**
+     * Compares the reach of every character's hit boxes.
+     *
+     * @return The reach of each character, in script name order.
+     */
+    public List<Reach> compareReach() {
+        final LinkedHashMap<String, List<Integer>> byCharacter = new LinkedHashMap<>();
+        for (int i = 0; i < boxes.length; i++)
+            byCharacter.computeIfAbsent(characterOf(boxes[i].script()), key -> new ArrayList<>()).add(i);
+
+        final ArrayList<Reach> reaches = new ArrayList<>();
+        for (final Map.Entry<String, List<Integer>> entry : byCharacter.entrySet()) {
+            float forward = Float.NEGATIVE_INFINITY, up = Float.NEGATIVE_INFINITY;
+            String forwardScript = "", upScript = "";
+            int moves = 0;
+            String previous = null;
+            for (final int box : entry.getValue()) {
+                final String script = boxes[box].script();
+                if (!script.equals(previous)) moves++;
+                previous = script;
+                if (bounds[box * 4 + 2] > forward) {
+                    forward = bounds[box * 4 + 2];
+                    forwardScript = script;
+                }
+                if (bounds[box * 4 + 3] > up) {
+                    up = bounds[box * 4 + 3];
+                    upScript = script;
+                }
+            }
+            reaches.add(new Reach(entry.getKey(), moves, entry.getValue().size(), forward, forwardScript, up, upScript));
+        }
+        return reaches;
+    }
+
+    /**
+     * Returns the character a script belongs to: the first directory of its name.
+     *
+     * @param script The script name.
+     *
+     * @return The character, or the script name itself if it is not in a directory.
+     */
+    private static String characterOf(final String script) {
+        final int separator = script.indexOf('/');
+        return separator < 0 ? script : script.substring(0, separator);
+    }
+}
@@ -0,0 +1,72 @@
+package com.psas.geometry;
+
+/**
+ * An axis-aligned rectangle in a character's local space.
+ *
+ * @param minX Left edge.
+ * @param minY Bottom edge.
+ * @param maxX Right edge.
+ * @param maxY Top edge.
+ */
+public record Region(float minX, float minY, float maxX, float maxY) {
+    public Region {
+        if (!(minX <= maxX) || !(minY <= maxY)) throw new IllegalArgumentException("Region edges are out of order.");
+    }
+
+    /**
+     * Parses a region written as {@code minX,minY,maxX,maxY}.
+     *
+     * @param text The region text.
+     *
+     * @return The region.
+     *
+     * @throws IllegalArgumentException Indicates the text is not a region.
+     */
+    public static Region parse(final String text) {
+        final String[] parts = text.split(",");
+        if (parts.length != 4) throw new IllegalArgumentException(String.format("\"%s\" is not minX,minY,maxX,maxY.", text));
+        final float[] values = new float[4];
+        for (int i = 0; i < 4; i++) {
+            try { values[i] = Float.parseFloat(parts[i].strip()); }
+            catch (final NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("\"%s\" is not a number.", parts[i].strip()), e);
+            }
+        }
+        return new Region(values[0], values[1], values[2], values[3]);
+    }
+
+    /**
+     * Returns the smallest region containing a set of points.
+     *
+     * @param points The points as {x0, y0, x1, y1, ...}.
+     *
+     * @return The bounding region.
+     */
+    static Region bounding(final float[] points) {
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < points.length; i += 2) {
+            minX = Math.min(minX, points[i]);
+            maxX = Math.max(maxX, points[i]);
+            minY = Math.min(minY, points[i + 1]);
+            maxY = Math.max(maxY, points[i + 1]);
+        }
+        return new Region(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Returns whether two regions overlap. Regions sharing an edge overlap.
+     *
+     * @param other The other region.
+     *
+     * @return True if the regions overlap.
+     */
+    public boolean intersects(final Region other) {
+        return minX <= other.maxX && other.minX <= maxX && minY <= other.maxY && other.minY <= maxY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s,%s,%s,%s", minX, minY, maxX, maxY);
+    }
+}
@@ -0,0 +1,43 @@
+package com.psas.mod;
+
+/**
+ * A line of a mod package manifest.
+ *
+ * @param name           Script path relative to the workspace.
+ * @param hash           SHA-256 hash of the uncompressed script.
+ * @param size           Uncompressed size in bytes.
+ * @param compressedSize Compressed size in bytes.
+ * @param crc            CRC-32 of the uncompressed script.
+ * @param dataOffset     Offset of the compressed data within the package.
+ */
+public record ManifestEntry(String name, String hash, long size, long compressedSize, int crc, long dataOffset) {
+    /** Column header written at the top of every manifest. */
+    public static final String HEADER = "path\tsha256\tsize\tcompressed_size\tcrc32\tdata_offset";
+
+    /**
+     * Parses a manifest line.
+     *
+     * @param line The tab separated line.
+     *
+     * @return The parsed entry.
+     *
+     * @throws IllegalArgumentException Indicates the line is malformed.
+     */
+    public static ManifestEntry parse(final String line) {
+        final String[] columns = line.split("\t");
+        if (columns.length != 6) throw new IllegalArgumentException(String.format("Malformed manifest line: %s", line));
+        return new ManifestEntry(
+                columns[0],
+                columns[1],
+                Long.parseLong(columns[2]),
+                Long.parseLong(columns[3]),
+                Integer.parseUnsignedInt(columns[4], 16),
+                Long.parseLong(columns[5])
+        );
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s\t%s\t%d\t%d\t%08X\t%d", name, hash, size, compressedSize, crc, dataOffset);
+    }
+}
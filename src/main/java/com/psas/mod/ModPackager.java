@@ -0,0 +1,259 @@
+package com.psas.mod;
+
+import com.psas.corpus.Corpus;
+import com.psas.corpus.ScriptSource;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Bundles modified scripts from a workspace into a single ZIP package. Scripts are selected either from the
+ * modification logs written by {@link com.psas.cbws.CBWS#write()} or by comparing content hashes against a baseline
+ * directory or corpus pack. Entries are compressed in parallel and written in order by a streaming writer. When a previous package
+ * exists at the output path, entries whose content hash is unchanged are copied from it without being recompressed.
+ */
+public final class ModPackager {
+    /** Name of the manifest entry written at the end of every package. */
+    public static final String MANIFEST_NAME = "cbws-manifest.tsv";
+
+    /**
+     * An entry ready to be written to the package.
+     *
+     * @param name       Script path relative to the workspace.
+     * @param hash       Content hash of the script.
+     * @param size       Uncompressed size.
+     * @param crc        CRC-32 of the script.
+     * @param compressed Raw deflate data.
+     * @param reused     Whether the data was copied from the previous package.
+     */
+    private record PackagedEntry(String name, String hash, long size, int crc, byte[] compressed, boolean reused) {}
+
+    /** Workspace containing the modified scripts. */
+    private final Path workspace;
+
+    /** Optional baseline directory or corpus pack to compare against. */
+    private final Path baseline;
+
+    /** Path of the package to write. */
+    private final Path output;
+
+    /**
+     * Constructs a packager.
+     *
+     * @param workspace Workspace containing the modified scripts.
+     * @param baseline  Unmodified copy of the scripts, or null to use the workspace modification logs.
+     * @param output    Path of the package to write.
+     */
+    public ModPackager(final Path workspace, final Path baseline, final Path output) {
+        this.workspace = workspace;
+        this.baseline = baseline;
+        this.output = output;
+    }
+
+    /**
+     * Builds the package.
+     *
+     * @throws IOException Indicates a script or the package could not be read or written.
+     */
+    public void run() throws IOException {
+        // Select candidate scripts. Baseline comparison happens later, on the worker threads.
+        final List<Path> candidates = baseline == null ? ModificationLog.collect(workspace) : Corpus.listScripts(workspace);
+        final Map<String, ManifestEntry> previousManifest = readPreviousManifest();
+        final ScriptSource baselineScripts = baseline == null ? null : ScriptSource.open(baseline);
+
+        final Path temporary = output.resolveSibling(output.getFileName() + ".tmp");
+        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        final ArrayList<Future<PackagedEntry>> futures = new ArrayList<>();
+        int written = 0, reused = 0;
+        try (final FileChannel previous = previousManifest.isEmpty() ? null : FileChannel.open(output, StandardOpenOption.READ);
+             final ZipStreamWriter writer = new ZipStreamWriter(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            try {
+                // Submit every script for hashing & compression.
+                for (final Path script : candidates)
+                    futures.add(executor.submit(() -> prepareEntry(script, baselineScripts, previousManifest, previous)));
+
+                // Write entries in order as they complete, recording their final position in the manifest.
+                final StringBuilder manifest = new StringBuilder(ManifestEntry.HEADER).append('\n');
+                for (final Future<PackagedEntry> future : futures) {
+                    final PackagedEntry entry = future.get();
+                    if (entry == null) continue;
+
+                    final long dataOffset = writer.writeEntry(entry.name(), entry.crc(), entry.size(), entry.compressed());
+                    manifest.append(new ManifestEntry(
+                            entry.name(), entry.hash(), entry.size(), entry.compressed().length, entry.crc(), dataOffset
+                    )).append('\n');
+                    written++;
+                    if (entry.reused()) reused++;
+                }
+
+                // The manifest is always the last entry so it can record every data offset.
+                final byte[] manifestBytes = manifest.toString().getBytes(StandardCharsets.UTF_8);
+                writer.writeEntry(MANIFEST_NAME, crc(manifestBytes), manifestBytes.length, deflate(manifestBytes));
+            }
+            catch (final InterruptedException | ExecutionException | IOException | RuntimeException e) {
+                // Queued tasks read the previous package & the baseline, so stop them before either is closed.
+                cancel(executor, futures);
+                throw e;
+            }
+        }
+        catch (final InterruptedException | ExecutionException e) {
+            Files.deleteIfExists(temporary);
+            throw new IOException("Failed to package scripts.", e.getCause() == null ? e : e.getCause());
+        }
+        catch (final IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        finally {
+            executor.shutdown();
+            if (baselineScripts != null) baselineScripts.close();
+        }
+
+        Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING);
+        System.out.printf("Packaged %d scripts (%d recompressed, %d reused) to %s%n", written, written - reused, reused, output);
+    }
+
+    /**
+     * Cancels the remaining tasks & waits for running ones to stop.
+     *
+     * @param executor The executor running the tasks.
+     * @param futures  The submitted tasks.
+     */
+    private static void cancel(final ExecutorService executor, final List<Future<PackagedEntry>> futures) {
+        for (final Future<PackagedEntry> future : futures) future.cancel(true);
+        executor.shutdownNow();
+        try {
+            // Running tasks only read & compress one script each, so they finish promptly.
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (final InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    /**
+     * Reads, filters & compresses a single script.
+     *
+     * @param script           The script to package.
+     * @param baselineScripts  Scripts to compare against, or null to package every candidate.
+     * @param previousManifest Manifest of the previous package, keyed by entry name.
+     * @param previous         Channel over the previous package, or null if there is none.
+     *
+     * @return The entry to write, or null if the script is unchanged relative to the baseline.
+     *
+     * @throws IOException Indicates the script could not be read.
+     */
+    private PackagedEntry prepareEntry(
+            final Path script,
+            final ScriptSource baselineScripts,
+            final Map<String, ManifestEntry> previousManifest,
+            final FileChannel previous
+    ) throws IOException {
+        final String name = Corpus.relativeName(workspace, script);
+        final byte[] bytes = Files.readAllBytes(script);
+        final String hash = Corpus.contentHash(bytes);
+
+        // Skip scripts identical to their baseline counterpart.
+        if (baselineScripts != null) {
+            final int original = baselineScripts.indexOf(name);
+            if (original >= 0 && baselineScripts.hash(original).equals(hash)) return null;
+        }
+
+        // Copy compressed data from the previous package if the script has not changed since.
+        final ManifestEntry entry = previousManifest.get(name);
+        if (entry != null && previous != null && entry.hash().equals(hash)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) entry.compressedSize());
+            long position = entry.dataOffset();
+            while (buffer.hasRemaining()) {
+                final int read = previous.read(buffer, position);
+                if (read < 0) throw new IOException(String.format("Previous package \"%s\" is truncated.", output));
+                position += read;
+            }
+            return new PackagedEntry(name, hash, bytes.length, entry.crc(), buffer.array(), true);
+        }
+
+        return new PackagedEntry(name, hash, bytes.length, crc(bytes), deflate(bytes), false);
+    }
+
+    /**
+     * Reads the manifest of the package currently at the output path, if any.
+     *
+     * @return Manifest entries keyed by name, or an empty map if there is no readable previous package.
+     */
+    private Map<String, ManifestEntry> readPreviousManifest() {
+        final HashMap<String, ManifestEntry> entries = new HashMap<>();
+        if (!Files.isRegularFile(output)) return entries;
+
+        try (final ZipFile zip = new ZipFile(output.toFile())) {
+            final ZipEntry manifest = zip.getEntry(MANIFEST_NAME);
+            if (manifest == null) return entries;
+            try (final InputStream stream = zip.getInputStream(manifest)) {
+                final String[] lines = new String(stream.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+                for (int i = 1; i < lines.length; i++) {
+                    if (lines[i].isBlank()) continue;
+                    final ManifestEntry entry = ManifestEntry.parse(lines[i]);
+                    entries.put(entry.name(), entry);
+                }
+            }
+        }
+        catch (final IOException | IllegalArgumentException e) {
+            // An unreadable previous package only means everything is recompressed.
+            System.out.printf("Ignoring previous package \"%s\": %s%n", output, e.getMessage());
+            entries.clear();
+        }
+        return entries;
+    }
+
+    /**
+     * Computes the CRC-32 of some bytes.
+     *
+     * @param bytes The bytes to checksum.
+     *
+     * @return The checksum.
+     */
+    private static int crc(final byte[] bytes) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Compresses bytes as a raw deflate stream, as stored in ZIP entries.
+     *
+     * @param bytes The bytes to compress.
+     *
+     * @return The compressed bytes.
+     */
+    private static byte[] deflate(final byte[] bytes) {
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream(bytes.length / 2 + 64);
+            final byte[] buffer = new byte[8192];
+            while (!deflater.finished()) stream.write(buffer, 0, deflater.deflate(buffer));
+            return stream.toByteArray();
+        }
+        finally { deflater.end(); }
+    }
+}
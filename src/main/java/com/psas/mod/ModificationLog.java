@@ -0,0 +1,89 @@
+package com.psas.mod;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Records which scripts have been written by the translator. Each directory that contains a modified script gets a
+ * small log file listing the names of its modified scripts, which the packager later collects from a workspace.
+ */
+public final class ModificationLog {
+    /** Name of the log file kept next to modified scripts. */
+    public static final String LOG_FILE_NAME = ".cbws-modified";
+
+    private ModificationLog() {}
+
+    /**
+     * Records that a script has been modified. Recording the same script more than once has no effect.
+     *
+     * @param script Path to the modified script.
+     *
+     * @throws IOException Indicates the log file could not be updated.
+     */
+    public static synchronized void record(final Path script) throws IOException {
+        final Path absolute = script.toAbsolutePath();
+        final Path log = absolute.resolveSibling(LOG_FILE_NAME);
+        final String name = absolute.getFileName().toString();
+
+        // Avoid duplicate entries so the log stays proportional to the number of modified scripts.
+        if (Files.exists(log) && Files.readAllLines(log, StandardCharsets.UTF_8).contains(name)) return;
+
+        Files.writeString(log, name + System.lineSeparator(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Collects every modified script recorded below a workspace directory.
+     *
+     * @param workspace The workspace root.
+     *
+     * @return Sorted list of modified scripts that still exist.
+     *
+     * @throws IOException Indicates the workspace could not be walked.
+     */
+    public static List<Path> collect(final Path workspace) throws IOException {
+        final List<Path> logs;
+        try (final Stream<Path> paths = Files.walk(workspace)) {
+            logs = paths.filter(path -> path.getFileName().toString().equals(LOG_FILE_NAME)).toList();
+        }
+
+        final TreeSet<Path> scripts = new TreeSet<>();
+        for (final Path log : logs) {
+            for (final String line : Files.readAllLines(log, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                final Path script = log.resolveSibling(line.strip());
+                if (Files.isRegularFile(script)) scripts.add(script);
+            }
+        }
+        return new ArrayList<>(scripts);
+    }
+
+    /**
+     * Deletes every log file below a workspace directory, so the next package only includes scripts modified after
+     * this call.
+     *
+     * @param workspace The workspace root.
+     *
+     * @return Number of log files deleted.
+     *
+     * @throws IOException Indicates the workspace could not be walked or a log file could not be deleted.
+     */
+    public static synchronized int clear(final Path workspace) throws IOException {
+        final List<Path> logs;
+        try (final Stream<Path> paths = Files.walk(workspace)) {
+            logs = paths.filter(path -> path.getFileName().toString().equals(LOG_FILE_NAME)).toList();
+        }
+
+        int cleared = 0;
+        for (final Path log : logs)
+            if (Files.deleteIfExists(log)) cleared++;
+        return cleared;
+    }
+}
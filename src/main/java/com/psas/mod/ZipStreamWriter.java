@@ -0,0 +1,165 @@
+package com.psas.mod;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Minimal streaming ZIP writer that accepts entries which have already been deflated. Unlike
+ * {@link java.util.zip.ZipOutputStream}, this allows entries to be compressed on other threads, or copied verbatim
+ * from a previous package, and then written sequentially.
+ */
+public final class ZipStreamWriter implements Closeable {
+    /** ZIP record signatures. */
+    private static final int
+            LOCAL_HEADER_SIGNATURE = 0x04034B50,
+            CENTRAL_HEADER_SIGNATURE = 0x02014B50,
+            END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054B50;
+
+    /** ZIP version 2.0 is required for deflated entries. */
+    private static final int VERSION = 20;
+
+    /** General purpose flag indicating entry names are UTF-8. */
+    private static final int UTF8_FLAG = 0x0800;
+
+    /** Compression method for deflated entries. */
+    private static final int DEFLATED = 8;
+
+    /** Fixed DOS timestamp (1980-01-01 00:00) so identical inputs always produce identical packages. */
+    private static final int DOS_TIME = 0, DOS_DATE = 0x21;
+
+    /** Largest size or offset a ZIP record can hold without ZIP64 extensions. */
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+    /** Largest number of entries a ZIP archive can hold without ZIP64 extensions. */
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    /** A written entry, remembered for the central directory. */
+    private record WrittenEntry(byte[] name, int crc, long compressedSize, long size, long headerOffset) {}
+
+    /** Stream the package is written to. */
+    private final OutputStream out;
+
+    /** Entries written so far. */
+    private final ArrayList<WrittenEntry> entries = new ArrayList<>();
+
+    /** Number of bytes written so far. */
+    private long offset;
+
+    /**
+     * Constructs a writer over an output stream. The stream should be buffered.
+     *
+     * @param out The stream to write to.
+     */
+    public ZipStreamWriter(final OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes an entry whose data is already raw-deflated.
+     *
+     * @param name       Entry name.
+     * @param crc        CRC-32 of the uncompressed data.
+     * @param size       Uncompressed size.
+     * @param compressed Raw deflate data.
+     *
+     * @return Offset of the compressed data within the package.
+     *
+     * @throws IOException Indicates the entry could not be written, or it would exceed the size, offset or entry count
+     *                     limits of a ZIP archive without ZIP64 extensions.
+     */
+    public long writeEntry(final String name, final int crc, final long size, final byte[] compressed) throws IOException {
+        // Sizes & offsets are written as 32-bit fields; larger values would silently corrupt the archive.
+        if (entries.size() >= MAX_ENTRIES)
+            throw new IOException(String.format("Packages are limited to %d entries.", MAX_ENTRIES));
+        if (size > MAX_SIZE || offset > MAX_SIZE)
+            throw new IOException(String.format("\"%s\" does not fit in a package limited to 4 GiB.", name));
+        final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        entries.add(new WrittenEntry(nameBytes, crc, compressed.length, size, offset));
+
+        writeInt(LOCAL_HEADER_SIGNATURE);
+        writeShort(VERSION);
+        writeShort(UTF8_FLAG);
+        writeShort(DEFLATED);
+        writeShort(DOS_TIME);
+        writeShort(DOS_DATE);
+        writeInt(crc);
+        writeInt(compressed.length);
+        writeInt((int) size);
+        writeShort(nameBytes.length);
+        writeShort(0);
+        write(nameBytes);
+
+        final long dataOffset = offset;
+        write(compressed);
+        return dataOffset;
+    }
+
+    /**
+     * Writes the central directory and closes the underlying stream.
+     *
+     * @throws IOException Indicates the central directory could not be written, or it would start or end beyond the
+     *                     4 GiB limit of a ZIP archive without ZIP64 extensions.
+     */
+    @Override
+    public void close() throws IOException {
+        final long centralDirectoryOffset = offset;
+        if (centralDirectoryOffset > MAX_SIZE) {
+            out.close();
+            throw new IOException("Package exceeds the 4 GiB limit.");
+        }
+        for (final WrittenEntry entry : entries) {
+            writeInt(CENTRAL_HEADER_SIGNATURE);
+            writeShort(VERSION);
+            writeShort(VERSION);
+            writeShort(UTF8_FLAG);
+            writeShort(DEFLATED);
+            writeShort(DOS_TIME);
+            writeShort(DOS_DATE);
+            writeInt(entry.crc());
+            writeInt((int) entry.compressedSize());
+            writeInt((int) entry.size());
+            writeShort(entry.name().length);
+            writeShort(0);  // Extra field length.
+            writeShort(0);  // Comment length.
+            writeShort(0);  // Disk number.
+            writeShort(0);  // Internal attributes.
+            writeInt(0);    // External attributes.
+            writeInt((int) entry.headerOffset());
+            write(entry.name());
+        }
+        final long centralDirectorySize = offset - centralDirectoryOffset;
+        if (offset > MAX_SIZE) {
+            out.close();
+            throw new IOException("Package exceeds the 4 GiB limit.");
+        }
+
+        writeInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        writeShort(0);
+        writeShort(0);
+        writeShort(entries.size());
+        writeShort(entries.size());
+        writeInt((int) centralDirectorySize);
+        writeInt((int) centralDirectoryOffset);
+        writeShort(0);
+        out.close();
+    }
+
+    private void write(final byte[] bytes) throws IOException {
+        out.write(bytes);
+        offset += bytes.length;
+    }
+
+    private void writeShort(final int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        offset += 2;
+    }
+
+    private void writeInt(final int value) throws IOException {
+        writeShort(value & 0xFFFF);
+        writeShort((value >>> 16) & 0xFFFF);
+    }
+}
@@ -0,0 +1,305 @@
+package com.psas.report;
+
+import com.psas.cbws.CBWSParseException;
+import com.psas.cbws.ParseLimits;
+import com.psas.cbws.Section;
+import com.psas.cbws.stream.CBWSVisitor;
+import com.psas.cbws.stream.StreamingParser;
+import com.psas.corpus.ScriptSource;
+import com.psas.function.Attribute;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.IntStream;
+
+/**
+ * Reports which function labels & attributes occur across every script in a directory or corpus pack, how often, & with which
+ * values. Unknown labels & unrecognised attribute signatures are counted so reverse engineering can be prioritised.
+ * Scripts are streamed in parallel into per-thread accumulators that are merged at the end.
+ */
+public final class CorpusStats {
+    /** Label reported for functions without a recognisable label. */
+    private static final String UNKNOWN_FUNCTION = "Unknown Function";
+
+    /** Number of most common values listed for each non-numeric attribute. */
+    private static final int TOP_VALUES = 5;
+
+    /** Directory or corpus pack containing the scripts. */
+    private final Path corpus;
+
+    /** Path of the report to write. */
+    private final Path output;
+
+    /** Budgets applied to each script. */
+    private final ParseLimits limits;
+
+    /**
+     * Constructs a statistics report builder.
+     *
+     * @param corpus Directory or corpus pack containing the scripts.
+     * @param output Path of the report to write.
+     * @param limits Budgets applied to each script. Scripts exceeding them are skipped & listed in the report.
+     */
+    public CorpusStats(final Path corpus, final Path output, final ParseLimits limits) {
+        this.corpus = corpus;
+        this.output = output;
+        this.limits = limits;
+    }
+
+    /**
+     * Collects & writes the statistics.
+     *
+     * @throws IOException Indicates the scripts could not be read or the report could not be written.
+     */
+    public void run() throws IOException {
+        final Accumulator stats;
+        try (final ScriptSource scripts = ScriptSource.open(corpus)) {
+            stats = IntStream.range(0, scripts.size()).parallel()
+                    .collect(Accumulator::new, (accumulator, index) -> accumulator.add(scripts, index), Accumulator::merge);
+        }
+        catch (final UncheckedIOException e) { throw e.getCause(); }
+
+        try (final BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            stats.write(writer);
+        }
+        System.out.printf("Wrote statistics for %d scripts (%d functions, %d skipped) to %s%n",
+                stats.scripts, stats.functions, stats.skipped, output);
+    }
+
+    /** A growable list of float values. */
+    private static final class Values {
+        /** The values. Only the first {@link #size} are used. */
+        private float[] values = new float[16];
+
+        /** Number of values. */
+        private int size;
+
+        /**
+         * Adds a value.
+         *
+         * @param value The value.
+         */
+        private void add(final float value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        /**
+         * Adds all values from another list.
+         *
+         * @param other The other list.
+         */
+        private void addAll(final Values other) {
+            if (size + other.size > values.length) values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        /**
+         * Sorts the values & returns the value at a quantile, using the nearest rank.
+         *
+         * @param quantile The quantile, from 0 to 1.
+         *
+         * @return The value.
+         */
+        private float quantile(final double quantile) {
+            Arrays.sort(values, 0, size);
+            return values[(int) Math.min(size - 1, Math.max(0, Math.ceil(quantile * size) - 1))];
+        }
+    }
+
+    /** Statistics of one attribute name. */
+    private static final class AttributeStats {
+        /** Number of occurrences. */
+        private long count;
+
+        /** Number of occurrences whose value is unknown. */
+        private long unknown;
+
+        /** Numeric values. */
+        private final Values numbers = new Values();
+
+        /** Occurrences of each non-numeric value. */
+        private final HashMap<String, Long> values = new HashMap<>();
+
+        /**
+         * Merges another attribute's statistics into these.
+         *
+         * @param other The other statistics.
+         */
+        private void merge(final AttributeStats other) {
+            count += other.count;
+            unknown += other.unknown;
+            numbers.addAll(other.numbers);
+            other.values.forEach((value, count) -> values.merge(value, count, Long::sum));
+        }
+    }
+
+    /** Statistics of part of the corpus. Each thread fills its own accumulator while streaming scripts. */
+    private final class Accumulator implements CBWSVisitor {
+        /** Number of scripts parsed. */
+        private long scripts;
+
+        /** Number of scripts that could not be parsed. */
+        private long skipped;
+
+        /** Number of functions parsed. */
+        private long functions;
+
+        /** Occurrences of each label. */
+        private final HashMap<String, Long> labels = new HashMap<>();
+
+        /** Attribute statistics by attribute name. */
+        private final HashMap<String, AttributeStats> attributes = new HashMap<>();
+
+        /** Number of attributes with an unrecognised signature, by label. */
+        private final HashMap<String, Long> unknownSignatures = new HashMap<>();
+
+        /** Report rows of the scripts that could not be parsed. */
+        private final ArrayList<String> failures = new ArrayList<>();
+
+        /** Label of the function being parsed. */
+        private String label;
+
+        /**
+         * Streams a script into this accumulator.
+         *
+         * @param source The scripts.
+         * @param index  Index of the script.
+         */
+        private void add(final ScriptSource source, final int index) {
+            // Statistics of a script are only kept if the whole script parses.
+            final Accumulator script = new Accumulator();
+            try {
+                limits.checkSize(source.length(index));
+                final StreamingParser parser = new StreamingParser(script, limits);
+                parser.feed(source.contents(index));
+                parser.finish();
+                script.scripts++;
+                merge(script);
+            }
+            catch (final IOException e) { throw new UncheckedIOException(e); }
+            catch (final RuntimeException e) {
+                System.out.println(CBWSParseException.describe(source.name(index), e));
+                final CBWSParseException.Reason reason = e instanceof CBWSParseException parse
+                        ? parse.getReason() : CBWSParseException.Reason.MALFORMED_FUNCTION;
+                final long offset = e instanceof CBWSParseException parse ? parse.getOffset() : -1;
+                failures.add(String.format("%s\t%s\t%d\t%s", source.name(index), reason, offset, e.getMessage()));
+                skipped++;
+            }
+        }
+
+        @Override
+        public void visitFunctionStart(final Section section, final int index, final long offset, final CharSequence label, final byte frame) {
+            this.label = label.toString();
+            labels.merge(this.label, 1L, Long::sum);
+            functions++;
+        }
+
+        @Override
+        public boolean wantsAttributes() {
+            return true;
+        }
+
+        @Override
+        public void visitAttribute(final Section section, final int index, final Attribute attribute) {
+            final AttributeStats stats = attributes.computeIfAbsent(attribute.name(), name -> new AttributeStats());
+            stats.count++;
+            if (attribute.name().equals(Attribute.UNKNOWN)) unknownSignatures.merge(label, 1L, Long::sum);
+
+            if (attribute.isUnknown()) stats.unknown++;
+            else if (attribute instanceof Attribute.FloatValue value) stats.numbers.add(value.floatValue());
+            else stats.values.merge(attribute.value(), 1L, Long::sum);
+        }
+
+        /**
+         * Merges another accumulator into this one.
+         *
+         * @param other The other accumulator.
+         */
+        private void merge(final Accumulator other) {
+            scripts += other.scripts;
+            skipped += other.skipped;
+            functions += other.functions;
+            other.labels.forEach((label, count) -> labels.merge(label, count, Long::sum));
+            other.unknownSignatures.forEach((label, count) -> unknownSignatures.merge(label, count, Long::sum));
+            failures.addAll(other.failures);
+            other.attributes.forEach((name, stats) -> attributes.merge(name, stats, (a, b) -> {
+                a.merge(b);
+                return a;
+            }));
+        }
+
+        /**
+         * Writes the report.
+         *
+         * @param writer The writer.
+         *
+         * @throws IOException Indicates the report could not be written.
+         */
+        private void write(final BufferedWriter writer) throws IOException {
+            writer.write(String.format("# Summary%nscripts\t%d%nskipped\t%d%nfunctions\t%d%nunknown_functions\t%d%n%n",
+                    scripts, skipped, functions, labels.getOrDefault(UNKNOWN_FUNCTION, 0L)));
+
+            writer.write(String.format("# Labels%nlabel\tcount%n"));
+            for (final Map.Entry<String, Long> entry : sortByCount(labels))
+                writer.write(String.format("%s\t%d%n", entry.getKey(), entry.getValue()));
+
+            writer.write(String.format("%n# Unknown attribute signatures%nlabel\tcount%n"));
+            for (final Map.Entry<String, Long> entry : sortByCount(unknownSignatures))
+                writer.write(String.format("%s\t%d%n", entry.getKey(), entry.getValue()));
+
+            final List<String> names = new ArrayList<>(attributes.keySet());
+            names.sort(Comparator.naturalOrder());
+
+            writer.write(String.format("%n# Numeric attributes%nattribute\tcount\tunknown\tmin\tp25\tmedian\tp75\tmax%n"));
+            for (final String name : names) {
+                final AttributeStats stats = attributes.get(name);
+                final Values numbers = stats.numbers;
+                if (numbers.size == 0) continue;
+                writer.write(String.format("%s\t%d\t%d\t%s\t%s\t%s\t%s\t%s%n", name, numbers.size, stats.unknown,
+                        numbers.quantile(0), numbers.quantile(0.25), numbers.quantile(0.5),
+                        numbers.quantile(0.75), numbers.quantile(1)));
+            }
+
+            writer.write(String.format("%n# Other attributes%nattribute\tcount\tunknown\tdistinct\ttop_values%n"));
+            for (final String name : names) {
+                final AttributeStats stats = attributes.get(name);
+                if (stats.values.isEmpty() && stats.numbers.size > 0) continue;
+                final StringJoiner top = new StringJoiner(", ");
+                for (final Map.Entry<String, Long> entry : sortByCount(stats.values).subList(0, Math.min(TOP_VALUES, stats.values.size())))
+                    top.add(String.format("%s (%d)", entry.getKey(), entry.getValue()));
+                writer.write(String.format("%s\t%d\t%d\t%d\t%s%n",
+                        name, stats.count - stats.numbers.size, stats.unknown, stats.values.size(), top));
+            }
+
+            writer.write(String.format("%n# Skipped scripts%nscript\treason\toffset\tmessage%n"));
+            failures.sort(Comparator.naturalOrder());
+            for (final String failure : failures) writer.write(String.format("%s%n", failure));
+        }
+    }
+
+    /**
+     * Returns the entries of a count map, most common first & then by key.
+     *
+     * @param counts The count map.
+     *
+     * @return The sorted entries.
+     */
+    private static List<Map.Entry<String, Long>> sortByCount(final Map<String, Long> counts) {
+        final List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return entries;
+    }
+}
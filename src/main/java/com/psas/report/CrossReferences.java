@@ -0,0 +1,191 @@
+package com.psas.report;
+
+import com.psas.cbws.CBWSParseException;
+import com.psas.cbws.ParseLimits;
+import com.psas.cbws.Section;
+import com.psas.cbws.stream.CBWSVisitor;
+import com.psas.cbws.stream.StreamingParser;
+import com.psas.corpus.ReferenceIndex;
+import com.psas.corpus.ScriptSource;
+import com.psas.function.Attribute;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Builds & queries the {@link ReferenceIndex} of a corpus: which asset names each script references through string
+ * attributes, & which scripts reference each asset. Rebuilding over an existing index only parses scripts whose
+ * content hash changed. Scripts that could not be parsed are stored without a hash, so they are parsed again next time.
+ */
+public final class CrossReferences {
+    /** Default path of the index. */
+    public static final String DEFAULT_INDEX = "corpus-xref.idx";
+
+    /** Hash stored for scripts that could not be parsed. It matches no content hash. */
+    private static final String NO_HASH = "";
+
+    /** Directory or corpus pack containing the scripts. */
+    private final Path corpus;
+
+    /** Path of the index to write. */
+    private final Path output;
+
+    /** Budgets applied to each script. */
+    private final ParseLimits limits;
+
+    /**
+     * Constructs an index builder.
+     *
+     * @param corpus Directory or corpus pack containing the scripts.
+     * @param output Path of the index to write.
+     * @param limits Budgets applied to each script. Scripts exceeding them are indexed without references.
+     */
+    public CrossReferences(final Path corpus, final Path output, final ParseLimits limits) {
+        this.corpus = corpus;
+        this.output = output;
+        this.limits = limits;
+    }
+
+    /**
+     * Builds or updates & writes the index.
+     *
+     * @throws IOException Indicates the scripts could not be read or the index could not be written.
+     */
+    public void run() throws IOException {
+        final ReferenceIndex previous = readPrevious();
+        final AtomicInteger parsed = new AtomicInteger();
+
+        final ReferenceIndex index;
+        try (final ScriptSource scripts = ScriptSource.open(corpus)) {
+            // Reuse references of unchanged scripts & parse the rest in parallel.
+            final List<String> names = new ArrayList<>(scripts.size()), hashes = new ArrayList<>(scripts.size());
+            for (int i = 0; i < scripts.size(); i++) names.add(scripts.name(i));
+            final List<List<ReferenceIndex.Reference>> references = new ArrayList<>(scripts.size());
+            try {
+                hashes.addAll(IntStream.range(0, scripts.size()).parallel().mapToObj(i -> {
+                    try { return scripts.hash(i); }
+                    catch (final IOException e) { throw new UncheckedIOException(e); }
+                }).toList());
+                final List<List<ReferenceIndex.Reference>> found = IntStream.range(0, scripts.size()).parallel().mapToObj(i -> {
+                    if (previous != null && hashes.get(i).equals(previous.hash(names.get(i))))
+                        return previous.referencesFrom(names.get(i));
+                    parsed.incrementAndGet();
+                    return findReferences(scripts, i, limits);
+                }).toList();
+                for (int i = 0; i < found.size(); i++) {
+                    if (found.get(i) == null) hashes.set(i, NO_HASH);
+                    references.add(found.get(i) == null ? List.of() : found.get(i));
+                }
+            }
+            catch (final UncheckedIOException e) { throw e.getCause(); }
+            index = ReferenceIndex.of(names, hashes, references);
+        }
+
+        index.write(output);
+        System.out.printf("Indexed %d references to %d assets from %d scripts (%d parsed, %d reused) to %s%n",
+                index.referenceCount(), index.assetCount(), index.scriptCount(), parsed.get(),
+                index.scriptCount() - parsed.get(), output);
+    }
+
+    /**
+     * Parses a script & collects its string attributes.
+     *
+     * @param scripts The scripts.
+     * @param index   Index of the script to parse.
+     * @param limits  Budgets of the parse.
+     *
+     * @return The script's references, or null if it could not be parsed.
+     */
+    private static List<ReferenceIndex.Reference> findReferences(final ScriptSource scripts, final int index, final ParseLimits limits) {
+        final String name = scripts.name(index);
+        final ArrayList<ReferenceIndex.Reference> references = new ArrayList<>();
+        final CBWSVisitor visitor = new CBWSVisitor() {
+            /** Label of the function being parsed. */
+            private String label;
+
+            @Override
+            public void visitFunctionStart(final Section section, final int index, final long offset, final CharSequence label, final byte frame) {
+                this.label = label.toString();
+            }
+
+            @Override
+            public boolean wantsAttributes() {
+                return true;
+            }
+
+            @Override
+            public void visitAttribute(final Section section, final int index, final Attribute attribute) {
+                if (attribute instanceof Attribute.StringValue value)
+                    references.add(new ReferenceIndex.Reference(name, value.text(), label));
+            }
+        };
+
+        try {
+            limits.checkSize(scripts.length(index));
+            final StreamingParser parser = new StreamingParser(visitor, limits);
+            parser.feed(scripts.contents(index));
+            parser.finish();
+        }
+        catch (final IOException e) { throw new UncheckedIOException(e); }
+        catch (final RuntimeException e) {
+            System.out.println(CBWSParseException.describe(name, e));
+            return null;
+        }
+        return references;
+    }
+
+    /**
+     * Reads the index currently at the output path, if any.
+     *
+     * @return The previous index, or null if there is no readable index.
+     */
+    private ReferenceIndex readPrevious() {
+        if (!Files.isRegularFile(output)) return null;
+        try { return ReferenceIndex.read(output); }
+        catch (final IOException e) {
+            // An unreadable previous index only means every script is parsed again.
+            System.out.printf("Ignoring previous index \"%s\": %s%n", output, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Prints the references of a script, or the scripts referencing an asset.
+     *
+     * @param indexPath Path of the index.
+     * @param name      A script name or an asset name.
+     *
+     * @throws IOException Indicates the index could not be read.
+     */
+    public static void query(final Path indexPath, final String name) throws IOException {
+        final ReferenceIndex index = ReferenceIndex.read(indexPath);
+
+        // A script name lists what the script references & who else references the same assets.
+        if (index.hash(name) != null) {
+            final List<ReferenceIndex.Reference> references = index.referencesFrom(name);
+            System.out.printf("%s references %d assets:%n", name, references.size());
+            for (final ReferenceIndex.Reference reference : references) {
+                final long others = index.referencesTo(reference.asset()).stream()
+                        .map(ReferenceIndex.Reference::script).filter(script -> !script.equals(name)).distinct().count();
+                System.out.printf("    %s (%s), also referenced by %d other scripts%n", reference.asset(), reference.label(), others);
+            }
+            return;
+        }
+
+        // An asset name lists every script that would be affected by renaming it.
+        if (index.containsAsset(name)) {
+            final List<ReferenceIndex.Reference> references = index.referencesTo(name);
+            System.out.printf("\"%s\" is referenced %d times:%n", name, references.size());
+            for (final ReferenceIndex.Reference reference : references)
+                System.out.printf("    %s (%s)%n", reference.script(), reference.label());
+            return;
+        }
+        System.out.printf("\"%s\" is not a script or asset in %s.%n", name, indexPath);
+    }
+}
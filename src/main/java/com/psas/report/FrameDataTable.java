@@ -0,0 +1,227 @@
+package com.psas.report;
+
+import com.psas.cbws.CBWSParseException;
+import com.psas.cbws.CBWSSnapshot;
+import com.psas.cbws.FrameTimeline;
+import com.psas.cbws.ParseLimits;
+import com.psas.cbws.Section;
+import com.psas.corpus.ScriptSource;
+import com.psas.function.Attribute;
+import com.psas.function.Function;
+import com.psas.function.FunctionSchema;
+import com.psas.function.IdDictionary;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+
+/**
+ * Builds a frame data table for every move script in a directory or corpus pack. Scripts are parsed in parallel & each row is cached
+ * by the content hash of its script, so rebuilding the table only parses scripts that changed since the last run. Cache
+ * keys also cover the row format, the function schema & the ID dictionary, which change the rows of unchanged scripts.
+ */
+public final class FrameDataTable {
+    /** Label of the function that enables a hit volume. */
+    private static final String HIT_VOLUME_LABEL = "EnableHitVolume";
+
+    /** Hit volume attributes copied into the table, in column order. */
+    private static final List<String> HIT_VOLUME_ATTRIBUTES = List.of(
+            "Hit Volume Length 1", "Hit Volume Height 1", "Angle", "X Offset", "Y Offset",
+            "Horizontal Knock Back", "Vertical Knock Back", "Hit Reaction", "Guard Break"
+    );
+
+    /** Column header of the table. The path column is written separately from the cached row. */
+    private static final String HEADER = "path\tstartup\tactive\trecovery\tlength\tarmor\thit_volumes\t"
+            + "length\theight\tangle\tx_offset\ty_offset\thorizontal_knock_back\tvertical_knock_back\treaction\tguard_break";
+
+    /** Suffix of the cache file written next to the table. */
+    private static final String CACHE_SUFFIX = ".cache";
+
+    /** Version of the row format. Increment it whenever {@link #computeRow} changes so cached rows are recomputed. */
+    private static final int ROW_VERSION = 2;
+
+    /** Directory or corpus pack containing the move scripts. */
+    private final Path corpus;
+
+    /** Path of the table to write. */
+    private final Path output;
+
+    /** Budgets applied to each script. */
+    private final ParseLimits limits;
+
+    /**
+     * Constructs a frame data table builder.
+     *
+     * @param corpus Directory or corpus pack containing the move scripts.
+     * @param output Path of the table to write.
+     * @param limits Budgets applied to each script. Scripts exceeding them are skipped.
+     */
+    public FrameDataTable(final Path corpus, final Path output, final ParseLimits limits) {
+        this.corpus = corpus;
+        this.output = output;
+        this.limits = limits;
+    }
+
+    /**
+     * Builds & writes the table.
+     *
+     * @throws IOException Indicates the scripts could not be listed or the table could not be written.
+     */
+    public void run() throws IOException {
+        final Path cachePath = output.resolveSibling(output.getFileName() + CACHE_SUFFIX);
+        final Map<String, String> cache = readCache(cachePath);
+        final Map<String, String> usedCache = new ConcurrentHashMap<>();
+        final AtomicInteger parsed = new AtomicInteger();
+        final AtomicInteger cached = new AtomicInteger();
+        final String configuration = sha256Hex(ROW_VERSION + "\n" + FunctionSchema.get().getDigest() + "\n"
+                + IdDictionary.get().getDigest());
+
+        // Compute rows in parallel, reusing cached rows for unchanged scripts. Packs store content hashes, so cached
+        // scripts in a pack are not read at all.
+        final List<String> rows;
+        try (final ScriptSource scripts = ScriptSource.open(corpus)) {
+            rows = IntStream.range(0, scripts.size()).parallel().mapToObj(index -> {
+                final String name = scripts.name(index);
+                try {
+                    // Oversized scripts are skipped before they are read or hashed.
+                    try { limits.checkSize(scripts.length(index)); }
+                    catch (final CBWSParseException e) {
+                        System.out.println(CBWSParseException.describe(name, e));
+                        return null;
+                    }
+
+                    final String key = scripts.hash(index) + '-' + configuration;
+                    String row = cache.get(key);
+                    if (row != null) cached.incrementAndGet();
+                    else {
+                        parsed.incrementAndGet();
+                        final byte[] bytes = scripts.bytes(index);
+                        try { row = computeRow(CBWSSnapshot.parse(corpus.resolve(name).toFile(), bytes, limits)); }
+                        catch (final RuntimeException e) {
+                            System.out.println(CBWSParseException.describe(name, e));
+                            return null;
+                        }
+                    }
+                    usedCache.put(key, row);
+                    return name + '\t' + row;
+                }
+                catch (final IOException e) { throw new UncheckedIOException(e); }
+            }).filter(Objects::nonNull).toList();
+        }
+        catch (final UncheckedIOException e) { throw e.getCause(); }
+
+        try (final BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (final String row : rows) {
+                writer.write(row);
+                writer.newLine();
+            }
+        }
+
+        // Only keep cache entries for scripts that still exist so the cache does not grow without bound.
+        try (final BufferedWriter writer = Files.newBufferedWriter(cachePath, StandardCharsets.UTF_8)) {
+            for (final Map.Entry<String, String> entry : usedCache.entrySet()) {
+                writer.write(entry.getKey() + '\t' + entry.getValue());
+                writer.newLine();
+            }
+        }
+
+        System.out.printf("Wrote frame data for %d moves (%d parsed, %d cached) to %s%n",
+                rows.size(), parsed.get(), cached.get(), output);
+    }
+
+    /**
+     * Computes the table row for a parsed move, excluding the path column.
+     *
+     * @param move The parsed move.
+     *
+     * @return The tab separated row.
+     *
+     * @throws IllegalArgumentException Indicates the timeline is inconsistent, ending before zero or its last active frame.
+     */
+    private static String computeRow(final CBWSSnapshot move) {
+        final FrameTimeline timeline = move.getTimeline();
+        final List<Function> functions = move.getFunctions(Section.INTERMEDIATE);
+
+        // Startup is the first active hit frame, so it agrees with the active windows.
+        final List<FrameTimeline.Interval> active = timeline.getIntervals(FrameTimeline.HIT_VOLUME);
+        final int startup = timeline.getFirstActiveHitFrame();
+        final int firstHitVolume = active.isEmpty() ? -1 : active.get(0).functionIndex();
+
+        // Recovery is counted from the end of the last active window to the final frame.
+        final int lastActiveEnd = active.stream().mapToInt(FrameTimeline.Interval::end).max().orElse(-1);
+        final int length = timeline.getLastFrame();
+        if (length < 0) throw new IllegalArgumentException(String.format("Timeline has a negative length of %d frames.", length));
+        if (length < lastActiveEnd - 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Timeline ends on frame %d, before its last active hit frame %d.", length, lastActiveEnd - 1));
+        }
+        final int recovery = lastActiveEnd < 0 ? -1 : length - lastActiveEnd + 1;
+
+        final StringJoiner row = new StringJoiner("\t");
+        row.add(String.valueOf(startup));
+        row.add(formatWindows(active));
+        row.add(String.valueOf(recovery));
+        row.add(String.valueOf(length));
+        row.add(formatWindows(timeline.getIntervals(FrameTimeline.ARMOR)));
+        row.add(String.valueOf(functions.stream().filter(f -> f.getLabel().equals(HIT_VOLUME_LABEL)).count()));
+
+        // Copy key attributes of the hit volume opening the first active window.
+        for (final String name : HIT_VOLUME_ATTRIBUTES) {
+            String value = "";
+            if (firstHitVolume >= 0) {
+                final List<Attribute> attributes = functions.get(firstHitVolume).getAttributesWithName(name);
+                if (!attributes.isEmpty()) value = attributes.get(0).value();
+            }
+            row.add(value);
+        }
+        return row.toString();
+    }
+
+    /**
+     * Formats intervals as a comma separated list of inclusive frame ranges.
+     *
+     * @param intervals The intervals.
+     *
+     * @return The formatted windows, or "-" if there are none.
+     */
+    private static String formatWindows(final List<FrameTimeline.Interval> intervals) {
+        if (intervals.isEmpty()) return "-";
+        final StringJoiner windows = new StringJoiner(",");
+        for (final FrameTimeline.Interval interval : intervals)
+            windows.add(String.format("%d-%d", interval.start(), interval.end() - 1));
+        return windows.toString();
+    }
+
+    /**
+     * Reads cached rows keyed by script content hash & configuration digest.
+     *
+     * @param cachePath Path of the cache file.
+     *
+     * @return The cached rows, or an empty map if there is no cache.
+     *
+     * @throws IOException Indicates the cache exists but could not be read.
+     */
+    private static Map<String, String> readCache(final Path cachePath) throws IOException {
+        final ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
+        if (!Files.isRegularFile(cachePath)) return cache;
+        for (final String line : Files.readAllLines(cachePath, StandardCharsets.UTF_8)) {
+            final int separator = line.indexOf('\t');
+            if (separator > 0) cache.put(line.substring(0, separator), line.substring(separator + 1));
+        }
+        return cache;
+    }
+}
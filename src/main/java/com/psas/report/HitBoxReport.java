@@ -0,0 +1,108 @@
+package com.psas.report;
+
+import com.psas.cbws.ParseLimits;
+import com.psas.geometry.HitBox;
+import com.psas.geometry.HitBoxIndex;
+import com.psas.geometry.Region;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Indexes the hit boxes of every move in a directory or corpus pack, then either compares the reach of each
+ * character or lists the moves whose hit boxes reach a region.
+ */
+public final class HitBoxReport {
+    /** Column header of the reach table. */
+    private static final String HEADER = "character\tmoves\thit_boxes\tforward_reach\tforward_move\tvertical_reach\tvertical_move";
+
+    /** Order in which matching boxes are printed. */
+    private static final Comparator<HitBox> BY_SCRIPT = Comparator.comparing(HitBox::script).thenComparingInt(HitBox::start);
+
+    /** Directory or corpus pack containing the move scripts. */
+    private final Path corpus;
+
+    /** Path of the reach table to write. */
+    private final Path output;
+
+    /** Budgets applied to each script. */
+    private final ParseLimits limits;
+
+    /**
+     * Constructs a hit box report builder.
+     *
+     * @param corpus Directory or corpus pack containing the move scripts.
+     * @param output Path of the reach table to write.
+     * @param limits Budgets applied to each script. Scripts exceeding them are skipped.
+     */
+    public HitBoxReport(final Path corpus, final Path output, final ParseLimits limits) {
+        this.corpus = corpus;
+        this.output = output;
+        this.limits = limits;
+    }
+
+    /**
+     * Builds the index & writes the reach of each character.
+     *
+     * @throws IOException Indicates the scripts could not be read or the table could not be written.
+     */
+    public void run() throws IOException {
+        final HitBoxIndex index = build();
+        final List<HitBoxIndex.Reach> reaches = index.compareReach();
+        try (final BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (final HitBoxIndex.Reach reach : reaches) {
+                writer.write(String.join("\t", reach.character(), String.valueOf(reach.moves()), String.valueOf(reach.boxes()),
+                        String.valueOf(reach.forward()), reach.forwardScript(), String.valueOf(reach.up()), reach.upScript()));
+                writer.newLine();
+            }
+        }
+        System.out.printf("Wrote the reach of %d characters to %s%n", reaches.size(), output);
+    }
+
+    /**
+     * Builds the index & prints the hit boxes reaching a region.
+     *
+     * @param region The region, in the character's local space facing +X.
+     * @param frame  The absolute frame the boxes must be active on, or a negative value for any frame.
+     *
+     * @throws IOException Indicates the scripts could not be read.
+     */
+    public void query(final Region region, final int frame) throws IOException {
+        final HitBoxIndex index = build();
+
+        final long start = System.nanoTime();
+        final List<HitBox> matches = frame < 0
+                ? index.query(region, 0, Integer.MAX_VALUE)
+                : index.query(region, frame, frame);
+        final long elapsed = System.nanoTime() - start;
+
+        for (final HitBox box : matches.stream().sorted(BY_SCRIPT).toList()) {
+            System.out.printf("%s\tframes %d-%d\tfunction %d\t%s%n",
+                    box.script(), box.start(), box.end() - 1, box.functionIndex(), box.bounds());
+        }
+        System.out.printf("%d hit boxes reach %s%s (%.3f ms)%n", matches.size(), region,
+                frame < 0 ? "" : " on frame " + frame, elapsed / 1e6);
+    }
+
+    /**
+     * Builds the index, reporting its size & build time.
+     *
+     * @return The index.
+     *
+     * @throws IOException Indicates the scripts could not be read.
+     */
+    private HitBoxIndex build() throws IOException {
+        final long start = System.nanoTime();
+        final HitBoxIndex index = HitBoxIndex.build(corpus, limits);
+        System.out.printf("Indexed %d hit boxes covering %s in %d ms%n",
+                index.size(), index.getExtent(), (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+}
@@ -0,0 +1,270 @@
+package com.psas.report;
+
+import com.psas.cbws.CBWSParseException;
+import com.psas.cbws.ParseLimits;
+import com.psas.cbws.Section;
+import com.psas.cbws.stream.CBWSVisitor;
+import com.psas.cbws.stream.StreamingParser;
+import com.psas.corpus.ScriptSource;
+import com.psas.function.Attribute;
+import com.psas.function.FunctionSchema;
+import com.psas.function.IdCategory;
+import com.psas.search.IntSet;
+import com.psas.search.NameHash;
+import org.apache.commons.codec.DecoderException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+import static org.apache.commons.codec.binary.Hex.decodeHex;
+
+/**
+ * Names unknown 4-byte IDs by hashing candidate names. Unknown IDs are collected from every script into a primitive
+ * set: hit reactions missing from the ID dictionary & the IDs at the start of numeric attribute signatures decoded as
+ * Unknown. Candidate names are the function labels & string attributes of the scripts plus any word lists, each tried
+ * as written, in lower case & in upper case. Every candidate is hashed with every selected {@link NameHash} in parallel,
+ * & each hash is checked in both byte orders. Matches are written as ID data file & schema lines.
+ */
+public final class IdNameSearch {
+    /** Schema name of the bytes following the IDs of numeric attribute signatures. */
+    private static final String MARKER = "NUMERICAL_ATTRIBUTE1";
+
+    /** Number of candidates hashed by each parallel task. */
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * An ID that no known name resolves.
+     *
+     * @param id       The ID.
+     * @param category The category of the ID, or null if it starts a numeric attribute signature.
+     * @param count    Number of occurrences.
+     */
+    private record Unknown(int id, IdCategory category, int count) {}
+
+    /**
+     * A candidate name whose hash is an unknown ID.
+     *
+     * @param id       The ID.
+     * @param name     The candidate name.
+     * @param hash     The hash function.
+     * @param reversed Whether the hash matched with its bytes reversed.
+     */
+    private record Match(int id, String name, NameHash hash, boolean reversed) {}
+
+    /**
+     * The unknown IDs & candidate names of one script.
+     *
+     * @param ids        Unknown IDs with their categories, null for signature IDs.
+     * @param candidates Candidate names.
+     */
+    private record ScriptFindings(List<Unknown> ids, List<String> candidates) {}
+
+    /** Directory or corpus pack containing the scripts. */
+    private final Path corpus;
+
+    /** Word lists of additional candidate names, one per line. */
+    private final List<Path> wordLists;
+
+    /** Hash functions to try. */
+    private final List<NameHash> hashes;
+
+    /** Path of the matches to write. */
+    private final Path output;
+
+    /** Budgets applied to each script. */
+    private final ParseLimits limits;
+
+    /**
+     * Constructs an ID name search.
+     *
+     * @param corpus    Directory or corpus pack containing the scripts.
+     * @param wordLists Word lists of additional candidate names, one per line.
+     * @param hashes    Hash functions to try.
+     * @param output    Path of the matches to write.
+     * @param limits    Budgets applied to each script. Scripts exceeding them are skipped & reported.
+     */
+    public IdNameSearch(final Path corpus, final List<Path> wordLists, final List<NameHash> hashes, final Path output,
+                        final ParseLimits limits) {
+        this.corpus = corpus;
+        this.wordLists = wordLists;
+        this.hashes = hashes;
+        this.output = output;
+        this.limits = limits;
+    }
+
+    /**
+     * Collects the unknown IDs & candidate names, hashes every candidate & writes the matches.
+     *
+     * @throws IOException Indicates the scripts or word lists could not be read or the matches could not be written.
+     */
+    public void run() throws IOException {
+        final String markerHex = FunctionSchema.get().getDefinition(MARKER);
+        final byte[] marker = markerHex == null ? new byte[0] : decode(markerHex);
+
+        // Collect the unknown IDs & the strings of every script.
+        final List<ScriptFindings> findings;
+        try (final ScriptSource scripts = ScriptSource.open(corpus)) {
+            findings = IntStream.range(0, scripts.size()).parallel().mapToObj(index -> {
+                try { return collect(scripts, index, marker); }
+                catch (final IOException e) { throw new UncheckedIOException(e); }
+            }).toList();
+        }
+        catch (final UncheckedIOException e) { throw e.getCause(); }
+
+        final HashMap<Integer, Unknown> unknowns = new HashMap<>();
+        final LinkedHashSet<String> names = new LinkedHashSet<>();
+        for (final ScriptFindings script : findings) {
+            for (final Unknown unknown : script.ids()) {
+                unknowns.merge(unknown.id(), unknown, (a, b) -> new Unknown(a.id(), a.category() != null ? a.category() : b.category(), a.count() + b.count()));
+            }
+            names.addAll(script.candidates());
+        }
+        for (final Path wordList : wordLists) {
+            try (final BufferedReader reader = Files.newBufferedReader(wordList, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) if (!line.isBlank()) names.add(line.strip());
+            }
+        }
+        final IntSet ids = new IntSet();
+        for (final int id : unknowns.keySet()) ids.add(id);
+
+        // Pack the candidates & their case variants into one array so hashing reads memory sequentially.
+        final LinkedHashSet<String> variants = new LinkedHashSet<>();
+        for (final String name : names) {
+            variants.add(name);
+            variants.add(name.toLowerCase(Locale.ROOT));
+            variants.add(name.toUpperCase(Locale.ROOT));
+        }
+        final String[] candidates = variants.toArray(String[]::new);
+        final int[] starts = new int[candidates.length + 1];
+        final byte[][] encoded = new byte[candidates.length][];
+        for (int i = 0; i < candidates.length; i++) {
+            encoded[i] = candidates[i].getBytes(StandardCharsets.UTF_8);
+            starts[i + 1] = starts[i] + encoded[i].length;
+        }
+        final byte[] pool = new byte[starts[candidates.length]];
+        for (int i = 0; i < candidates.length; i++) System.arraycopy(encoded[i], 0, pool, starts[i], encoded[i].length);
+
+        final long start = System.nanoTime();
+        final ConcurrentLinkedQueue<Match> matches = new ConcurrentLinkedQueue<>();
+        final NameHash[] functions = hashes.toArray(NameHash[]::new);
+        IntStream.range(0, (candidates.length + CHUNK_SIZE - 1) / CHUNK_SIZE).parallel().forEach(chunk -> {
+            final int end = Math.min(candidates.length, (chunk + 1) * CHUNK_SIZE);
+            for (final NameHash function : functions) {
+                for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                    final int hash = function.hash(pool, starts[i], starts[i + 1]);
+                    if (ids.contains(hash)) matches.add(new Match(hash, candidates[i], function, false));
+                    final int reversed = Integer.reverseBytes(hash);
+                    if (reversed != hash && ids.contains(reversed)) matches.add(new Match(reversed, candidates[i], function, true));
+                }
+            }
+        });
+        final long elapsed = System.nanoTime() - start;
+
+        final List<Match> sorted = new ArrayList<>(matches);
+        sorted.sort(Comparator.comparingInt(Match::id).thenComparing(Match::name).thenComparing(Match::hash));
+        try (final BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(String.format("# Names whose hashes match unknown IDs. Check each before adding it to ids.txt or the function schema.%n"));
+            for (final Match match : sorted) {
+                final Unknown unknown = unknowns.get(match.id());
+                writer.write(String.format("%n# %s%s, %d occurrences%n", match.hash(), match.reversed() ? " (little-endian)" : "", unknown.count()));
+                if (unknown.category() != null)
+                    writer.write(String.format("%s %08X %s%n", unknown.category(), match.id(), match.name()));
+                else
+                    writer.write(String.format("signature %08X00+%s %s%n", match.id(), MARKER, match.name()));
+            }
+        }
+
+        final long hashed = (long) candidates.length * functions.length;
+        System.out.printf("Hashed %d candidates with %d functions against %d unknown IDs in %d ms (%.1f million hashes/s); "
+                        + "found %d matches & wrote them to %s%n",
+                candidates.length, functions.length, ids.size(), elapsed / 1_000_000,
+                hashed / Math.max(1e-9, elapsed / 1e9) / 1e6, sorted.size(), output);
+    }
+
+    /**
+     * Parses a script & collects its unknown IDs & candidate names.
+     *
+     * @param scripts The scripts.
+     * @param script  Index of the script.
+     * @param marker  Bytes following the IDs of numeric attribute signatures, or none if the schema does not define
+     *                them.
+     *
+     * @return The findings, empty if the script could not be parsed.
+     *
+     * @throws IOException Indicates the script could not be read.
+     */
+    private ScriptFindings collect(final ScriptSource scripts, final int script, final byte[] marker) throws IOException {
+        final ArrayList<Unknown> ids = new ArrayList<>();
+        final ArrayList<String> candidates = new ArrayList<>();
+        final byte[] bytes = scripts.bytes(script);
+        final CBWSVisitor visitor = new CBWSVisitor() {
+            /** Offset of the function being parsed. */
+            private int functionOffset;
+
+            @Override
+            public void visitFunctionStart(final Section section, final int index, final long offset, final CharSequence label, final byte frame) {
+                functionOffset = (int) offset;
+                candidates.add(label.toString());
+            }
+
+            @Override
+            public boolean wantsAttributes() {
+                return true;
+            }
+
+            @Override
+            public void visitAttribute(final Section section, final int index, final Attribute attribute) {
+                if (attribute instanceof Attribute.StringValue value) candidates.add(value.text());
+                else if (attribute instanceof Attribute.IdValue value && value.isUnknown()) ids.add(new Unknown(value.id(), value.category(), 1));
+                else if (attribute instanceof Attribute.FloatValue && attribute.name().equals(Attribute.UNKNOWN)) {
+                    // Signatures start with an ID & a null byte before the marker.
+                    final int markerStart = functionOffset + attribute.offset();
+                    if (marker.length == 0 || markerStart < functionOffset + 5 || markerStart + marker.length > bytes.length) return;
+                    for (int i = 0; i < marker.length; i++) if (bytes[markerStart + i] != marker[i]) return;
+                    if (bytes[markerStart - 1] != 0) return;
+                    final int id = (bytes[markerStart - 5] & 0xFF) << 24 | (bytes[markerStart - 4] & 0xFF) << 16
+                            | (bytes[markerStart - 3] & 0xFF) << 8 | bytes[markerStart - 2] & 0xFF;
+                    ids.add(new Unknown(id, null, 1));
+                }
+            }
+        };
+
+        try {
+            limits.checkSize(bytes.length);
+            final StreamingParser parser = new StreamingParser(visitor, limits);
+            parser.feed(bytes, 0, bytes.length);
+            parser.finish();
+        }
+        catch (final RuntimeException e) {
+            System.out.println(CBWSParseException.describe(scripts.name(script), e));
+            return new ScriptFindings(List.of(), List.of());
+        }
+        return new ScriptFindings(ids, candidates);
+    }
+
+    /**
+     * Decodes hex that is known to be valid.
+     *
+     * @param hex The hex.
+     *
+     * @return The bytes.
+     */
+    private static byte[] decode(final String hex) {
+        try { return decodeHex(hex); }
+        catch (final DecoderException e) { throw new IllegalStateException(e); }  // Schema hex is always valid.
+    }
+}
@@ -0,0 +1,205 @@
+package com.psas.report;
+
+import com.psas.cbws.CBWSParseException;
+import com.psas.cbws.ParseLimits;
+import com.psas.cbws.Section;
+import com.psas.cbws.stream.CBWSVisitor;
+import com.psas.cbws.stream.StreamingParser;
+import com.psas.corpus.ScriptSource;
+import com.psas.function.Attribute;
+import com.psas.function.FunctionSchema;
+import com.psas.search.ValueContexts;
+import org.apache.commons.codec.DecoderException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.apache.commons.codec.binary.Hex.decodeHex;
+import static org.apache.commons.codec.binary.Hex.encodeHexString;
+
+/**
+ * Proposes function schema signatures for numeric attributes decoded as Unknown. The bytes preceding every value after
+ * {@link #MARKER} are collected from every script & sorted, then the recurring byte sequences that precede only
+ * unnamed values are written as {@code signature} lines, most frequent first, ready to be named & added to the schema.
+ */
+public final class SignatureDiscovery {
+    /** Schema name of the bytes preceding the values whose names are looked up by signature. */
+    private static final String MARKER = "NUMERICAL_ATTRIBUTE1";
+
+    /** Bytes a signature must add to the marker: a 4-byte ID & a null byte, like the shortest known signatures. */
+    private static final int MIN_ID_LENGTH = 5;
+
+    /** Fewest values a signature must precede to be proposed. */
+    private static final int MIN_COUNT = 2;
+
+    /** Number of labels listed for each candidate. */
+    private static final int TOP_LABELS = 3;
+
+    /** Directory or corpus pack containing the scripts. */
+    private final Path corpus;
+
+    /** Path of the candidate list to write. */
+    private final Path output;
+
+    /** Budgets applied to each script. */
+    private final ParseLimits limits;
+
+    /**
+     * Constructs a signature discovery.
+     *
+     * @param corpus Directory or corpus pack containing the scripts.
+     * @param output Path of the candidate list to write.
+     * @param limits Budgets applied to each script. Scripts exceeding them are skipped & reported.
+     */
+    public SignatureDiscovery(final Path corpus, final Path output, final ParseLimits limits) {
+        this.corpus = corpus;
+        this.output = output;
+        this.limits = limits;
+    }
+
+    /**
+     * Collects the value contexts of every script & writes the candidate signatures.
+     *
+     * @throws IOException Indicates the scripts could not be read or the candidates could not be written.
+     */
+    public void run() throws IOException {
+        final String markerHex = FunctionSchema.get().getDefinition(MARKER);
+        if (markerHex == null) {
+            System.out.printf("The function schema does not define %s.%n", MARKER);
+            return;
+        }
+        final byte[] marker = decode(markerHex);
+
+        final long start = System.nanoTime();
+        final ValueContexts contexts = new ValueContexts();
+        final HashMap<String, Integer> labelIds = new HashMap<>();  // Guarded by itself.
+        final List<String> names;
+        try (final ScriptSource scripts = ScriptSource.open(corpus)) {
+            names = IntStream.range(0, scripts.size()).mapToObj(scripts::name).toList();
+            IntStream.range(0, scripts.size()).parallel().forEach(index -> {
+                try { contexts.addAll(collect(scripts, index, marker, labelIds)); }
+                catch (final IOException e) { throw new UncheckedIOException(e); }
+            });
+        }
+        catch (final UncheckedIOException e) { throw e.getCause(); }
+
+        final String[] labels = new String[labelIds.size()];
+        labelIds.forEach((label, id) -> labels[id] = label);
+        final List<ValueContexts.Candidate> candidates = new ArrayList<>(contexts.findCandidates(marker.length + MIN_ID_LENGTH, MIN_COUNT));
+        candidates.sort(Comparator.comparingInt(ValueContexts.Candidate::count).reversed()
+                .thenComparing(candidate -> encodeHexString(contexts.signature(candidate.first(), candidate.length()), false)));
+
+        int covered = 0;
+        try (final BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(String.format("# Candidate signatures of values decoded as %s, most frequent first.%n", Attribute.UNKNOWN));
+            writer.write(String.format("# Rename each attribute & copy the line into the function schema.%n"));
+            for (final ValueContexts.Candidate candidate : candidates) {
+                covered += candidate.count();
+                final byte[] signature = contexts.signature(candidate.first(), candidate.length());
+                final String prefix = encodeHexString(signature, false).substring(0, (signature.length - marker.length) * 2);
+
+                final HashMap<String, Integer> labelCounts = new HashMap<>();
+                final HashSet<Integer> scriptIndexes = new HashSet<>();
+                for (int i = candidate.first(); i < candidate.first() + candidate.count(); i++) {
+                    labelCounts.merge(labels[contexts.label(i)], 1, Integer::sum);
+                    scriptIndexes.add(contexts.script(i));
+                }
+                final List<String> topLabels = labelCounts.entrySet().stream()
+                        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                        .limit(TOP_LABELS)
+                        .map(entry -> entry.getKey() + " " + entry.getValue())
+                        .toList();
+
+                writer.write(String.format("%n# %d values in %d scripts, e.g. %s; labels: %s%n", candidate.count(),
+                        scriptIndexes.size(), names.get(contexts.script(candidate.first())), String.join(", ", topLabels)));
+                writer.write(String.format("signature %s+%s Attribute %s%n", prefix, MARKER, prefix));
+            }
+        }
+        System.out.printf("Proposed %d signatures covering %d of %d values after %s in %d ms & wrote them to %s%n",
+                candidates.size(), covered, contexts.size(), MARKER, (System.nanoTime() - start) / 1_000_000, output);
+    }
+
+    /**
+     * Parses a script & collects the context of every value after the marker.
+     *
+     * @param scripts  The scripts.
+     * @param script   Index of the script.
+     * @param marker   The marker bytes.
+     * @param labelIds IDs of the labels seen so far, shared by every script.
+     *
+     * @return The contexts of the script, empty if it could not be parsed.
+     *
+     * @throws IOException Indicates the script could not be read.
+     */
+    private ValueContexts collect(final ScriptSource scripts, final int script, final byte[] marker,
+                                  final HashMap<String, Integer> labelIds) throws IOException {
+        final ValueContexts contexts = new ValueContexts();
+        final String name = scripts.name(script);
+        final byte[] bytes = scripts.bytes(script);
+        final CBWSVisitor visitor = new CBWSVisitor() {
+            /** Offset of the function being parsed. */
+            private int functionOffset;
+
+            /** Label ID of the function being parsed. */
+            private int labelId;
+
+            @Override
+            public void visitFunctionStart(final Section section, final int index, final long offset, final CharSequence label, final byte frame) {
+                functionOffset = (int) offset;
+                synchronized (labelIds) {
+                    labelId = labelIds.computeIfAbsent(label.toString(), key -> labelIds.size());
+                }
+            }
+
+            @Override
+            public boolean wantsAttributes() {
+                return true;
+            }
+
+            @Override
+            public void visitAttribute(final Section section, final int index, final Attribute attribute) {
+                if (!(attribute instanceof Attribute.FloatValue)) return;
+                final int markerStart = functionOffset + attribute.offset();
+                if (markerStart + marker.length > bytes.length) return;
+                for (int i = 0; i < marker.length; i++) if (bytes[markerStart + i] != marker[i]) return;
+                contexts.add(bytes, functionOffset, markerStart + marker.length,
+                        !attribute.name().equals(Attribute.UNKNOWN), labelId, script);
+            }
+        };
+
+        try {
+            limits.checkSize(bytes.length);
+            final StreamingParser parser = new StreamingParser(visitor, limits);
+            parser.feed(bytes, 0, bytes.length);
+            parser.finish();
+        }
+        catch (final RuntimeException e) {
+            System.out.println(CBWSParseException.describe(name, e));
+            return new ValueContexts();
+        }
+        return contexts;
+    }
+
+    /**
+     * Decodes hex that is known to be valid.
+     *
+     * @param hex The hex.
+     *
+     * @return The bytes.
+     */
+    private static byte[] decode(final String hex) {
+        try { return decodeHex(hex); }
+        catch (final DecoderException e) { throw new IllegalStateException(e); }  // Schema hex is always valid.
+    }
+}
@@ -0,0 +1,255 @@
+package com.psas.report;
+
+import com.psas.cbws.ParseLimits;
+import com.psas.cbws.Section;
+import com.psas.cbws.stream.CBWSVisitor;
+import com.psas.cbws.stream.StreamingParser;
+import com.psas.corpus.ScriptSource;
+import com.psas.search.BytePattern;
+import com.psas.search.PatternAutomaton;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Searches every script in a directory or corpus pack for a set of byte patterns at once & reports each match with the
+ * function containing it. Scripts are scanned in parallel; only scripts with matches are parsed, to find the functions.
+ */
+public final class SignatureSearch {
+    /** Column header of the match table. */
+    private static final String HEADER = "path\toffset\tsection\tfunction\tlabel\tpattern";
+
+    /** Text written for the section, index & label of matches outside any function. */
+    private static final String NONE = "-";
+
+    /** Order in which the matches of one script are written. */
+    private static final Comparator<Match> BY_OFFSET = Comparator.comparingInt(Match::offset).thenComparingInt(Match::pattern);
+
+    /**
+     * A match of one pattern.
+     *
+     * @param offset   Offset of the first matching byte in the script.
+     * @param pattern  Index of the pattern.
+     * @param section  Section of the function containing the match, or null if it is outside every function.
+     * @param function Index of the function within its section.
+     * @param label    Label of the function.
+     */
+    private record Match(int offset, int pattern, Section section, int function, String label) {}
+
+    /**
+     * Bounds of the functions of a script, in file order.
+     *
+     * @param offsets  Offset of each function.
+     * @param lengths  Length of each function.
+     * @param sections Section of each function.
+     * @param indexes  Index of each function within its section.
+     * @param labels   Label of each function.
+     */
+    private record Functions(int[] offsets, int[] lengths, Section[] sections, int[] indexes, String[] labels) {}
+
+    /** Directory or corpus pack containing the scripts. */
+    private final Path corpus;
+
+    /** Automaton matching every pattern. */
+    private final PatternAutomaton automaton;
+
+    /** Path of the match table to write, or null to print the matches. */
+    private final Path output;
+
+    /** Budgets applied to each script parsed to find its functions. */
+    private final ParseLimits limits;
+
+    /**
+     * Constructs a search.
+     *
+     * @param corpus   Directory or corpus pack containing the scripts.
+     * @param patterns The patterns, as described by {@link BytePattern}.
+     * @param output   Path of the match table to write, or null to print the matches.
+     * @param limits   Budgets applied to each script parsed to find its functions. Matches in scripts exceeding them are
+     *                 reported without a function.
+     *
+     * @throws IllegalArgumentException Indicates a pattern is malformed.
+     */
+    public SignatureSearch(final Path corpus, final List<String> patterns, final Path output, final ParseLimits limits) {
+        this.corpus = corpus;
+        this.automaton = new PatternAutomaton(patterns.stream().map(BytePattern::parse).toList());
+        this.output = output;
+        this.limits = limits;
+    }
+
+    /**
+     * Searches every script & writes the matches.
+     *
+     * @throws IOException Indicates the scripts could not be read or the table could not be written.
+     */
+    public void run() throws IOException {
+        final long start = System.nanoTime();
+        try (final ScriptSource scripts = ScriptSource.open(corpus)) {
+            final List<List<Match>> matches;
+            try {
+                matches = IntStream.range(0, scripts.size()).parallel().mapToObj(index -> {
+                    try { return search(automaton, scripts, index); }
+                    catch (final IOException e) { throw new UncheckedIOException(e); }
+                }).toList();
+            }
+            catch (final UncheckedIOException e) { throw e.getCause(); }
+
+            // Printed matches share System.out, which must stay open.
+            final long[] counts;
+            if (output == null) {
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                counts = write(writer, automaton, scripts, matches);
+                writer.flush();
+            }
+            else {
+                try (final Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                    counts = write(writer, automaton, scripts, matches);
+                }
+            }
+
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                System.out.printf("%d matches of %s%n", counts[i], automaton.pattern(i));
+                total += counts[i];
+            }
+            System.out.printf("Found %d matches in %d scripts in %d ms%s%n", total, scripts.size(),
+                    (System.nanoTime() - start) / 1_000_000, output == null ? "" : " & wrote them to " + output);
+        }
+    }
+
+    /**
+     * Writes the match table.
+     *
+     * @param writer    The writer.
+     * @param automaton The patterns.
+     * @param scripts   The scripts.
+     * @param matches   The matches of each script.
+     *
+     * @return The number of matches of each pattern.
+     *
+     * @throws IOException Indicates the table could not be written.
+     */
+    private static long[] write(final Writer writer, final PatternAutomaton automaton, final ScriptSource scripts,
+                                final List<List<Match>> matches) throws IOException {
+        final long[] counts = new long[automaton.size()];
+        writer.write(HEADER);
+        writer.write('\n');
+        for (int i = 0; i < matches.size(); i++) {
+            for (final Match match : matches.get(i)) {
+                final boolean inFunction = match.section() != null;
+                writer.write(String.join("\t",
+                        scripts.name(i),
+                        String.valueOf(match.offset()),
+                        inFunction ? match.section().toString().toLowerCase() : NONE,
+                        inFunction ? String.valueOf(match.function()) : NONE,
+                        inFunction ? match.label() : NONE,
+                        automaton.pattern(match.pattern()).getText()));
+                writer.write('\n');
+                counts[match.pattern()]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Searches one script.
+     *
+     * @param automaton The patterns.
+     * @param scripts   The scripts.
+     * @param index     Index of the script.
+     *
+     * @return The matches, in offset order.
+     *
+     * @throws IOException Indicates the script could not be read.
+     */
+    private List<Match> search(final PatternAutomaton automaton, final ScriptSource scripts, final int index) throws IOException {
+        final ByteBuffer data = scripts.contents(index).slice();
+        final ArrayList<int[]> found = new ArrayList<>();
+        automaton.search(data, (pattern, offset) -> found.add(new int[]{offset, pattern}));
+        if (found.isEmpty()) return List.of();
+
+        final Functions functions = findFunctions(data);
+        final ArrayList<Match> matches = new ArrayList<>(found.size());
+        for (final int[] hit : found) {
+            final int function = functions == null ? -1 : containing(functions, hit[0]);
+            matches.add(function < 0
+                    ? new Match(hit[0], hit[1], null, -1, null)
+                    : new Match(hit[0], hit[1], functions.sections()[function], functions.indexes()[function], functions.labels()[function]));
+        }
+        matches.sort(BY_OFFSET);
+        return matches;
+    }
+
+    /**
+     * Parses a script to find the bounds of its functions.
+     *
+     * @param data The script contents.
+     *
+     * @return The functions, or null if the script could not be parsed within the budgets.
+     */
+    private Functions findFunctions(final ByteBuffer data) {
+        final ArrayList<Integer> offsets = new ArrayList<>(), lengths = new ArrayList<>(), indexes = new ArrayList<>();
+        final ArrayList<Section> sections = new ArrayList<>();
+        final ArrayList<String> labels = new ArrayList<>();
+        final CBWSVisitor visitor = new CBWSVisitor() {
+            /** Label of the function being parsed. */
+            private String label;
+
+            @Override
+            public void visitFunctionStart(final Section section, final int index, final long offset, final CharSequence label, final byte frame) {
+                this.label = label.toString();
+            }
+
+            @Override
+            public void visitFunctionEnd(final Section section, final int index, final long offset, final int length) {
+                offsets.add((int) offset);
+                lengths.add(length);
+                sections.add(section);
+                indexes.add(index);
+                labels.add(label);
+            }
+        };
+
+        try {
+            limits.checkSize(data.remaining());
+            final StreamingParser parser = new StreamingParser(visitor, limits);
+            parser.feed(data.duplicate());
+            parser.finish();
+        }
+        catch (final RuntimeException e) { return null; }  // The matches are still reported, without functions.
+
+        return new Functions(
+                offsets.stream().mapToInt(Integer::intValue).toArray(),
+                lengths.stream().mapToInt(Integer::intValue).toArray(),
+                sections.toArray(Section[]::new),
+                indexes.stream().mapToInt(Integer::intValue).toArray(),
+                labels.toArray(String[]::new));
+    }
+
+    /**
+     * Finds the function containing an offset.
+     *
+     * @param functions The functions of the script.
+     * @param offset    The offset.
+     *
+     * @return Index of the function in file order, or -1 if the offset is outside every function.
+     */
+    private static int containing(final Functions functions, final int offset) {
+        final int search = Arrays.binarySearch(functions.offsets(), offset);
+        final int function = search >= 0 ? search : -search - 2;
+        if (function < 0 || offset >= functions.offsets()[function] + functions.lengths()[function]) return -1;
+        return function;
+    }
+}
@@ -0,0 +1,108 @@
+package com.psas.report;
+
+import com.psas.cbws.CBWSParseException;
+import com.psas.cbws.CBWSSnapshot;
+import com.psas.cbws.ParseLimits;
+import com.psas.cbws.ScriptRenderer;
+import com.psas.corpus.ScriptSource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+/**
+ * Writes the translated file info of every script in a directory or corpus pack to one text file, as displayed by the
+ * interactive menu. Scripts are parsed & rendered in parallel a batch at a time, then written in order through a single
+ * buffered writer, so memory stays bounded however large the corpus is.
+ */
+public final class TranslationDump {
+    /** Number of scripts rendered in parallel before their text is written. */
+    private static final int BATCH_SIZE = 256;
+
+    /** Size of the output buffer, in characters. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Directory or corpus pack containing the scripts. */
+    private final Path corpus;
+
+    /** Path of the text to write. */
+    private final Path output;
+
+    /** Budgets applied to each script. */
+    private final ParseLimits limits;
+
+    /**
+     * Constructs a translation dump.
+     *
+     * @param corpus Directory or corpus pack containing the scripts.
+     * @param output Path of the text to write.
+     * @param limits Budgets applied to each script. Scripts exceeding them are skipped & reported.
+     */
+    public TranslationDump(final Path corpus, final Path output, final ParseLimits limits) {
+        this.corpus = corpus;
+        this.output = output;
+        this.limits = limits;
+    }
+
+    /**
+     * Renders every script & writes the text.
+     *
+     * @throws IOException Indicates the scripts could not be read or the text could not be written.
+     */
+    public void run() throws IOException {
+        final long start = System.nanoTime();
+        int written = 0;
+        try (final ScriptSource scripts = ScriptSource.open(corpus);
+             final Writer writer = new BufferedWriter(
+                     new OutputStreamWriter(Files.newOutputStream(output), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            for (int batch = 0; batch < scripts.size(); batch += BATCH_SIZE) {
+                final int end = Math.min(scripts.size(), batch + BATCH_SIZE);
+                final String[] texts = IntStream.range(batch, end).parallel().mapToObj(index -> {
+                    try { return render(scripts, index); }
+                    catch (final IOException e) { throw new UncheckedIOException(e); }
+                }).toArray(String[]::new);
+                for (final String text : texts) {
+                    if (text == null) continue;
+                    writer.write(text);
+                    written++;
+                }
+            }
+        }
+        catch (final UncheckedIOException e) { throw e.getCause(); }
+        System.out.printf("Translated %d scripts in %d ms & wrote them to %s%n",
+                written, (System.nanoTime() - start) / 1_000_000, output);
+    }
+
+    /**
+     * Parses & renders a script under a heading naming it.
+     *
+     * @param scripts The scripts.
+     * @param index   Index of the script.
+     *
+     * @return The text, or null if the script could not be parsed.
+     *
+     * @throws IOException Indicates the script could not be read.
+     */
+    private String render(final ScriptSource scripts, final int index) throws IOException {
+        final String name = scripts.name(index);
+        final StringBuilder text = new StringBuilder();
+        try {
+            limits.checkSize(scripts.length(index));
+            final CBWSSnapshot script = CBWSSnapshot.parse(corpus.resolve(name).toFile(), scripts.bytes(index), limits);
+            text.append("== ").append(name).append(System.lineSeparator());
+            new ScriptRenderer(text).renderFileInfo(script);
+            text.append(System.lineSeparator());
+        }
+        catch (final RuntimeException e) {
+            System.out.println(CBWSParseException.describe(name, e));
+            return null;
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,153 @@
+package com.psas.search;
+
+import com.psas.function.FunctionSchema;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A byte sequence to search for, in which some bytes may be wildcards. Patterns are written like schema hex values:
+ * hex & names defined by the {@link FunctionSchema} joined by '+', with {@code ??} matching any byte, e.g.
+ * {@code ????????00+NUMERICAL_ATTRIBUTE1}.
+ * <p>
+ * Matching starts from the pattern's anchor, its longest run of literal bytes, which {@link PatternAutomaton} finds for
+ * every pattern in a single pass. The remaining bytes are only compared where the anchor matched.
+ */
+public final class BytePattern {
+    /** Text written for a wildcard byte. */
+    private static final String WILDCARD = "??";
+
+    /** The pattern as written. */
+    private final String text;
+
+    /** The pattern bytes. Wildcard bytes are 0. */
+    private final byte[] bytes;
+
+    /** Whether each byte must match. */
+    private final boolean[] literal;
+
+    /** Offset of the anchor within the pattern. */
+    private final int anchorStart;
+
+    /** Length of the anchor. */
+    private final int anchorLength;
+
+    /**
+     * Constructs a pattern.
+     *
+     * @param text    The pattern as written.
+     * @param bytes   The pattern bytes. Wildcard bytes are 0.
+     * @param literal Whether each byte must match.
+     */
+    private BytePattern(final String text, final byte[] bytes, final boolean[] literal) {
+        this.text = text;
+        this.bytes = bytes;
+        this.literal = literal;
+
+        int bestStart = 0, bestLength = 0;
+        for (int i = 0; i < literal.length; ) {
+            if (!literal[i]) {
+                i++;
+                continue;
+            }
+            final int start = i;
+            while (i < literal.length && literal[i]) i++;
+            if (i - start > bestLength) {
+                bestStart = start;
+                bestLength = i - start;
+            }
+        }
+        if (bestLength == 0) throw new IllegalArgumentException(String.format("\"%s\" has no literal bytes.", text));
+        anchorStart = bestStart;
+        anchorLength = bestLength;
+    }
+
+    /**
+     * Parses a pattern.
+     *
+     * @param text The pattern text.
+     *
+     * @return The pattern.
+     *
+     * @throws IllegalArgumentException Indicates the text is not a pattern.
+     */
+    public static BytePattern parse(final String text) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ByteArrayOutputStream literal = new ByteArrayOutputStream();
+        for (final String part : text.split("\\+")) {
+            final String definition = FunctionSchema.get().getDefinition(part);
+            final String hex = definition != null ? definition : part.toUpperCase();
+            if (hex.isEmpty() || hex.length() % 2 != 0)
+                throw new IllegalArgumentException(String.format("\"%s\" is neither whole bytes of hex nor a defined name.", part));
+            for (int i = 0; i < hex.length(); i += 2) {
+                if (hex.startsWith(WILDCARD, i)) {
+                    bytes.write(0);
+                    literal.write(0);
+                    continue;
+                }
+                final int high = Character.digit(hex.charAt(i), 16), low = Character.digit(hex.charAt(i + 1), 16);
+                if (high < 0 || low < 0)
+                    throw new IllegalArgumentException(String.format("\"%s\" is neither whole bytes of hex nor a defined name.", part));
+                bytes.write(high << 4 | low);
+                literal.write(1);
+            }
+        }
+
+        final byte[] flags = literal.toByteArray();
+        final boolean[] literals = new boolean[flags.length];
+        for (int i = 0; i < flags.length; i++) literals[i] = flags[i] != 0;
+        return new BytePattern(text, bytes.toByteArray(), literals);
+    }
+
+    /**
+     * Returns the pattern as written.
+     *
+     * @return The pattern text.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the length of the pattern.
+     *
+     * @return The number of bytes matched.
+     */
+    public int length() {
+        return bytes.length;
+    }
+
+    /**
+     * Returns the anchor, the longest run of literal bytes.
+     *
+     * @return A copy of the anchor bytes.
+     */
+    byte[] anchor() {
+        final byte[] anchor = new byte[anchorLength];
+        System.arraycopy(bytes, anchorStart, anchor, 0, anchorLength);
+        return anchor;
+    }
+
+    /**
+     * Checks whether the whole pattern matches around a match of its anchor.
+     *
+     * @param data      The data searched, indexed from 0.
+     * @param anchorEnd Index after the last byte of the anchor match.
+     *
+     * @return The index of the pattern's first byte, or -1 if the pattern does not match there.
+     */
+    int matchAt(final ByteBuffer data, final int anchorEnd) {
+        final int start = anchorEnd - anchorLength - anchorStart;
+        if (start < 0 || start + bytes.length > data.limit()) return -1;
+        for (int i = 0; i < bytes.length; i++) {
+            if (i == anchorStart) i += anchorLength - 1;
+            else if (literal[i] && data.get(start + i) != bytes[i]) return -1;
+        }
+        return start;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
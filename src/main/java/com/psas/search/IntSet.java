@@ -0,0 +1,106 @@
+package com.psas.search;
+
+/**
+ * Set of primitive {@code int}s in an open-addressing hash table, so lookups neither box nor allocate. Once filled, the
+ * set is safe to read from several threads at once.
+ */
+public final class IntSet {
+    /** Value marking a free slot. */
+    private static final int EMPTY = 0;
+
+    /** Slot table. Each slot holds a value, or {@link #EMPTY} if it is free. */
+    private int[] slots;
+
+    /** Whether the set contains {@link #EMPTY}, which cannot be stored in a slot. */
+    private boolean containsEmpty;
+
+    /** Number of values. */
+    private int size;
+
+    /** Constructs an empty set. */
+    public IntSet() {
+        slots = new int[16];
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value.
+     *
+     * @return True if the value was not already in the set.
+     */
+    public boolean add(final int value) {
+        if (value == EMPTY) {
+            if (containsEmpty) return false;
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+
+        // Keep the load factor at or below one half so probe sequences stay short.
+        if ((size + 1) * 2 > slots.length) grow();
+        final int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != EMPTY) {
+            if (slots[slot] == value) return false;
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Returns whether the set contains a value.
+     *
+     * @param value The value.
+     *
+     * @return True if the value is in the set.
+     */
+    public boolean contains(final int value) {
+        if (value == EMPTY) return containsEmpty;
+        final int[] table = slots;
+        final int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (true) {
+            final int stored = table[slot];
+            if (stored == value) return true;
+            if (stored == EMPTY) return false;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return The value count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Doubles the slot table & re-inserts every value. */
+    private void grow() {
+        final int[] old = slots;
+        slots = new int[old.length * 2];
+        final int mask = slots.length - 1;
+        for (final int value : old) {
+            if (value == EMPTY) continue;
+            int slot = hash(value) & mask;
+            while (slots[slot] != EMPTY) slot = (slot + 1) & mask;
+            slots[slot] = value;
+        }
+    }
+
+    /**
+     * Spreads the bits of a value so that similar values land in different slots.
+     *
+     * @param value The value.
+     *
+     * @return The hash.
+     */
+    private static int hash(final int value) {
+        final int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,96 @@
+package com.psas.search;
+
+/**
+ * 32-bit string hash functions that games commonly use to turn names into IDs. Each hashes a range of bytes without
+ * allocating, so millions of candidate names can be hashed per second on each core.
+ */
+public enum NameHash {
+    /** 32-bit FNV-1a. */
+    FNV1A {
+        @Override
+        public int hash(final byte[] bytes, final int from, final int to) {
+            int hash = 0x811C9DC5;
+            for (int i = from; i < to; i++) hash = (hash ^ (bytes[i] & 0xFF)) * 0x01000193;
+            return hash;
+        }
+    },
+
+    /** 32-bit FNV-1. */
+    FNV1 {
+        @Override
+        public int hash(final byte[] bytes, final int from, final int to) {
+            int hash = 0x811C9DC5;
+            for (int i = from; i < to; i++) hash = hash * 0x01000193 ^ (bytes[i] & 0xFF);
+            return hash;
+        }
+    },
+
+    /** CRC-32 as used by zlib. */
+    CRC32 {
+        @Override
+        public int hash(final byte[] bytes, final int from, final int to) {
+            int crc = 0xFFFFFFFF;
+            for (int i = from; i < to; i++) crc = CRC_TABLE[(crc ^ bytes[i]) & 0xFF] ^ (crc >>> 8);
+            return ~crc;
+        }
+    },
+
+    /** Bernstein's djb2, {@code hash * 33 + byte}. */
+    DJB2 {
+        @Override
+        public int hash(final byte[] bytes, final int from, final int to) {
+            int hash = 5381;
+            for (int i = from; i < to; i++) hash = hash * 33 + (bytes[i] & 0xFF);
+            return hash;
+        }
+    },
+
+    /** The sdbm hash, {@code byte + hash * 65599}. */
+    SDBM {
+        @Override
+        public int hash(final byte[] bytes, final int from, final int to) {
+            int hash = 0;
+            for (int i = from; i < to; i++) hash = (bytes[i] & 0xFF) + hash * 65599;
+            return hash;
+        }
+    },
+
+    /** Bob Jenkins' one-at-a-time hash. */
+    JENKINS {
+        @Override
+        public int hash(final byte[] bytes, final int from, final int to) {
+            int hash = 0;
+            for (int i = from; i < to; i++) {
+                hash += bytes[i] & 0xFF;
+                hash += hash << 10;
+                hash ^= hash >>> 6;
+            }
+            hash += hash << 3;
+            hash ^= hash >>> 11;
+            hash += hash << 15;
+            return hash;
+        }
+    };
+
+    /** CRC-32 remainders of each byte value. */
+    private static final int[] CRC_TABLE = new int[256];
+
+    static {
+        for (int n = 0; n < 256; n++) {
+            int c = n;
+            for (int k = 0; k < 8; k++) c = (c & 1) != 0 ? 0xEDB88320 ^ (c >>> 1) : c >>> 1;
+            CRC_TABLE[n] = c;
+        }
+    }
+
+    /**
+     * Hashes a range of bytes.
+     *
+     * @param bytes The bytes.
+     * @param from  Index of the first byte.
+     * @param to    Index after the last byte.
+     *
+     * @return The hash.
+     */
+    public abstract int hash(byte[] bytes, int from, int to);
+}
@@ -0,0 +1,140 @@
+package com.psas.search;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over the anchors of a set of {@link BytePattern}s, so every pattern is searched for in a
+ * single pass over the data whatever the number of patterns. Transitions are stored as a dense table of 256 entries per
+ * state, so each byte costs one array lookup. The automaton is immutable & safe to use from several threads at once.
+ */
+public final class PatternAutomaton {
+    /** Number of possible byte values. */
+    private static final int ALPHABET = 256;
+
+    /** Receives the matches of a search. */
+    @FunctionalInterface
+    public interface MatchConsumer {
+        /**
+         * Receives a match.
+         *
+         * @param pattern Index of the matching pattern.
+         * @param offset  Index of the first matching byte.
+         */
+        void accept(int pattern, int offset);
+    }
+
+    /** The patterns. */
+    private final BytePattern[] patterns;
+
+    /** Next state by state & byte value, as {@code state * 256 + value}. */
+    private final int[] transitions;
+
+    /** Patterns whose anchor ends at each state, including those reached through suffix links. */
+    private final int[][] outputs;
+
+    /**
+     * Builds the automaton.
+     *
+     * @param patterns The patterns to search for.
+     */
+    public PatternAutomaton(final List<BytePattern> patterns) {
+        this.patterns = patterns.toArray(BytePattern[]::new);
+
+        // Build the trie of anchors. State 0 is the root; missing edges are -1 until the links are computed.
+        int capacity = 1;
+        for (final BytePattern pattern : this.patterns) capacity += pattern.anchor().length;
+        final int[] trie = new int[capacity * ALPHABET];
+        Arrays.fill(trie, -1);
+        final ArrayList<List<Integer>> ends = new ArrayList<>();
+        ends.add(new ArrayList<>());
+        int states = 1;
+        for (int p = 0; p < this.patterns.length; p++) {
+            int state = 0;
+            for (final byte b : this.patterns[p].anchor()) {
+                final int edge = state * ALPHABET + (b & 0xFF);
+                if (trie[edge] < 0) {
+                    trie[edge] = states++;
+                    ends.add(new ArrayList<>());
+                }
+                state = trie[edge];
+            }
+            ends.get(state).add(p);
+        }
+
+        // Breadth first, replace missing edges by the transition of the suffix link & inherit its outputs.
+        transitions = Arrays.copyOf(trie, states * ALPHABET);
+        outputs = new int[states][];
+        final int[] links = new int[states];
+        final int[] queue = new int[states];
+        int head = 0, tail = 0;
+        outputs[0] = new int[0];
+        for (int value = 0; value < ALPHABET; value++) {
+            final int next = transitions[value];
+            if (next < 0) transitions[value] = 0;
+            else {
+                links[next] = 0;
+                queue[tail++] = next;
+            }
+        }
+        while (head < tail) {
+            final int state = queue[head++];
+            final int[] own = ends.get(state).stream().mapToInt(Integer::intValue).toArray();
+            final int[] inherited = outputs[links[state]];
+            outputs[state] = Arrays.copyOf(own, own.length + inherited.length);
+            System.arraycopy(inherited, 0, outputs[state], own.length, inherited.length);
+
+            for (int value = 0; value < ALPHABET; value++) {
+                final int edge = state * ALPHABET + value;
+                final int next = transitions[edge];
+                if (next < 0) transitions[edge] = transitions[links[state] * ALPHABET + value];
+                else {
+                    links[next] = transitions[links[state] * ALPHABET + value];
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a pattern.
+     *
+     * @param index Index of the pattern.
+     *
+     * @return The pattern.
+     */
+    public BytePattern pattern(final int index) {
+        return patterns[index];
+    }
+
+    /**
+     * Returns the number of patterns.
+     *
+     * @return The pattern count.
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    /**
+     * Finds every match of every pattern. Overlapping matches are all reported, in order of the byte ending their
+     * anchor.
+     *
+     * @param data     The data to search, from index 0 to its limit.
+     * @param consumer Receives the matches.
+     */
+    public void search(final ByteBuffer data, final MatchConsumer consumer) {
+        final int limit = data.limit();
+        int state = 0;
+        for (int i = 0; i < limit; i++) {
+            state = transitions[state * ALPHABET + (data.get(i) & 0xFF)];
+            final int[] matched = outputs[state];
+            for (final int pattern : matched) {
+                final int start = patterns[pattern].matchAt(data, i + 1);
+                if (start >= 0) consumer.accept(pattern, start);
+            }
+        }
+    }
+}
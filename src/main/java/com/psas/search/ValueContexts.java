@@ -0,0 +1,297 @@
+package com.psas.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The bytes preceding every numeric value of a corpus, sorted so that values preceded by the same bytes are adjacent.
+ * <p>
+ * Each context is stored reversed, starting from the byte just before its value, in one flat array with a fixed stride.
+ * Sorting the contexts builds a sparse suffix array holding only the suffixes aligned on values, since a signature must
+ * end where its value starts. The longest common prefix of neighbouring contexts then gives the tree of shared
+ * signatures without comparing every pair, & {@link #findCandidates} walks that tree from the shortest prefixes down.
+ */
+public final class ValueContexts {
+    /** Maximum number of bytes kept before each value. */
+    public static final int MAX_LENGTH = 64;
+
+    /** Ranges shorter than this are sorted by insertion sort. */
+    private static final int INSERTION_SORT_SIZE = 16;
+
+    /**
+     * A signature shared only by values without a known name.
+     *
+     * @param first  Index of the first context with the signature, in sorted order.
+     * @param count  Number of contexts with the signature.
+     * @param length Length of the signature, in bytes.
+     */
+    public record Candidate(int first, int count, int length) {}
+
+    /** Number of contexts space is first allocated for. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Reversed contexts, {@link #MAX_LENGTH} bytes each. */
+    private byte[] bytes = new byte[MAX_LENGTH * INITIAL_CAPACITY];
+
+    /** Number of bytes kept for each context. */
+    private byte[] lengths = new byte[INITIAL_CAPACITY];
+
+    /** Whether the value of each context has a known name. */
+    private boolean[] known = new boolean[INITIAL_CAPACITY];
+
+    /** Label ID of each context. */
+    private int[] labels = new int[INITIAL_CAPACITY];
+
+    /** Script index of each context. */
+    private int[] scripts = new int[INITIAL_CAPACITY];
+
+    /** Number of contexts. */
+    private int size;
+
+    /** Context indexes in sorted order, or null before {@link #sort()}. */
+    private int[] order;
+
+    /** Longest common prefix of each sorted context & the one before it. */
+    private int[] common;
+
+    /**
+     * Adds the context of a value.
+     *
+     * @param data       Bytes containing the value.
+     * @param from       Index of the first byte that may be part of the context.
+     * @param valueStart Index of the value's first byte.
+     * @param isKnown    Whether the value has a known name.
+     * @param label      Label ID of the function containing the value.
+     * @param script     Index of the script containing the value.
+     */
+    public void add(final byte[] data, final int from, final int valueStart, final boolean isKnown,
+                    final int label, final int script) {
+        ensureCapacity(size + 1);
+        final int length = Math.min(MAX_LENGTH, valueStart - from);
+        for (int i = 0; i < length; i++) bytes[size * MAX_LENGTH + i] = data[valueStart - 1 - i];
+        lengths[size] = (byte) length;
+        known[size] = isKnown;
+        labels[size] = label;
+        scripts[size] = script;
+        size++;
+        order = null;
+    }
+
+    /**
+     * Adds every context of another set, so sets collected by separate threads can be merged.
+     *
+     * @param other The other set.
+     */
+    public synchronized void addAll(final ValueContexts other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.bytes, 0, bytes, size * MAX_LENGTH, other.size * MAX_LENGTH);
+        System.arraycopy(other.lengths, 0, lengths, size, other.size);
+        System.arraycopy(other.known, 0, known, size, other.size);
+        System.arraycopy(other.labels, 0, labels, size, other.size);
+        System.arraycopy(other.scripts, 0, scripts, size, other.size);
+        size += other.size;
+        order = null;
+    }
+
+    /**
+     * Grows the arrays to hold a number of contexts.
+     *
+     * @param capacity The number of contexts.
+     */
+    private void ensureCapacity(final int capacity) {
+        if (capacity <= lengths.length) return;
+        final int grown = Math.max(capacity, lengths.length * 2);
+        bytes = Arrays.copyOf(bytes, grown * MAX_LENGTH);
+        lengths = Arrays.copyOf(lengths, grown);
+        known = Arrays.copyOf(known, grown);
+        labels = Arrays.copyOf(labels, grown);
+        scripts = Arrays.copyOf(scripts, grown);
+    }
+
+    /**
+     * Returns the number of contexts.
+     *
+     * @return The context count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sorts the contexts & computes the common prefix of each sorted neighbour.
+     */
+    public void sort() {
+        order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        sort(0, size, 0);
+
+        common = new int[size];
+        for (int i = 1; i < size; i++) {
+            final int a = order[i - 1], b = order[i];
+            int length = 0;
+            while (key(a, length) >= 0 && key(a, length) == key(b, length)) length++;
+            common[i] = length;
+        }
+    }
+
+    /**
+     * Returns a byte of a context, counting back from its value.
+     *
+     * @param context The context index.
+     * @param depth   Number of bytes between the byte & the value.
+     *
+     * @return The byte value, or -1 past the start of the context.
+     */
+    private int key(final int context, final int depth) {
+        return depth < lengths[context] ? bytes[context * MAX_LENGTH + depth] & 0xFF : -1;
+    }
+
+    /**
+     * Sorts a range of {@link #order} by multikey quicksort, comparing from a depth on.
+     *
+     * @param from  Start of the range.
+     * @param to    End of the range, exclusive.
+     * @param depth Number of bytes known to be equal in every context of the range.
+     */
+    private void sort(final int from, final int to, final int depth) {
+        if (to - from < INSERTION_SORT_SIZE) {
+            insertionSort(from, to, depth);
+            return;
+        }
+
+        // Partition into less than, equal to & greater than the pivot's byte at this depth.
+        final int pivot = key(order[from + (to - from) / 2], depth);
+        int less = from, i = from, greater = to;
+        while (i < greater) {
+            final int value = key(order[i], depth);
+            if (value < pivot) swap(less++, i++);
+            else if (value > pivot) swap(i, --greater);
+            else i++;
+        }
+        sort(from, less, depth);
+        sort(greater, to, depth);
+        if (pivot >= 0) sort(less, greater, depth + 1);  // Contexts ending at this depth are equal.
+    }
+
+    /**
+     * Sorts a small range of {@link #order} by insertion sort, comparing from a depth on.
+     *
+     * @param from  Start of the range.
+     * @param to    End of the range, exclusive.
+     * @param depth Number of bytes known to be equal in every context of the range.
+     */
+    private void insertionSort(final int from, final int to, final int depth) {
+        for (int i = from + 1; i < to; i++)
+            for (int j = i; j > from && compare(order[j - 1], order[j], depth) > 0; j--) swap(j - 1, j);
+    }
+
+    /**
+     * Compares two contexts from a depth on.
+     *
+     * @param a     The first context.
+     * @param b     The second context.
+     * @param depth Number of bytes known to be equal.
+     *
+     * @return A negative, zero or positive value as the first context sorts before, with or after the second.
+     */
+    private int compare(final int a, final int b, final int depth) {
+        for (int i = depth; i < MAX_LENGTH; i++) {
+            final int difference = key(a, i) - key(b, i);
+            if (difference != 0 || key(a, i) < 0) return difference;
+        }
+        return 0;
+    }
+
+    /**
+     * Swaps two entries of {@link #order}.
+     *
+     * @param i The first entry.
+     * @param j The second entry.
+     */
+    private void swap(final int i, final int j) {
+        final int context = order[i];
+        order[i] = order[j];
+        order[j] = context;
+    }
+
+    /**
+     * Finds the shortest signatures shared only by values without a known name. A signature is reported at the
+     * shortest length that sets its values apart from every other value, so adding it to the schema cannot rename a
+     * known value. Signatures contained in a longer reported one are not reported again.
+     *
+     * @param minLength Shortest signature to report, in bytes.
+     * @param minCount  Fewest values a signature must precede to be reported.
+     *
+     * @return The candidates, in sorted context order.
+     */
+    public List<Candidate> findCandidates(final int minLength, final int minCount) {
+        if (order == null) sort();
+        final int[] knownBefore = new int[size + 1];
+        for (int i = 0; i < size; i++) knownBefore[i + 1] = knownBefore[i] + (known[order[i]] ? 1 : 0);
+
+        // Walk the intervals of the common prefix tree from the root, stopping at the first that qualifies.
+        final ArrayList<Candidate> candidates = new ArrayList<>();
+        final ArrayList<int[]> stack = new ArrayList<>();
+        if (size >= minCount && size > 1) stack.add(new int[]{0, size, -1});
+        while (!stack.isEmpty()) {
+            final int[] interval = stack.remove(stack.size() - 1);
+            final int from = interval[0], to = interval[1], parentLength = interval[2];
+
+            int length = Integer.MAX_VALUE;
+            for (int i = from + 1; i < to; i++) length = Math.min(length, common[i]);
+            final int signatureLength = Math.max(parentLength + 1, minLength);
+            if (knownBefore[to] == knownBefore[from] && signatureLength <= length) {
+                candidates.add(new Candidate(from, to - from, signatureLength));
+                continue;
+            }
+
+            // Split where neighbours share only the interval's prefix.
+            int start = from;
+            for (int i = from + 1; i <= to; i++) {
+                if (i < to && common[i] > length) continue;
+                if (i - start >= Math.max(2, minCount)) stack.add(new int[]{start, i, length});
+                start = i;
+            }
+        }
+        candidates.sort((a, b) -> Integer.compare(a.first(), b.first()));
+        return candidates;
+    }
+
+    /**
+     * Returns the first bytes of a sorted context in file order, i.e. the signature of a given length ending at its
+     * value.
+     *
+     * @param position Position of the context in sorted order.
+     * @param length   Number of bytes.
+     *
+     * @return The bytes preceding the value.
+     */
+    public byte[] signature(final int position, final int length) {
+        final byte[] signature = new byte[length];
+        for (int i = 0; i < length; i++) signature[length - 1 - i] = bytes[order[position] * MAX_LENGTH + i];
+        return signature;
+    }
+
+    /**
+     * Returns the label ID of a sorted context.
+     *
+     * @param position Position of the context in sorted order.
+     *
+     * @return The label ID given to {@link #add}.
+     */
+    public int label(final int position) {
+        return labels[order[position]];
+    }
+
+    /**
+     * Returns the script index of a sorted context.
+     *
+     * @param position Position of the context in sorted order.
+     *
+     * @return The script index given to {@link #add}.
+     */
+    public int script(final int position) {
+        return scripts[order[position]];
+    }
+}